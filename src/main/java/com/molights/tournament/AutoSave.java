@@ -0,0 +1,278 @@
+package com.molights.tournament;
+
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Background auto-save of a tournament in the format of
+ * {@link Tournament#saveToFile(String)}.
+ * <p>
+ * Every state change marks the tournament dirty, which costs the thread
+ * applying results one atomic flag update and never waits for I/O. A
+ * daemon thread writes the latest published {@link StandingsSnapshot},
+ * or, when changes have not been published, copies the current state
+ * itself with an optimistic read that gives way to any change in
+ * progress. Either way it saves a consistent state without locking the
+ * tournament, and the copy is made on the writer's thread, not on the
+ * path applying results. Changes arriving faster than the interval are
+ * coalesced: there is at most one write per interval, and it holds the
+ * newest state.
+ * <p>
+ * Each write goes to a temporary file next to the target, is synced to
+ * disk and then renamed over the target, so the file on disk is always a
+ * complete save, old or new.
+ * <p>
+ * Every change made through the tournament is saved, published or not:
+ * individual results, roster changes and edits as well as rounds and
+ * imports. A write that finds a change in progress saves what was
+ * published and tries again after the interval, so the file catches up
+ * once the tournament is idle. {@link #flush()} saves at once.
+ */
+public final class AutoSave implements Closeable {
+
+    public static final long DEFAULT_INTERVAL_MILLIS = 5000;
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final Tournament tournament;
+    private final Path file;
+    private final Path temp;
+    private final long intervalNanos;
+    private final Thread writer;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final Object writeLock = new Object();
+    private volatile boolean closing;
+
+    // Written under writeLock
+    private volatile long savedVersion = -1;
+    private long lastWriteNanos;
+    private volatile long writeCount;
+    private volatile IOException lastError;
+
+    /**
+     * Start auto-saving a tournament with the default interval.
+     *
+     * @param tournament Tournament to save
+     * @param filename File to keep up to date
+     */
+    public AutoSave(Tournament tournament, String filename) {
+        this(tournament, filename, DEFAULT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Start auto-saving a tournament. The current state is written as soon
+     * as the writer starts. Must be called by the thread that changes the
+     * tournament, and not in the middle of a change.
+     *
+     * @param tournament Tournament to save
+     * @param filename File to keep up to date
+     * @param intervalMillis Minimum time between two writes
+     * @throws IllegalArgumentException if an argument is missing or the interval is negative
+     * @throws IllegalStateException if the tournament is already being auto-saved
+     *         or is in the middle of a change
+     */
+    public AutoSave(Tournament tournament, String filename, long intervalMillis) {
+        if (tournament == null) {
+            throw new IllegalArgumentException("Tournament cannot be null");
+        }
+        if (filename == null || filename.trim().isEmpty()) {
+            throw new IllegalArgumentException("Filename cannot be null or empty");
+        }
+        if (intervalMillis < 0) {
+            throw new IllegalArgumentException("Interval cannot be negative");
+        }
+        this.tournament = tournament;
+        this.file = Paths.get(filename).toAbsolutePath();
+        this.temp = file.resolveSibling(file.getFileName() + ".tmp");
+        this.intervalNanos = intervalMillis * 1_000_000L;
+        this.lastWriteNanos = System.nanoTime() - intervalNanos;
+        this.writer = new Thread(this::run, "auto-save " + file.getFileName());
+        writer.setDaemon(true);
+        tournament.attachAutoSave(this);
+        dirty.set(true);
+        writer.start();
+    }
+
+    /**
+     * Called by the tournament on every state change and publication.
+     * Never blocks.
+     */
+    void changed() {
+        if (!dirty.getAndSet(true)) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * @return true if changes are waiting for the next write
+     */
+    public boolean isDirty() {
+        return dirty.get();
+    }
+
+    /**
+     * @return Version of the last snapshot written, or -1 before the first write
+     */
+    public long getSavedVersion() {
+        return savedVersion;
+    }
+
+    /**
+     * @return Number of files written so far
+     */
+    public long getWriteCount() {
+        return writeCount;
+    }
+
+    /**
+     * @return Error of the last failed write, or null if the last write succeeded;
+     *         a failed write is retried after the interval
+     */
+    public IOException getLastError() {
+        return lastError;
+    }
+
+    /**
+     * Publish the current state and write it now, on the calling thread.
+     * Must be called by the thread that changes the tournament.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public void flush() throws IOException {
+        tournament.publishSnapshot();
+        dirty.set(false);
+        write();
+    }
+
+    /**
+     * Stop auto-saving, after writing the latest state if it has not been
+     * saved yet. Must be called by the thread that changes the tournament.
+     *
+     * @throws IOException if the final write fails
+     */
+    @Override
+    public void close() throws IOException {
+        if (closing) {
+            return;
+        }
+        closing = true;
+        tournament.detachAutoSave(this);
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        write();
+    }
+
+    private void run() {
+        while (!closing) {
+            if (!dirty.get()) {
+                LockSupport.park(this);
+                continue;
+            }
+            long wait;
+            synchronized (writeLock) {
+                wait = lastWriteNanos + intervalNanos - System.nanoTime();
+            }
+            if (wait > 0) {
+                // Changes arriving meanwhile are picked up by this write
+                LockSupport.parkNanos(this, wait);
+                continue;
+            }
+            dirty.set(false);
+            try {
+                write();
+            } catch (IOException e) {
+                dirty.set(true);
+            }
+        }
+    }
+
+    /**
+     * Write the current state unless it is already saved. If a change is in
+     * progress, write the latest published snapshot instead and stay dirty,
+     * so the state after the change is written on the next attempt.
+     */
+    private void write() throws IOException {
+        synchronized (writeLock) {
+            StandingsSnapshot snapshot = tournament.captureQuietly();
+            if (snapshot == null) {
+                snapshot = tournament.getPublishedSnapshot();
+                dirty.set(true);
+            }
+            if (snapshot.getVersion() == savedVersion) {
+                return;
+            }
+            lastWriteNanos = System.nanoTime();
+            try {
+                writeFile(snapshot);
+            } catch (IOException e) {
+                lastError = e;
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // The next write replaces it
+                }
+                throw e;
+            }
+            lastError = null;
+            savedVersion = snapshot.getVersion();
+            writeCount++;
+        }
+    }
+
+    private void writeFile(StandingsSnapshot snapshot) throws IOException {
+        FileOutputStream out = new FileOutputStream(temp.toFile());
+        try (ReportWriter writer = new ReportWriter(out, ReportFormat.TEXT)) {
+            writer.line("TOURNAMENT: " + tournament.getName());
+            writer.line("PARTICIPANTS: " + snapshot.getParticipantCount());
+            writer.line("ROUNDS: " + snapshot.getTotalRounds());
+            writer.line("CURRENT_ROUND: " + snapshot.getRound());
+            writer.line("DATE: " + LocalDateTime.now().format(DATE_FORMAT));
+            writer.newLine();
+
+            writer.line("=== PARTICIPANTS ===");
+            writer.writeTextTable(ReportWriter.FILE_PARTICIPANTS, snapshot, snapshot.rosterRanks());
+            writer.newLine();
+
+            int from = 0;
+            for (int round = 1; round <= snapshot.getRound(); round++) {
+                int to = from;
+                while (to < snapshot.getMatchCount() && snapshot.getMatchRound(to) == round) {
+                    to++;
+                }
+                writer.line("=== ROUND " + round + " ===");
+                writer.writeFileMatches(snapshot, from, to);
+                writer.newLine();
+                from = to;
+            }
+
+            boolean complete = snapshot.getTotalRounds() > 0 && snapshot.getRound() >= snapshot.getTotalRounds();
+            writer.line(complete ? "=== FINAL STANDINGS ===" : "=== CURRENT STANDINGS ===");
+            int[] standings = new int[snapshot.getParticipantCount()];
+            for (int i = 0; i < standings.length; i++) {
+                standings[i] = i + 1;
+            }
+            writer.writeTextTable(ReportWriter.FILE_STANDINGS, snapshot, standings);
+            writer.flush();
+            out.getFD().sync();
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
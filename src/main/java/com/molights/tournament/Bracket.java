@@ -0,0 +1,539 @@
+package com.molights.tournament;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Single- or double-elimination knockout bracket.
+ * <p>
+ * The bracket is an implicit tree over a power-of-two number of slots B.
+ * Winners' bracket matches are heap nodes 1..B-1 (node 1 is the final, the
+ * children of node i are 2i and 2i+1); losers' bracket matches follow as
+ * ids B..2B-3, and the grand final and its possible reset are 2B-2 and
+ * 2B-1. Every match id has two entrant slots in one int array, and where
+ * the winner and the loser of a match go is precomputed per id, so
+ * advancing a result and finding the next match are O(1).
+ * <p>
+ * Missing seeds are byes: whoever meets a bye advances without a match.
+ * Knockout matches use the normal {@link Match} class with round numbers,
+ * but are played by fresh copies of the seeded participants, so playoff
+ * results never change the scores of the tournament the seeds came from.
+ * Draws are not allowed.
+ */
+public class Bracket {
+
+    /**
+     * Elimination format.
+     */
+    public enum Type {
+        SINGLE_ELIMINATION,
+        DOUBLE_ELIMINATION
+    }
+
+    // Entrant values besides seed indices
+    private static final int UNKNOWN = -1;
+    private static final int BYE = -2;
+
+    // Destination of the overall winner: slot 0 of the unused id 0
+    private static final int CHAMPION_SLOT = 0;
+    private static final int ELIMINATED = -1;
+
+    private static final double[][] ADVANCE = advanceTable();
+
+    private final String name;
+    private final Type type;
+    private final Participant[] players;
+    private final int size;
+    private final int grandFinal;
+    private final int totalRounds;
+
+    // Per match id: round number and where winner and loser go (2 * id + slot)
+    private final int[] roundOf;
+    private final int[] winTo;
+    private final int[] loseTo;
+    // Match ids in an order where every match comes after those feeding it
+    private final int[] playOrder;
+
+    // Live state: two entrant slots per id, and the winner of each id
+    private final int[] entrants;
+    private final int[] winners;
+
+    private final Map<Match, Integer> idByMatch = new IdentityHashMap<>();
+    private final List<Match> matches = new ArrayList<>();
+    private final ArrayDeque<Match> ready = new ArrayDeque<>();
+
+    private RatingPool ratingPool;
+
+    /**
+     * Creates a bracket and seeds it in the standard order, so that seeds
+     * 1 and 2 can only meet in the final.
+     *
+     * @param name Bracket name
+     * @param type Elimination format
+     * @param seeds Participants, best seed first
+     * @throws IllegalArgumentException if name or type is null or there are fewer than 2 seeds
+     */
+    public Bracket(String name, Type type, List<Participant> seeds) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Bracket name cannot be null or empty");
+        }
+        if (type == null) {
+            throw new IllegalArgumentException("Bracket type cannot be null");
+        }
+        if (seeds == null || seeds.size() < 2) {
+            throw new IllegalArgumentException("A bracket needs at least 2 participants");
+        }
+        this.name = name;
+        this.type = type;
+        this.players = new Participant[seeds.size()];
+        for (int i = 0; i < players.length; i++) {
+            Participant p = seeds.get(i);
+            players[i] = new Participant(p.getId(), p.getName(), p.getStatus());
+        }
+
+        int b = type == Type.DOUBLE_ELIMINATION ? 4 : 2;
+        while (b < players.length) {
+            b <<= 1;
+        }
+        this.size = b;
+        int levels = Integer.numberOfTrailingZeros(size);
+        this.grandFinal = type == Type.DOUBLE_ELIMINATION ? 2 * size - 2 : 0;
+        this.totalRounds = type == Type.DOUBLE_ELIMINATION ? 2 * levels + 1 : levels;
+
+        int ids = 2 * size;
+        this.roundOf = new int[ids];
+        this.winTo = new int[ids];
+        this.loseTo = new int[ids];
+        Arrays.fill(loseTo, ELIMINATED);
+        buildWinnersBracket(levels);
+        if (type == Type.DOUBLE_ELIMINATION) {
+            buildLosersBracket(levels);
+        }
+        this.playOrder = IntStream.range(1, ids)
+                .filter(id -> roundOf[id] > 0)
+                .boxed()
+                .sorted((x, y) -> Integer.compare(roundOf[x], roundOf[y]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        this.entrants = new int[2 * ids];
+        this.winners = new int[ids];
+        Arrays.fill(entrants, UNKNOWN);
+        Arrays.fill(winners, UNKNOWN);
+        int[] order = seedingOrder(size);
+        for (int position = 0; position < size; position++) {
+            int seed = order[position];
+            place(size + position, seed < players.length ? seed : BYE);
+        }
+    }
+
+    /**
+     * Creates a playoff bracket from the top of a tournament's standings.
+     *
+     * @param tournament Qualifying tournament
+     * @param top Number of qualifiers
+     * @param type Elimination format
+     * @return New bracket
+     * @throws IllegalArgumentException if tournament is null or top is out of range
+     */
+    public static Bracket fromStandings(Tournament tournament, int top, Type type) {
+        if (tournament == null) {
+            throw new IllegalArgumentException("Tournament cannot be null");
+        }
+        List<Participant> standings = tournament.getStandings();
+        if (top < 2 || top > standings.size()) {
+            throw new IllegalArgumentException("Top must be between 2 and " + standings.size());
+        }
+        return new Bracket(tournament.getName() + " - Playoff", type, standings.subList(0, top));
+    }
+
+    /**
+     * Winners' bracket: heap nodes, round r holds nodes [B >> r, B >> (r - 1)).
+     */
+    private void buildWinnersBracket(int levels) {
+        boolean doubleElimination = type == Type.DOUBLE_ELIMINATION;
+        for (int r = 1; r <= levels; r++) {
+            int first = size >> r;
+            for (int m = 0; m < first; m++) {
+                int node = first + m;
+                roundOf[node] = doubleElimination ? Math.max(1, 2 * r - 2) : r;
+                if (node > 1) {
+                    winTo[node] = 2 * (node >> 1) + (node & 1);
+                } else {
+                    winTo[node] = doubleElimination ? 2 * grandFinal : CHAMPION_SLOT;
+                }
+                if (doubleElimination) {
+                    if (r == 1) {
+                        loseTo[node] = 2 * losersMatch(1, m >> 1) + (m & 1);
+                    } else {
+                        // Reversed order keeps early rematches apart
+                        loseTo[node] = 2 * losersMatch(2 * (r - 1), first - 1 - m) + 1;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Losers' bracket: 2(levels - 1) rounds. Odd rounds play survivors
+     * against each other; even rounds bring in the losers of the next
+     * winners' round. Played in tournament round j + 1.
+     */
+    private void buildLosersBracket(int levels) {
+        int rounds = 2 * (levels - 1);
+        for (int j = 1; j <= rounds; j++) {
+            int count = losersCount(j);
+            for (int m = 0; m < count; m++) {
+                int id = losersMatch(j, m);
+                roundOf[id] = j + 1;
+                if (j == rounds) {
+                    winTo[id] = 2 * grandFinal + 1;
+                } else if (j % 2 == 1) {
+                    winTo[id] = 2 * losersMatch(j + 1, m);
+                } else {
+                    winTo[id] = 2 * losersMatch(j + 1, m >> 1) + (m & 1);
+                }
+            }
+        }
+        roundOf[grandFinal] = 2 * levels;
+        roundOf[grandFinal + 1] = 2 * levels + 1;
+        winTo[grandFinal + 1] = CHAMPION_SLOT;
+    }
+
+    private int losersCount(int round) {
+        return size >> (2 + (round - 1) / 2);
+    }
+
+    private int losersMatch(int round, int m) {
+        int id = size;
+        for (int j = 1; j < round; j++) {
+            id += losersCount(j);
+        }
+        return id + m;
+    }
+
+    /**
+     * Bracket positions of seeds 0..B-1 such that the seeds of every
+     * first-round pair add up to B - 1.
+     */
+    private static int[] seedingOrder(int size) {
+        int[] order = {0};
+        while (order.length < size) {
+            int n = order.length * 2;
+            int[] next = new int[n];
+            for (int i = 0; i < order.length; i++) {
+                next[2 * i] = order[i];
+                next[2 * i + 1] = n - 1 - order[i];
+            }
+            order = next;
+        }
+        return order;
+    }
+
+    /**
+     * Put an entrant into a slot, resolving byes and opening the match
+     * once both entrants are known.
+     */
+    private void place(int slot, int entrant) {
+        entrants[slot] = entrant;
+        int id = slot >> 1;
+        if (id == 0) {
+            return;
+        }
+        int a = entrants[2 * id];
+        int b = entrants[2 * id + 1];
+        if (a == UNKNOWN || b == UNKNOWN) {
+            return;
+        }
+        if (a == BYE || b == BYE) {
+            decide(id, a == BYE ? 1 : 0);
+            return;
+        }
+        Match match = new Match(players[a], players[b], roundOf[id]);
+        idByMatch.put(match, id);
+        matches.add(match);
+        ready.add(match);
+    }
+
+    /**
+     * Record the winner of a match and move both players on.
+     */
+    private void decide(int id, int winnerSlot) {
+        int winner = entrants[2 * id + winnerSlot];
+        int loser = entrants[2 * id + 1 - winnerSlot];
+        winners[id] = winner;
+        if (id == grandFinal && winnerSlot == 1) {
+            // The losers' bracket champion forces a deciding match
+            place(2 * (grandFinal + 1), loser);
+            place(2 * (grandFinal + 1) + 1, winner);
+            return;
+        }
+        if (id == grandFinal) {
+            entrants[CHAMPION_SLOT] = winner;
+            return;
+        }
+        place(winTo[id], winner);
+        if (loseTo[id] != ELIMINATED) {
+            place(loseTo[id], loser);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return Bracket participants, best seed first
+     */
+    public List<Participant> getSeeds() {
+        return Collections.unmodifiableList(Arrays.asList(players));
+    }
+
+    public int getTotalRounds() {
+        return totalRounds;
+    }
+
+    public List<Match> getMatches() {
+        return Collections.unmodifiableList(matches);
+    }
+
+    /**
+     * Get all matches opened so far in a round.
+     *
+     * @param round Round number
+     * @return Matches of that round
+     */
+    public List<Match> getRoundMatches(int round) {
+        List<Match> roundMatches = new ArrayList<>();
+        for (Match match : matches) {
+            if (match.getRoundNumber() == round) {
+                roundMatches.add(match);
+            }
+        }
+        return roundMatches;
+    }
+
+    /**
+     * Next match waiting for a result, in the order matches were opened.
+     *
+     * @return Next unplayed match, or null if none is ready
+     */
+    public Match nextMatch() {
+        return ready.peek();
+    }
+
+    public RatingPool getRatingPool() {
+        return ratingPool;
+    }
+
+    /**
+     * Use rating-based probabilities in {@link #playOut(long)} and
+     * {@link #simulateOdds(int, long)}. Participants must be registered
+     * in the pool.
+     *
+     * @param ratingPool Pool to use, or null for status-based probabilities
+     */
+    public void setRatingPool(RatingPool ratingPool) {
+        this.ratingPool = ratingPool;
+    }
+
+    /**
+     * Record the result of a match and advance the players.
+     *
+     * @param match Match from this bracket
+     * @param result WIN_PLAYER1 or WIN_PLAYER2
+     * @throws IllegalArgumentException if the match is not in this bracket or the result is not a win
+     * @throws IllegalStateException if the match already has a result
+     */
+    public void setResult(Match match, Match.MatchResult result) {
+        Integer id = match == null ? null : idByMatch.get(match);
+        if (id == null) {
+            throw new IllegalArgumentException("Match does not belong to this bracket");
+        }
+        if (result != Match.MatchResult.WIN_PLAYER1 && result != Match.MatchResult.WIN_PLAYER2) {
+            throw new IllegalArgumentException("Knockout matches must have a winner");
+        }
+        if (match.isPlayed()) {
+            throw new IllegalStateException("Result already recorded for this match");
+        }
+        match.setResult(result);
+        if (ready.peek() == match) {
+            ready.poll();
+        } else {
+            ready.remove(match);
+        }
+        decide(id, result == Match.MatchResult.WIN_PLAYER1 ? 0 : 1);
+    }
+
+    /**
+     * Play every remaining match with simulated results. Each match draws
+     * from its own stream of the seed, so the outcome depends only on the
+     * seed and the results recorded so far.
+     *
+     * @param seed Seed for the simulated results
+     */
+    public void playOut(long seed) {
+        Match match;
+        while ((match = nextMatch()) != null) {
+            int id = idByMatch.get(match);
+            boolean first = Seeds.nextDouble(seed, 0, id) < advanceProbability(entrants[2 * id], entrants[2 * id + 1]);
+            setResult(match, first ? Match.MatchResult.WIN_PLAYER1 : Match.MatchResult.WIN_PLAYER2);
+        }
+    }
+
+    public boolean isComplete() {
+        return entrants[CHAMPION_SLOT] >= 0;
+    }
+
+    /**
+     * @return Bracket winner, or null while the bracket is being played
+     */
+    public Participant getChampion() {
+        return isComplete() ? players[entrants[CHAMPION_SLOT]] : null;
+    }
+
+    /**
+     * Participants ordered by how far they got: the champion first, then
+     * by the round of their last decided match, ties by seed.
+     *
+     * @return Bracket ranking
+     */
+    public List<Participant> getRanking() {
+        int[] reached = new int[players.length];
+        for (int id : playOrder) {
+            if (winners[id] == UNKNOWN) {
+                continue;
+            }
+            for (int slot = 2 * id; slot <= 2 * id + 1; slot++) {
+                if (entrants[slot] >= 0) {
+                    reached[entrants[slot]] = Math.max(reached[entrants[slot]], roundOf[id]);
+                }
+            }
+        }
+        if (isComplete()) {
+            reached[entrants[CHAMPION_SLOT]] = Integer.MAX_VALUE;
+        }
+        List<Participant> ranking = new ArrayList<>(players.length);
+        IntStream.range(0, players.length)
+                .boxed()
+                .sorted((x, y) -> reached[x] != reached[y] ? Integer.compare(reached[y], reached[x]) : Integer.compare(x, y))
+                .forEach(i -> ranking.add(players[i]));
+        return ranking;
+    }
+
+    /**
+     * Estimate every seed's chance of winning the bracket by simulating
+     * the remaining matches, trials in parallel. Results already recorded
+     * are kept. Trial t draws from streams (seed, t, match), so estimates
+     * are reproducible for a given seed regardless of thread count.
+     *
+     * @param trials Number of simulated brackets
+     * @param seed Seed for the simulation
+     * @return Probability of winning per seed, best seed first
+     * @throws IllegalArgumentException if trials is not positive
+     */
+    public double[] simulateOdds(int trials, long seed) {
+        if (trials <= 0) {
+            throw new IllegalArgumentException("Trials must be positive");
+        }
+        long[] titles = IntStream.range(0, trials).parallel().collect(
+                () -> new long[players.length],
+                (counts, trial) -> counts[simulate(trial, seed)]++,
+                (x, y) -> {
+                    for (int i = 0; i < x.length; i++) {
+                        x[i] += y[i];
+                    }
+                });
+        double[] odds = new double[players.length];
+        for (int i = 0; i < odds.length; i++) {
+            odds[i] = (double) titles[i] / trials;
+        }
+        return odds;
+    }
+
+    /**
+     * Play one simulated continuation of the bracket.
+     *
+     * @return Seed index of the simulated champion
+     */
+    private int simulate(int trial, long seed) {
+        int[] slots = entrants.clone();
+        for (int id : playOrder) {
+            if (winners[id] != UNKNOWN) {
+                continue;
+            }
+            int a = slots[2 * id];
+            int b = slots[2 * id + 1];
+            if (a == UNKNOWN || b == UNKNOWN) {
+                // Only the reset, when the grand final did not need one
+                continue;
+            }
+            int winnerSlot;
+            if (a == BYE || b == BYE) {
+                winnerSlot = a == BYE ? 1 : 0;
+            } else {
+                winnerSlot = Seeds.nextDouble(seed, trial, id) < advanceProbability(a, b) ? 0 : 1;
+            }
+            int winner = slots[2 * id + winnerSlot];
+            int loser = slots[2 * id + 1 - winnerSlot];
+            if (id == grandFinal) {
+                if (winnerSlot == 0) {
+                    return winner;
+                }
+                slots[2 * (grandFinal + 1)] = loser;
+                slots[2 * (grandFinal + 1) + 1] = winner;
+                continue;
+            }
+            slots[winTo[id]] = winner;
+            if (loseTo[id] != ELIMINATED) {
+                slots[loseTo[id]] = loser;
+            }
+        }
+        return slots[CHAMPION_SLOT];
+    }
+
+    /**
+     * Chance that the first seed index beats the second. A draw is settled
+     * by an even tie-break, so this is the first player's expected score.
+     */
+    private double advanceProbability(int a, int b) {
+        if (ratingPool != null) {
+            return ratingPool.expectedScore(players[a].getId(), players[b].getId());
+        }
+        return ADVANCE[players[a].getStatus().ordinal()][players[b].getStatus().ordinal()];
+    }
+
+    /**
+     * Expected score of player 1 for every status pairing, from the
+     * status-based result table in {@link Match}.
+     */
+    private static double[][] advanceTable() {
+        ParticipantStatus[] statuses = ParticipantStatus.values();
+        double[][] table = new double[statuses.length][statuses.length];
+        for (ParticipantStatus s1 : statuses) {
+            for (ParticipantStatus s2 : statuses) {
+                double score = 0;
+                for (int roll = 0; roll < 100; roll++) {
+                    Match.MatchResult result = Match.randomResult(s1, s2, roll);
+                    if (result == Match.MatchResult.WIN_PLAYER1) {
+                        score += 1;
+                    } else if (result == Match.MatchResult.DRAW) {
+                        score += 0.5;
+                    }
+                }
+                table[s1.ordinal()][s2.ordinal()] = score / 100;
+            }
+        }
+        return table;
+    }
+}
@@ -0,0 +1,193 @@
+package com.molights.tournament;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Places that are mathematically decided, given the rounds still to play.
+ * <p>
+ * Every participant gets a score interval: its current score, up to that
+ * score plus one point for each game it can still play (its unplayed
+ * match of the current round and every remaining round, or nothing after
+ * a withdrawal). Tiebreaks of games not yet played are unknown, so a tie
+ * is always counted against the participant:
+ * <ul>
+ *   <li>its best place is one more than the number of participants whose
+ *       current score is above its maximum;</li>
+ *   <li>its worst place is one more than the number of other participants
+ *       whose maximum reaches its current score.</li>
+ * </ul>
+ * Both counts come from binary searches over the sorted bounds, so an
+ * analysis costs O(n log n). The bounds treat every participant on its
+ * own; pairings that keep two contenders from both winning out are not
+ * taken into account, so a place reported clinched is certain, while a
+ * place that is in fact decided may still be reported open. In practice a
+ * lead of more than the remaining rounds is needed, which a standard
+ * Swiss rarely produces before its last round.
+ * <p>
+ * The analysis is an immutable copy taken by {@link Tournament#analyzeClinches()}
+ * and holds for the roster at that time; a late entry can change it.
+ */
+public final class ClinchAnalysis {
+
+    private final int round;
+    private final int remainingRounds;
+    // Participants in standings order, scores in half points
+    private final int[] ids;
+    private final int[] minHalfPoints;
+    private final int[] maxHalfPoints;
+    private final int[] bestPlaces;
+    private final int[] worstPlaces;
+    private final IntIntMap indexById;
+    private final int lockedPlaces;
+
+    /**
+     * @param standings Participants in standings order
+     * @param remainingGames Games each participant can still play, parallel to standings
+     */
+    ClinchAnalysis(int round, int remainingRounds, List<Participant> standings, int[] remainingGames) {
+        int n = standings.size();
+        this.round = round;
+        this.remainingRounds = remainingRounds;
+        this.ids = new int[n];
+        this.minHalfPoints = new int[n];
+        this.maxHalfPoints = new int[n];
+        this.bestPlaces = new int[n];
+        this.worstPlaces = new int[n];
+        this.indexById = new IntIntMap(n);
+        for (int i = 0; i < n; i++) {
+            Participant p = standings.get(i);
+            ids[i] = p.getId();
+            minHalfPoints[i] = (int) Math.round(p.getScore() * 2);
+            maxHalfPoints[i] = minHalfPoints[i] + 2 * remainingGames[i];
+            indexById.put(ids[i], i);
+        }
+
+        int[] sortedMin = minHalfPoints.clone();
+        int[] sortedMax = maxHalfPoints.clone();
+        Arrays.sort(sortedMin);
+        Arrays.sort(sortedMax);
+        for (int i = 0; i < n; i++) {
+            bestPlaces[i] = 1 + (n - countAtMost(sortedMin, maxHalfPoints[i]));
+            // The participant's own maximum always reaches its current score
+            worstPlaces[i] = n - countAtMost(sortedMax, minHalfPoints[i] - 1);
+        }
+        this.lockedPlaces = countLockedPlaces();
+    }
+
+    /**
+     * @return Number of values in a sorted array not greater than a limit
+     */
+    private static int countAtMost(int[] sorted, int limit) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= limit) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Places 1..k are locked when each is clinched by the participant
+     * holding it now. Clinched places are disjoint, so walking the
+     * standings from the top finds k.
+     */
+    private int countLockedPlaces() {
+        int k = 0;
+        while (k < ids.length && bestPlaces[k] == k + 1 && worstPlaces[k] == k + 1) {
+            k++;
+        }
+        return k;
+    }
+
+    /**
+     * @return Round the analysis was taken after
+     */
+    public int getRound() {
+        return round;
+    }
+
+    /**
+     * @return Rounds still to be generated
+     */
+    public int getRemainingRounds() {
+        return remainingRounds;
+    }
+
+    public int getParticipantCount() {
+        return ids.length;
+    }
+
+    /**
+     * @return Participant currently holding a place, starting at 1
+     */
+    public int getId(int place) {
+        if (place <= 0 || place > ids.length) {
+            throw new IndexOutOfBoundsException("Place " + place + " out of range");
+        }
+        return ids[place - 1];
+    }
+
+    /**
+     * @return Highest score the participant can still reach
+     */
+    public double getMaxScore(int participantId) {
+        return maxHalfPoints[index(participantId)] * 0.5;
+    }
+
+    /**
+     * @return Best place the participant can still finish in
+     */
+    public int getBestPlace(int participantId) {
+        return bestPlaces[index(participantId)];
+    }
+
+    /**
+     * @return Worst place the participant can still finish in
+     */
+    public int getWorstPlace(int participantId) {
+        return worstPlaces[index(participantId)];
+    }
+
+    /**
+     * @return true if the participant is certain to finish in the given place or better
+     */
+    public boolean hasClinched(int participantId, int place) {
+        return worstPlaces[index(participantId)] <= place;
+    }
+
+    /**
+     * @return true if the participant can no longer finish in the given place or better
+     */
+    public boolean isEliminated(int participantId, int place) {
+        return bestPlaces[index(participantId)] > place;
+    }
+
+    /**
+     * @return The participant's final place if it is decided, or 0
+     */
+    public int getClinchedPlace(int participantId) {
+        int i = index(participantId);
+        return bestPlaces[i] == worstPlaces[i] ? bestPlaces[i] : 0;
+    }
+
+    /**
+     * @return Number of top places, from first down, whose holders are decided
+     */
+    public int getLockedPlaces() {
+        return lockedPlaces;
+    }
+
+    private int index(int participantId) {
+        int i = indexById.get(participantId, -1);
+        if (i < 0) {
+            throw new IllegalArgumentException("Participant with ID " + participantId + " not found");
+        }
+        return i;
+    }
+}
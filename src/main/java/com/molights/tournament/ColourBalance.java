@@ -0,0 +1,79 @@
+package com.molights.tournament;
+
+import java.util.List;
+
+/**
+ * Colour rule for Swiss pairing, with player 1 of a match taking the first
+ * colour. A player whose colour difference has reached +2 or -2, or who
+ * had the same colour in the last two games, must get the other colour
+ * next; two players who must get the same colour are kept apart. The
+ * history gathered while compiling is kept to allocate colours for the
+ * pairs that are made.
+ */
+final class ColourBalance implements PairingConstraint {
+
+    private static final int MUST_FIRST = 1;
+    private static final int MUST_SECOND = 2;
+
+    // Per pairing position: first colours minus second colours, last two colours as bits
+    private int[] difference = new int[0];
+    private int[] lastTwo = new int[0];
+    private int[] games = new int[0];
+
+    @Override
+    public void compile(Tournament tournament, List<Participant> players, int[] codes) {
+        int n = players.size();
+        IntIntMap position = new IntIntMap(n);
+        for (int i = 0; i < n; i++) {
+            position.put(players.get(i).getId(), i + 1);
+        }
+        difference = new int[n];
+        lastTwo = new int[n];
+        games = new int[n];
+        for (Match match : tournament.getMatches()) {
+            if (match.isBye() || !match.isPlayed()) {
+                continue;
+            }
+            played(position.get(match.getPlayer1().getId(), 0) - 1, true);
+            played(position.get(match.getPlayer2().getId(), 0) - 1, false);
+        }
+        for (int i = 0; i < n; i++) {
+            boolean twoFirst = games[i] >= 2 && lastTwo[i] == 3;
+            boolean twoSecond = games[i] >= 2 && lastTwo[i] == 0;
+            if (difference[i] >= 2 || twoFirst) {
+                codes[i] = MUST_SECOND;
+            } else if (difference[i] <= -2 || twoSecond) {
+                codes[i] = MUST_FIRST;
+            } else {
+                codes[i] = 0;
+            }
+        }
+    }
+
+    private void played(int i, boolean first) {
+        if (i < 0) {
+            return;
+        }
+        difference[i] += first ? 1 : -1;
+        lastTwo[i] = ((lastTwo[i] << 1) | (first ? 1 : 0)) & 3;
+        games[i]++;
+    }
+
+    /**
+     * Whether the player at pairing position a should take the first
+     * colour against the player at position b: the lower colour
+     * difference gets it, then whoever last had the second colour, then
+     * the higher-ranked player.
+     */
+    boolean firstColour(int a, int b) {
+        if (difference[a] != difference[b]) {
+            return difference[a] < difference[b];
+        }
+        boolean aLastSecond = games[a] > 0 && (lastTwo[a] & 1) == 0;
+        boolean bLastSecond = games[b] > 0 && (lastTwo[b] & 1) == 0;
+        if (aLastSecond != bLastSecond) {
+            return aLastSecond;
+        }
+        return a < b;
+    }
+}
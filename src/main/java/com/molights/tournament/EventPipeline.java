@@ -0,0 +1,356 @@
+package com.molights.tournament;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs an event as ordered stages, for example Swiss qualifiers, then a
+ * group stage or knockout, then finals.
+ * <p>
+ * Every section (an age division, a rating class) plays the same stages
+ * with its own entrants. Within a section the ranking of a finished stage
+ * is handed straight to the next stage as its seeding, with no export or
+ * re-import; sections are independent and run concurrently on separate
+ * threads. Each stage plays with fresh copies of its entrants, so the
+ * tournaments and brackets of earlier stages keep their full history.
+ */
+public class EventPipeline {
+
+    /**
+     * One stage of the pipeline.
+     */
+    public interface Stage {
+        String getName();
+
+        /**
+         * Play the stage to completion.
+         *
+         * @param title Title for the tournaments or brackets of this stage
+         * @param entrants Entrants in seeding order
+         * @param seed Seed for simulated results
+         * @return Played stage
+         */
+        StageResult play(String title, List<Participant> entrants, long seed);
+    }
+
+    /**
+     * Outcome of one stage in one section.
+     */
+    public static final class StageResult {
+        private final String name;
+        private final List<Participant> ranking;
+        private final int advancing;
+        private final List<Tournament> tournaments;
+        private final Bracket bracket;
+
+        public StageResult(String name, List<Participant> ranking, int advancing,
+                           List<Tournament> tournaments, Bracket bracket) {
+            this.name = name;
+            this.ranking = Collections.unmodifiableList(new ArrayList<>(ranking));
+            this.advancing = Math.min(advancing, ranking.size());
+            this.tournaments = tournaments == null ? Collections.emptyList() : Collections.unmodifiableList(tournaments);
+            this.bracket = bracket;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return Every entrant of the stage, best first
+         */
+        public List<Participant> getRanking() {
+            return ranking;
+        }
+
+        /**
+         * @return Entrants passed on to the next stage
+         */
+        public List<Participant> getAdvancing() {
+            return ranking.subList(0, advancing);
+        }
+
+        /**
+         * @return Tournaments played in this stage (empty for a knockout)
+         */
+        public List<Tournament> getTournaments() {
+            return tournaments;
+        }
+
+        /**
+         * @return Bracket of a knockout stage, otherwise null
+         */
+        public Bracket getBracket() {
+            return bracket;
+        }
+    }
+
+    /**
+     * Outcome of all stages in one section.
+     */
+    public static final class SectionResult {
+        private final String name;
+        private final List<StageResult> stages;
+
+        private SectionResult(String name, List<StageResult> stages) {
+            this.name = name;
+            this.stages = Collections.unmodifiableList(stages);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<StageResult> getStages() {
+            return stages;
+        }
+
+        /**
+         * @return Ranking of the last stage
+         */
+        public List<Participant> getFinalRanking() {
+            return stages.get(stages.size() - 1).getRanking();
+        }
+
+        public Participant getWinner() {
+            return getFinalRanking().get(0);
+        }
+    }
+
+    private final String name;
+    private final List<Stage> stages = new ArrayList<>();
+    private final List<String> sectionNames = new ArrayList<>();
+    private final List<List<Participant>> sectionEntrants = new ArrayList<>();
+
+    public EventPipeline(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Event name cannot be null or empty");
+        }
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Append a stage. Stages are played in the order they are added.
+     *
+     * @param stage Stage to add
+     * @throws IllegalArgumentException if stage is null
+     */
+    public void addStage(Stage stage) {
+        if (stage == null) {
+            throw new IllegalArgumentException("Stage cannot be null");
+        }
+        stages.add(stage);
+    }
+
+    /**
+     * Add a section that plays every stage with its own entrants.
+     *
+     * @param sectionName Section name
+     * @param entrants Entrants in seeding order
+     * @throws IllegalArgumentException if name is empty, already used, or there are fewer than 2 entrants
+     */
+    public void addSection(String sectionName, List<Participant> entrants) {
+        if (sectionName == null || sectionName.trim().isEmpty()) {
+            throw new IllegalArgumentException("Section name cannot be null or empty");
+        }
+        if (sectionNames.contains(sectionName)) {
+            throw new IllegalArgumentException("Section " + sectionName + " already exists");
+        }
+        if (entrants == null || entrants.size() < 2) {
+            throw new IllegalArgumentException("A section needs at least 2 entrants");
+        }
+        sectionNames.add(sectionName);
+        sectionEntrants.add(new ArrayList<>(entrants));
+    }
+
+    public List<Stage> getStages() {
+        return Collections.unmodifiableList(stages);
+    }
+
+    /**
+     * Play every section through all stages, sections concurrently.
+     * Stage s of section i draws from Seeds.stream(seed, i + 1, s), so
+     * the outcome depends only on the seed.
+     *
+     * @param seed Seed for simulated results
+     * @return Section results in the order sections were added
+     * @throws IllegalStateException if there are no stages or no sections
+     */
+    public List<SectionResult> run(long seed) {
+        if (stages.isEmpty() || sectionNames.isEmpty()) {
+            throw new IllegalStateException("Pipeline needs at least one stage and one section");
+        }
+        int threads = Math.min(sectionNames.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<CompletableFuture<SectionResult>> futures = new ArrayList<>(sectionNames.size());
+            for (int i = 0; i < sectionNames.size(); i++) {
+                int section = i;
+                futures.add(CompletableFuture.supplyAsync(() -> runSection(section, seed), executor));
+            }
+            List<SectionResult> results = new ArrayList<>(futures.size());
+            for (CompletableFuture<SectionResult> future : futures) {
+                results.add(future.join());
+            }
+            return results;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private SectionResult runSection(int section, long seed) {
+        String sectionName = sectionNames.get(section);
+        List<Participant> entrants = sectionEntrants.get(section);
+        List<StageResult> results = new ArrayList<>(stages.size());
+        for (int s = 0; s < stages.size(); s++) {
+            Stage stage = stages.get(s);
+            if (entrants.size() < 2) {
+                throw new IllegalStateException("Stage " + stage.getName() + " of " + sectionName
+                        + " has fewer than 2 entrants");
+            }
+            String title = name + " - " + sectionName + " - " + stage.getName();
+            StageResult result = stage.play(title, entrants, Seeds.stream(seed, section + 1, s));
+            results.add(result);
+            entrants = result.getAdvancing();
+        }
+        return new SectionResult(sectionName, results);
+    }
+
+    /**
+     * Swiss stage.
+     *
+     * @param name Stage name
+     * @param advancing Number of entrants passed on
+     * @return New stage
+     */
+    public static Stage swiss(String name, int advancing) {
+        return tournamentStage(name, TournamentFormat.SWISS, advancing);
+    }
+
+    /**
+     * Single-table round robin, typically for finals.
+     *
+     * @param name Stage name
+     * @param format ROUND_ROBIN or DOUBLE_ROUND_ROBIN
+     * @param advancing Number of entrants passed on
+     * @return New stage
+     */
+    public static Stage roundRobin(String name, TournamentFormat format, int advancing) {
+        if (format == TournamentFormat.SWISS) {
+            throw new IllegalArgumentException("Use swiss() for Swiss stages");
+        }
+        return tournamentStage(name, format, advancing);
+    }
+
+    /**
+     * Group stage; its ranking lists all group winners, then all
+     * runners-up, and so on.
+     *
+     * @param name Stage name
+     * @param groupCount Number of groups
+     * @param perGroup Qualifiers from each group
+     * @param format ROUND_ROBIN or DOUBLE_ROUND_ROBIN
+     * @return New stage
+     */
+    public static Stage groups(String name, int groupCount, int perGroup, TournamentFormat format) {
+        checkStage(name, perGroup);
+        return new Stage() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public StageResult play(String title, List<Participant> entrants, long seed) {
+                GroupStage stage = new GroupStage(title, copies(entrants), groupCount, format);
+                stage.simulate(seed);
+                return new StageResult(name, stage.getQualifiers(entrants.size()), perGroup * groupCount,
+                                       stage.getGroups(), null);
+            }
+        };
+    }
+
+    /**
+     * Knockout stage.
+     *
+     * @param name Stage name
+     * @param type Elimination format
+     * @param advancing Number of entrants passed on
+     * @return New stage
+     */
+    public static Stage knockout(String name, Bracket.Type type, int advancing) {
+        checkStage(name, advancing);
+        return new Stage() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public StageResult play(String title, List<Participant> entrants, long seed) {
+                Bracket bracket = new Bracket(title, type, entrants);
+                bracket.playOut(seed);
+                return new StageResult(name, bracket.getRanking(), advancing, null, bracket);
+            }
+        };
+    }
+
+    private static Stage tournamentStage(String name, TournamentFormat format, int advancing) {
+        checkStage(name, advancing);
+        return new Stage() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public StageResult play(String title, List<Participant> entrants, long seed) {
+                Tournament tournament = new Tournament(title);
+                tournament.setLogging(false);
+                tournament.setFormat(format);
+                tournament.setSeed(seed);
+                for (Participant p : copies(entrants)) {
+                    tournament.addParticipant(p);
+                }
+                tournament.startTournament();
+                while (!tournament.isComplete()) {
+                    tournament.generateNextRound();
+                    tournament.autoGenerateRoundResults();
+                }
+                return new StageResult(name, tournament.getStandings(), advancing,
+                                       Collections.singletonList(tournament), null);
+            }
+        };
+    }
+
+    private static void checkStage(String name, int advancing) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Stage name cannot be null or empty");
+        }
+        if (advancing < 1) {
+            throw new IllegalArgumentException("At least one entrant must advance");
+        }
+    }
+
+    private static List<Participant> copies(List<Participant> entrants) {
+        List<Participant> copies = new ArrayList<>(entrants.size());
+        for (Participant p : entrants) {
+            copies.add(new Participant(p.getId(), p.getName(), p.getStatus()));
+        }
+        return copies;
+    }
+}
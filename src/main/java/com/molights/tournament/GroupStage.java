@@ -0,0 +1,148 @@
+package com.molights.tournament;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Group stage: participants are snake-seeded into groups and each group
+ * plays its own round-robin tournament. Groups share no participants, so
+ * they are scheduled and simulated concurrently.
+ */
+public class GroupStage {
+
+    private final String name;
+    private final List<Tournament> groups;
+
+    /**
+     * Creates a group stage. Participants are dealt in the given order
+     * (strongest first) as A, B, C, C, B, A, A, B, ... so each group gets a
+     * comparable spread of seeds.
+     *
+     * @param name Stage name; groups are named after it
+     * @param participants Participants in seeding order
+     * @param groupCount Number of groups
+     * @param format ROUND_ROBIN or DOUBLE_ROUND_ROBIN
+     * @throws IllegalArgumentException if a group would have fewer than 2 participants
+     *                                  or the format is not a round robin
+     */
+    public GroupStage(String name, List<Participant> participants, int groupCount, TournamentFormat format) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Stage name cannot be null or empty");
+        }
+        if (format == null || format == TournamentFormat.SWISS) {
+            throw new IllegalArgumentException("Group stages must use a round-robin format");
+        }
+        if (groupCount <= 0 || participants == null || participants.size() < 2 * groupCount) {
+            throw new IllegalArgumentException("Every group needs at least 2 participants");
+        }
+        this.name = name;
+        this.groups = new ArrayList<>(groupCount);
+        for (int g = 0; g < groupCount; g++) {
+            Tournament group = new Tournament(name + " - Group " + groupLabel(g));
+            group.setLogging(false);
+            group.setFormat(format);
+            groups.add(group);
+        }
+        for (int i = 0; i < participants.size(); i++) {
+            int pass = i / groupCount;
+            int offset = i % groupCount;
+            int g = pass % 2 == 0 ? offset : groupCount - 1 - offset;
+            groups.get(g).addParticipant(participants.get(i));
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getGroupCount() {
+        return groups.size();
+    }
+
+    public Tournament getGroup(int index) {
+        return groups.get(index);
+    }
+
+    public List<Tournament> getGroups() {
+        return Collections.unmodifiableList(groups);
+    }
+
+    /**
+     * Start every group that has not started yet.
+     */
+    public void start() {
+        for (Tournament group : groups) {
+            if (group.getTotalRounds() == 0) {
+                group.startTournament();
+            }
+        }
+    }
+
+    /**
+     * Play out every remaining round of every group with simulated results,
+     * all groups in parallel. Group g draws its results from the streams
+     * of Seeds.mix(seed + g), so the outcome depends only on the seed.
+     *
+     * @param seed Master seed for the stage
+     */
+    public void simulate(long seed) {
+        start();
+        IntStream.range(0, groups.size()).parallel().forEach(g -> {
+            Tournament group = groups.get(g);
+            long groupSeed = Seeds.mix(seed + g);
+            while (!group.isComplete()) {
+                group.generateNextRound();
+                group.generateRoundResultsBatch(groupSeed);
+            }
+        });
+    }
+
+    /**
+     * @return true if every group has played all its rounds
+     */
+    public boolean isComplete() {
+        for (Tournament group : groups) {
+            if (!group.isComplete()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Top finishers of every group, ordered by place and then by group:
+     * all group winners first, then all runners-up, and so on.
+     *
+     * @param perGroup Number of qualifiers from each group
+     * @return Qualified participants
+     * @throws IllegalArgumentException if perGroup is negative
+     */
+    public List<Participant> getQualifiers(int perGroup) {
+        if (perGroup < 0) {
+            throw new IllegalArgumentException("Qualifiers per group cannot be negative");
+        }
+        List<List<Participant>> standings = new ArrayList<>(groups.size());
+        for (Tournament group : groups) {
+            standings.add(group.getStandings());
+        }
+        List<Participant> qualifiers = new ArrayList<>(perGroup * groups.size());
+        for (int place = 0; place < perGroup; place++) {
+            for (List<Participant> table : standings) {
+                if (place < table.size()) {
+                    qualifiers.add(table.get(place));
+                }
+            }
+        }
+        return qualifiers;
+    }
+
+    private static String groupLabel(int index) {
+        StringBuilder label = new StringBuilder();
+        for (int i = index; i >= 0; i = i / 26 - 1) {
+            label.insert(0, (char) ('A' + i % 26));
+        }
+        return label.toString();
+    }
+}
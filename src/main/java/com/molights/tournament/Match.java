@@ -1,6 +1,6 @@
 package com.molights.tournament;
 
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Represents a match between two participants in a Swiss tournament.
@@ -23,6 +23,12 @@ public class Match {
     private MatchResult result;
     private int roundNumber;
     private boolean isBye;
+    private Tournament tournament;
+    
+    // Clock: start and deadline in epoch milliseconds, 0 when not clocked
+    private long startTime;
+    private long deadline;
+    private boolean forfeit;
     
     /**
      * Creates a regular match between two players.
@@ -85,6 +91,44 @@ public class Match {
         return isBye;
     }
     
+    public long getStartTime() {
+        return startTime;
+    }
+    
+    public long getDeadline() {
+        return deadline;
+    }
+    
+    /**
+     * @return true if the current result was decided by a missed deadline
+     */
+    public boolean isForfeit() {
+        return forfeit;
+    }
+    
+    /**
+     * Record when the match started and when it must be finished.
+     */
+    void startClock(long startTime, long deadline) {
+        this.startTime = startTime;
+        this.deadline = deadline;
+    }
+    
+    /**
+     * Mark the current result as a forfeit.
+     */
+    void markForfeit() {
+        this.forfeit = true;
+    }
+    
+    /**
+     * Attach this match to the tournament that owns it, so that result
+     * changes are reflected in the tournament's state version.
+     */
+    void setTournament(Tournament tournament) {
+        this.tournament = tournament;
+    }
+    
     /**
      * Generate random result based on probability distribution considering participant status:
      * <ul>
@@ -93,6 +137,8 @@ public class Match {
      *   <li>HIGH-MEDIUM: 50% high / 35% medium / 15% draw</li>
      *   <li>MEDIUM-LOW: 50% medium / 35% low / 15% draw</li>
      * </ul>
+     * When the owning tournament has a {@link RatingPool}, rating-based
+     * probabilities from the pool are used instead.
      * 
      * @throws IllegalStateException if this is a BYE match
      */
@@ -101,12 +147,26 @@ public class Match {
             throw new IllegalStateException("Cannot generate random result for BYE match");
         }
         
-        Random random = new Random();
-        int outcome = random.nextInt(100); // 0-99
-        
-        ParticipantStatus status1 = player1.getStatus();
-        ParticipantStatus status2 = player2.getStatus();
-        
+        RatingPool pool = tournament == null ? null : tournament.getRatingPool();
+        if (pool != null) {
+            setResult(pool.randomResult(player1.getId(), player2.getId(),
+                                        ThreadLocalRandom.current().nextDouble()));
+        } else {
+            setResult(randomResult(player1.getStatus(), player2.getStatus(),
+                                   ThreadLocalRandom.current().nextInt(100)));
+        }
+    }
+    
+    /**
+     * Map a uniform roll to a result using the status-based probabilities
+     * described in {@link #generateRandomResult()}.
+     * 
+     * @param status1 Status of player 1
+     * @param status2 Status of player 2
+     * @param outcome Uniform roll in 0-99
+     * @return Resulting outcome
+     */
+    static MatchResult randomResult(ParticipantStatus status1, ParticipantStatus status2, int outcome) {
         // Determine probabilities based on status matchup
         int player1WinChance;
         int drawChance;
@@ -149,25 +209,47 @@ public class Match {
         
         if (outcome < player1WinChance) {
             // Player 1 wins
-            setResult(MatchResult.WIN_PLAYER1);
+            return MatchResult.WIN_PLAYER1;
         } else if (outcome < player2WinThreshold) {
             // Player 2 wins
-            setResult(MatchResult.WIN_PLAYER2);
+            return MatchResult.WIN_PLAYER2;
         } else {
             // Draw
-            setResult(MatchResult.DRAW);
+            return MatchResult.DRAW;
         }
     }
     
     /**
      * Manually set the result of the match.
-     * Automatically applies result to both participants.
+     * Automatically applies result to both participants. If the match
+     * already had a result, that result is taken back first, so a result
+     * can be corrected; setting NOT_PLAYED clears it.
      * 
      * @param result The match result
      * @throws IllegalArgumentException if result is null
      * @throws IllegalStateException if trying to set non-WIN_PLAYER1 result for BYE match
      */
     public void setResult(MatchResult result) {
+        Tournament owner = tournament;
+        if (owner == null) {
+            applyResult(result);
+            return;
+        }
+        owner.beginChange();
+        try {
+            MatchResult previous = this.result;
+            applyResult(result);
+            owner.resultChanged(this, previous);
+        } finally {
+            owner.endChange();
+        }
+    }
+    
+    /**
+     * Set and apply a result without notifying the owning tournament.
+     * Used by batch operations that record a single state change at the end.
+     */
+    void applyResult(MatchResult result) {
         if (result == null) {
             throw new IllegalArgumentException("Result cannot be null");
         }
@@ -176,8 +258,24 @@ public class Match {
             throw new IllegalStateException("BYE match result must be WIN_PLAYER1");
         }
         
+        MatchResult previous = this.result;
+        forfeit = false;
+        if (!isBye && previous != MatchResult.NOT_PLAYED) {
+            revertResultFromParticipants();
+        }
         this.result = result;
         applyResultToParticipants();
+        if (tournament != null) {
+            tournament.resultApplied(this, previous, result);
+        }
+    }
+    
+    /**
+     * Set the stored result without touching participants.
+     * Used when rebuilding a match whose result has already been applied.
+     */
+    void restoreResult(MatchResult result) {
+        this.result = result;
     }
     
     /**
@@ -194,9 +292,14 @@ public class Match {
             return;
         }
         
-        // Add opponents to each other's lists
-        player1.addOpponent(player2);
-        player2.addOpponent(player1);
+        // Add opponents to each other's lists, or count a rematch
+        if (player1.hasPlayedWith(player2)) {
+            player1.addRematch(player2);
+            player2.addRematch(player1);
+        } else {
+            player1.addOpponent(player2);
+            player2.addOpponent(player1);
+        }
         
         // Apply results based on outcome
         switch (result) {
@@ -225,6 +328,38 @@ public class Match {
         }
     }
     
+    /**
+     * Take the current result back from both participants.
+     * Opponent links are kept when the two players have another played
+     * match between them, which the participants count themselves, so
+     * this costs O(1) in the size of the tournament.
+     */
+    private void revertResultFromParticipants() {
+        switch (result) {
+            case WIN_PLAYER1:
+                player1.revertResult(1.0, 1, 0, 0);
+                player2.revertResult(0, 0, 0, 1);
+                break;
+            case WIN_PLAYER2:
+                player2.revertResult(1.0, 1, 0, 0);
+                player1.revertResult(0, 0, 0, 1);
+                break;
+            case DRAW:
+                player1.revertResult(0.5, 0, 1, 0);
+                player2.revertResult(0.5, 0, 1, 0);
+                break;
+            case NOT_PLAYED:
+                return;
+        }
+        
+        if (player1.removeRematch(player2)) {
+            player2.removeRematch(player1);
+        } else {
+            player1.removeOpponent(player2);
+            player2.removeOpponent(player1);
+        }
+    }
+    
     /**
      * Check if the match has been played.
      * 
@@ -241,30 +376,30 @@ public class Match {
      */
     @Override
     public String toString() {
+        StringBuilder sb = new StringBuilder(64);
+        sb.append("Round ").append(roundNumber).append(": ").append(player1.getName());
         if (isBye) {
-            return String.format("Round %d: %s (BYE)", roundNumber, player1.getName());
+            return sb.append(" (BYE)").toString();
         }
         
-        String resultStr;
+        sb.append(" vs ").append(player2.getName()).append(" => ");
         switch (result) {
             case WIN_PLAYER1:
-                resultStr = String.format("%s wins", player1.getName());
+                sb.append(player1.getName()).append(" wins");
                 break;
             case WIN_PLAYER2:
-                resultStr = String.format("%s wins", player2.getName());
+                sb.append(player2.getName()).append(" wins");
                 break;
             case DRAW:
-                resultStr = "Draw";
+                sb.append("Draw");
                 break;
             case NOT_PLAYED:
-                resultStr = "Not played yet";
+                sb.append("Not played yet");
                 break;
             default:
-                resultStr = "Unknown";
+                sb.append("Unknown");
         }
-        
-        return String.format("Round %d: %s vs %s => %s", 
-                           roundNumber, player1.getName(), player2.getName(), resultStr);
+        return sb.toString();
     }
     
     /**
@@ -273,29 +408,34 @@ public class Match {
      * @return Formatted match string for file saving
      */
     public String toFileString() {
+        StringBuilder sb = new StringBuilder(48);
+        sb.append(player1.getName());
         if (isBye) {
-            return String.format("%s (BYE) => WIN", player1.getName());
+            return sb.append(" (BYE) => WIN").toString();
         }
         
-        String resultStr;
+        return sb.append(" vs ").append(player2.getName())
+                 .append(" => ").append(fileResultCode(result)).toString();
+    }
+    
+    /**
+     * Result code used in tournament files ("1-0", "0-1", "0.5-0.5").
+     * 
+     * @param result Match result
+     * @return Result code for the file format
+     */
+    static String fileResultCode(MatchResult result) {
         switch (result) {
             case WIN_PLAYER1:
-                resultStr = "1-0";
-                break;
+                return "1-0";
             case WIN_PLAYER2:
-                resultStr = "0-1";
-                break;
+                return "0-1";
             case DRAW:
-                resultStr = "0.5-0.5";
-                break;
+                return "0.5-0.5";
             case NOT_PLAYED:
-                resultStr = "NOT_PLAYED";
-                break;
+                return "NOT_PLAYED";
             default:
-                resultStr = "UNKNOWN";
+                return "UNKNOWN";
         }
-        
-        return String.format("%s vs %s => %s", player1.getName(), player2.getName(), resultStr);
     }
 }
-
@@ -0,0 +1,203 @@
+package com.molights.tournament;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Start times and result deadlines for matches.
+ * <p>
+ * Deadlines live on a hashed timing wheel, so starting and stopping a
+ * clock is O(1) however many matches are outstanding, and no task or
+ * thread is created per match. The clock does not run by itself: the
+ * event loop calls {@link #advance()} periodically (once per tick is
+ * enough) on the same thread that records results. Every match whose
+ * deadline has passed without a result is then forfeited through
+ * {@link Match#setResult(Match.MatchResult)}, so standings, the owning
+ * tournament's journal and any rating pool are updated as for a
+ * reported result.
+ * <p>
+ * A player who is present can {@link #claim(Match, Participant) claim}
+ * the match; if the deadline passes, the claimant wins by forfeit.
+ * Unclaimed matches get the default forfeit result.
+ */
+public class MatchClock {
+
+    public static final long DEFAULT_TICK_MILLIS = 1000;
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private final LongSupplier clock;
+    private final TimerWheel<Match> wheel;
+    private final Map<Match, Integer> pending = new IdentityHashMap<>();
+    private final Map<Match, Match.MatchResult> claims = new IdentityHashMap<>();
+    private Match.MatchResult defaultForfeit = Match.MatchResult.DRAW;
+
+    /**
+     * Creates a clock on system time with one-second ticks.
+     */
+    public MatchClock() {
+        this(DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE, System::currentTimeMillis);
+    }
+
+    /**
+     * Creates a clock.
+     *
+     * @param tickMillis Deadline resolution in milliseconds
+     * @param wheelSize Number of wheel buckets; deadlines further away than
+     *                  tickMillis * wheelSize share buckets with nearer ones
+     * @param clock Source of the current time in milliseconds
+     * @throws IllegalArgumentException if tickMillis or wheelSize is not positive, or clock is null
+     */
+    public MatchClock(long tickMillis, int wheelSize, LongSupplier clock) {
+        if (clock == null) {
+            throw new IllegalArgumentException("Clock cannot be null");
+        }
+        this.clock = clock;
+        this.wheel = new TimerWheel<>(tickMillis, wheelSize, clock.getAsLong());
+    }
+
+    public Match.MatchResult getDefaultForfeit() {
+        return defaultForfeit;
+    }
+
+    /**
+     * Result given when a deadline passes and nobody claimed the match.
+     *
+     * @param defaultForfeit WIN_PLAYER1, WIN_PLAYER2 or DRAW
+     * @throws IllegalArgumentException if defaultForfeit is null or NOT_PLAYED
+     */
+    public void setDefaultForfeit(Match.MatchResult defaultForfeit) {
+        if (defaultForfeit == null || defaultForfeit == Match.MatchResult.NOT_PLAYED) {
+            throw new IllegalArgumentException("Default forfeit must be a result");
+        }
+        this.defaultForfeit = defaultForfeit;
+    }
+
+    /**
+     * @return Number of matches with a running clock
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public boolean isRunning(Match match) {
+        return pending.containsKey(match);
+    }
+
+    /**
+     * Start the clock of a match now.
+     *
+     * @param match Match to clock
+     * @param timeLimitMillis Time allowed to report a result
+     * @throws IllegalArgumentException if match is null or a BYE, or the time limit is negative
+     * @throws IllegalStateException if the match is already played or clocked
+     */
+    public void start(Match match, long timeLimitMillis) {
+        if (match == null) {
+            throw new IllegalArgumentException("Match cannot be null");
+        }
+        if (match.isBye()) {
+            throw new IllegalArgumentException("BYE matches have no clock");
+        }
+        if (timeLimitMillis < 0) {
+            throw new IllegalArgumentException("Time limit cannot be negative");
+        }
+        if (match.isPlayed()) {
+            throw new IllegalStateException("Match has already been played");
+        }
+        if (pending.containsKey(match)) {
+            throw new IllegalStateException("Match clock is already running");
+        }
+        long now = clock.getAsLong();
+        match.startClock(now, now + timeLimitMillis);
+        pending.put(match, wheel.schedule(now + timeLimitMillis, match));
+    }
+
+    /**
+     * Start the clocks of every unplayed match in a tournament's current round.
+     *
+     * @param tournament Tournament
+     * @param timeLimitMillis Time allowed to report a result
+     * @return Number of clocks started
+     * @throws IllegalStateException if no rounds have been generated
+     */
+    public int startRound(Tournament tournament, long timeLimitMillis) {
+        if (tournament.getCurrentRound() == 0) {
+            throw new IllegalStateException("No rounds have been generated yet");
+        }
+        int started = 0;
+        for (Match match : tournament.getRoundMatches(tournament.getCurrentRound())) {
+            if (!match.isBye() && !match.isPlayed() && !pending.containsKey(match)) {
+                start(match, timeLimitMillis);
+                started++;
+            }
+        }
+        return started;
+    }
+
+    /**
+     * Record that a player is present and ready; if the deadline passes,
+     * that player wins by forfeit.
+     *
+     * @param match Clocked match
+     * @param player Player claiming the match
+     * @throws IllegalArgumentException if the player is not in the match
+     * @throws IllegalStateException if the match clock is not running
+     */
+    public void claim(Match match, Participant player) {
+        if (!pending.containsKey(match)) {
+            throw new IllegalStateException("Match clock is not running");
+        }
+        if (player == match.getPlayer1()) {
+            claims.put(match, Match.MatchResult.WIN_PLAYER1);
+        } else if (player == match.getPlayer2()) {
+            claims.put(match, Match.MatchResult.WIN_PLAYER2);
+        } else {
+            throw new IllegalArgumentException("Player is not in this match");
+        }
+    }
+
+    /**
+     * Report a result and stop the clock.
+     *
+     * @param match Clocked or unclocked match
+     * @param result Result to set
+     */
+    public void report(Match match, Match.MatchResult result) {
+        match.setResult(result);
+        stop(match);
+    }
+
+    /**
+     * Stop a match clock without setting a result.
+     *
+     * @return true if the clock was running
+     */
+    public boolean stop(Match match) {
+        Integer handle = pending.remove(match);
+        claims.remove(match);
+        return handle != null && wheel.cancel(handle);
+    }
+
+    /**
+     * Forfeit every match whose deadline has passed by the current time.
+     * Matches that got a result without {@link #report} are simply dropped.
+     *
+     * @return Matches forfeited by this call
+     */
+    public List<Match> advance() {
+        List<Match> forfeited = new ArrayList<>();
+        wheel.advance(clock.getAsLong(), match -> {
+            pending.remove(match);
+            Match.MatchResult claimed = claims.remove(match);
+            if (!match.isPlayed()) {
+                match.setResult(claimed != null ? claimed : defaultForfeit);
+                match.markForfeit();
+                forfeited.add(match);
+            }
+        });
+        return forfeited;
+    }
+}
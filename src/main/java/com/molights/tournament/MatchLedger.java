@@ -0,0 +1,428 @@
+package com.molights.tournament;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Compact match history.
+ * Each round stores its matches as packed pairs of roster indices in an
+ * int array plus one result byte per match, instead of one {@link Match}
+ * object per game. Match objects are only created on demand as views.
+ * <p>
+ * Player indices refer to positions in the roster list given at
+ * construction; a BYE is stored with {@link #NO_PLAYER} as second player.
+ * <p>
+ * A ledger is a store of its own, not a view of a {@link Tournament}: the
+ * live tournament keeps its {@link Match} objects, which the change journal
+ * and the participants' opponent lists refer to. Use
+ * {@link Tournament#toLedger()} to copy a history into a ledger for keeping
+ * or scanning large archives; results set through the ledger apply to the
+ * roster participants only, not to any tournament.
+ */
+public class MatchLedger {
+
+    /** Result codes stored per match. */
+    public static final byte NOT_PLAYED = 0;
+    public static final byte WIN_PLAYER1 = 1;
+    public static final byte WIN_PLAYER2 = 2;
+    public static final byte DRAW = 3;
+    public static final byte BYE = 4;
+
+    /** Index used as the second player of a BYE. */
+    public static final int NO_PLAYER = -1;
+
+    /**
+     * Callback for full-history scans.
+     */
+    public interface Visitor {
+        /**
+         * @param round Round number (1-based)
+         * @param index Match index within the round
+         * @param player1 Roster index of the first player
+         * @param player2 Roster index of the second player, or {@link #NO_PLAYER} for a BYE
+         * @param result Result code
+         */
+        void visit(int round, int index, int player1, int player2, byte result);
+    }
+
+    private static final class Round {
+        int[] players = new int[16];
+        byte[] results = new byte[8];
+        int count;
+    }
+
+    private final List<Participant> roster;
+    private final List<Round> rounds = new ArrayList<>();
+    private long totalMatches;
+
+    /**
+     * Creates an empty ledger over a roster.
+     *
+     * @param roster Participants addressed by index (not copied)
+     * @throws IllegalArgumentException if roster is null
+     */
+    public MatchLedger(List<Participant> roster) {
+        if (roster == null) {
+            throw new IllegalArgumentException("Roster cannot be null");
+        }
+        this.roster = roster;
+    }
+
+    /**
+     * Build a ledger from existing matches. Results are copied as they are;
+     * participants are not modified.
+     *
+     * @param roster Participants addressed by index
+     * @param matches Matches whose players all belong to the roster
+     * @return New ledger with one entry per match
+     * @throws IllegalArgumentException if a match player is not in the roster
+     */
+    public static MatchLedger of(List<Participant> roster, List<Match> matches) {
+        MatchLedger ledger = new MatchLedger(roster);
+        IntIntMap rows = new IntIntMap(roster.size());
+        for (int i = 0; i < roster.size(); i++) {
+            rows.put(roster.get(i).getId(), i);
+        }
+        for (Match match : matches) {
+            while (ledger.getRoundCount() < match.getRoundNumber()) {
+                ledger.addRound();
+            }
+            int p1 = rowOf(rows, match.getPlayer1());
+            if (match.isBye()) {
+                ledger.addBye(match.getRoundNumber(), p1);
+            } else {
+                int index = ledger.addPairing(match.getRoundNumber(), p1, rowOf(rows, match.getPlayer2()));
+                ledger.record(match.getRoundNumber(), index, match.getResult());
+            }
+        }
+        return ledger;
+    }
+
+    private static int rowOf(IntIntMap rows, Participant p) {
+        int row = rows.get(p.getId(), -1);
+        if (row < 0) {
+            throw new IllegalArgumentException("Participant " + p.getId() + " is not in the roster");
+        }
+        return row;
+    }
+
+    public List<Participant> getRoster() {
+        return roster;
+    }
+
+    public int getRoundCount() {
+        return rounds.size();
+    }
+
+    public int getMatchCount(int round) {
+        return round(round).count;
+    }
+
+    public long getTotalMatches() {
+        return totalMatches;
+    }
+
+    /**
+     * Open a new empty round.
+     *
+     * @return Number of the new round
+     */
+    public int addRound() {
+        rounds.add(new Round());
+        return rounds.size();
+    }
+
+    /**
+     * Append a pairing to a round.
+     *
+     * @return Index of the match within the round
+     * @throws IllegalArgumentException if the indices are invalid or equal
+     */
+    public int addPairing(int round, int player1, int player2) {
+        checkPlayer(player1);
+        checkPlayer(player2);
+        if (player1 == player2) {
+            throw new IllegalArgumentException("A player cannot play against themselves");
+        }
+        return append(round(round), player1, player2, NOT_PLAYED);
+    }
+
+    /**
+     * Append a BYE to a round. Points are not awarded here.
+     *
+     * @return Index of the BYE within the round
+     */
+    public int addBye(int round, int player) {
+        checkPlayer(player);
+        return append(round(round), player, NO_PLAYER, BYE);
+    }
+
+    /**
+     * Record a result without applying it to participants.
+     *
+     * @throws IllegalArgumentException if result is null
+     * @throws IllegalStateException if the match is a BYE
+     */
+    public void record(int round, int index, Match.MatchResult result) {
+        if (result == null) {
+            throw new IllegalArgumentException("Result cannot be null");
+        }
+        Round r = round(round);
+        checkIndex(r, index);
+        if (r.results[index] == BYE) {
+            throw new IllegalStateException("Cannot change the result of a BYE");
+        }
+        r.results[index] = code(result);
+    }
+
+    /**
+     * Record a result and apply it to both participants, like {@link Match#setResult}.
+     * A previously recorded result is taken back from the participants first.
+     */
+    public void setResult(int round, int index, Match.MatchResult result) {
+        Match.MatchResult previous = getResult(round, index);
+        record(round, index, result);
+        Round r = round(round);
+        Match match = new Match(roster.get(r.players[2 * index]), roster.get(r.players[2 * index + 1]), round);
+        match.restoreResult(previous);
+        match.setResult(result);
+    }
+
+    public int getPlayer1(int round, int index) {
+        Round r = round(round);
+        checkIndex(r, index);
+        return r.players[2 * index];
+    }
+
+    public int getPlayer2(int round, int index) {
+        Round r = round(round);
+        checkIndex(r, index);
+        return r.players[2 * index + 1];
+    }
+
+    public byte getResultCode(int round, int index) {
+        Round r = round(round);
+        checkIndex(r, index);
+        return r.results[index];
+    }
+
+    public Match.MatchResult getResult(int round, int index) {
+        return result(getResultCode(round, index));
+    }
+
+    /**
+     * Create a {@link Match} view of a ledger entry.
+     * Setting a result on the view applies it to the participants and
+     * records it in the ledger.
+     *
+     * @return New match object reflecting the entry
+     */
+    public Match getMatch(int round, int index) {
+        Round r = round(round);
+        checkIndex(r, index);
+        return new LedgerMatch(this, round, index);
+    }
+
+    /**
+     * Lazily materialized match views of a round.
+     *
+     * @return Read-only list creating a view per element access
+     */
+    public List<Match> getRoundMatches(int round) {
+        final Round r = round(round);
+        return new AbstractList<Match>() {
+            @Override
+            public Match get(int index) {
+                return getMatch(round, index);
+            }
+
+            @Override
+            public int size() {
+                return r.count;
+            }
+        };
+    }
+
+    /**
+     * Visit every match of every round in order without creating objects.
+     */
+    public void scan(Visitor visitor) {
+        for (int round = 1; round <= rounds.size(); round++) {
+            Round r = rounds.get(round - 1);
+            int[] players = r.players;
+            byte[] results = r.results;
+            for (int i = 0; i < r.count; i++) {
+                visitor.visit(round, i, players[2 * i], players[2 * i + 1], results[i]);
+            }
+        }
+    }
+
+    /**
+     * Recompute every roster member's score from the recorded results.
+     * A BYE counts as a full point.
+     *
+     * @return Half points per roster index
+     */
+    public int[] computeHalfPoints() {
+        int[] half = new int[roster.size()];
+        for (Round r : rounds) {
+            int[] players = r.players;
+            byte[] results = r.results;
+            for (int i = 0; i < r.count; i++) {
+                int p1 = players[2 * i];
+                int p2 = players[2 * i + 1];
+                switch (results[i]) {
+                    case WIN_PLAYER1:
+                    case BYE:
+                        half[p1] += 2;
+                        break;
+                    case WIN_PLAYER2:
+                        half[p2] += 2;
+                        break;
+                    case DRAW:
+                        half[p1]++;
+                        half[p2]++;
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        return half;
+    }
+
+    public static byte code(Match.MatchResult result) {
+        switch (result) {
+            case WIN_PLAYER1:
+                return WIN_PLAYER1;
+            case WIN_PLAYER2:
+                return WIN_PLAYER2;
+            case DRAW:
+                return DRAW;
+            default:
+                return NOT_PLAYED;
+        }
+    }
+
+    public static Match.MatchResult result(byte code) {
+        switch (code) {
+            case WIN_PLAYER1:
+            case BYE:
+                return Match.MatchResult.WIN_PLAYER1;
+            case WIN_PLAYER2:
+                return Match.MatchResult.WIN_PLAYER2;
+            case DRAW:
+                return Match.MatchResult.DRAW;
+            default:
+                return Match.MatchResult.NOT_PLAYED;
+        }
+    }
+
+    private int append(Round r, int player1, int player2, byte result) {
+        if (r.count == r.results.length) {
+            r.results = Arrays.copyOf(r.results, r.count << 1);
+            r.players = Arrays.copyOf(r.players, r.count << 2);
+        }
+        int index = r.count++;
+        r.players[2 * index] = player1;
+        r.players[2 * index + 1] = player2;
+        r.results[index] = result;
+        totalMatches++;
+        return index;
+    }
+
+    private Round round(int round) {
+        if (round <= 0 || round > rounds.size()) {
+            throw new IllegalArgumentException("Round " + round + " does not exist");
+        }
+        return rounds.get(round - 1);
+    }
+
+    private void checkIndex(Round r, int index) {
+        if (index < 0 || index >= r.count) {
+            throw new IndexOutOfBoundsException("Match index " + index + " out of range");
+        }
+    }
+
+    private void checkPlayer(int player) {
+        if (player < 0 || player >= roster.size()) {
+            throw new IllegalArgumentException("Player index " + player + " out of range");
+        }
+    }
+
+    /**
+     * Match view that writes results back to its ledger entry.
+     */
+    private static final class LedgerMatch extends Match {
+        private final MatchLedger ledger;
+        private final int index;
+
+        LedgerMatch(MatchLedger ledger, int round, int index) {
+            super(ledger.roster.get(ledger.getPlayer1(round, index)), round);
+            this.ledger = ledger;
+            this.index = index;
+        }
+
+        @Override
+        public Participant getPlayer2() {
+            int p2 = ledger.getPlayer2(getRoundNumber(), index);
+            return p2 == NO_PLAYER ? null : ledger.roster.get(p2);
+        }
+
+        @Override
+        public boolean isBye() {
+            return ledger.getPlayer2(getRoundNumber(), index) == NO_PLAYER;
+        }
+
+        @Override
+        public MatchResult getResult() {
+            return ledger.getResult(getRoundNumber(), index);
+        }
+
+        @Override
+        public boolean isPlayed() {
+            return getResult() != MatchResult.NOT_PLAYED;
+        }
+
+        @Override
+        public void setResult(MatchResult result) {
+            if (isBye()) {
+                super.setResult(result);
+                return;
+            }
+            ledger.setResult(getRoundNumber(), index, result);
+        }
+
+        @Override
+        public void generateRandomResult() {
+            if (isBye()) {
+                throw new IllegalStateException("Cannot generate random result for BYE match");
+            }
+            // Replaces any recorded result, as setResult does
+            setResult(randomResult(getPlayer1().getStatus(), getPlayer2().getStatus(),
+                                   ThreadLocalRandom.current().nextInt(100)));
+        }
+
+        @Override
+        public String toString() {
+            return snapshot().toString();
+        }
+
+        @Override
+        public String toFileString() {
+            return snapshot().toFileString();
+        }
+
+        private Match snapshot() {
+            if (isBye()) {
+                return new Match(getPlayer1(), getRoundNumber());
+            }
+            Match match = new Match(getPlayer1(), getPlayer2(), getRoundNumber());
+            match.restoreResult(getResult());
+            return match;
+        }
+    }
+}
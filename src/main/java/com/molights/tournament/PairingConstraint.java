@@ -0,0 +1,47 @@
+package com.molights.tournament;
+
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Extra rule for Swiss pairing, on top of avoiding repeat pairings.
+ * <p>
+ * Before each round a constraint compiles to one attribute code per
+ * participant: two participants with the same non-zero code should not
+ * meet. Codes of all constraints are packed into 64-bit words, so
+ * checking a candidate pair is a handful of bitwise operations per word
+ * however the codes were derived. If no compatible opponent is left, the
+ * pairing falls back to ignoring constraints rather than leaving someone
+ * unpaired.
+ */
+public interface PairingConstraint {
+
+    /**
+     * Compute the attribute codes for the participants about to be paired.
+     * On large fields different constraints are compiled concurrently, so
+     * this must not depend on other constraints.
+     *
+     * @param tournament Tournament being paired
+     * @param players Participants in pairing order
+     * @param codes Output, one per player; 0 means unconstrained
+     */
+    void compile(Tournament tournament, List<Participant> players, int[] codes);
+
+    /**
+     * Keep members of the same group apart, such as clubs, families or
+     * federations.
+     *
+     * @param group Group code per participant, 0 for none
+     * @return New constraint
+     */
+    static PairingConstraint sameGroup(ToIntFunction<Participant> group) {
+        if (group == null) {
+            throw new IllegalArgumentException("Group function cannot be null");
+        }
+        return (tournament, players, codes) -> {
+            for (int i = 0; i < codes.length; i++) {
+                codes[i] = group.applyAsInt(players.get(i));
+            }
+        };
+    }
+}
@@ -0,0 +1,129 @@
+package com.molights.tournament;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Compiled pairing constraints for one round.
+ * The attribute codes of every constraint are remapped to dense values
+ * and packed as 16-bit lanes (32-bit when a constraint has more than
+ * 65535 groups) into 64-bit words per player, with a parallel word that
+ * marks which lanes hold a code. Two players conflict when any lane is
+ * equal and present in both, which is tested word by word without
+ * looking at the participants again.
+ */
+final class PairingMasks {
+
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    private final int words;
+    private final long[] codes;
+    private final long[] present;
+    private final long low;
+    private final long high;
+
+    private PairingMasks(int words, long[] codes, long[] present, long low, long high) {
+        this.words = words;
+        this.codes = codes;
+        this.present = present;
+        this.low = low;
+        this.high = high;
+    }
+
+    /**
+     * Compile constraints for players in pairing order.
+     *
+     * @return Compiled masks, or null if there are no constraints
+     */
+    static PairingMasks compile(Tournament tournament, List<Participant> players,
+                                List<PairingConstraint> constraints) {
+        if (constraints.isEmpty()) {
+            return null;
+        }
+        int n = players.size();
+        int[][] dense = new int[constraints.size()][];
+        IntStream indices = IntStream.range(0, constraints.size());
+        if ((long) n * constraints.size() >= PARALLEL_THRESHOLD) {
+            indices = indices.parallel();
+        }
+        indices.forEach(c -> {
+            int[] raw = new int[n];
+            constraints.get(c).compile(tournament, players, raw);
+            dense[c] = densify(raw);
+        });
+        int maxCode = 0;
+        for (int[] values : dense) {
+            for (int value : values) {
+                maxCode = Math.max(maxCode, value);
+            }
+        }
+
+        int laneBits = maxCode <= 0xFFFF ? 16 : 32;
+        int lanes = 64 / laneBits;
+        int words = (constraints.size() + lanes - 1) / lanes;
+        long laneHigh = 1L << (laneBits - 1);
+        long high = 0;
+        for (int l = 0; l < lanes; l++) {
+            high |= laneHigh << (l * laneBits);
+        }
+        long low = ~high;
+
+        long[] codes = new long[n * words];
+        long[] present = new long[n * words];
+        for (int c = 0; c < constraints.size(); c++) {
+            int word = c / lanes;
+            int shift = (c % lanes) * laneBits;
+            int[] values = dense[c];
+            for (int i = 0; i < n; i++) {
+                if (values[i] != 0) {
+                    codes[i * words + word] |= (long) values[i] << shift;
+                    present[i * words + word] |= laneHigh << shift;
+                }
+            }
+        }
+        return new PairingMasks(words, codes, present, low, high);
+    }
+
+    /**
+     * Remap codes to 1..groups so they fit in narrow lanes. Codes that
+     * already fit in a 16-bit lane are kept as they are.
+     */
+    private static int[] densify(int[] raw) {
+        boolean small = true;
+        for (int code : raw) {
+            if (code < 0 || code > 0xFFFF) {
+                small = false;
+                break;
+            }
+        }
+        if (small) {
+            return raw;
+        }
+        int[] distinct = Arrays.stream(raw).filter(code -> code != 0).sorted().distinct().toArray();
+        int[] values = new int[raw.length];
+        for (int i = 0; i < raw.length; i++) {
+            if (raw[i] != 0) {
+                values[i] = Arrays.binarySearch(distinct, raw[i]) + 1;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @return true if players at pairing positions a and b may meet
+     */
+    boolean compatible(int a, int b) {
+        int ia = a * words;
+        int ib = b * words;
+        for (int w = 0; w < words; w++) {
+            long x = codes[ia + w] ^ codes[ib + w];
+            // High bit of each lane set where the lane of x is non-zero
+            long differs = (((x & low) + low) | x) & high;
+            if ((~differs & present[ia + w] & present[ib + w]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,7 +1,10 @@
 package com.molights.tournament;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Represents a participant in a Swiss tournament.
@@ -12,7 +15,10 @@ public class Participant
     private int id;
     private String name;
     private double currentScore;
+    // Allocated by the first opponent
     private List<Participant> opponents; 
+    // Played games against an opponent beyond the first; allocated by the first rematch
+    private Map<Participant, Integer> rematches;
     private boolean wasParticipantByed;
     private ParticipantStatus status;
 
@@ -21,6 +27,10 @@ public class Participant
     private int drawCount;
     private int lossCount;
 
+    // Tournaments whose roster holds this participant, told about edits;
+    // null while it is in none
+    private Tournament[] owners;
+
     /**
      * Creates a new participant for the tournament.
      * 
@@ -47,12 +57,21 @@ public class Participant
         }
         this.status = status;
         this.currentScore = 0;
-        this.opponents = new ArrayList<>();
         this.wasParticipantByed = false;
         this.winCount = 0;
         this.lossCount = 0;
         this.drawCount = 0;
     }
+
+    /**
+     * Creates a participant that keeps no data of its own. Used by views
+     * that override every accessor to read their data from elsewhere. The
+     * inherited fields stay at their defaults but still take their space,
+     * so a view is as large as an empty participant plus its own fields.
+     */
+    Participant()
+    {
+    }
     
 
     //getters
@@ -73,6 +92,10 @@ public class Participant
 
     public List<Participant> getOpponents()
     {
+        if (this.opponents == null)
+        {
+            this.opponents = new ArrayList<>();
+        }
         return this.opponents;
     }
 
@@ -107,7 +130,29 @@ public class Participant
         {
             throw new IllegalArgumentException("name must not be empty");
         }
-        this.name = name;
+        boolean renamed = !name.equals(this.name);
+        Tournament[] current = beginEdit();
+        try
+        {
+            this.name = name;
+            edited(renamed);
+        }
+        finally
+        {
+            endEdit(current);
+        }
+    }
+
+    /**
+     * Replace the name with its canonical instance, so equal names held by
+     * many participants share one String.
+     */
+    void internName()
+    {
+        if (this.name != null)
+        {
+            this.name = this.name.intern();
+        }
     }
 
     public void setStatus(ParticipantStatus status)
@@ -116,7 +161,101 @@ public class Participant
         {
             throw new IllegalArgumentException("status cannot be null");
         }
-        this.status = status;
+        Tournament[] current = beginEdit();
+        try
+        {
+            this.status = status;
+            edited(false);
+        }
+        finally
+        {
+            endEdit(current);
+        }
+    }
+
+    /**
+     * Mark an edit as a change in progress in every owning tournament, so
+     * an auto-save writer does not read the participant halfway.
+     * 
+     * @return The owners to pass to {@link #endEdit(Tournament[])}
+     */
+    Tournament[] beginEdit()
+    {
+        Tournament[] current = this.owners;
+        if (current != null)
+        {
+            for (Tournament owner : current)
+            {
+                owner.beginChange();
+            }
+        }
+        return current;
+    }
+
+    static void endEdit(Tournament[] current)
+    {
+        if (current != null)
+        {
+            for (Tournament owner : current)
+            {
+                owner.endChange();
+            }
+        }
+    }
+
+    /**
+     * Tell the owning tournaments that the name or status changed, so their
+     * state version moves on and, after a rename, their name index re-keys
+     * this participant.
+     * 
+     * @param renamed Whether the name changed
+     */
+    void edited(boolean renamed)
+    {
+        Tournament[] current = this.owners;
+        if (current != null)
+        {
+            for (Tournament owner : current)
+            {
+                owner.participantEdited(this, renamed);
+            }
+        }
+    }
+
+    void joined(Tournament tournament)
+    {
+        if (this.owners == null)
+        {
+            this.owners = new Tournament[] {tournament};
+            return;
+        }
+        Tournament[] grown = Arrays.copyOf(this.owners, this.owners.length + 1);
+        grown[this.owners.length] = tournament;
+        this.owners = grown;
+    }
+
+    void left(Tournament tournament)
+    {
+        if (this.owners == null)
+        {
+            return;
+        }
+        for (int i = 0; i < this.owners.length; i++)
+        {
+            if (this.owners[i] == tournament)
+            {
+                if (this.owners.length == 1)
+                {
+                    this.owners = null;
+                    return;
+                }
+                Tournament[] shrunk = new Tournament[this.owners.length - 1];
+                System.arraycopy(this.owners, 0, shrunk, 0, i);
+                System.arraycopy(this.owners, i + 1, shrunk, i, shrunk.length - i);
+                this.owners = shrunk;
+                return;
+            }
+        }
     }
 
     public void addWin()
@@ -148,13 +287,13 @@ public class Participant
 
         if(!this.hasPlayedWith(opponent))
         {
-            this.opponents.add(opponent);
+            getOpponents().add(opponent);
         }
     }
 
     public boolean hasPlayedWith(Participant opponent) 
     {
-        return opponents.contains(opponent);
+        return opponents != null && opponents.contains(opponent);
     }
 
     /**
@@ -166,6 +305,10 @@ public class Participant
     public double getOpponentsSumScore()
     {
         double sum = 0;
+        if (this.opponents == null)
+        {
+            return sum;
+        }
         for(Participant opponent : this.opponents)
         {
             sum+=opponent.getScore();
@@ -173,6 +316,82 @@ public class Participant
         return sum;
     }
 
+    /**
+     * Reverses a result previously recorded with addPoint and the
+     * win/draw/loss counters. Used when a result is corrected or undone.
+     *
+     * @param point Points to take back
+     * @param wins Wins to take back
+     * @param draws Draws to take back
+     * @param losses Losses to take back
+     */
+    void revertResult(double point, int wins, int draws, int losses)
+    {
+        this.currentScore -= point;
+        this.winCount -= wins;
+        this.drawCount -= draws;
+        this.lossCount -= losses;
+    }
+
+    void removeOpponent(Participant opponent)
+    {
+        if (this.opponents != null)
+        {
+            this.opponents.remove(opponent);
+        }
+    }
+
+    /**
+     * Count another played game against an opponent already in the list.
+     */
+    void addRematch(Participant opponent)
+    {
+        if (this.rematches == null)
+        {
+            this.rematches = new HashMap<>();
+        }
+        this.rematches.merge(opponent, 1, Integer::sum);
+    }
+
+    /**
+     * Take back one counted rematch against an opponent.
+     *
+     * @return false if there was none, so the game taken back was the only one
+     */
+    boolean removeRematch(Participant opponent)
+    {
+        if (this.rematches == null)
+        {
+            return false;
+        }
+        Integer count = this.rematches.get(opponent);
+        if (count == null)
+        {
+            return false;
+        }
+        if (count == 1)
+        {
+            this.rematches.remove(opponent);
+            if (this.rematches.isEmpty())
+            {
+                this.rematches = null;
+            }
+        }
+        else
+        {
+            this.rematches.put(opponent, count - 1);
+        }
+        return true;
+    }
+
+    /**
+     * Clears the BYE flag so the participant may receive a BYE again.
+     */
+    void clearBye()
+    {
+        this.wasParticipantByed = false;
+    }
+
     /**
      * Awards a BYE to this participant.
      * Can only be awarded once per participant.
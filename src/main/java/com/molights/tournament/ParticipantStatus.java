@@ -3,10 +3,49 @@ package com.molights.tournament;
 /**
  * Represents the skill level status of a participant in a tournament.
  * Used for probability calculations in match outcomes.
+ * Each status is a rating band; {@link RatingPool} seeds new players
+ * with the band's seed rating and maps ratings back to bands.
  */
 public enum ParticipantStatus {
-    LOW,
-    MEDIUM,
-    HIGH
-}
+    LOW(Double.NEGATIVE_INFINITY, 1200),
+    MEDIUM(1400, 1600),
+    HIGH(1800, 2000);
+
+    private final double minRating;
+    private final double seedRating;
+
+    ParticipantStatus(double minRating, double seedRating) {
+        this.minRating = minRating;
+        this.seedRating = seedRating;
+    }
 
+    /**
+     * @return Lowest rating that belongs to this band
+     */
+    public double getMinRating() {
+        return minRating;
+    }
+
+    /**
+     * @return Rating given to a new player of this band
+     */
+    public double getSeedRating() {
+        return seedRating;
+    }
+
+    /**
+     * Find the band a rating falls into.
+     *
+     * @param rating Player rating
+     * @return Highest band whose minimum rating is not above the rating
+     */
+    public static ParticipantStatus forRating(double rating) {
+        if (rating >= HIGH.minRating) {
+            return HIGH;
+        }
+        if (rating >= MEDIUM.minRating) {
+            return MEDIUM;
+        }
+        return LOW;
+    }
+}
@@ -0,0 +1,614 @@
+package com.molights.tournament;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Columnar participant store for very large rating pools.
+ * Instead of one {@link Participant} object per player, every attribute is
+ * kept in its own primitive column indexed by row: IDs, scores in half
+ * points, win/draw/loss counts, status ordinals and BYE flags. Columns live
+ * on the heap by default or in direct {@link ByteBuffer}s when created with
+ * {@link #offHeap(int)}.
+ * <p>
+ * {@link #view(int)} returns a {@link Participant} backed by a row, so
+ * tables can be used with {@link Tournament} and {@link Match} unchanged.
+ * A row's view is created when first asked for and then reused, so a view
+ * object exists only for rows in use; views being participants, each one
+ * still carries the (unused) fields of {@link Participant}.
+ */
+public class ParticipantTable {
+
+    private static final ParticipantStatus[] STATUSES = ParticipantStatus.values();
+    private static final int[] NO_OPPONENTS = new int[0];
+
+    private final boolean direct;
+    private int size;
+    private int capacity;
+
+    private IntBuffer ids;
+    private IntBuffer halfPoints;
+    private IntBuffer wins;
+    private IntBuffer draws;
+    private IntBuffer losses;
+    private ByteBuffer statuses;
+    private ByteBuffer byes;
+
+    // Names and opponent rows are object data and always stay on the heap
+    private String[] names;
+    private int[][] opponents;
+    private int[] opponentCounts;
+    // One view per row, created on demand
+    private RowView[] views;
+
+    private final IntIntMap rowsById;
+
+    /**
+     * Creates an empty heap-backed table.
+     *
+     * @param initialCapacity Number of rows to reserve
+     * @throws IllegalArgumentException if initialCapacity is negative
+     */
+    public ParticipantTable(int initialCapacity) {
+        this(initialCapacity, false);
+    }
+
+    private ParticipantTable(int initialCapacity, boolean direct) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity must be >= 0");
+        }
+        this.direct = direct;
+        this.rowsById = new IntIntMap(initialCapacity);
+        allocate(Math.max(initialCapacity, 16));
+    }
+
+    /**
+     * Creates an empty table whose numeric columns are stored off-heap.
+     *
+     * @param initialCapacity Number of rows to reserve
+     * @return New off-heap table
+     * @throws IllegalArgumentException if initialCapacity is negative
+     */
+    public static ParticipantTable offHeap(int initialCapacity) {
+        return new ParticipantTable(initialCapacity, true);
+    }
+
+    public boolean isOffHeap() {
+        return direct;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Add a participant row.
+     *
+     * @param id Unique identifier (must be positive)
+     * @param name Participant name (cannot be empty)
+     * @param status Skill level status
+     * @return Row index of the new participant
+     * @throws IllegalArgumentException if a parameter is invalid or the ID already exists
+     */
+    public int add(int id, String name, ParticipantStatus status) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("id must be > 0");
+        }
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("name must not be empty");
+        }
+        if (status == null) {
+            throw new IllegalArgumentException("status cannot be null");
+        }
+        if (rowsById.containsKey(id)) {
+            throw new IllegalArgumentException("Participant with ID " + id + " already exists");
+        }
+        if (size == capacity) {
+            grow(capacity << 1);
+        }
+        int row = size++;
+        ids.put(row, id);
+        halfPoints.put(row, 0);
+        wins.put(row, 0);
+        draws.put(row, 0);
+        losses.put(row, 0);
+        statuses.put(row, (byte) status.ordinal());
+        byes.put(row, (byte) 0);
+        names[row] = name;
+        opponents[row] = NO_OPPONENTS;
+        opponentCounts[row] = 0;
+        rowsById.put(id, row);
+        return row;
+    }
+
+    /**
+     * Copy an existing participant into a new row, including its score,
+     * statistics and BYE flag. Opponents are not copied.
+     *
+     * @param participant Participant to copy
+     * @return Row index of the copy
+     * @throws IllegalArgumentException if participant is null or its ID already exists
+     */
+    public int add(Participant participant) {
+        if (participant == null) {
+            throw new IllegalArgumentException("Participant cannot be null");
+        }
+        int row = add(participant.getId(), participant.getName(), participant.getStatus());
+        halfPoints.put(row, (int) Math.round(participant.getScore() * 2));
+        wins.put(row, participant.getWinCount());
+        draws.put(row, participant.getDrawCount());
+        losses.put(row, participant.getLossCount());
+        byes.put(row, (byte) (participant.getWasParticipantByed() ? 1 : 0));
+        return row;
+    }
+
+    /**
+     * Find the row of a participant ID.
+     *
+     * @param id Participant ID
+     * @return Row index, or -1 if the ID is unknown
+     */
+    public int rowOf(int id) {
+        return rowsById.get(id, -1);
+    }
+
+    // Column accessors
+
+    public int getId(int row) {
+        return ids.get(checkRow(row));
+    }
+
+    public String getName(int row) {
+        return names[checkRow(row)];
+    }
+
+    public int getHalfPoints(int row) {
+        return halfPoints.get(checkRow(row));
+    }
+
+    public double getScore(int row) {
+        return halfPoints.get(checkRow(row)) * 0.5;
+    }
+
+    public int getWinCount(int row) {
+        return wins.get(checkRow(row));
+    }
+
+    public int getDrawCount(int row) {
+        return draws.get(checkRow(row));
+    }
+
+    public int getLossCount(int row) {
+        return losses.get(checkRow(row));
+    }
+
+    public ParticipantStatus getStatus(int row) {
+        return STATUSES[statuses.get(checkRow(row))];
+    }
+
+    public boolean wasByed(int row) {
+        return byes.get(checkRow(row)) != 0;
+    }
+
+    public int getOpponentCount(int row) {
+        return opponentCounts[checkRow(row)];
+    }
+
+    /**
+     * @return Row index of the i-th opponent of a row
+     */
+    public int getOpponentRow(int row, int i) {
+        checkRow(row);
+        if (i < 0 || i >= opponentCounts[row]) {
+            throw new IndexOutOfBoundsException("Opponent index " + i + " out of range");
+        }
+        return opponents[row][i];
+    }
+
+    public void setName(int row, String name) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("name must not be empty");
+        }
+        names[checkRow(row)] = name;
+    }
+
+    public void setStatus(int row, ParticipantStatus status) {
+        if (status == null) {
+            throw new IllegalArgumentException("status cannot be null");
+        }
+        statuses.put(checkRow(row), (byte) status.ordinal());
+    }
+
+    /**
+     * Add points to a row in half-point units.
+     *
+     * @param row Row index
+     * @param half Number of half points to add (must not be negative)
+     * @throws IllegalArgumentException if half is negative
+     */
+    public void addHalfPoints(int row, int half) {
+        if (half < 0) {
+            throw new IllegalArgumentException("You must add positive number of points");
+        }
+        checkRow(row);
+        halfPoints.put(row, halfPoints.get(row) + half);
+    }
+
+    public void addWin(int row) {
+        checkRow(row);
+        wins.put(row, wins.get(row) + 1);
+    }
+
+    public void addDraw(int row) {
+        checkRow(row);
+        draws.put(row, draws.get(row) + 1);
+    }
+
+    public void addLoss(int row) {
+        checkRow(row);
+        losses.put(row, losses.get(row) + 1);
+    }
+
+    /**
+     * Award a BYE to a row: one point and a win, at most once.
+     *
+     * @throws IllegalStateException if the row already received a BYE
+     */
+    public void bye(int row) {
+        if (wasByed(row)) {
+            throw new IllegalStateException("Participant already received a BYE.");
+        }
+        byes.put(row, (byte) 1);
+        addHalfPoints(row, 2);
+        addWin(row);
+    }
+
+    void revertResult(int row, int half, int winCount, int drawCount, int lossCount) {
+        checkRow(row);
+        halfPoints.put(row, halfPoints.get(row) - half);
+        wins.put(row, wins.get(row) - winCount);
+        draws.put(row, draws.get(row) - drawCount);
+        losses.put(row, losses.get(row) - lossCount);
+    }
+
+    void clearBye(int row) {
+        byes.put(checkRow(row), (byte) 0);
+    }
+
+    void removeOpponent(int row, int opponentRow) {
+        int count = opponentCounts[checkRow(row)];
+        int[] list = opponents[row];
+        for (int i = 0; i < count; i++) {
+            if (list[i] == opponentRow) {
+                System.arraycopy(list, i + 1, list, i, count - i - 1);
+                opponentCounts[row] = count - 1;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Record that two rows have played each other. Does nothing if the
+     * opponent is already recorded.
+     */
+    public void addOpponent(int row, int opponentRow) {
+        checkRow(opponentRow);
+        if (hasPlayed(row, opponentRow)) {
+            return;
+        }
+        int count = opponentCounts[row];
+        int[] list = opponents[row];
+        if (count == list.length) {
+            list = Arrays.copyOf(list, Math.max(4, count << 1));
+            opponents[row] = list;
+        }
+        list[count] = opponentRow;
+        opponentCounts[row] = count + 1;
+    }
+
+    public boolean hasPlayed(int row, int opponentRow) {
+        int count = opponentCounts[checkRow(row)];
+        int[] list = opponents[row];
+        for (int i = 0; i < count; i++) {
+            if (list[i] == opponentRow) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Buchholz score of a row in half points (sum of opponents' scores).
+     */
+    public int getOpponentsHalfPoints(int row) {
+        int count = opponentCounts[checkRow(row)];
+        int[] list = opponents[row];
+        int sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += halfPoints.get(list[i]);
+        }
+        return sum;
+    }
+
+    /**
+     * Get the participant view of a row, the same object on every call.
+     * All reads and writes go straight to the table's columns.
+     *
+     * @param row Row index
+     * @return Participant view of the row
+     */
+    public Participant view(int row) {
+        RowView view = views[checkRow(row)];
+        if (view == null) {
+            view = new RowView(this, row);
+            views[row] = view;
+        }
+        return view;
+    }
+
+    /**
+     * Get the views of all rows, created lazily as elements are read.
+     *
+     * @return Read-only list of participant views in row order
+     */
+    public List<Participant> views() {
+        return new AbstractList<Participant>() {
+            @Override
+            public Participant get(int index) {
+                return view(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of range");
+        }
+        return row;
+    }
+
+    private void allocate(int rows) {
+        capacity = rows;
+        ids = newIntColumn(rows);
+        halfPoints = newIntColumn(rows);
+        wins = newIntColumn(rows);
+        draws = newIntColumn(rows);
+        losses = newIntColumn(rows);
+        statuses = newByteColumn(rows);
+        byes = newByteColumn(rows);
+        names = new String[rows];
+        opponents = new int[rows][];
+        opponentCounts = new int[rows];
+        views = new RowView[rows];
+    }
+
+    private void grow(int rows) {
+        IntBuffer oldIds = ids;
+        IntBuffer oldHalfPoints = halfPoints;
+        IntBuffer oldWins = wins;
+        IntBuffer oldDraws = draws;
+        IntBuffer oldLosses = losses;
+        ByteBuffer oldStatuses = statuses;
+        ByteBuffer oldByes = byes;
+        String[] oldNames = names;
+        int[][] oldOpponents = opponents;
+        int[] oldCounts = opponentCounts;
+        RowView[] oldViews = views;
+
+        allocate(rows);
+        copy(oldIds, ids);
+        copy(oldHalfPoints, halfPoints);
+        copy(oldWins, wins);
+        copy(oldDraws, draws);
+        copy(oldLosses, losses);
+        copy(oldStatuses, statuses);
+        copy(oldByes, byes);
+        System.arraycopy(oldNames, 0, names, 0, size);
+        System.arraycopy(oldOpponents, 0, opponents, 0, size);
+        System.arraycopy(oldCounts, 0, opponentCounts, 0, size);
+        System.arraycopy(oldViews, 0, views, 0, size);
+    }
+
+    private void copy(IntBuffer from, IntBuffer to) {
+        IntBuffer source = from.duplicate();
+        source.position(0).limit(size);
+        to.duplicate().put(source);
+    }
+
+    private void copy(ByteBuffer from, ByteBuffer to) {
+        ByteBuffer source = from.duplicate();
+        source.position(0).limit(size);
+        to.duplicate().put(source);
+    }
+
+    private IntBuffer newIntColumn(int rows) {
+        if (direct) {
+            return ByteBuffer.allocateDirect(rows * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+        }
+        return IntBuffer.wrap(new int[rows]);
+    }
+
+    private ByteBuffer newByteColumn(int rows) {
+        return direct ? ByteBuffer.allocateDirect(rows) : ByteBuffer.wrap(new byte[rows]);
+    }
+
+    /**
+     * Participant backed by one table row. Every accessor reads the columns;
+     * of the fields inherited from {@link Participant} only the owning
+     * tournaments are used, which is why each row has a single view.
+     */
+    private static final class RowView extends Participant {
+        private final ParticipantTable table;
+        private final int row;
+
+        RowView(ParticipantTable table, int row) {
+            this.table = table;
+            this.row = row;
+        }
+
+        @Override
+        public int getId() {
+            return table.getId(row);
+        }
+
+        @Override
+        public String getName() {
+            return table.getName(row);
+        }
+
+        @Override
+        public double getScore() {
+            return table.getScore(row);
+        }
+
+        /**
+         * @return Snapshot list of opponent views (not live, unlike {@link Participant})
+         */
+        @Override
+        public List<Participant> getOpponents() {
+            int count = table.getOpponentCount(row);
+            List<Participant> list = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                list.add(table.view(table.getOpponentRow(row, i)));
+            }
+            return list;
+        }
+
+        @Override
+        public boolean getWasParticipantByed() {
+            return table.wasByed(row);
+        }
+
+        @Override
+        public int getWinCount() {
+            return table.getWinCount(row);
+        }
+
+        @Override
+        public int getDrawCount() {
+            return table.getDrawCount(row);
+        }
+
+        @Override
+        public int getLossCount() {
+            return table.getLossCount(row);
+        }
+
+        @Override
+        public ParticipantStatus getStatus() {
+            return table.getStatus(row);
+        }
+
+        @Override
+        public void setName(String name) {
+            boolean renamed = name != null && !name.equals(getName());
+            Tournament[] current = beginEdit();
+            try {
+                table.setName(row, name);
+                edited(renamed);
+            } finally {
+                endEdit(current);
+            }
+        }
+
+        @Override
+        public void setStatus(ParticipantStatus status) {
+            Tournament[] current = beginEdit();
+            try {
+                table.setStatus(row, status);
+                edited(false);
+            } finally {
+                endEdit(current);
+            }
+        }
+
+        @Override
+        public void addWin() {
+            table.addWin(row);
+        }
+
+        @Override
+        public void addDraw() {
+            table.addDraw(row);
+        }
+
+        @Override
+        public void addLoss() {
+            table.addLoss(row);
+        }
+
+        /**
+         * @throws IllegalArgumentException if point is negative or not a multiple of 0.5
+         */
+        @Override
+        public void addPoint(double point) {
+            double half = point * 2;
+            if (half != Math.rint(half)) {
+                throw new IllegalArgumentException("Points must be a multiple of 0.5");
+            }
+            table.addHalfPoints(row, (int) half);
+        }
+
+        /**
+         * Opponents from another table are ignored, since they cannot be stored as rows.
+         */
+        @Override
+        public void addOpponent(Participant opponent) {
+            if (opponent instanceof RowView && ((RowView) opponent).table == table) {
+                table.addOpponent(row, ((RowView) opponent).row);
+            }
+        }
+
+        @Override
+        public boolean hasPlayedWith(Participant opponent) {
+            return opponent instanceof RowView && ((RowView) opponent).table == table
+                    && table.hasPlayed(row, ((RowView) opponent).row);
+        }
+
+        @Override
+        void revertResult(double point, int winCount, int drawCount, int lossCount) {
+            table.revertResult(row, (int) Math.round(point * 2), winCount, drawCount, lossCount);
+        }
+
+        @Override
+        void removeOpponent(Participant opponent) {
+            if (opponent instanceof RowView && ((RowView) opponent).table == table) {
+                table.removeOpponent(row, ((RowView) opponent).row);
+            }
+        }
+
+        @Override
+        void clearBye() {
+            table.clearBye(row);
+        }
+
+        @Override
+        public double getOpponentsSumScore() {
+            return table.getOpponentsHalfPoints(row) * 0.5;
+        }
+
+        @Override
+        public void byeParticipant() {
+            table.bye(row);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("ID - ").append(getId()).append(" | ");
+            sb.append(getName()).append(" | ");
+            sb.append(getScore()).append("\n");
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,486 @@
+package com.molights.tournament;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * Inverted index of game history across tournaments, from participant ID
+ * to the games that participant played.
+ * <p>
+ * Each participant has a posting list of (tournament, round, opponent,
+ * outcome) in tournament order, where the tournament is its archive ID
+ * in a {@link TournamentArchive}. Postings are delta-encoded varints: the
+ * gap to the previous tournament, the round and outcome packed together,
+ * and the opponent relative to the participant, so a game usually takes
+ * three or four bytes. Career totals are kept as counters, and a
+ * head-to-head query decodes only the shorter of the two players' lists,
+ * so neither depends on the size of the archive.
+ * <p>
+ * Add tournaments as they are archived, in archive order, or build the
+ * index of a whole archive at once with {@link #build(TournamentArchive)}.
+ * Thread-safe; queries run concurrently with each other.
+ */
+public final class PlayerHistoryIndex {
+
+    /** Outcomes from the indexed participant's point of view. */
+    public static final int WIN = 0;
+    public static final int DRAW = 1;
+    public static final int LOSS = 2;
+    public static final int BYE = 3;
+
+    /**
+     * Callback for a participant's games.
+     */
+    public interface GameVisitor {
+        /**
+         * @param tournament Archive ID of the tournament
+         * @param round Round number
+         * @param opponent Opponent ID, or 0 for a BYE
+         * @param outcome {@link #WIN}, {@link #DRAW}, {@link #LOSS} or {@link #BYE}
+         */
+        void visit(int tournament, int round, int opponent, int outcome);
+    }
+
+    /**
+     * Game totals of a participant, overall or against one opponent.
+     */
+    public static final class Tally {
+        private final int wins;
+        private final int draws;
+        private final int losses;
+        private final int byes;
+
+        Tally(int wins, int draws, int losses, int byes) {
+            this.wins = wins;
+            this.draws = draws;
+            this.losses = losses;
+            this.byes = byes;
+        }
+
+        public int getWins() {
+            return wins;
+        }
+
+        public int getDraws() {
+            return draws;
+        }
+
+        public int getLosses() {
+            return losses;
+        }
+
+        public int getByes() {
+            return byes;
+        }
+
+        /**
+         * @return Games played, BYEs not counted
+         */
+        public int getGames() {
+            return wins + draws + losses;
+        }
+
+        /**
+         * @return Points scored, a BYE counting as a win
+         */
+        public double getPoints() {
+            return wins + byes + draws * 0.5;
+        }
+
+        @Override
+        public String toString() {
+            return wins + "-" + draws + "-" + losses + (byes > 0 ? " (" + byes + " BYE)" : "");
+        }
+    }
+
+    private static final int NO_TOURNAMENT = -1;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Participant ID to slot, slot + 1 as stored value
+    private final IntIntMap slots = new IntIntMap(1024);
+    private int[] ids = new int[64];
+    private byte[][] postings = new byte[64][];
+    private int[] lengths = new int[64];
+    private int[] lastTournament = new int[64];
+    // Per slot: wins, draws, losses, byes
+    private int[] tallies = new int[64 * 4];
+    private int players;
+    private int lastAdded = NO_TOURNAMENT;
+    private long games;
+
+    public PlayerHistoryIndex() {
+    }
+
+    /**
+     * Index every tournament of an archive. The archive is split into
+     * ranges that are indexed in parallel and then joined, which only
+     * re-encodes the first posting of each range per participant.
+     *
+     * @param archive Archive to index
+     * @return New index
+     * @throws IOException if a segment cannot be read
+     */
+    public static PlayerHistoryIndex build(TournamentArchive archive) throws IOException {
+        if (archive == null) {
+            throw new IllegalArgumentException("Archive cannot be null");
+        }
+        int size = archive.size();
+        int chunks = Math.max(1, Math.min(size, ForkJoinPool.commonPool().getParallelism() * CHUNKS_PER_THREAD));
+        PlayerHistoryIndex[] parts;
+        try {
+            parts = IntStream.range(0, chunks).parallel().mapToObj(c -> {
+                PlayerHistoryIndex part = new PlayerHistoryIndex();
+                int from = (int) ((long) size * c / chunks);
+                int to = (int) ((long) size * (c + 1) / chunks);
+                for (int id = from; id < to; id++) {
+                    try {
+                        if (archive.contains(id)) {
+                            part.add(archive.get(id));
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return part;
+            }).toArray(PlayerHistoryIndex[]::new);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        PlayerHistoryIndex index = parts[0];
+        for (int c = 1; c < parts.length; c++) {
+            index.appendAll(parts[c]);
+        }
+        return index;
+    }
+
+    /**
+     * Index an archived tournament.
+     *
+     * @param entry Archive entry
+     * @throws IllegalArgumentException if the entry is older than one already indexed
+     */
+    public void add(TournamentArchive.Entry entry) {
+        if (entry == null) {
+            throw new IllegalArgumentException("Entry cannot be null");
+        }
+        lock.writeLock().lock();
+        try {
+            begin(entry.getArchiveId());
+            for (int round = 1; round <= entry.getRoundCount(); round++) {
+                for (int i = 0; i < entry.getMatchCount(round); i++) {
+                    addGame(entry.getArchiveId(), round, entry.getPlayer1Id(round, i),
+                            entry.getPlayer2Id(round, i), entry.getResultCode(round, i));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Index a tournament under the archive ID it was stored with.
+     *
+     * @param archiveId Archive ID returned by {@link TournamentArchive#append(Tournament)}
+     * @param tournament Tournament
+     * @throws IllegalArgumentException if the archive ID is older than one already indexed
+     */
+    public void add(int archiveId, Tournament tournament) {
+        if (tournament == null) {
+            throw new IllegalArgumentException("Tournament cannot be null");
+        }
+        List<Match> matches = tournament.getMatches();
+        lock.writeLock().lock();
+        try {
+            begin(archiveId);
+            for (Match m : matches) {
+                addGame(archiveId, m.getRoundNumber(), m.getPlayer1().getId(), m.isBye() ? 0 : m.getPlayer2().getId(),
+                        m.isBye() ? MatchLedger.BYE : MatchLedger.code(m.getResult()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return Number of participants with at least one game or BYE
+     */
+    public int getPlayerCount() {
+        lock.readLock().lock();
+        try {
+            return players;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Number of postings, two per game and one per BYE
+     */
+    public long getPostingCount() {
+        lock.readLock().lock();
+        try {
+            return games;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Bytes used by the posting lists
+     */
+    public long getPostingBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (int s = 0; s < players; s++) {
+                bytes += lengths[s];
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Career totals of a participant, in O(1).
+     *
+     * @param playerId Participant ID
+     * @return Totals, all zero if the participant is unknown
+     */
+    public Tally getCareer(int playerId) {
+        lock.readLock().lock();
+        try {
+            int slot = slots.get(playerId, 0) - 1;
+            if (slot < 0) {
+                return new Tally(0, 0, 0, 0);
+            }
+            int t = slot * 4;
+            return new Tally(tallies[t + WIN], tallies[t + DRAW], tallies[t + LOSS], tallies[t + BYE]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Games and BYEs of a participant.
+     *
+     * @param playerId Participant ID
+     * @return Number of postings
+     */
+    public int getGameCount(int playerId) {
+        Tally career = getCareer(playerId);
+        return career.getGames() + career.getByes();
+    }
+
+    /**
+     * Results of one participant against another over all indexed
+     * tournaments. Decodes the shorter of the two posting lists.
+     *
+     * @param playerId Participant ID, whose point of view is taken
+     * @param opponentId Opponent ID
+     * @return Totals, without BYEs
+     */
+    public Tally headToHead(int playerId, int opponentId) {
+        int[] counts = new int[3];
+        lock.readLock().lock();
+        try {
+            int player = slots.get(playerId, 0) - 1;
+            int opponent = slots.get(opponentId, 0) - 1;
+            if (player < 0 || opponent < 0 || playerId == opponentId) {
+                return new Tally(0, 0, 0, 0);
+            }
+            boolean flip = lengths[opponent] < lengths[player];
+            int other = flip ? playerId : opponentId;
+            decode(flip ? opponent : player, (tournament, round, against, outcome) -> {
+                if (against == other) {
+                    counts[flip ? LOSS - outcome : outcome]++;
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new Tally(counts[WIN], counts[DRAW], counts[LOSS], 0);
+    }
+
+    /**
+     * Visit a participant's games in tournament and round order.
+     *
+     * @param playerId Participant ID
+     * @param visitor Callback per game or BYE
+     */
+    public void forEachGame(int playerId, GameVisitor visitor) {
+        if (visitor == null) {
+            throw new IllegalArgumentException("Visitor cannot be null");
+        }
+        lock.readLock().lock();
+        try {
+            int slot = slots.get(playerId, 0) - 1;
+            if (slot >= 0) {
+                decode(slot, visitor);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- encoding ---
+
+    private void begin(int archiveId) {
+        if (archiveId < 0) {
+            throw new IllegalArgumentException("Archive ID cannot be negative");
+        }
+        if (archiveId <= lastAdded) {
+            throw new IllegalArgumentException("Tournaments must be added in archive order; "
+                                               + archiveId + " is not after " + lastAdded);
+        }
+        lastAdded = archiveId;
+    }
+
+    private void addGame(int tournament, int round, int player1, int player2, byte code) {
+        switch (code) {
+            case MatchLedger.BYE:
+                post(player1, tournament, round, 0, BYE);
+                break;
+            case MatchLedger.WIN_PLAYER1:
+                post(player1, tournament, round, player2, WIN);
+                post(player2, tournament, round, player1, LOSS);
+                break;
+            case MatchLedger.WIN_PLAYER2:
+                post(player1, tournament, round, player2, LOSS);
+                post(player2, tournament, round, player1, WIN);
+                break;
+            case MatchLedger.DRAW:
+                post(player1, tournament, round, player2, DRAW);
+                post(player2, tournament, round, player1, DRAW);
+                break;
+            default:
+                break; // not played
+        }
+    }
+
+    /**
+     * Append a posting: tournament gap, round and outcome, opponent offset.
+     */
+    private void post(int playerId, int tournament, int round, int opponent, int outcome) {
+        int slot = slotOf(playerId);
+        int gap = lastTournament[slot] == NO_TOURNAMENT ? tournament : tournament - lastTournament[slot];
+        lastTournament[slot] = tournament;
+        ensureRoom(slot, 15);
+        byte[] bytes = postings[slot];
+        int at = lengths[slot];
+        at = writeVarint(bytes, at, gap);
+        at = writeVarint(bytes, at, (round << 2) | outcome);
+        at = writeVarint(bytes, at, zigzag(opponent == 0 ? 0 : opponent - playerId));
+        lengths[slot] = at;
+        tallies[slot * 4 + outcome]++;
+        games++;
+    }
+
+    private void decode(int slot, GameVisitor visitor) {
+        byte[] bytes = postings[slot];
+        int end = lengths[slot];
+        int playerId = ids[slot];
+        int tournament = 0;
+        int[] at = {0};
+        while (at[0] < end) {
+            tournament += readVarint(bytes, at);
+            int roundOutcome = readVarint(bytes, at);
+            int offset = unzigzag(readVarint(bytes, at));
+            int outcome = roundOutcome & 3;
+            visitor.visit(tournament, roundOutcome >>> 2, outcome == BYE ? 0 : playerId + offset, outcome);
+        }
+    }
+
+    /**
+     * Append the postings of an index over later tournaments. The first
+     * posting of each participant in the other index holds an absolute
+     * tournament ID and is re-encoded as a gap; the rest is copied.
+     */
+    private void appendAll(PlayerHistoryIndex other) {
+        if (other.players == 0) {
+            return;
+        }
+        int[] at = new int[1];
+        for (int s = 0; s < other.players; s++) {
+            int slot = slotOf(other.ids[s]);
+            byte[] source = other.postings[s];
+            at[0] = 0;
+            int first = readVarint(source, at);
+            int gap = lastTournament[slot] == NO_TOURNAMENT ? first : first - lastTournament[slot];
+            int rest = other.lengths[s] - at[0];
+            ensureRoom(slot, 5 + rest);
+            int end = writeVarint(postings[slot], lengths[slot], gap);
+            System.arraycopy(source, at[0], postings[slot], end, rest);
+            lengths[slot] = end + rest;
+            lastTournament[slot] = other.lastTournament[s];
+            for (int k = 0; k < 4; k++) {
+                tallies[slot * 4 + k] += other.tallies[s * 4 + k];
+            }
+        }
+        games += other.games;
+        lastAdded = Math.max(lastAdded, other.lastAdded);
+    }
+
+    private int slotOf(int playerId) {
+        int slot = slots.get(playerId, 0) - 1;
+        if (slot >= 0) {
+            return slot;
+        }
+        slot = players++;
+        if (slot == ids.length) {
+            int capacity = slot * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            postings = Arrays.copyOf(postings, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            lastTournament = Arrays.copyOf(lastTournament, capacity);
+            tallies = Arrays.copyOf(tallies, capacity * 4);
+        }
+        ids[slot] = playerId;
+        postings[slot] = new byte[16];
+        lastTournament[slot] = NO_TOURNAMENT;
+        slots.put(playerId, slot + 1);
+        return slot;
+    }
+
+    private void ensureRoom(int slot, int extra) {
+        if (lengths[slot] + extra > postings[slot].length) {
+            postings[slot] = Arrays.copyOf(postings[slot], Math.max(postings[slot].length * 2, lengths[slot] + extra));
+        }
+    }
+
+    private static int writeVarint(byte[] bytes, int at, int value) {
+        while ((value & ~0x7F) != 0) {
+            bytes[at++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[at++] = (byte) value;
+        return at;
+    }
+
+    private static int readVarint(byte[] bytes, int[] at) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = bytes[at[0]++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,493 @@
+package com.molights.tournament;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Elo and Glicko-2 ratings for a pool of players, stored column-wise.
+ * <p>
+ * Results are folded into per-player sums as they are applied, in O(1) and
+ * without allocation. Within a rating period every game is evaluated against
+ * the ratings committed at the start of the period, so the sums are purely
+ * additive: a corrected or undone result is retracted exactly by subtracting
+ * its contribution. {@link #closePeriod()} turns the sums into new ratings,
+ * updating players in parallel.
+ * <p>
+ * The pool also provides rating-based win and draw probabilities, which
+ * {@link Tournament} uses for simulated results when a pool is attached.
+ */
+public class RatingPool {
+
+    /**
+     * Rating system applied when a period is closed.
+     */
+    public enum RatingSystem {
+        ELO,
+        GLICKO2
+    }
+
+    public static final double DEFAULT_DEVIATION = 350;
+    public static final double DEFAULT_VOLATILITY = 0.06;
+
+    private static final double GLICKO_SCALE = 173.7178;
+    private static final double CONVERGENCE = 0.000001;
+    private static final int PARALLEL_THRESHOLD = 4096;
+
+    private final RatingSystem system;
+    private double kFactor = 20;
+    private double tau = 0.5;
+    private double drawRate = 0.2;
+
+    private final IntIntMap rows;
+    private int size;
+    private int[] ids;
+    private double[] ratings;
+    private double[] deviations;
+    private double[] volatilities;
+    private int[] periodGames;
+
+    // Period accumulators
+    private double[] eloSums;        // sum of (S - E)
+    private double[] glickoVSums;    // sum of g^2 * E * (1 - E)
+    private double[] glickoDeltaSums; // sum of g * (S - E)
+
+    /**
+     * Creates an empty pool.
+     *
+     * @param system Rating system used when closing periods
+     * @param expectedPlayers Number of players to reserve space for
+     * @throws IllegalArgumentException if system is null or expectedPlayers is negative
+     */
+    public RatingPool(RatingSystem system, int expectedPlayers) {
+        if (system == null) {
+            throw new IllegalArgumentException("Rating system cannot be null");
+        }
+        if (expectedPlayers < 0) {
+            throw new IllegalArgumentException("expectedPlayers must be >= 0");
+        }
+        this.system = system;
+        this.rows = new IntIntMap(expectedPlayers);
+        allocate(Math.max(16, expectedPlayers));
+    }
+
+    public RatingSystem getSystem() {
+        return system;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Set the Elo K-factor (default 20).
+     *
+     * @throws IllegalArgumentException if kFactor is not positive
+     */
+    public void setKFactor(double kFactor) {
+        if (kFactor <= 0) {
+            throw new IllegalArgumentException("kFactor must be > 0");
+        }
+        this.kFactor = kFactor;
+    }
+
+    /**
+     * Set the Glicko-2 system constant tau (default 0.5).
+     *
+     * @throws IllegalArgumentException if tau is not positive
+     */
+    public void setTau(double tau) {
+        if (tau <= 0) {
+            throw new IllegalArgumentException("tau must be > 0");
+        }
+        this.tau = tau;
+    }
+
+    /**
+     * Set the draw probability between equally rated players (default 0.2).
+     * The draw probability shrinks as the expected score moves away from 0.5.
+     *
+     * @throws IllegalArgumentException if drawRate is outside [0, 1]
+     */
+    public void setDrawRate(double drawRate) {
+        if (drawRate < 0 || drawRate > 1) {
+            throw new IllegalArgumentException("drawRate must be between 0 and 1");
+        }
+        this.drawRate = drawRate;
+    }
+
+    /**
+     * Register a player with an explicit rating.
+     *
+     * @param id Participant ID (must be positive)
+     * @param rating Initial rating
+     * @param deviation Initial rating deviation (Glicko-2)
+     * @param volatility Initial volatility (Glicko-2)
+     * @throws IllegalArgumentException if the ID is invalid or already registered
+     */
+    public void register(int id, double rating, double deviation, double volatility) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("id must be > 0");
+        }
+        if (rows.containsKey(id)) {
+            throw new IllegalArgumentException("Player " + id + " is already registered");
+        }
+        if (size == ids.length) {
+            grow(size << 1);
+        }
+        int row = size++;
+        ids[row] = id;
+        ratings[row] = rating;
+        deviations[row] = deviation;
+        volatilities[row] = volatility;
+        rows.put(id, row);
+    }
+
+    /**
+     * Register a participant with the seed rating of its status band,
+     * unless it is already registered.
+     *
+     * @param participant Participant to register
+     * @return true if the participant was added
+     */
+    public boolean register(Participant participant) {
+        if (rows.containsKey(participant.getId())) {
+            return false;
+        }
+        register(participant.getId(), participant.getStatus().getSeedRating(),
+                 DEFAULT_DEVIATION, DEFAULT_VOLATILITY);
+        return true;
+    }
+
+    public boolean contains(int id) {
+        return rows.containsKey(id);
+    }
+
+    /**
+     * @return Rating committed at the last closed period
+     */
+    public double getRating(int id) {
+        return ratings[row(id)];
+    }
+
+    /**
+     * Rating including the games of the open period. For Elo this is the
+     * exact rating the player would get if the period closed now; for
+     * Glicko-2 it is the committed rating.
+     */
+    public double getLiveRating(int id) {
+        int row = row(id);
+        return system == RatingSystem.ELO ? ratings[row] + kFactor * eloSums[row] : ratings[row];
+    }
+
+    public double getDeviation(int id) {
+        return deviations[row(id)];
+    }
+
+    public double getVolatility(int id) {
+        return volatilities[row(id)];
+    }
+
+    /**
+     * @return Games recorded for the player in the open period
+     */
+    public int getPeriodGames(int id) {
+        return periodGames[row(id)];
+    }
+
+    /**
+     * @return Status band of the player's committed rating
+     */
+    public ParticipantStatus bandOf(int id) {
+        return ParticipantStatus.forRating(ratings[row(id)]);
+    }
+
+    /**
+     * Set each participant's status to the band of its committed rating.
+     * Participants that are not registered are left unchanged.
+     */
+    public void applyBands(List<Participant> participants) {
+        for (Participant p : participants) {
+            int row = rows.get(p.getId(), -1);
+            if (row >= 0) {
+                p.setStatus(ParticipantStatus.forRating(ratings[row]));
+            }
+        }
+    }
+
+    /**
+     * Record a game in the open period.
+     * Safe to call concurrently for games with disjoint players.
+     *
+     * @param id1 First player
+     * @param id2 Second player
+     * @param score1 Score of the first player: 1, 0.5 or 0
+     * @throws IllegalArgumentException if a player is not registered
+     */
+    public void recordGame(int id1, int id2, double score1) {
+        accumulate(row(id1), row(id2), score1, 1);
+    }
+
+    /**
+     * Take back a game recorded in the open period.
+     */
+    public void retractGame(int id1, int id2, double score1) {
+        accumulate(row(id1), row(id2), score1, -1);
+    }
+
+    /**
+     * Record a match result; unplayed matches and BYEs are ignored.
+     */
+    public void recordResult(Match match) {
+        recordResult(match, match.getResult(), 1);
+    }
+
+    void recordResult(Match match, Match.MatchResult result, int sign) {
+        if (match.isBye() || result == Match.MatchResult.NOT_PLAYED) {
+            return;
+        }
+        double score1 = result == Match.MatchResult.WIN_PLAYER1 ? 1.0
+                      : result == Match.MatchResult.WIN_PLAYER2 ? 0.0 : 0.5;
+        accumulate(row(match.getPlayer1().getId()), row(match.getPlayer2().getId()), score1, sign);
+    }
+
+    /**
+     * Record all played games of many tournaments in the open period.
+     * Games are extracted from the tournaments in parallel and then folded
+     * into the pool; unknown participants are registered from their status band.
+     *
+     * @param tournaments Tournaments whose results belong to this period
+     */
+    public void recordTournaments(Collection<Tournament> tournaments) {
+        for (Tournament t : tournaments) {
+            for (Participant p : t.getParticipants()) {
+                register(p);
+            }
+        }
+        int[][] games = tournaments.parallelStream().map(this::extractGames).toArray(int[][]::new);
+        for (int[] packed : games) {
+            for (int i = 0; i < packed.length; i += 3) {
+                accumulate(packed[i], packed[i + 1], packed[i + 2] * 0.5, 1);
+            }
+        }
+    }
+
+    /**
+     * @return Flat triples of (row1, row2, half points of player 1)
+     */
+    private int[] extractGames(Tournament tournament) {
+        List<Match> matches = tournament.getMatches();
+        int[] packed = new int[matches.size() * 3];
+        int n = 0;
+        for (Match m : matches) {
+            if (m.isBye() || !m.isPlayed()) {
+                continue;
+            }
+            packed[n++] = row(m.getPlayer1().getId());
+            packed[n++] = row(m.getPlayer2().getId());
+            packed[n++] = m.getResult() == Match.MatchResult.WIN_PLAYER1 ? 2
+                        : m.getResult() == Match.MatchResult.WIN_PLAYER2 ? 0 : 1;
+        }
+        return Arrays.copyOf(packed, n);
+    }
+
+    /**
+     * Close the open rating period: compute new ratings from the recorded
+     * games and reset the period sums. Players are updated in parallel.
+     * With Glicko-2, players without games only gain rating deviation.
+     */
+    public void closePeriod() {
+        IntStream players = IntStream.range(0, size);
+        if (size >= PARALLEL_THRESHOLD) {
+            players = players.parallel();
+        }
+        if (system == RatingSystem.ELO) {
+            players.forEach(this::closeElo);
+        } else {
+            players.forEach(this::closeGlicko);
+        }
+    }
+
+    /**
+     * Expected score of player 1 against player 2 from committed ratings.
+     */
+    public double expectedScore(int id1, int id2) {
+        int a = row(id1);
+        int b = row(id2);
+        double phi = 0;
+        if (system == RatingSystem.GLICKO2) {
+            double phiA = deviations[a] / GLICKO_SCALE;
+            double phiB = deviations[b] / GLICKO_SCALE;
+            phi = Math.sqrt(phiA * phiA + phiB * phiB);
+        }
+        return expected((ratings[a] - ratings[b]) / GLICKO_SCALE, g(phi));
+    }
+
+    public double drawProbability(int id1, int id2) {
+        double e = expectedScore(id1, id2);
+        return drawRate * (1 - Math.abs(2 * e - 1));
+    }
+
+    /**
+     * @return Probability that player 1 wins outright
+     */
+    public double winProbability(int id1, int id2) {
+        double e = expectedScore(id1, id2);
+        return e - drawRate * (1 - Math.abs(2 * e - 1)) / 2;
+    }
+
+    /**
+     * Map a uniform roll to a result using rating-based probabilities.
+     *
+     * @param id1 Player 1
+     * @param id2 Player 2
+     * @param roll Uniform value in [0, 1)
+     * @return Simulated result
+     */
+    public Match.MatchResult randomResult(int id1, int id2, double roll) {
+        double e = expectedScore(id1, id2);
+        double draw = drawRate * (1 - Math.abs(2 * e - 1));
+        double win1 = e - draw / 2;
+        if (roll < win1) {
+            return Match.MatchResult.WIN_PLAYER1;
+        }
+        if (roll < win1 + draw) {
+            return Match.MatchResult.DRAW;
+        }
+        return Match.MatchResult.WIN_PLAYER2;
+    }
+
+    // --- internals ---
+
+    private void accumulate(int a, int b, double score1, int sign) {
+        double diff = (ratings[a] - ratings[b]) / GLICKO_SCALE;
+        if (system == RatingSystem.ELO) {
+            double e = expected(diff, 1);
+            eloSums[a] += sign * (score1 - e);
+            eloSums[b] += sign * ((1 - score1) - (1 - e));
+        } else {
+            double gB = g(deviations[b] / GLICKO_SCALE);
+            double gA = g(deviations[a] / GLICKO_SCALE);
+            double eA = expected(diff, gB);
+            double eB = expected(-diff, gA);
+            glickoVSums[a] += sign * gB * gB * eA * (1 - eA);
+            glickoDeltaSums[a] += sign * gB * (score1 - eA);
+            glickoVSums[b] += sign * gA * gA * eB * (1 - eB);
+            glickoDeltaSums[b] += sign * gA * ((1 - score1) - eB);
+        }
+        periodGames[a] += sign;
+        periodGames[b] += sign;
+    }
+
+    private void closeElo(int row) {
+        ratings[row] += kFactor * eloSums[row];
+        eloSums[row] = 0;
+        periodGames[row] = 0;
+    }
+
+    private void closeGlicko(int row) {
+        double phi = deviations[row] / GLICKO_SCALE;
+        double sigma = volatilities[row];
+        if (periodGames[row] <= 0) {
+            deviations[row] = Math.min(DEFAULT_DEVIATION, Math.sqrt(phi * phi + sigma * sigma) * GLICKO_SCALE);
+            glickoVSums[row] = 0;
+            glickoDeltaSums[row] = 0;
+            periodGames[row] = 0;
+            return;
+        }
+        double v = 1 / glickoVSums[row];
+        double delta = v * glickoDeltaSums[row];
+        double newSigma = newVolatility(phi, sigma, v, delta);
+        double phiStar = Math.sqrt(phi * phi + newSigma * newSigma);
+        double newPhi = 1 / Math.sqrt(1 / (phiStar * phiStar) + 1 / v);
+
+        ratings[row] += GLICKO_SCALE * newPhi * newPhi * glickoDeltaSums[row];
+        deviations[row] = newPhi * GLICKO_SCALE;
+        volatilities[row] = newSigma;
+        glickoVSums[row] = 0;
+        glickoDeltaSums[row] = 0;
+        periodGames[row] = 0;
+    }
+
+    /**
+     * Glicko-2 volatility update using the Illinois variant of regula falsi.
+     */
+    private double newVolatility(double phi, double sigma, double v, double delta) {
+        double a = Math.log(sigma * sigma);
+        double phi2 = phi * phi;
+        double delta2 = delta * delta;
+        double tau2 = tau * tau;
+
+        double lo = a;
+        double hi;
+        if (delta2 > phi2 + v) {
+            hi = Math.log(delta2 - phi2 - v);
+        } else {
+            int k = 1;
+            while (volatilityFunction(a - k * tau, a, phi2, v, delta2, tau2) < 0) {
+                k++;
+            }
+            hi = a - k * tau;
+        }
+        double fLo = volatilityFunction(lo, a, phi2, v, delta2, tau2);
+        double fHi = volatilityFunction(hi, a, phi2, v, delta2, tau2);
+        while (Math.abs(hi - lo) > CONVERGENCE) {
+            double c = lo + (lo - hi) * fLo / (fHi - fLo);
+            double fC = volatilityFunction(c, a, phi2, v, delta2, tau2);
+            if (fC * fHi <= 0) {
+                lo = hi;
+                fLo = fHi;
+            } else {
+                fLo /= 2;
+            }
+            hi = c;
+            fHi = fC;
+        }
+        return Math.exp(lo / 2);
+    }
+
+    private static double volatilityFunction(double x, double a, double phi2, double v, double delta2, double tau2) {
+        double ex = Math.exp(x);
+        double d = phi2 + v + ex;
+        return ex * (delta2 - phi2 - v - ex) / (2 * d * d) - (x - a) / tau2;
+    }
+
+    private static double g(double phi) {
+        return 1 / Math.sqrt(1 + 3 * phi * phi / (Math.PI * Math.PI));
+    }
+
+    private static double expected(double muDiff, double g) {
+        return 1 / (1 + Math.exp(-g * muDiff));
+    }
+
+    private int row(int id) {
+        int row = rows.get(id, -1);
+        if (row < 0) {
+            throw new IllegalArgumentException("Player " + id + " is not registered");
+        }
+        return row;
+    }
+
+    private void allocate(int capacity) {
+        ids = new int[capacity];
+        ratings = new double[capacity];
+        deviations = new double[capacity];
+        volatilities = new double[capacity];
+        periodGames = new int[capacity];
+        eloSums = new double[capacity];
+        glickoVSums = new double[capacity];
+        glickoDeltaSums = new double[capacity];
+    }
+
+    private void grow(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        ratings = Arrays.copyOf(ratings, capacity);
+        deviations = Arrays.copyOf(deviations, capacity);
+        volatilities = Arrays.copyOf(volatilities, capacity);
+        periodGames = Arrays.copyOf(periodGames, capacity);
+        eloSums = Arrays.copyOf(eloSums, capacity);
+        glickoVSums = Arrays.copyOf(glickoVSums, capacity);
+        glickoDeltaSums = Arrays.copyOf(glickoDeltaSums, capacity);
+    }
+}
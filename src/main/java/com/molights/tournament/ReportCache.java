@@ -0,0 +1,123 @@
+package com.molights.tournament;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Size-bounded LRU cache of rendered reports.
+ * Entries are keyed by report type, round, format and the tournament state
+ * version they were rendered at, so any state change makes older entries
+ * unreachable and they are evicted as new reports are cached.
+ */
+public class ReportCache {
+
+    /**
+     * Kinds of reports that can be cached.
+     */
+    public enum ReportType {
+        STANDINGS,
+        ROUND,
+        ALL_MATCHES
+    }
+
+    private final int capacity;
+    private final LinkedHashMap<Key, String> entries;
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param capacity Maximum number of reports kept (must be positive)
+     * @throws IllegalArgumentException if capacity is not positive
+     */
+    public ReportCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be > 0");
+        }
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<Key, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, String> eldest) {
+                return size() > ReportCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Return the cached report for the key, rendering and caching it on a miss.
+     *
+     * @param type Report type
+     * @param round Round number (0 when the report is not round specific)
+     * @param format Output format
+     * @param version Tournament state version the report reflects
+     * @param renderer Produces the report on a cache miss
+     * @return Rendered report
+     */
+    public synchronized String get(ReportType type, int round, ReportFormat format, long version,
+                                   Supplier<String> renderer) {
+        Key key = new Key(type, round, format, version);
+        String report = entries.get(key);
+        if (report != null) {
+            hits++;
+            return report;
+        }
+        misses++;
+        report = renderer.get();
+        entries.put(key, report);
+        return report;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    private static final class Key {
+        private final ReportType type;
+        private final int round;
+        private final ReportFormat format;
+        private final long version;
+
+        Key(ReportType type, int round, ReportFormat format, long version) {
+            this.type = type;
+            this.round = round;
+            this.format = format;
+            this.version = version;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return type == other.type && round == other.round
+                    && format == other.format && version == other.version;
+        }
+
+        @Override
+        public int hashCode() {
+            int h = type.hashCode();
+            h = 31 * h + round;
+            h = 31 * h + format.hashCode();
+            h = 31 * h + Long.hashCode(version);
+            return h;
+        }
+    }
+}
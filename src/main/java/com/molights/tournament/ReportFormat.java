@@ -0,0 +1,10 @@
+package com.molights.tournament;
+
+/**
+ * Output formats supported by {@link ReportWriter}.
+ */
+public enum ReportFormat {
+    TEXT,
+    CSV,
+    JSON
+}
@@ -0,0 +1,736 @@
+package com.molights.tournament;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Streams standings and match listings to a character sink.
+ * Rows are rendered cell by cell into a single reusable buffer using
+ * precomputed column layouts, so no per-row strings or format objects
+ * are created. Supports plain text tables, CSV and JSON.
+ */
+public class ReportWriter implements Flushable, Closeable {
+
+    /**
+     * Columns that can appear in a participant table.
+     */
+    public enum Column {
+        RANK("Rank", "rank"),
+        ID("ID", "id"),
+        NAME("Name", "name"),
+        SCORE("Score", "score"),
+        STATUS("Status", "status"),
+        WDL("W-D-L", "wdl"),
+        BUCHHOLZ("Buchholz", "buchholz");
+
+        private final String header;
+        private final String key;
+
+        Column(String header, String key) {
+            this.header = header;
+            this.key = key;
+        }
+
+        public String getHeader() {
+            return header;
+        }
+
+        public String getKey() {
+            return key;
+        }
+    }
+
+    /**
+     * Precomputed layout of a participant table: which columns appear,
+     * how wide each one is in text output, and how rows are separated.
+     */
+    public static final class Layout {
+        private final Column[] columns;
+        private final int[] widths;
+        private final String separator;
+        private final char rulerChar;
+        private final int rulerLength;
+
+        /**
+         * Creates a table layout.
+         *
+         * @param separator Text placed between columns in text output
+         * @param rulerChar Character used for the line under the header
+         * @param rulerLength Length of the line under the header
+         * @param columns Columns in display order
+         * @param widths Minimum width of each column in text output
+         * @throws IllegalArgumentException if columns and widths do not match
+         */
+        public Layout(String separator, char rulerChar, int rulerLength, Column[] columns, int[] widths) {
+            if (separator == null || columns == null || widths == null) {
+                throw new IllegalArgumentException("Layout parts cannot be null");
+            }
+            if (columns.length == 0 || columns.length != widths.length) {
+                throw new IllegalArgumentException("Each column needs exactly one width");
+            }
+            this.separator = separator;
+            this.rulerChar = rulerChar;
+            this.rulerLength = rulerLength;
+            this.columns = columns.clone();
+            this.widths = widths.clone();
+        }
+    }
+
+    /**
+     * How matches are rendered in text output.
+     */
+    public enum MatchStyle {
+        /** {@code Round 1: A vs B => A wins}, as printed by {@link Match#toString()} */
+        LISTING,
+        /** {@code Match 1: A vs B => 1-0}, as written by {@link Match#toFileString()} */
+        FILE
+    }
+
+    /** Standings table printed to the console. */
+    public static final Layout CONSOLE_STANDINGS = new Layout(" ", '=', 80,
+            new Column[] {Column.RANK, Column.ID, Column.NAME, Column.SCORE, Column.STATUS, Column.WDL, Column.BUCHHOLZ},
+            new int[] {5, 4, 20, 8, 8, 12, 10});
+
+    /** Participant table written to tournament files. */
+    public static final Layout FILE_PARTICIPANTS = new Layout(" | ", '-', 70,
+            new Column[] {Column.ID, Column.NAME, Column.SCORE, Column.STATUS, Column.WDL},
+            new int[] {4, 20, 8, 8, 12});
+
+    /** Standings table written to tournament files. */
+    public static final Layout FILE_STANDINGS = new Layout(" | ", '-', 75,
+            new Column[] {Column.RANK, Column.ID, Column.NAME, Column.SCORE, Column.WDL, Column.BUCHHOLZ},
+            new int[] {5, 4, 20, 8, 12, 10});
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final Writer out;
+    private final ReportFormat format;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final char[] digits = new char[20];
+    private int pos;
+    private long written;
+
+    /**
+     * Creates a report writer on top of a character stream.
+     * The writer buffers internally, so the target does not need to.
+     *
+     * @param out Destination stream
+     * @param format Output format
+     * @throws IllegalArgumentException if out or format is null
+     */
+    public ReportWriter(Writer out, ReportFormat format) {
+        if (out == null) {
+            throw new IllegalArgumentException("Output cannot be null");
+        }
+        if (format == null) {
+            throw new IllegalArgumentException("Format cannot be null");
+        }
+        this.out = out;
+        this.format = format;
+    }
+
+    /**
+     * Creates a report writer on top of a byte stream, encoding as UTF-8.
+     *
+     * @param out Destination stream
+     * @param format Output format
+     * @throws IllegalArgumentException if out or format is null
+     */
+    public ReportWriter(OutputStream out, ReportFormat format) {
+        this(out == null ? null : new OutputStreamWriter(out, StandardCharsets.UTF_8), format);
+    }
+
+    public ReportFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Write a line of free text followed by a line separator.
+     *
+     * @param text Text to write
+     * @throws IOException if the underlying stream fails
+     */
+    public void line(CharSequence text) throws IOException {
+        put(text);
+        newLine();
+    }
+
+    /**
+     * Write a line separator.
+     *
+     * @throws IOException if the underlying stream fails
+     */
+    public void newLine() throws IOException {
+        put(LINE_SEPARATOR);
+    }
+
+    /**
+     * Write a participant table.
+     * The RANK column is filled with the row position, starting at 1.
+     *
+     * @param layout Table layout
+     * @param rows Participants in display order
+     * @throws IOException if the underlying stream fails
+     */
+    public void writeTable(Layout layout, List<Participant> rows) throws IOException {
+        if (layout == null || rows == null) {
+            throw new IllegalArgumentException("Layout and rows cannot be null");
+        }
+        switch (format) {
+            case TEXT:
+                writeTextHeader(layout);
+                for (int i = 0; i < rows.size(); i++) {
+                    writeTextRow(layout, i + 1, rows.get(i));
+                }
+                break;
+            case CSV:
+                writeCsvHeader(layout);
+                for (int i = 0; i < rows.size(); i++) {
+                    writeCsvRow(layout, i + 1, rows.get(i));
+                }
+                break;
+            case JSON:
+                put('[');
+                newLine();
+                for (int i = 0; i < rows.size(); i++) {
+                    writeJsonRow(layout, i + 1, rows.get(i), i + 1 < rows.size());
+                }
+                put(']');
+                newLine();
+                break;
+        }
+    }
+
+    /**
+     * Write a list of matches.
+     * Matches are numbered from 1 within each round.
+     *
+     * @param style Text rendering style (ignored for CSV and JSON)
+     * @param matches Matches in round order
+     * @throws IOException if the underlying stream fails
+     */
+    public void writeMatches(MatchStyle style, List<Match> matches) throws IOException {
+        if (style == null || matches == null) {
+            throw new IllegalArgumentException("Style and matches cannot be null");
+        }
+        if (format == ReportFormat.CSV) {
+            put("round,match,player1_id,player1,player2_id,player2,result");
+            newLine();
+        } else if (format == ReportFormat.JSON) {
+            put('[');
+            newLine();
+        }
+
+        int round = -1;
+        int number = 0;
+        for (int i = 0; i < matches.size(); i++) {
+            Match match = matches.get(i);
+            if (match.getRoundNumber() != round) {
+                round = match.getRoundNumber();
+                number = 0;
+            }
+            number++;
+            switch (format) {
+                case TEXT:
+                    if (style == MatchStyle.LISTING) {
+                        put("  ");
+                        putMatchListing(match);
+                    } else {
+                        put("Match ");
+                        putInt(number);
+                        put(": ");
+                        putMatchFileString(match);
+                    }
+                    newLine();
+                    break;
+                case CSV:
+                    writeCsvMatch(number, match);
+                    break;
+                case JSON:
+                    writeJsonMatch(number, match, i + 1 < matches.size());
+                    break;
+            }
+        }
+
+        if (format == ReportFormat.JSON) {
+            put(']');
+            newLine();
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            out.close();
+        }
+    }
+
+    // --- text ---
+
+    private void writeTextHeader(Layout layout) throws IOException {
+        for (int c = 0; c < layout.columns.length; c++) {
+            if (c > 0) {
+                put(layout.separator);
+            }
+            long start = written;
+            put(layout.columns[c].header);
+            pad(layout.widths[c], start);
+        }
+        newLine();
+        for (int i = 0; i < layout.rulerLength; i++) {
+            put(layout.rulerChar);
+        }
+        newLine();
+    }
+
+    private void writeTextRow(Layout layout, int rank, Participant p) throws IOException {
+        for (int c = 0; c < layout.columns.length; c++) {
+            if (c > 0) {
+                put(layout.separator);
+            }
+            long start = written;
+            switch (layout.columns[c]) {
+                case RANK:
+                    putInt(rank);
+                    break;
+                case ID:
+                    putInt(p.getId());
+                    break;
+                case NAME:
+                    put(p.getName());
+                    break;
+                case SCORE:
+                    putTenths(p.getScore());
+                    break;
+                case STATUS:
+                    put(p.getStatus().name());
+                    break;
+                case WDL:
+                    putInt(p.getWinCount());
+                    put('-');
+                    putInt(p.getDrawCount());
+                    put('-');
+                    putInt(p.getLossCount());
+                    break;
+                case BUCHHOLZ:
+                    putTenths(p.getOpponentsSumScore());
+                    break;
+            }
+            pad(layout.widths[c], start);
+        }
+        newLine();
+    }
+
+    /**
+     * Write a participant table in text from a snapshot, for writers that
+     * must not touch the live tournament. The RANK column is filled with
+     * the row position, as in {@link #writeTable(Layout, List)}.
+     *
+     * @param ranks Snapshot ranks of the rows, in display order
+     */
+    void writeTextTable(Layout layout, StandingsSnapshot snapshot, int[] ranks) throws IOException {
+        writeTextHeader(layout);
+        for (int i = 0; i < ranks.length; i++) {
+            int rank = ranks[i];
+            for (int c = 0; c < layout.columns.length; c++) {
+                if (c > 0) {
+                    put(layout.separator);
+                }
+                long start = written;
+                switch (layout.columns[c]) {
+                    case RANK:
+                        putInt(i + 1);
+                        break;
+                    case ID:
+                        putInt(snapshot.getId(rank));
+                        break;
+                    case NAME:
+                        put(snapshot.getName(rank));
+                        break;
+                    case SCORE:
+                        putTenths(snapshot.getScore(rank));
+                        break;
+                    case STATUS:
+                        put(snapshot.getStatus(rank).name());
+                        break;
+                    case WDL:
+                        putInt(snapshot.getWinCount(rank));
+                        put('-');
+                        putInt(snapshot.getDrawCount(rank));
+                        put('-');
+                        putInt(snapshot.getLossCount(rank));
+                        break;
+                    case BUCHHOLZ:
+                        putTenths(snapshot.getBuchholz(rank));
+                        break;
+                }
+                pad(layout.widths[c], start);
+            }
+            newLine();
+        }
+    }
+
+    /**
+     * Write snapshot matches in {@link MatchStyle#FILE} text, numbered from
+     * 1 within each round.
+     *
+     * @param from Position of the first match in the snapshot
+     * @param to Position after the last match
+     */
+    void writeFileMatches(StandingsSnapshot snapshot, int from, int to) throws IOException {
+        int round = -1;
+        int number = 0;
+        for (int i = from; i < to; i++) {
+            if (snapshot.getMatchRound(i) != round) {
+                round = snapshot.getMatchRound(i);
+                number = 0;
+            }
+            put("Match ");
+            putInt(++number);
+            put(": ");
+            putSnapshotName(snapshot, snapshot.getPlayer1Id(i));
+            if (snapshot.getPlayer2Id(i) == 0) {
+                put(" (BYE) => WIN");
+            } else {
+                put(" vs ");
+                putSnapshotName(snapshot, snapshot.getPlayer2Id(i));
+                put(" => ");
+                put(Match.fileResultCode(MatchLedger.result(snapshot.getResultCode(i))));
+            }
+            newLine();
+        }
+    }
+
+    private void putSnapshotName(StandingsSnapshot snapshot, int id) throws IOException {
+        int rank = snapshot.rankOf(id);
+        if (rank > 0) {
+            put(snapshot.getName(rank));
+        } else {
+            // Moved to another section since; only the ID is known here
+            put('#');
+            putInt(id);
+        }
+    }
+
+    private void putMatchListing(Match match) throws IOException {
+        put("Round ");
+        putInt(match.getRoundNumber());
+        put(": ");
+        put(match.getPlayer1().getName());
+        if (match.isBye()) {
+            put(" (BYE)");
+            return;
+        }
+        put(" vs ");
+        put(match.getPlayer2().getName());
+        put(" => ");
+        switch (match.getResult()) {
+            case WIN_PLAYER1:
+                put(match.getPlayer1().getName());
+                put(" wins");
+                break;
+            case WIN_PLAYER2:
+                put(match.getPlayer2().getName());
+                put(" wins");
+                break;
+            case DRAW:
+                put("Draw");
+                break;
+            case NOT_PLAYED:
+                put("Not played yet");
+                break;
+        }
+    }
+
+    private void putMatchFileString(Match match) throws IOException {
+        put(match.getPlayer1().getName());
+        if (match.isBye()) {
+            put(" (BYE) => WIN");
+            return;
+        }
+        put(" vs ");
+        put(match.getPlayer2().getName());
+        put(" => ");
+        put(Match.fileResultCode(match.getResult()));
+    }
+
+    // --- csv ---
+
+    private void writeCsvHeader(Layout layout) throws IOException {
+        for (int c = 0; c < layout.columns.length; c++) {
+            if (c > 0) {
+                put(',');
+            }
+            if (layout.columns[c] == Column.WDL) {
+                put("wins,draws,losses");
+            } else {
+                put(layout.columns[c].key);
+            }
+        }
+        newLine();
+    }
+
+    private void writeCsvRow(Layout layout, int rank, Participant p) throws IOException {
+        for (int c = 0; c < layout.columns.length; c++) {
+            if (c > 0) {
+                put(',');
+            }
+            switch (layout.columns[c]) {
+                case RANK:
+                    putInt(rank);
+                    break;
+                case ID:
+                    putInt(p.getId());
+                    break;
+                case NAME:
+                    putCsv(p.getName());
+                    break;
+                case SCORE:
+                    putTenths(p.getScore());
+                    break;
+                case STATUS:
+                    put(p.getStatus().name());
+                    break;
+                case WDL:
+                    putInt(p.getWinCount());
+                    put(',');
+                    putInt(p.getDrawCount());
+                    put(',');
+                    putInt(p.getLossCount());
+                    break;
+                case BUCHHOLZ:
+                    putTenths(p.getOpponentsSumScore());
+                    break;
+            }
+        }
+        newLine();
+    }
+
+    private void writeCsvMatch(int number, Match match) throws IOException {
+        putInt(match.getRoundNumber());
+        put(',');
+        putInt(number);
+        put(',');
+        putInt(match.getPlayer1().getId());
+        put(',');
+        putCsv(match.getPlayer1().getName());
+        put(',');
+        if (!match.isBye()) {
+            putInt(match.getPlayer2().getId());
+            put(',');
+            putCsv(match.getPlayer2().getName());
+            put(',');
+            put(Match.fileResultCode(match.getResult()));
+        } else {
+            put(",,BYE");
+        }
+        newLine();
+    }
+
+    private void putCsv(String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == ',' || ch == '"' || ch == '\n' || ch == '\r') {
+                quote = true;
+                break;
+            }
+        }
+        if (!quote) {
+            put(value);
+            return;
+        }
+        put('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == '"') {
+                put('"');
+            }
+            put(ch);
+        }
+        put('"');
+    }
+
+    // --- json ---
+
+    private void writeJsonRow(Layout layout, int rank, Participant p, boolean more) throws IOException {
+        put("  {");
+        for (int c = 0; c < layout.columns.length; c++) {
+            if (c > 0) {
+                put(',');
+            }
+            Column column = layout.columns[c];
+            if (column != Column.WDL) {
+                putJsonKey(column.key);
+            }
+            switch (column) {
+                case RANK:
+                    putInt(rank);
+                    break;
+                case ID:
+                    putInt(p.getId());
+                    break;
+                case NAME:
+                    putJsonString(p.getName());
+                    break;
+                case SCORE:
+                    putTenths(p.getScore());
+                    break;
+                case STATUS:
+                    putJsonString(p.getStatus().name());
+                    break;
+                case WDL:
+                    putJsonKey("wins");
+                    putInt(p.getWinCount());
+                    put(',');
+                    putJsonKey("draws");
+                    putInt(p.getDrawCount());
+                    put(',');
+                    putJsonKey("losses");
+                    putInt(p.getLossCount());
+                    break;
+                case BUCHHOLZ:
+                    putTenths(p.getOpponentsSumScore());
+                    break;
+            }
+        }
+        put(more ? "}," : "}");
+        newLine();
+    }
+
+    private void writeJsonMatch(int number, Match match, boolean more) throws IOException {
+        put("  {");
+        putJsonKey("round");
+        putInt(match.getRoundNumber());
+        put(',');
+        putJsonKey("match");
+        putInt(number);
+        put(',');
+        putJsonKey("player1");
+        putInt(match.getPlayer1().getId());
+        put(',');
+        putJsonKey("player2");
+        if (match.isBye()) {
+            put("null");
+        } else {
+            putInt(match.getPlayer2().getId());
+        }
+        put(',');
+        putJsonKey("result");
+        putJsonString(match.isBye() ? "BYE" : Match.fileResultCode(match.getResult()));
+        put(more ? "}," : "}");
+        newLine();
+    }
+
+    private void putJsonKey(String key) throws IOException {
+        put('"');
+        put(key);
+        put("\":");
+    }
+
+    private void putJsonString(String value) throws IOException {
+        put('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == '"' || ch == '\\') {
+                put('\\');
+                put(ch);
+            } else if (ch < 0x20) {
+                put("\\u00");
+                put(Character.forDigit(ch >> 4, 16));
+                put(Character.forDigit(ch & 0xF, 16));
+            } else {
+                put(ch);
+            }
+        }
+        put('"');
+    }
+
+    // --- buffer primitives ---
+
+    private void pad(int width, long start) throws IOException {
+        for (long n = written - start; n < width; n++) {
+            put(' ');
+        }
+    }
+
+    private void putInt(long value) throws IOException {
+        if (value < 0) {
+            put('-');
+        }
+        int n = digits.length;
+        do {
+            digits[--n] = (char) ('0' + Math.abs(value % 10));
+            value /= 10;
+        } while (value != 0);
+        while (n < digits.length) {
+            put(digits[n++]);
+        }
+    }
+
+    /**
+     * Writes a value with exactly one decimal, rounding half up.
+     * Scores are multiples of 0.5 so this is always exact for them.
+     */
+    private void putTenths(double value) throws IOException {
+        long tenths = Math.round(Math.abs(value) * 10.0);
+        if (value < 0 && tenths != 0) {
+            put('-');
+        }
+        putInt(tenths / 10);
+        put('.');
+        put((char) ('0' + tenths % 10));
+    }
+
+    private void put(char ch) throws IOException {
+        if (pos == buffer.length) {
+            drain();
+        }
+        buffer[pos++] = ch;
+        written++;
+    }
+
+    private void put(CharSequence text) throws IOException {
+        int length = text.length();
+        if (text instanceof String) {
+            String s = (String) text;
+            int offset = 0;
+            while (offset < length) {
+                if (pos == buffer.length) {
+                    drain();
+                }
+                int chunk = Math.min(length - offset, buffer.length - pos);
+                s.getChars(offset, offset + chunk, buffer, pos);
+                pos += chunk;
+                offset += chunk;
+            }
+            written += length;
+        } else {
+            for (int i = 0; i < length; i++) {
+                put(text.charAt(i));
+            }
+        }
+    }
+
+    private void drain() throws IOException {
+        if (pos > 0) {
+            out.write(buffer, 0, pos);
+            pos = 0;
+        }
+    }
+}
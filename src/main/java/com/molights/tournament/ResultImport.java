@@ -0,0 +1,393 @@
+package com.molights.tournament;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Parser and validator for a round's results, read in one streaming pass.
+ * <p>
+ * Two formats are accepted, detected from the first data line:
+ * <ul>
+ *   <li>Tournament file lines as written by {@link Match#toFileString()},
+ *       optionally prefixed with {@code Match N: } and preceded by a
+ *       {@code === ROUND N ===} header, as in saved tournament files:
+ *       {@code A vs B => 1-0}, {@code A vs B => 0.5-0.5}, {@code A (BYE) => WIN}.</li>
+ *   <li>CSV keyed by match number within the round. With a header the
+ *       {@code match} and {@code result} columns are used, and
+ *       {@code round}, {@code player1_id} and {@code player2_id} are checked
+ *       when present, so the match CSV of {@link ReportWriter} imports as is.
+ *       Without a header each row is {@code match,result}.</li>
+ * </ul>
+ * Rows are looked up in a table built from the round's pairings, so a
+ * 10k-row file is validated in time linear in its length. Rows repeating
+ * a result that is already recorded are accepted and skipped; rows without
+ * a result ({@code NOT_PLAYED}) are ignored. Blank lines and lines
+ * starting with '#' are skipped.
+ */
+final class ResultImport {
+
+    private static final String ARROW = " => ";
+    private static final String BYE_SUFFIX = " (BYE)";
+    // Marks a file-format key shared by several matches
+    private static final int AMBIGUOUS = -1;
+
+    private final int round;
+    private final List<Match> roundMatches;
+    private final byte[] codes;
+    private final int[] lineOf;
+    private final List<String> errors = new ArrayList<>();
+
+    private Map<String, Integer> byPairing;
+    private boolean csv;
+    private boolean formatKnown;
+    private int matchColumn = 0;
+    private int resultColumn = 1;
+    private int roundColumn = -1;
+    private int player1Column = -1;
+    private int player2Column = -1;
+
+    private ResultImport(int round, List<Match> roundMatches) {
+        this.round = round;
+        this.roundMatches = roundMatches;
+        this.codes = new byte[roundMatches.size()];
+        this.lineOf = new int[roundMatches.size()];
+    }
+
+    /**
+     * Parse and validate a round's results.
+     *
+     * @param round Round number the results belong to
+     * @param roundMatches Matches of that round, in round order
+     * @param in Result rows
+     * @return Result code per match, {@link MatchLedger#NOT_PLAYED} where
+     *         there is nothing new to apply
+     * @throws ResultImportException listing every invalid row
+     * @throws IOException if the input cannot be read
+     */
+    static byte[] parse(int round, List<Match> roundMatches, BufferedReader in) throws IOException {
+        ResultImport parser = new ResultImport(round, roundMatches);
+        String line;
+        int lineNumber = 0;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            parser.parseLine(lineNumber, line.trim());
+        }
+        if (!parser.errors.isEmpty()) {
+            throw new ResultImportException(parser.errors);
+        }
+        return parser.codes;
+    }
+
+    private void parseLine(int lineNumber, String line) {
+        if (line.isEmpty() || line.startsWith("#")) {
+            return;
+        }
+        if (!formatKnown) {
+            formatKnown = true;
+            csv = !line.contains(ARROW) && !line.startsWith("===");
+            if (csv && !startsWithDigit(line)) {
+                readHeader(lineNumber, line);
+                return;
+            }
+        }
+        if (csv) {
+            parseCsv(lineNumber, line);
+        } else {
+            parseFileLine(lineNumber, line);
+        }
+    }
+
+    // --- tournament file lines ---
+
+    private void parseFileLine(int lineNumber, String line) {
+        if (line.startsWith("===")) {
+            String header = line.replace("=", "").trim();
+            if (!header.startsWith("ROUND ")) {
+                error(lineNumber, "unexpected section '" + line + "'");
+            } else if (!header.substring("ROUND ".length()).trim().equals(Integer.toString(round))) {
+                error(lineNumber, "results are for " + header.toLowerCase(Locale.ROOT)
+                                  + " but the current round is " + round);
+            }
+            return;
+        }
+        int arrow = line.lastIndexOf(ARROW);
+        if (arrow < 0) {
+            error(lineNumber, "expected 'A vs B => result'");
+            return;
+        }
+        String pairing = line.substring(0, arrow);
+        String code = line.substring(arrow + ARROW.length()).trim();
+
+        int index;
+        int number = matchNumberPrefix(pairing);
+        if (number > 0) {
+            pairing = pairing.substring(pairing.indexOf(':') + 1).trim();
+            index = number - 1;
+            if (index >= roundMatches.size()) {
+                error(lineNumber, "round " + round + " has no match " + number);
+                return;
+            }
+            if (!pairingKey(roundMatches.get(index)).equals(pairing)) {
+                error(lineNumber, "match " + number + " is " + pairingKey(roundMatches.get(index))
+                                  + ", not " + pairing);
+                return;
+            }
+        } else {
+            Integer found = pairings().get(pairing);
+            if (found == null) {
+                error(lineNumber, unknownPairing(pairing));
+                return;
+            }
+            if (found == AMBIGUOUS) {
+                error(lineNumber, "'" + pairing + "' matches several pairings; prefix it with 'Match N:'");
+                return;
+            }
+            index = found;
+        }
+        accept(lineNumber, index, code);
+    }
+
+    private String unknownPairing(String pairing) {
+        int vs = pairing.indexOf(" vs ");
+        if (vs > 0) {
+            String reversed = pairing.substring(vs + 4) + " vs " + pairing.substring(0, vs);
+            if (pairings().containsKey(reversed)) {
+                return "players are reversed; the pairing is '" + reversed + "'";
+            }
+        }
+        return "no pairing '" + pairing + "' in round " + round;
+    }
+
+    /**
+     * @return N of a "Match N: " prefix, or 0 if there is none
+     */
+    private static int matchNumberPrefix(String pairing) {
+        if (!pairing.startsWith("Match ")) {
+            return 0;
+        }
+        int colon = pairing.indexOf(':');
+        if (colon < 0) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(pairing.substring("Match ".length(), colon).trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private Map<String, Integer> pairings() {
+        if (byPairing == null) {
+            byPairing = new HashMap<>(roundMatches.size() * 2);
+            for (int i = 0; i < roundMatches.size(); i++) {
+                Integer previous = byPairing.put(pairingKey(roundMatches.get(i)), i);
+                if (previous != null) {
+                    byPairing.put(pairingKey(roundMatches.get(i)), AMBIGUOUS);
+                }
+            }
+        }
+        return byPairing;
+    }
+
+    private static String pairingKey(Match match) {
+        if (match.isBye()) {
+            return match.getPlayer1().getName() + BYE_SUFFIX;
+        }
+        return match.getPlayer1().getName() + " vs " + match.getPlayer2().getName();
+    }
+
+    // --- csv ---
+
+    private void readHeader(int lineNumber, String line) {
+        List<String> columns = splitCsv(line);
+        matchColumn = -1;
+        resultColumn = -1;
+        if (columns == null) {
+            // Rows are skipped like after any other invalid header
+            error(lineNumber, "unterminated quoted field");
+            return;
+        }
+        for (int c = 0; c < columns.size(); c++) {
+            switch (columns.get(c).trim().toLowerCase(Locale.ROOT)) {
+                case "match":
+                case "match_id":
+                    matchColumn = c;
+                    break;
+                case "result":
+                    resultColumn = c;
+                    break;
+                case "round":
+                    roundColumn = c;
+                    break;
+                case "player1_id":
+                    player1Column = c;
+                    break;
+                case "player2_id":
+                    player2Column = c;
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (matchColumn < 0 || resultColumn < 0) {
+            error(lineNumber, "CSV header needs 'match' and 'result' columns");
+        }
+    }
+
+    private void parseCsv(int lineNumber, String line) {
+        if (matchColumn < 0 || resultColumn < 0) {
+            return; // header already reported
+        }
+        List<String> fields = splitCsv(line);
+        if (fields == null) {
+            error(lineNumber, "unterminated quoted field");
+            return;
+        }
+        if (fields.size() <= Math.max(matchColumn, resultColumn)) {
+            error(lineNumber, "expected at least " + (Math.max(matchColumn, resultColumn) + 1) + " fields");
+            return;
+        }
+        if (roundColumn >= 0 && roundColumn < fields.size()
+                && !fields.get(roundColumn).trim().equals(Integer.toString(round))) {
+            error(lineNumber, "row is for round " + fields.get(roundColumn).trim()
+                              + " but the current round is " + round);
+            return;
+        }
+        int number;
+        try {
+            number = Integer.parseInt(fields.get(matchColumn).trim());
+        } catch (NumberFormatException e) {
+            error(lineNumber, "invalid match number '" + fields.get(matchColumn).trim() + "'");
+            return;
+        }
+        if (number < 1 || number > roundMatches.size()) {
+            error(lineNumber, "round " + round + " has no match " + number);
+            return;
+        }
+        Match match = roundMatches.get(number - 1);
+        if (!playerMatches(fields, player1Column, match.getPlayer1())
+                || !playerMatches(fields, player2Column, match.isBye() ? null : match.getPlayer2())) {
+            error(lineNumber, "players do not match pairing " + number + " (" + pairingKey(match) + ")");
+            return;
+        }
+        accept(lineNumber, number - 1, fields.get(resultColumn).trim());
+    }
+
+    private static boolean playerMatches(List<String> fields, int column, Participant expected) {
+        if (column < 0 || column >= fields.size()) {
+            return true;
+        }
+        String value = fields.get(column).trim();
+        if (expected == null) {
+            return value.isEmpty();
+        }
+        return value.equals(Integer.toString(expected.getId()));
+    }
+
+    /**
+     * Split a CSV line, honouring double quotes.
+     *
+     * @return Fields, or null if a quoted field is not closed
+     */
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (quoted) {
+                if (ch == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (ch == '"') {
+                    quoted = false;
+                } else {
+                    field.append(ch);
+                }
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(ch);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static boolean startsWithDigit(String line) {
+        char first = line.charAt(0);
+        return first >= '0' && first <= '9';
+    }
+
+    // --- validation ---
+
+    private void accept(int lineNumber, int index, String code) {
+        Match match = roundMatches.get(index);
+        int number = index + 1;
+        if (code.equals("NOT_PLAYED")) {
+            return;
+        }
+        byte result = resultCode(code);
+        if (result < 0) {
+            error(lineNumber, "unknown result '" + code + "'");
+            return;
+        }
+        if (match.isBye() != (result == MatchLedger.BYE)) {
+            error(lineNumber, match.isBye()
+                ? "match " + number + " is a BYE; its result must be WIN"
+                : "match " + number + " is not a BYE");
+            return;
+        }
+        if (lineOf[index] != 0) {
+            error(lineNumber, "match " + number + " already given on line " + lineOf[index]);
+            return;
+        }
+        lineOf[index] = lineNumber;
+        if (match.isBye()) {
+            return;
+        }
+        if (match.isPlayed()) {
+            if (MatchLedger.code(match.getResult()) != result) {
+                error(lineNumber, "match " + number + " already has result "
+                                  + Match.fileResultCode(match.getResult()));
+            }
+            return;
+        }
+        codes[index] = result;
+    }
+
+    /**
+     * @return Ledger code of a result, or -1 if unknown
+     */
+    private static byte resultCode(String code) {
+        switch (code.toUpperCase(Locale.ROOT)) {
+            case "1-0":
+                return MatchLedger.WIN_PLAYER1;
+            case "0-1":
+                return MatchLedger.WIN_PLAYER2;
+            case "0.5-0.5":
+            case "1/2-1/2":
+                return MatchLedger.DRAW;
+            case "WIN":
+            case "BYE":
+                return MatchLedger.BYE;
+            default:
+                return -1;
+        }
+    }
+
+    private void error(int lineNumber, String message) {
+        errors.add("line " + lineNumber + ": " + message);
+    }
+}
@@ -0,0 +1,42 @@
+package com.molights.tournament;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown when a results import is rejected. Nothing of the batch has been
+ * applied; {@link #getErrors()} lists every invalid row, not just the first.
+ */
+public class ResultImportException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+    private static final int MESSAGE_ERRORS = 20;
+
+    private final List<String> errors;
+
+    public ResultImportException(List<String> errors) {
+        super(summarize(errors));
+        this.errors = Collections.unmodifiableList(new ArrayList<>(errors));
+    }
+
+    /**
+     * @return One message per invalid row, prefixed with its line number
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    private static String summarize(List<String> errors) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(errors.size()).append(errors.size() == 1 ? " invalid row" : " invalid rows");
+        for (int i = 0; i < errors.size() && i < MESSAGE_ERRORS; i++) {
+            sb.append(System.lineSeparator()).append("  ").append(errors.get(i));
+        }
+        if (errors.size() > MESSAGE_ERRORS) {
+            sb.append(System.lineSeparator()).append("  ... and ")
+              .append(errors.size() - MESSAGE_ERRORS).append(" more");
+        }
+        return sb.toString();
+    }
+}
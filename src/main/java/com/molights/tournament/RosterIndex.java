@@ -0,0 +1,193 @@
+package com.molights.tournament;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Case-insensitive name index of a tournament's roster, for exact and
+ * prefix (autocomplete) lookups.
+ * <p>
+ * Participants are kept in two parallel sorted arrays: lower-cased names
+ * and the participants, ordered by name and then ID. A lookup is a binary
+ * search for the start of the range followed by a walk over the matches,
+ * so it costs O(log n) plus the number of results, also for 100k-player
+ * rosters.
+ * <p>
+ * Roster changes are only noted when they happen and are merged into the
+ * arrays by the next lookup: the new entries are sorted among themselves
+ * and merged in one linear pass, so registering players one by one
+ * between searches stays cheap. A rename through
+ * {@link Participant#setName(String)} is noted the same way: the next
+ * merge drops the entry at its old key and merges it back in under the
+ * new one, so renames cost no more than registrations.
+ * <p>
+ * Names are interned when participants are added, and a key equal to its
+ * name is the same String, so the index adds no copies of names that are
+ * already lower case.
+ * <p>
+ * Like the tournament, the index is not thread-safe.
+ */
+final class RosterIndex {
+
+    private static final String[] NO_KEYS = new String[0];
+    private static final Participant[] NO_PARTICIPANTS = new Participant[0];
+
+    /**
+     * Pending change of a participant. ADDED entries are not in the
+     * arrays yet; REMOVED and RENAMED entries are, under their old key.
+     */
+    private enum Edit { ADDED, REMOVED, RENAMED }
+
+    private String[] keys = NO_KEYS;
+    private Participant[] sorted = NO_PARTICIPANTS;
+    // Changes since the last merge
+    private final Map<Participant, Edit> changes = new IdentityHashMap<>();
+
+    void added(Participant participant) {
+        participant.internName();
+        // Back after a removal: its name may have changed meanwhile
+        changes.put(participant, changes.get(participant) == Edit.REMOVED ? Edit.RENAMED : Edit.ADDED);
+    }
+
+    void removed(Participant participant) {
+        if (changes.get(participant) == Edit.ADDED) {
+            changes.remove(participant);
+        } else {
+            changes.put(participant, Edit.REMOVED);
+        }
+    }
+
+    void renamed(Participant participant) {
+        participant.internName();
+        // A pending addition is keyed by its current name anyway
+        changes.putIfAbsent(participant, Edit.RENAMED);
+    }
+
+    /**
+     * @return Participants whose name equals the given one, ignoring case, in ID order
+     */
+    List<Participant> find(String name) {
+        refresh();
+        String key = fold(name);
+        List<Participant> found = new ArrayList<>();
+        for (int i = lowerBound(key); i < keys.length && keys[i].equals(key); i++) {
+            found.add(sorted[i]);
+        }
+        return found;
+    }
+
+    /**
+     * @return Up to limit participants whose name starts with the prefix,
+     *         ignoring case, in name order
+     */
+    List<Participant> search(String prefix, int limit) {
+        refresh();
+        String key = fold(prefix);
+        List<Participant> found = new ArrayList<>(Math.min(limit, 16));
+        for (int i = lowerBound(key); i < keys.length && found.size() < limit && keys[i].startsWith(key); i++) {
+            found.add(sorted[i]);
+        }
+        return found;
+    }
+
+    /**
+     * @return Number of participants whose name starts with the prefix, ignoring case
+     */
+    int count(String prefix) {
+        refresh();
+        String key = fold(prefix);
+        int from = lowerBound(key);
+        // Keys starting with the prefix follow it directly; the first key
+        // that does not ends the range
+        int low = from;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].startsWith(key)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low - from;
+    }
+
+    private static String fold(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int compare(String key1, Participant p1, String key2, Participant p2) {
+        int c = key1.compareTo(key2);
+        return c != 0 ? c : Integer.compare(p1.getId(), p2.getId());
+    }
+
+    /**
+     * Bring the arrays up to date with the roster.
+     */
+    private void refresh() {
+        if (!changes.isEmpty()) {
+            merge();
+        }
+    }
+
+    private void merge() {
+        List<Participant> additions = new ArrayList<>();
+        for (Map.Entry<Participant, Edit> change : changes.entrySet()) {
+            if (change.getValue() != Edit.REMOVED) {
+                additions.add(change.getKey());
+            }
+        }
+        // Entries in the arrays that are dropped at their old key
+        boolean dropped = additions.size() < changes.size() || changes.containsValue(Edit.RENAMED);
+        int count = additions.size();
+        String[] addedKeys = new String[count];
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            addedKeys[i] = fold(additions.get(i).getName()).intern();
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> compare(addedKeys[a], additions.get(a), addedKeys[b], additions.get(b)));
+
+        int size = keys.length + count;
+        String[] mergedKeys = new String[size];
+        Participant[] merged = new Participant[size];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < keys.length || j < count) {
+            if (dropped && i < keys.length && changes.containsKey(sorted[i])) {
+                i++;
+                continue;
+            }
+            if (j == count || (i < keys.length
+                    && compare(keys[i], sorted[i], addedKeys[order[j]], additions.get(order[j])) < 0)) {
+                mergedKeys[n] = keys[i];
+                merged[n++] = sorted[i++];
+            } else {
+                mergedKeys[n] = addedKeys[order[j]];
+                merged[n++] = additions.get(order[j++]);
+            }
+        }
+        keys = Arrays.copyOf(mergedKeys, n);
+        sorted = Arrays.copyOf(merged, n);
+        changes.clear();
+    }
+}
@@ -0,0 +1,112 @@
+package com.molights.tournament;
+
+/**
+ * Round-robin schedule computed with the circle method.
+ * Nothing is materialized: the pairing on any board of any round is
+ * computed in O(1), so a round's pairings cost O(n) to produce and the
+ * whole schedule needs no storage beyond the player count.
+ * <p>
+ * Players are numbered 0..n-1. With an odd player count a dummy player
+ * is added and whoever meets it sits out that round. In a double round
+ * robin the second cycle repeats the first with colours reversed.
+ */
+public class RoundRobinSchedule {
+
+    /** Returned as opponent when a player sits out the round. */
+    public static final int REST = -1;
+
+    private final int players;
+    private final int slots;
+    private final int cycles;
+
+    /**
+     * Creates a schedule.
+     *
+     * @param players Number of players (at least 2)
+     * @param doubleRoundRobin true to play every pairing twice
+     * @throws IllegalArgumentException if players is less than 2
+     */
+    public RoundRobinSchedule(int players, boolean doubleRoundRobin) {
+        if (players < 2) {
+            throw new IllegalArgumentException("A round robin needs at least 2 players");
+        }
+        this.players = players;
+        this.slots = players % 2 == 0 ? players : players + 1;
+        this.cycles = doubleRoundRobin ? 2 : 1;
+    }
+
+    public int getPlayers() {
+        return players;
+    }
+
+    /**
+     * @return Total number of rounds
+     */
+    public int getRounds() {
+        return (slots - 1) * cycles;
+    }
+
+    /**
+     * @return Number of boards per round, including the one with the resting player
+     */
+    public int getBoards() {
+        return slots / 2;
+    }
+
+    /**
+     * Player with the first colour on a board.
+     *
+     * @param round Round number starting at 1
+     * @param board Board number starting at 0
+     * @return Player index, or {@link #REST}
+     */
+    public int player1(int round, int board) {
+        return seat(round, board, true);
+    }
+
+    /**
+     * Player with the second colour on a board.
+     *
+     * @param round Round number starting at 1
+     * @param board Board number starting at 0
+     * @return Player index, or {@link #REST}
+     */
+    public int player2(int round, int board) {
+        return seat(round, board, false);
+    }
+
+    private int seat(int round, int board, boolean first) {
+        if (round <= 0 || round > getRounds()) {
+            throw new IllegalArgumentException("Round " + round + " is not in the schedule");
+        }
+        if (board < 0 || board >= getBoards()) {
+            throw new IllegalArgumentException("Board " + board + " is not in the schedule");
+        }
+        int turn = (round - 1) % (slots - 1);
+        boolean secondCycle = round > slots - 1;
+        int ring = slots - 1;
+
+        int a;
+        int b;
+        if (board == 0) {
+            // The fixed player alternates colours to keep them balanced
+            a = ring;
+            b = turn;
+            if (turn % 2 == 1) {
+                int t = a;
+                a = b;
+                b = t;
+            }
+        } else {
+            a = (turn + board) % ring;
+            b = (turn - board + ring) % ring;
+        }
+        if (secondCycle) {
+            int t = a;
+            a = b;
+            b = t;
+        }
+        int player = first ? a : b;
+        return player >= players ? REST : player;
+    }
+}
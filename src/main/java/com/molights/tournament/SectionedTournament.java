@@ -0,0 +1,299 @@
+package com.molights.tournament;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Swiss event for very large fields, split into one section per
+ * {@link ParticipantStatus}, strongest first.
+ * <p>
+ * Each section is its own {@link Tournament}, so sorting and pairing cost
+ * grows with the section rather than the whole field, and all sections are
+ * paired and simulated in parallel. Every section plays the number of
+ * rounds the whole field would. Between rounds the top finishers of each
+ * section can be promoted into the section above in exchange for the
+ * bottom finishers of that section; they keep their score and opponents,
+ * and their played matches stay in the section where they were played.
+ * The global leaderboard is a k-way merge of the section standings.
+ * <p>
+ * Once players have moved, a section's Buchholz tiebreaks read the live
+ * scores of opponents now playing in other sections, which another
+ * section may be changing. From that point every section freezes its
+ * pairing keys, score and Buchholz, before each round and publishes its
+ * standings only after all sections are done, so sections still run in
+ * parallel and the pairings stay reproducible: each round is paired by
+ * the standings at its start.
+ */
+public class SectionedTournament {
+
+    private final String name;
+    private final List<Participant> entrants = new ArrayList<>();
+    private final IntIntMap entrantIds = new IntIntMap(16);
+    private final List<Tournament> sections = new ArrayList<>();
+    private int promotion;
+    // Set once players have moved, after which Buchholz crosses sections
+    private boolean transferred;
+    private int totalRounds;
+    private int currentRound;
+
+    /**
+     * Creates a sectioned tournament.
+     *
+     * @param name Tournament name
+     * @throws IllegalArgumentException if name is null or empty
+     */
+    public SectionedTournament(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Tournament name cannot be empty");
+        }
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getParticipantCount() {
+        return entrants.size();
+    }
+
+    public int getTotalRounds() {
+        return totalRounds;
+    }
+
+    public int getCurrentRound() {
+        return currentRound;
+    }
+
+    /**
+     * @return Sections, strongest first; empty before the start
+     */
+    public List<Tournament> getSections() {
+        return Collections.unmodifiableList(sections);
+    }
+
+    public int getPromotion() {
+        return promotion;
+    }
+
+    /**
+     * Set how many players move between each pair of adjacent sections
+     * before every round after the first. Capped at half of the smaller
+     * section so nobody moves both ways.
+     *
+     * @param promotion Players promoted (and relegated) per section boundary, 0 to disable
+     * @throws IllegalArgumentException if promotion is negative
+     */
+    public void setPromotion(int promotion) {
+        if (promotion < 0) {
+            throw new IllegalArgumentException("Promotion count cannot be negative");
+        }
+        this.promotion = promotion;
+    }
+
+    /**
+     * Add a participant before the start.
+     *
+     * @param participant Participant to add
+     * @throws IllegalArgumentException if participant is null or ID already exists
+     * @throws IllegalStateException if the tournament has already started
+     */
+    public void addParticipant(Participant participant) {
+        if (participant == null) {
+            throw new IllegalArgumentException("Participant cannot be null");
+        }
+        if (totalRounds > 0) {
+            throw new IllegalStateException("Cannot add participants after tournament has started");
+        }
+        if (entrantIds.containsKey(participant.getId())) {
+            throw new IllegalArgumentException("Participant with ID " + participant.getId() + " already exists");
+        }
+        entrants.add(participant);
+        entrantIds.put(participant.getId(), 1);
+    }
+
+    /**
+     * Split the field into sections and start them all with
+     * ceil(log2(n)) rounds for the whole field.
+     *
+     * @throws IllegalStateException if already started, or a non-empty section has fewer than 2 participants
+     */
+    public void startTournament() {
+        if (totalRounds > 0) {
+            throw new IllegalStateException("Tournament has already started");
+        }
+        if (entrants.size() < 2) {
+            throw new IllegalStateException("Tournament needs at least 2 participants");
+        }
+        ParticipantStatus[] statuses = ParticipantStatus.values();
+        List<List<Participant>> groups = new ArrayList<>(statuses.length);
+        for (int i = 0; i < statuses.length; i++) {
+            groups.add(new ArrayList<>());
+        }
+        for (Participant p : entrants) {
+            groups.get(p.getStatus().ordinal()).add(p);
+        }
+
+        int rounds = (int) Math.ceil(Math.log(entrants.size()) / Math.log(2));
+        List<Tournament> created = new ArrayList<>(statuses.length);
+        for (int i = statuses.length - 1; i >= 0; i--) {
+            List<Participant> group = groups.get(i);
+            if (group.isEmpty()) {
+                continue;
+            }
+            if (group.size() < 2) {
+                throw new IllegalStateException("Section " + statuses[i] + " needs at least 2 participants");
+            }
+            Tournament section = new Tournament(name + " - " + statuses[i]);
+            section.setLogging(false);
+            for (Participant p : group) {
+                section.addParticipant(p);
+            }
+            created.add(section);
+        }
+        for (Tournament section : created) {
+            section.startTournament(rounds);
+        }
+        sections.addAll(created);
+        totalRounds = rounds;
+    }
+
+    /**
+     * Apply promotion and relegation if due, then pair the next round in
+     * every section in parallel.
+     *
+     * @throws IllegalStateException if not started or all rounds complete
+     */
+    public void generateNextRound() {
+        if (totalRounds == 0) {
+            throw new IllegalStateException("Tournament has not been started. Call startTournament() first.");
+        }
+        if (currentRound >= totalRounds) {
+            throw new IllegalStateException("All rounds have been completed");
+        }
+        if (currentRound > 0 && promotion > 0) {
+            promoteAndRelegate();
+        }
+        // BYE points awarded while pairing one section change the
+        // Buchholz another section sorts by, hence the frozen keys
+        inParallel(s -> sections.get(s).generateNextRound());
+        currentRound++;
+    }
+
+    /**
+     * Run a change on every section in parallel. Once opponents span
+     * sections, the sort keys of all sections are frozen first and
+     * publishing waits until every section has finished.
+     */
+    private void inParallel(IntConsumer change) {
+        if (!transferred) {
+            IntStream.range(0, sections.size()).parallel().forEach(change);
+            return;
+        }
+        sections.parallelStream().forEach(Tournament::freezeSortKeys);
+        try {
+            IntStream.range(0, sections.size()).parallel().forEach(change);
+        } finally {
+            sections.parallelStream().forEach(Tournament::thawSortKeys);
+        }
+    }
+
+    /**
+     * Simulate the current round in every section in parallel. Section s
+     * uses the batch stream seed Seeds.stream(seed, 0, s), so the results
+     * do not depend on the order.
+     *
+     * @param seed Seed for the round
+     * @return Number of results generated
+     */
+    public int generateRoundResultsBatch(long seed) {
+        if (currentRound == 0) {
+            throw new IllegalStateException("No rounds have been generated yet");
+        }
+        int[] generated = new int[sections.size()];
+        // Each section publishes its standings, sorted by Buchholz, so once
+        // opponents span sections publishing waits until all are scored
+        inParallel(s -> generated[s] = sections.get(s).generateRoundResultsBatch(Seeds.stream(seed, 0, s)));
+        return Arrays.stream(generated).sum();
+    }
+
+    public boolean isComplete() {
+        return currentRound >= totalRounds && totalRounds > 0;
+    }
+
+    /**
+     * Swap the top finishers of each section with the bottom finishers of
+     * the section above.
+     */
+    private void promoteAndRelegate() {
+        List<List<Participant>> tables = sections.parallelStream()
+                .map(Tournament::getStandings)
+                .collect(Collectors.toList());
+        for (int s = 0; s + 1 < sections.size(); s++) {
+            List<Participant> upper = tables.get(s);
+            List<Participant> lower = tables.get(s + 1);
+            int count = Math.min(promotion, Math.min(upper.size(), lower.size()) / 2);
+            for (int i = 0; i < count; i++) {
+                Participant relegated = upper.get(upper.size() - 1 - i);
+                Participant promoted = lower.get(i);
+                sections.get(s).release(relegated.getId());
+                sections.get(s + 1).release(promoted.getId());
+                sections.get(s).admit(promoted);
+                sections.get(s + 1).admit(relegated);
+                transferred = true;
+            }
+        }
+    }
+
+    /**
+     * Global leaderboard across all sections.
+     *
+     * @return Every participant in standings order
+     */
+    public List<Participant> getLeaderboard() {
+        return getLeaderboard(entrants.size());
+    }
+
+    /**
+     * Top of the global leaderboard, merged from the section standings
+     * with a heap over the section heads: O(limit log k) after the top
+     * {@code limit} of each section have been selected in parallel, which
+     * costs O(n log limit) per section rather than a full sort.
+     *
+     * @param limit Maximum number of entries
+     * @return Best participants in standings order
+     */
+    public List<Participant> getLeaderboard(int limit) {
+        if (sections.isEmpty()) {
+            List<Participant> sorted = new ArrayList<>(entrants);
+            sorted.sort(Tournament.STANDINGS_ORDER);
+            return sorted.subList(0, Math.min(limit, sorted.size()));
+        }
+        List<List<Participant>> tables = sections.parallelStream()
+                .map(section -> section.getTopStandings(limit))
+                .collect(Collectors.toList());
+        int[] cursors = new int[tables.size()];
+        PriorityQueue<Integer> heads = new PriorityQueue<>(tables.size(), (a, b) ->
+                Tournament.STANDINGS_ORDER.compare(tables.get(a).get(cursors[a]), tables.get(b).get(cursors[b])));
+        for (int s = 0; s < tables.size(); s++) {
+            if (!tables.get(s).isEmpty()) {
+                heads.add(s);
+            }
+        }
+        List<Participant> leaderboard = new ArrayList<>(Math.min(limit, entrants.size()));
+        while (leaderboard.size() < limit && !heads.isEmpty()) {
+            int s = heads.poll();
+            leaderboard.add(tables.get(s).get(cursors[s]));
+            if (++cursors[s] < tables.get(s).size()) {
+                heads.add(s);
+            }
+        }
+        return leaderboard;
+    }
+}
@@ -0,0 +1,46 @@
+package com.molights.tournament;
+
+/**
+ * Counter-based random streams.
+ * Every (seed, round, index) triple maps to its own well-mixed value
+ * through the SplitMix64 finalizer, so results are reproducible no matter
+ * which thread or in which order they are computed, and nothing is allocated.
+ */
+final class Seeds {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private Seeds() {
+    }
+
+    /**
+     * SplitMix64 finalizer.
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Derive an independent stream seed for a (round, index) position.
+     */
+    static long stream(long seed, int round, int index) {
+        return mix(mix(seed + GOLDEN_GAMMA * round) + GOLDEN_GAMMA * (index + 1L));
+    }
+
+    /**
+     * Uniform value in [0, bound) for a position of a seeded stream.
+     */
+    static int nextInt(long seed, int round, int index, int bound) {
+        long bits = stream(seed, round, index) >>> 32;
+        return (int) ((bits * bound) >>> 32);
+    }
+
+    /**
+     * Uniform value in [0, 1) for a position of a seeded stream.
+     */
+    static double nextDouble(long seed, int round, int index) {
+        return (stream(seed, round, index) >>> 11) * 0x1.0p-53;
+    }
+}
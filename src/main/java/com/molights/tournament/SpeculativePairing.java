@@ -0,0 +1,427 @@
+package com.molights.tournament;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Speculative Swiss pairing of the next round.
+ * <p>
+ * Once only a few results of the current round are outstanding, the
+ * state is recorded and the next round is paired in the background for
+ * the most likely combinations of the outstanding results. When the last
+ * result is in, {@link #generateNextRound()} commits the pairing computed
+ * for the actual results, without running the pairing algorithm again.
+ * If that combination was not prepared or is not ready yet, or anything
+ * but those results changed in the meantime, it falls back to
+ * {@link Tournament#generateNextRound()}. Either way the round is the
+ * same as the one the pairing algorithm would produce.
+ * <p>
+ * Background workers pair private copies of the tournament, rebuilt from
+ * a {@link TournamentRecord} without re-pairing earlier rounds, so the
+ * live tournament is only touched by the calling thread. Custom pairing
+ * constraints are shared with the copies and must therefore be safe to
+ * compile from another thread, and see copies of the participants.
+ * A worker that throws pairs nothing more for that round; its exception
+ * is counted and kept for {@link #getLastFailure()}, since a speculation
+ * that keeps failing only ever falls back and would otherwise go unnoticed.
+ * <p>
+ * Call {@link #refresh()} (or report results through
+ * {@link #reportResult(Match, Match.MatchResult)}) on the thread that
+ * owns the tournament.
+ */
+public class SpeculativePairing implements Closeable {
+
+    public static final int DEFAULT_MAX_OUTSTANDING = 3;
+    public static final int DEFAULT_MAX_SCENARIOS = 27;
+
+    private static final Match.MatchResult[] OUTCOMES = {
+        Match.MatchResult.WIN_PLAYER1, Match.MatchResult.DRAW, Match.MatchResult.WIN_PLAYER2
+    };
+    // Largest number of outstanding games whose combinations are enumerated
+    private static final int MAX_ENUMERATED = 10;
+
+    private final Tournament tournament;
+    private final int maxOutstanding;
+    private final int maxScenarios;
+    private final int workers;
+    private ExecutorService executor;
+    private Speculation speculation;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile RuntimeException lastFailure;
+
+    /**
+     * Creates speculative pairing with the default limits.
+     *
+     * @param tournament Swiss tournament to pair
+     */
+    public SpeculativePairing(Tournament tournament) {
+        this(tournament, DEFAULT_MAX_OUTSTANDING, DEFAULT_MAX_SCENARIOS);
+    }
+
+    /**
+     * Creates speculative pairing.
+     *
+     * @param tournament Swiss tournament to pair
+     * @param maxOutstanding Speculate once this many results or fewer are outstanding (at most 10)
+     * @param maxScenarios Number of the most likely result combinations to pair in advance
+     * @throws IllegalArgumentException if tournament is null or a limit is out of range
+     */
+    public SpeculativePairing(Tournament tournament, int maxOutstanding, int maxScenarios) {
+        if (tournament == null) {
+            throw new IllegalArgumentException("Tournament cannot be null");
+        }
+        if (maxOutstanding < 1 || maxOutstanding > MAX_ENUMERATED) {
+            throw new IllegalArgumentException("Outstanding results must be between 1 and " + MAX_ENUMERATED);
+        }
+        if (maxScenarios < 1) {
+            throw new IllegalArgumentException("Scenario count must be positive");
+        }
+        this.tournament = tournament;
+        this.maxOutstanding = maxOutstanding;
+        this.maxScenarios = maxScenarios;
+        this.workers = Math.max(1, Math.min(maxScenarios, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * @return Rounds committed from a precomputed pairing
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return Rounds paired by the fallback
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return Background workers that failed with an exception
+     */
+    public long getFailures() {
+        return failures.get();
+    }
+
+    /**
+     * @return Exception of the most recent failed worker, or null if none failed
+     */
+    public RuntimeException getLastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * @return Number of result combinations paired so far for the current round
+     */
+    public int getPreparedCount() {
+        Speculation s = speculation;
+        return s == null ? 0 : s.pairings.size();
+    }
+
+    /**
+     * Set a result and start speculating if few enough are outstanding.
+     *
+     * @param match Match of the tournament
+     * @param result Result to set
+     */
+    public void reportResult(Match match, Match.MatchResult result) {
+        tournament.setMatchResult(match, result);
+        refresh();
+    }
+
+    /**
+     * Start speculating on the next round if the current round has few
+     * enough outstanding results and no speculation for this state is
+     * already running. A speculation no longer matching the tournament is
+     * discarded; a running one skips combinations contradicting results
+     * reported since it started.
+     *
+     * @return true if a new speculation was started
+     */
+    public boolean refresh() {
+        if (speculation != null && speculation.matches(tournament)) {
+            speculation.narrow();
+            return false;
+        }
+        discard();
+
+        int round = tournament.getCurrentRound();
+        if (tournament.getFormat() != TournamentFormat.SWISS || round == 0
+                || round >= tournament.getTotalRounds()) {
+            return false;
+        }
+        List<Match> roundMatches = tournament.getRoundMatches(round);
+        List<Integer> open = new ArrayList<>();
+        for (int i = 0; i < roundMatches.size(); i++) {
+            Match match = roundMatches.get(i);
+            if (!match.isBye() && !match.isPlayed()) {
+                open.add(i);
+            }
+        }
+        if (open.isEmpty() || open.size() > maxOutstanding) {
+            return false;
+        }
+
+        Speculation s = new Speculation(this, tournament, round, roundMatches, open, maxScenarios);
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(workers, r -> {
+                Thread thread = new Thread(r, "speculative-pairing");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        for (int w = 0; w < Math.min(workers, s.scenarios.length); w++) {
+            executor.execute(s::work);
+        }
+        speculation = s;
+        return true;
+    }
+
+    /**
+     * Generate the next round, from a precomputed pairing if one matches
+     * the actual results.
+     *
+     * @return true if a precomputed pairing was committed
+     * @throws IllegalStateException as {@link Tournament#generateNextRound()}
+     */
+    public boolean generateNextRound() {
+        Speculation s = speculation;
+        speculation = null;
+        if (s != null) {
+            s.cancelled.set(true);
+            int[][] pairing = s.matches(tournament) ? s.pairings.get(s.actualScenario()) : null;
+            if (pairing != null) {
+                tournament.restoreRound(pairing[0], pairing[1]);
+                hits.incrementAndGet();
+                return true;
+            }
+        }
+        tournament.generateNextRound();
+        misses.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Stop speculating and release the worker threads.
+     */
+    @Override
+    public void close() {
+        discard();
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private void discard() {
+        if (speculation != null) {
+            speculation.cancelled.set(true);
+            speculation = null;
+        }
+    }
+
+    /**
+     * Speculative pairings for one state of the tournament. Scenario codes
+     * hold the outcome index of each outstanding match in base 3.
+     */
+    private static final class Speculation {
+        final SpeculativePairing owner;
+        final Tournament.Snapshot snapshot;
+        final int round;
+        final int rulesVersion;
+        final Match[] outstanding;
+        final int[] positions;
+        final Set<Match> allowed;
+        final int[] scenarios;
+        final TournamentRecord record;
+        final List<PairingConstraint> constraints;
+        final Map<Integer, int[][]> pairings = new ConcurrentHashMap<>();
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        // Outcome index per outstanding match once reported, -1 while open
+        volatile int[] known;
+
+        Speculation(SpeculativePairing owner, Tournament tournament, int round, List<Match> roundMatches,
+                    List<Integer> open, int maxScenarios) {
+            this.owner = owner;
+            this.snapshot = tournament.snapshot();
+            this.round = round;
+            this.rulesVersion = tournament.getPairingRulesVersion();
+            this.outstanding = new Match[open.size()];
+            this.positions = new int[open.size()];
+            Set<Match> set = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (int i = 0; i < open.size(); i++) {
+                positions[i] = open.get(i);
+                outstanding[i] = roundMatches.get(positions[i]);
+                set.add(outstanding[i]);
+            }
+            this.allowed = set;
+            this.known = new int[open.size()];
+            Arrays.fill(known, -1);
+            this.scenarios = likelyScenarios(tournament.getRatingPool(), outstanding, maxScenarios);
+            this.record = TournamentRecord.of(tournament);
+            this.constraints = tournament.getCustomConstraints();
+        }
+
+        /**
+         * @return true if the tournament differs from the recorded state only
+         *         in results of the outstanding matches
+         */
+        boolean matches(Tournament tournament) {
+            return tournament.getCurrentRound() == round
+                && tournament.getPairingRulesVersion() == rulesVersion
+                && tournament.onlyResultsSince(snapshot, allowed);
+        }
+
+        /**
+         * @return Scenario code of the actual results, or -1 if one is missing
+         */
+        int actualScenario() {
+            int code = 0;
+            for (int i = outstanding.length - 1; i >= 0; i--) {
+                int outcome = Arrays.asList(OUTCOMES).indexOf(outstanding[i].getResult());
+                if (outcome < 0) {
+                    return -1;
+                }
+                code = code * 3 + outcome;
+            }
+            return code;
+        }
+
+        /**
+         * Publish the results reported so far to the workers. Called on the
+         * thread that owns the tournament.
+         */
+        void narrow() {
+            int[] reported = new int[outstanding.length];
+            for (int i = 0; i < outstanding.length; i++) {
+                reported[i] = Arrays.asList(OUTCOMES).indexOf(outstanding[i].getResult());
+            }
+            known = reported;
+        }
+
+        private boolean possible(int code) {
+            int[] reported = known;
+            for (int i = 0; i < reported.length; i++, code /= 3) {
+                if (reported[i] >= 0 && reported[i] != code % 3) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Worker loop: pair the scenarios in order of likelihood on a
+         * private copy of the tournament until all are done or cancelled.
+         */
+        void work() {
+            if (cancelled.get()) {
+                return;
+            }
+            try {
+                pairScenarios();
+            } catch (RuntimeException e) {
+                // Nothing is committed from a failed worker; the fallback pairs the round
+                cancelled.set(true);
+                owner.failures.incrementAndGet();
+                owner.lastFailure = e;
+            }
+        }
+
+        private void pairScenarios() {
+            Tournament copy = TournamentReplay.restore(record);
+            for (PairingConstraint constraint : constraints) {
+                copy.addPairingConstraint(constraint);
+            }
+            List<Match> copyRound = copy.getRoundMatches(round);
+            int s;
+            while (!cancelled.get() && (s = next.getAndIncrement()) < scenarios.length) {
+                int code = scenarios[s];
+                if (!possible(code)) {
+                    continue;
+                }
+                pairings.put(code, copy.speculate(x -> {
+                    int rest = code;
+                    for (int position : positions) {
+                        copyRound.get(position).setResult(OUTCOMES[rest % 3]);
+                        rest /= 3;
+                    }
+                    x.generateNextRound();
+                    List<Match> paired = x.getRoundMatches(round + 1);
+                    int[][] ids = new int[2][paired.size()];
+                    for (int i = 0; i < paired.size(); i++) {
+                        Match m = paired.get(i);
+                        ids[0][i] = m.getPlayer1().getId();
+                        ids[1][i] = m.isBye() ? 0 : m.getPlayer2().getId();
+                    }
+                    return ids;
+                }));
+            }
+        }
+
+        /**
+         * Scenario codes of the most likely result combinations, most
+         * likely first, from rating-based probabilities when both players
+         * are rated and status-based ones otherwise.
+         */
+        private static int[] likelyScenarios(RatingPool pool, Match[] outstanding, int limit) {
+            double[][] probability = new double[outstanding.length][];
+            for (int i = 0; i < outstanding.length; i++) {
+                probability[i] = outcomeProbabilities(pool, outstanding[i]);
+            }
+            int total = 1;
+            for (int i = 0; i < outstanding.length; i++) {
+                total *= 3;
+            }
+            Integer[] codes = new Integer[total];
+            double[] likelihood = new double[total];
+            for (int code = 0; code < total; code++) {
+                double p = 1;
+                int rest = code;
+                for (int i = 0; i < outstanding.length; i++) {
+                    p *= probability[i][rest % 3];
+                    rest /= 3;
+                }
+                codes[code] = code;
+                likelihood[code] = p;
+            }
+            Arrays.sort(codes, (a, b) -> Double.compare(likelihood[b], likelihood[a]));
+            int[] result = new int[Math.min(limit, total)];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = codes[i];
+            }
+            return result;
+        }
+
+        private static double[] outcomeProbabilities(RatingPool pool, Match match) {
+            int id1 = match.getPlayer1().getId();
+            int id2 = match.getPlayer2().getId();
+            if (pool != null && pool.contains(id1) && pool.contains(id2)) {
+                double win = pool.winProbability(id1, id2);
+                double draw = pool.drawProbability(id1, id2);
+                return new double[] {win, draw, 1 - win - draw};
+            }
+            double[] p = new double[3];
+            for (int roll = 0; roll < 100; roll++) {
+                Match.MatchResult result = Match.randomResult(match.getPlayer1().getStatus(),
+                                                              match.getPlayer2().getStatus(), roll);
+                p[Arrays.asList(OUTCOMES).indexOf(result)] += 0.01;
+            }
+            return p;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.molights.tournament;
+
+/**
+ * Secondary indexes over one {@link StandingsSnapshot}, for filtered
+ * standings queries such as "top 20 HIGH-status players", "everyone on
+ * 3.5 points" or "players who had a BYE".
+ * <p>
+ * Standings are ordered by score first, so a score group is a contiguous
+ * range of ranks, found by binary search. Status and BYE flag split the
+ * ranks into six ascending posting lists, one per combination. A query
+ * restricts the lists it needs to the score range and merges them in rank
+ * order; a page is located by binary search over ranks, so a query costs
+ * O(log^2 n) plus the size of the page, independent of the field size.
+ * <p>
+ * Ranks move with every result through the Buchholz tiebreak, so the
+ * lists belong to a snapshot version. They are built in one linear pass
+ * over the snapshot by {@link StandingsSnapshot#getIndex()} when first
+ * queried, off the thread applying results, and are then shared by every
+ * reader of that snapshot.
+ */
+public final class StandingsIndex {
+
+    private static final ParticipantStatus[] STATUSES = ParticipantStatus.values();
+
+    // Half points per position in standings order, non-increasing
+    private final int[] halfPoints;
+    // Positions per (status ordinal * 2 + BYE flag), ascending
+    private final int[][] postings;
+
+    StandingsIndex(byte[] statuses, int[] halfPoints, boolean[] byes) {
+        this.halfPoints = halfPoints;
+        int[] sizes = new int[STATUSES.length * 2];
+        for (int i = 0; i < statuses.length; i++) {
+            sizes[key(statuses[i], byes[i])]++;
+        }
+        this.postings = new int[sizes.length][];
+        for (int k = 0; k < sizes.length; k++) {
+            postings[k] = new int[sizes[k]];
+            sizes[k] = 0;
+        }
+        for (int i = 0; i < statuses.length; i++) {
+            int k = key(statuses[i], byes[i]);
+            postings[k][sizes[k]++] = i;
+        }
+    }
+
+    private static int key(int status, boolean bye) {
+        return status * 2 + (bye ? 1 : 0);
+    }
+
+    /**
+     * Count the participants matching a filter. Each criterion may be
+     * null to match everyone.
+     *
+     * @param status Status to match
+     * @param score Score group to match
+     * @param hadBye BYE flag to match
+     * @return Number of matching participants
+     */
+    public int count(ParticipantStatus status, Double score, Boolean hadBye) {
+        int[][] ranges = ranges(status, score, hadBye);
+        int total = 0;
+        for (int[] range : ranges) {
+            total += range[2] - range[1];
+        }
+        return total;
+    }
+
+    /**
+     * Find a page of the participants matching a filter, in standings
+     * order. Each criterion may be null to match everyone.
+     *
+     * @param status Status to match
+     * @param score Score group to match
+     * @param hadBye BYE flag to match
+     * @param offset Number of matching participants to skip
+     * @param limit Page size
+     * @return Ranks, starting at 1, of at most limit matching participants;
+     *         look them up with the accessors of the snapshot
+     * @throws IllegalArgumentException if offset or limit is negative
+     */
+    public int[] find(ParticipantStatus status, Double score, Boolean hadBye, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit cannot be negative");
+        }
+        int[][] ranges = ranges(status, score, hadBye);
+        int available = 0;
+        for (int[] range : ranges) {
+            available += range[2] - range[1];
+        }
+        if (offset >= available || limit == 0) {
+            return new int[0];
+        }
+
+        // Smallest position with offset matches before it
+        int low = 0;
+        int high = halfPoints.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (countBefore(ranges, mid) < offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        // Start each list at that position, then merge by position
+        int[] cursors = new int[ranges.length];
+        for (int j = 0; j < ranges.length; j++) {
+            int[] list = postings[ranges[j][0]];
+            cursors[j] = lowerBound(list, ranges[j][1], ranges[j][2], low);
+        }
+        int[] page = new int[Math.min(limit, available - offset)];
+        for (int n = 0; n < page.length; n++) {
+            int best = -1;
+            for (int j = 0; j < ranges.length; j++) {
+                if (cursors[j] < ranges[j][2]
+                        && (best < 0 || postings[ranges[j][0]][cursors[j]] < postings[ranges[best][0]][cursors[best]])) {
+                    best = j;
+                }
+            }
+            page[n] = postings[ranges[best][0]][cursors[best]++] + 1;
+        }
+        return page;
+    }
+
+    /**
+     * @return Distinct scores in the standings, highest first
+     */
+    public double[] getScoreGroups() {
+        int groups = 0;
+        for (int i = 0; i < halfPoints.length; i = upperBoundScore(halfPoints[i])) {
+            groups++;
+        }
+        double[] scores = new double[groups];
+        int g = 0;
+        for (int i = 0; i < halfPoints.length; i = upperBoundScore(halfPoints[i])) {
+            scores[g++] = halfPoints[i] * 0.5;
+        }
+        return scores;
+    }
+
+    /**
+     * Select the posting lists a filter needs and cut them to its score
+     * group. Each range is {list key, first index, end index}.
+     */
+    private int[][] ranges(ParticipantStatus status, Double score, Boolean hadBye) {
+        int from = 0;
+        int to = halfPoints.length;
+        if (score != null) {
+            double doubled = score * 2;
+            if (doubled != Math.rint(doubled)) {
+                return new int[0][];
+            }
+            int target = (int) doubled;
+            from = upperBoundScore(target + 1);
+            to = upperBoundScore(target);
+        }
+        int count = (status == null ? STATUSES.length : 1) * (hadBye == null ? 2 : 1);
+        int[][] ranges = new int[count][];
+        int r = 0;
+        for (ParticipantStatus s : STATUSES) {
+            if (status != null && s != status) {
+                continue;
+            }
+            for (int bye = 0; bye < 2; bye++) {
+                if (hadBye != null && hadBye != (bye == 1)) {
+                    continue;
+                }
+                int k = key(s.ordinal(), bye == 1);
+                int[] list = postings[k];
+                ranges[r++] = new int[] {k, lowerBound(list, 0, list.length, from), lowerBound(list, 0, list.length, to)};
+            }
+        }
+        return ranges;
+    }
+
+    /**
+     * @return Number of list entries within the ranges before a position
+     */
+    private int countBefore(int[][] ranges, int position) {
+        int total = 0;
+        for (int[] range : ranges) {
+            total += lowerBound(postings[range[0]], range[1], range[2], position) - range[1];
+        }
+        return total;
+    }
+
+    /**
+     * @return First index in [from, to) of a sorted list holding a value
+     *         of at least the given one, or to
+     */
+    private static int lowerBound(int[] list, int from, int to, int value) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (list[mid] < value) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * @return First position whose score is below the given half points
+     */
+    private int upperBoundScore(int target) {
+        int low = 0;
+        int high = halfPoints.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (halfPoints[mid] >= target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
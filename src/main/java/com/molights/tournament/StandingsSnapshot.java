@@ -0,0 +1,230 @@
+package com.molights.tournament;
+
+import java.util.List;
+
+/**
+ * Immutable, consistent view of a tournament's standings and match history
+ * at one state version.
+ * Snapshots are built by the writer after a batch of changes and published
+ * through a volatile reference, so any number of readers can use them
+ * without locks and without ever seeing a half-applied result.
+ * All data is copied into primitive arrays; no {@link Participant} or
+ * {@link Match} objects are shared with the live tournament.
+ */
+public final class StandingsSnapshot {
+
+    private static final ParticipantStatus[] STATUSES = ParticipantStatus.values();
+
+    private final long version;
+    private final int round;
+    private final int totalRounds;
+
+    // Participants in standings order
+    private final int[] ids;
+    private final String[] names;
+    private final byte[] statuses;
+    private final int[] halfPoints;
+    private final int[] wins;
+    private final int[] draws;
+    private final int[] losses;
+    private final int[] buchholzHalfPoints;
+    private final boolean[] byes;
+    private final IntIntMap rankById;
+    // Ranks in roster (registration) order
+    private final int[] rosterRanks;
+
+    // Matches in round order, BYEs have player2 = 0
+    private final int[] matchRounds;
+    private final int[] player1Ids;
+    private final int[] player2Ids;
+    private final byte[] results;
+
+    // Built by the first query, then shared by all readers
+    private volatile StandingsIndex index;
+
+    private StandingsSnapshot(long version, int round, int totalRounds, int participantCount, int matchCount) {
+        this.version = version;
+        this.round = round;
+        this.totalRounds = totalRounds;
+        this.ids = new int[participantCount];
+        this.names = new String[participantCount];
+        this.statuses = new byte[participantCount];
+        this.halfPoints = new int[participantCount];
+        this.wins = new int[participantCount];
+        this.draws = new int[participantCount];
+        this.losses = new int[participantCount];
+        this.buchholzHalfPoints = new int[participantCount];
+        this.byes = new boolean[participantCount];
+        this.rankById = new IntIntMap(participantCount);
+        this.rosterRanks = new int[participantCount];
+        this.matchRounds = new int[matchCount];
+        this.player1Ids = new int[matchCount];
+        this.player2Ids = new int[matchCount];
+        this.results = new byte[matchCount];
+    }
+
+    /**
+     * Copy the given standings and matches into a new snapshot.
+     * Must be called by the thread that mutates the tournament.
+     *
+     * @param roster The same participants in registration order
+     */
+    static StandingsSnapshot capture(long version, int round, int totalRounds,
+                                     List<Participant> standings, List<Participant> roster, List<Match> matches) {
+        StandingsSnapshot s = new StandingsSnapshot(version, round, totalRounds, standings.size(), matches.size());
+        for (int i = 0; i < standings.size(); i++) {
+            Participant p = standings.get(i);
+            s.ids[i] = p.getId();
+            s.names[i] = p.getName();
+            s.statuses[i] = (byte) p.getStatus().ordinal();
+            s.halfPoints[i] = (int) Math.round(p.getScore() * 2);
+            s.wins[i] = p.getWinCount();
+            s.draws[i] = p.getDrawCount();
+            s.losses[i] = p.getLossCount();
+            s.buchholzHalfPoints[i] = (int) Math.round(p.getOpponentsSumScore() * 2);
+            s.byes[i] = p.getWasParticipantByed();
+            s.rankById.put(p.getId(), i + 1);
+        }
+        for (int i = 0; i < roster.size(); i++) {
+            s.rosterRanks[i] = s.rankById.get(roster.get(i).getId(), 0);
+        }
+        for (int i = 0; i < matches.size(); i++) {
+            Match m = matches.get(i);
+            s.matchRounds[i] = m.getRoundNumber();
+            s.player1Ids[i] = m.getPlayer1().getId();
+            s.player2Ids[i] = m.isBye() ? 0 : m.getPlayer2().getId();
+            s.results[i] = m.isBye() ? MatchLedger.BYE : MatchLedger.code(m.getResult());
+        }
+        return s;
+    }
+
+    /**
+     * @return Tournament state version this snapshot reflects
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public int getRound() {
+        return round;
+    }
+
+    /**
+     * @return Number of rounds the tournament plays, 0 before the start
+     */
+    public int getTotalRounds() {
+        return totalRounds;
+    }
+
+    public int getParticipantCount() {
+        return ids.length;
+    }
+
+    /**
+     * Find the rank of a participant.
+     *
+     * @param id Participant ID
+     * @return Rank starting at 1, or -1 if the ID is unknown
+     */
+    public int rankOf(int id) {
+        return rankById.get(id, -1);
+    }
+
+    /**
+     * @return Ranks in the order participants registered, as in a saved
+     *         file's participant list; the array is shared, not copied
+     */
+    int[] rosterRanks() {
+        return rosterRanks;
+    }
+
+    // Standings accessors, by rank starting at 1
+
+    public int getId(int rank) {
+        return ids[index(rank)];
+    }
+
+    public String getName(int rank) {
+        return names[index(rank)];
+    }
+
+    public ParticipantStatus getStatus(int rank) {
+        return STATUSES[statuses[index(rank)]];
+    }
+
+    public double getScore(int rank) {
+        return halfPoints[index(rank)] * 0.5;
+    }
+
+    public int getWinCount(int rank) {
+        return wins[index(rank)];
+    }
+
+    public int getDrawCount(int rank) {
+        return draws[index(rank)];
+    }
+
+    public int getLossCount(int rank) {
+        return losses[index(rank)];
+    }
+
+    public double getBuchholz(int rank) {
+        return buchholzHalfPoints[index(rank)] * 0.5;
+    }
+
+    public boolean hadBye(int rank) {
+        return byes[index(rank)];
+    }
+
+    /**
+     * Get the secondary indexes for filtered standings queries by status,
+     * score group and BYE flag. The first call builds them in one pass over
+     * the snapshot; safe from any thread.
+     *
+     * @return Indexes over this snapshot's standings
+     */
+    public StandingsIndex getIndex() {
+        StandingsIndex result = index;
+        if (result == null) {
+            // Readers racing here build equal indexes; either may be kept
+            result = new StandingsIndex(statuses, halfPoints, byes);
+            index = result;
+        }
+        return result;
+    }
+
+    // Match accessors, by position in the match history
+
+    public int getMatchCount() {
+        return results.length;
+    }
+
+    public int getMatchRound(int i) {
+        return matchRounds[i];
+    }
+
+    public int getPlayer1Id(int i) {
+        return player1Ids[i];
+    }
+
+    /**
+     * @return ID of the second player, or 0 for a BYE
+     */
+    public int getPlayer2Id(int i) {
+        return player2Ids[i];
+    }
+
+    /**
+     * @return Result code as defined in {@link MatchLedger}
+     */
+    public byte getResultCode(int i) {
+        return results[i];
+    }
+
+    private int index(int rank) {
+        if (rank <= 0 || rank > ids.length) {
+            throw new IndexOutOfBoundsException("Rank " + rank + " out of range");
+        }
+        return rank - 1;
+    }
+}
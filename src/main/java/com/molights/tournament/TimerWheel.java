@@ -0,0 +1,184 @@
+package com.molights.tournament;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel.
+ * Timeouts hash into a power-of-two ring of buckets by their deadline
+ * tick; each bucket is an intrusive doubly linked list over parallel
+ * arrays, so scheduling and cancelling are O(1) and an outstanding
+ * timeout costs a few array cells rather than a task object. Advancing
+ * the wheel visits only the buckets of the ticks that have passed.
+ * <p>
+ * Not thread-safe; the owner advances it from a single thread.
+ */
+final class TimerWheel<T> {
+
+    private static final int NONE = -1;
+
+    private final long tickMillis;
+    private final int mask;
+    private final int[] heads;
+    private long currentTick;
+
+    // Per timeout slot: links, bucket, deadline tick and payload
+    private int[] next;
+    private int[] prev;
+    private int[] bucketOf;
+    private long[] deadlineTicks;
+    private Object[] payloads;
+    private int freeHead = NONE;
+    private int used;
+    private int size;
+
+    /**
+     * @param tickMillis Length of one tick
+     * @param wheelSize Number of buckets, rounded up to a power of two
+     * @param startMillis Current time
+     */
+    TimerWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive");
+        }
+        if (wheelSize <= 0) {
+            throw new IllegalArgumentException("Wheel size must be positive");
+        }
+        int buckets = Integer.highestOneBit(wheelSize);
+        if (buckets < wheelSize) {
+            buckets <<= 1;
+        }
+        this.tickMillis = tickMillis;
+        this.mask = buckets - 1;
+        this.heads = new int[buckets];
+        Arrays.fill(heads, NONE);
+        this.currentTick = startMillis / tickMillis;
+        int capacity = 64;
+        next = new int[capacity];
+        prev = new int[capacity];
+        bucketOf = new int[capacity];
+        deadlineTicks = new long[capacity];
+        payloads = new Object[capacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    long getTickMillis() {
+        return tickMillis;
+    }
+
+    /**
+     * Schedule a payload. Deadlines already past expire on the next tick.
+     *
+     * @return Handle for {@link #cancel(int)}
+     */
+    int schedule(long deadlineMillis, T payload) {
+        if (payload == null) {
+            throw new IllegalArgumentException("Payload cannot be null");
+        }
+        long tick = Math.max((deadlineMillis + tickMillis - 1) / tickMillis, currentTick + 1);
+        int slot = allocate();
+        int bucket = (int) (tick & mask);
+        deadlineTicks[slot] = tick;
+        payloads[slot] = payload;
+        bucketOf[slot] = bucket;
+        prev[slot] = NONE;
+        next[slot] = heads[bucket];
+        if (heads[bucket] != NONE) {
+            prev[heads[bucket]] = slot;
+        }
+        heads[bucket] = slot;
+        size++;
+        return slot;
+    }
+
+    /**
+     * Cancel a pending timeout.
+     *
+     * @return true if the handle was pending
+     */
+    boolean cancel(int handle) {
+        if (handle < 0 || handle >= used || payloads[handle] == null) {
+            return false;
+        }
+        unlink(handle);
+        release(handle);
+        return true;
+    }
+
+    /**
+     * Move the wheel to the given time and hand every expired payload to
+     * the callback, in no particular order. The callback may schedule or
+     * cancel other timeouts.
+     *
+     * @return Number of expired timeouts
+     */
+    @SuppressWarnings("unchecked")
+    int advance(long nowMillis, Consumer<? super T> expired) {
+        long target = nowMillis / tickMillis;
+        if (target <= currentTick) {
+            return 0;
+        }
+        long steps = Math.min(target - currentTick, (long) heads.length);
+        Object[] due = new Object[8];
+        int count = 0;
+        for (long i = 1; i <= steps; i++) {
+            int bucket = (int) ((currentTick + i) & mask);
+            int slot = heads[bucket];
+            while (slot != NONE) {
+                int following = next[slot];
+                if (deadlineTicks[slot] <= target) {
+                    if (count == due.length) {
+                        due = Arrays.copyOf(due, count * 2);
+                    }
+                    due[count++] = payloads[slot];
+                    unlink(slot);
+                    release(slot);
+                }
+                slot = following;
+            }
+        }
+        currentTick = target;
+        for (int i = 0; i < count; i++) {
+            expired.accept((T) due[i]);
+        }
+        return count;
+    }
+
+    private int allocate() {
+        if (freeHead != NONE) {
+            int slot = freeHead;
+            freeHead = next[slot];
+            return slot;
+        }
+        if (used == payloads.length) {
+            int capacity = used * 2;
+            next = Arrays.copyOf(next, capacity);
+            prev = Arrays.copyOf(prev, capacity);
+            bucketOf = Arrays.copyOf(bucketOf, capacity);
+            deadlineTicks = Arrays.copyOf(deadlineTicks, capacity);
+            payloads = Arrays.copyOf(payloads, capacity);
+        }
+        return used++;
+    }
+
+    private void unlink(int slot) {
+        if (prev[slot] != NONE) {
+            next[prev[slot]] = next[slot];
+        } else {
+            heads[bucketOf[slot]] = next[slot];
+        }
+        if (next[slot] != NONE) {
+            prev[next[slot]] = prev[slot];
+        }
+    }
+
+    private void release(int slot) {
+        payloads[slot] = null;
+        next[slot] = freeHead;
+        freeHead = slot;
+        size--;
+    }
+}
@@ -1,6 +1,9 @@
 package com.molights.tournament;
 
 import java.util.*;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+import java.util.stream.IntStream;
 import java.io.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -14,10 +17,89 @@ public class Tournament {
     
     private String name;
     private List<Participant> participants;
+    // IDs of the current participants, for O(1) duplicate checks
+    private IntIntMap participantIds;
+    // Case-insensitive name index of the roster, for lookups and autocomplete
+    private RosterIndex rosterIndex;
+    // Participants still paired: the roster minus withdrawals, in roster order
+    private List<Participant> active;
+    // IDs of withdrawn participants, mapped to the round they withdrew after
+    private IntIntMap withdrawn;
+    // IDs of late entries, mapped to 2 * entry round, plus 1 with half-point byes
+    private IntIntMap lateEntries;
     private List<Match> matches;
     private int totalRounds;
     private int currentRound;
     
+    // State version, bumped on every result, round or roster change
+    private long version;
+    private ReportCache reportCache;
+    private List<Participant> cachedStandings;
+    private long cachedStandingsVersion;
+    
+    // Most recent entry of the change journal, null before the first change
+    private Change history;
+    // Depth of running what-if scenarios, during which nothing is published
+    private int speculating;
+    // Set while a replay rebuilds the tournament: nothing is journaled or published
+    private boolean rebuilding;
+    // Pairing keys by ID in half points, frozen while sections of a larger
+    // event run in parallel; nothing is published meanwhile. Null otherwise
+    private IntIntMap frozenHalfPoints;
+    private IntIntMap frozenBuchholz;
+    
+    // Last read snapshot published for concurrent readers
+    private volatile StandingsSnapshot published;
+    
+    private RatingPool ratingPool;
+    
+    // Background writer told about every state change, or null
+    private AutoSave autoSave;
+    // Held for writing while an auto-saved tournament changes, so that the
+    // writer's optimistic reads can tell a consistent state from a torn one
+    private final StampedLock changeLock = new StampedLock();
+    private int changeDepth;
+    private long changeStamp;
+    
+    // Deterministic mode: results are drawn from streams of a recorded master seed
+    private boolean seeded;
+    private long seed;
+    private boolean logging = true;
+    
+    private TournamentFormat format = TournamentFormat.SWISS;
+    // Round-robin schedule and the player order it refers to, set at start
+    private RoundRobinSchedule schedule;
+    private List<Participant> scheduleOrder;
+    
+    // Extra Swiss pairing rules, compiled to bitmasks before each round
+    private List<PairingConstraint> pairingConstraints;
+    private ColourBalance colourBalance;
+    // Bumped whenever the pairing rules change, which the journal does not record
+    private int pairingRulesVersion;
+    
+    private static final int DEFAULT_REPORT_CACHE_SIZE = 64;
+    private static final int PARALLEL_BATCH_THRESHOLD = 2048;
+    
+    /**
+     * Standings order: score, then Buchholz, then wins, then ID.
+     */
+    static final Comparator<Participant> STANDINGS_ORDER = (p1, p2) -> {
+        // Primary: Score (descending)
+        int scoreCompare = Double.compare(p2.getScore(), p1.getScore());
+        if (scoreCompare != 0) return scoreCompare;
+        
+        // Tiebreaker 1: Buchholz (sum of opponents' scores)
+        int buchholzCompare = Double.compare(p2.getOpponentsSumScore(), p1.getOpponentsSumScore());
+        if (buchholzCompare != 0) return buchholzCompare;
+        
+        // Tiebreaker 2: Number of wins
+        int winsCompare = Integer.compare(p2.getWinCount(), p1.getWinCount());
+        if (winsCompare != 0) return winsCompare;
+        
+        // Tiebreaker 3: ID (for consistency)
+        return Integer.compare(p1.getId(), p2.getId());
+    };
+    
     /**
      * Creates a new tournament with the given name.
      * 
@@ -30,9 +112,19 @@ public class Tournament {
         }
         this.name = name;
         this.participants = new ArrayList<>();
+        this.participantIds = new IntIntMap(16);
+        this.rosterIndex = new RosterIndex();
+        this.active = new ArrayList<>();
+        this.withdrawn = new IntIntMap(16);
+        this.lateEntries = new IntIntMap(16);
+        this.pairingConstraints = new ArrayList<>();
         this.matches = new ArrayList<>();
         this.totalRounds = 0;
         this.currentRound = 0;
+        this.version = 0;
+        this.reportCache = new ReportCache(DEFAULT_REPORT_CACHE_SIZE);
+        this.cachedStandingsVersion = -1;
+        this.published = StandingsSnapshot.capture(0, 0, 0, participants, participants, matches);
     }
     
     // Getters
@@ -56,13 +148,543 @@ public class Tournament {
         return currentRound;
     }
     
+    /**
+     * Get the state version of the tournament.
+     * The version increases on every result, round generation and roster
+     * change, including a participant's name or status being edited, so two
+     * equal versions always describe the same state.
+     * 
+     * @return Current state version
+     */
+    public long getVersion() {
+        return version;
+    }
+    
+    /**
+     * Replace the rendered report cache with an empty one of the given size.
+     * 
+     * @param capacity Maximum number of cached reports
+     * @throws IllegalArgumentException if capacity is not positive
+     */
+    public void setReportCacheCapacity(int capacity) {
+        this.reportCache = new ReportCache(capacity);
+    }
+    
+    public ReportCache getReportCache() {
+        return reportCache;
+    }
+    
+    /**
+     * Switch to deterministic mode. Simulated results are then drawn from
+     * per-match streams of this master seed, so a tournament can be rebuilt
+     * exactly from its roster, seed and results (see {@link TournamentReplay}).
+     * 
+     * @param seed Master seed to record
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+        this.seeded = true;
+    }
+    
+    public boolean isSeeded() {
+        return seeded;
+    }
+    
+    /**
+     * @return Master seed, meaningful only if {@link #isSeeded()}
+     */
+    public long getSeed() {
+        return seed;
+    }
+    
+    /**
+     * Enable or disable console logging of starts, pairings and generated
+     * results. Explicit display methods always print.
+     */
+    public void setLogging(boolean logging) {
+        this.logging = logging;
+    }
+    
+    public boolean isLogging() {
+        return logging;
+    }
+    
+    public TournamentFormat getFormat() {
+        return format;
+    }
+    
+    /**
+     * Choose the pairing format. Must be set before the tournament starts.
+     * 
+     * @param format Pairing format
+     * @throws IllegalArgumentException if format is null
+     * @throws IllegalStateException if the tournament has already started
+     */
+    public void setFormat(TournamentFormat format) {
+        if (format == null) {
+            throw new IllegalArgumentException("Format cannot be null");
+        }
+        if (totalRounds > 0) {
+            throw new IllegalStateException("Cannot change format after tournament has started");
+        }
+        this.format = format;
+    }
+    
+    /**
+     * Add a Swiss pairing constraint. Constraints are not part of a
+     * {@link TournamentRecord}, so a replay without them diverges.
+     * 
+     * @param constraint Constraint to add
+     * @throws IllegalArgumentException if constraint is null
+     */
+    public void addPairingConstraint(PairingConstraint constraint) {
+        if (constraint == null) {
+            throw new IllegalArgumentException("Constraint cannot be null");
+        }
+        pairingConstraints.add(constraint);
+        pairingRulesVersion++;
+    }
+    
+    public boolean removePairingConstraint(PairingConstraint constraint) {
+        if (!pairingConstraints.remove(constraint)) {
+            return false;
+        }
+        pairingRulesVersion++;
+        return true;
+    }
+    
+    public boolean isColourBalancing() {
+        return colourBalance != null;
+    }
+    
+    /**
+     * Balance colours in Swiss pairings. Player 1 of a match takes the
+     * first colour; nobody gets the same colour three times running or a
+     * colour difference beyond 2 if it can be avoided, and colours of
+     * each pair go to whoever is owed the first colour.
+     * 
+     * @param enabled true to balance colours
+     */
+    public void setColourBalancing(boolean enabled) {
+        if (enabled && colourBalance == null) {
+            colourBalance = new ColourBalance();
+            pairingConstraints.add(colourBalance);
+            pairingRulesVersion++;
+        } else if (!enabled && colourBalance != null) {
+            pairingConstraints.remove(colourBalance);
+            colourBalance = null;
+            pairingRulesVersion++;
+        }
+    }
+    
+    int getPairingRulesVersion() {
+        return pairingRulesVersion;
+    }
+    
+    /**
+     * @return Pairing constraints added by the caller, without colour balancing
+     */
+    List<PairingConstraint> getCustomConstraints() {
+        List<PairingConstraint> custom = new ArrayList<>(pairingConstraints);
+        custom.remove(colourBalance);
+        return custom;
+    }
+    
+    public RatingPool getRatingPool() {
+        return ratingPool;
+    }
+    
+    /**
+     * Attach a rating pool. Current and future participants are registered
+     * with their status band's seed rating if missing, every applied,
+     * corrected or undone result is reflected in the pool's open period,
+     * and simulated results use the pool's rating-based probabilities.
+     * 
+     * @param ratingPool Pool to attach, or null to detach
+     */
+    public void setRatingPool(RatingPool ratingPool) {
+        this.ratingPool = ratingPool;
+        if (ratingPool != null) {
+            for (Participant p : participants) {
+                ratingPool.register(p);
+            }
+        }
+    }
+    
+    /**
+     * Called by matches of this tournament whenever a result is applied,
+     * including corrections, undo and batch generation. Batch generation
+     * calls this concurrently for matches with disjoint players.
+     */
+    void resultApplied(Match match, Match.MatchResult previous, Match.MatchResult result) {
+        RatingPool pool = ratingPool;
+        if (pool != null && !match.isBye()) {
+            pool.recordResult(match, previous, -1);
+            pool.recordResult(match, result, 1);
+        }
+    }
+    
+    /**
+     * Record a state change that is not part of the journal.
+     */
+    void stateChanged() {
+        version++;
+        if (autoSave != null) {
+            autoSave.changed();
+        }
+    }
+    
+    /**
+     * Called by participants of this tournament when their name or status
+     * is edited. The standings order does not depend on either, but the
+     * rendered reports and the published state do, and a rename moves the
+     * participant within the name index.
+     */
+    void participantEdited(Participant participant, boolean renamed) {
+        if (renamed) {
+            rosterIndex.renamed(participant);
+        }
+        stateChanged();
+    }
+    
+    /**
+     * Journal a change and bump the version. While rebuilding the change
+     * is dropped, and callers may pass null instead of building it.
+     */
+    private void record(Change change) {
+        if (!rebuilding) {
+            history = change;
+        }
+        version++;
+        if (autoSave != null) {
+            autoSave.changed();
+        }
+    }
+    
+    /**
+     * Mark the start of a change. Nested calls only count; the outermost
+     * takes the change lock if the tournament is auto-saved. Taking a
+     * write stamp never waits, since the writer only reads optimistically.
+     */
+    void beginChange() {
+        if (changeDepth++ == 0 && autoSave != null) {
+            changeStamp = changeLock.writeLock();
+        }
+    }
+    
+    void endChange() {
+        if (--changeDepth == 0 && changeStamp != 0) {
+            changeLock.unlockWrite(changeStamp);
+            changeStamp = 0;
+        }
+    }
+    
+    /**
+     * Capture the current state from the auto-save writer's thread. This is
+     * an optimistic read: it fails instead of waiting if a change is in
+     * progress or starts meanwhile, including a whole what-if scenario, so
+     * the thread applying results is never held up.
+     * 
+     * @return Snapshot of the current state, or null if a change got in the way
+     */
+    StandingsSnapshot captureQuietly() {
+        long stamp = changeLock.tryOptimisticRead();
+        if (stamp == 0) {
+            return null;
+        }
+        try {
+            StandingsSnapshot current = published;
+            long at = version;
+            if (current.getVersion() != at) {
+                // The owner's caches are not ours to fill, so sort a copy
+                List<Participant> roster = new ArrayList<>(participants);
+                List<Participant> standings = new ArrayList<>(roster);
+                standings.sort(STANDINGS_ORDER);
+                current = StandingsSnapshot.capture(at, currentRound, totalRounds, standings, roster,
+                                                    new ArrayList<>(matches));
+            }
+            return changeLock.validate(stamp) ? current : null;
+        } catch (RuntimeException e) {
+            // Reading state a change was rewriting; anything else is a bug
+            if (changeLock.validate(stamp)) {
+                throw e;
+            }
+            return null;
+        }
+    }
+    
+    void attachAutoSave(AutoSave autoSave) {
+        if (this.autoSave != null) {
+            throw new IllegalStateException("Tournament is already being auto-saved");
+        }
+        if (changeDepth > 0) {
+            throw new IllegalStateException("Cannot start auto-saving during a change");
+        }
+        this.autoSave = autoSave;
+    }
+    
+    void detachAutoSave(AutoSave autoSave) {
+        if (this.autoSave == autoSave) {
+            this.autoSave = null;
+        }
+    }
+    
+    /**
+     * Called by matches of this tournament when their result is set.
+     */
+    void resultChanged(Match match, Match.MatchResult previous) {
+        record(new ResultChange(history, match, previous));
+    }
+    
+    /**
+     * Build an immutable read snapshot of the current standings and match
+     * history and publish it for readers.
+     * Round generation, round-wide result generation and rollbacks publish
+     * automatically; call this after entering individual results.
+     * Must be called by the thread that changes the tournament.
+     * Inside a {@link #speculate(Function)} scenario the snapshot is built
+     * and returned but not published, so readers never see hypothetical
+     * state.
+     * 
+     * @return The published snapshot
+     */
+    public StandingsSnapshot publishSnapshot() {
+        StandingsSnapshot snapshot = StandingsSnapshot.capture(version, currentRound, totalRounds, getStandings(),
+                                                               participants, matches);
+        if (speculating > 0) {
+            return snapshot;
+        }
+        published = snapshot;
+        if (autoSave != null) {
+            autoSave.changed();
+        }
+        return snapshot;
+    }
+    
+    /**
+     * Get the most recently published read snapshot.
+     * This is a single volatile read and is safe from any thread while
+     * results are being applied; it never blocks the writer.
+     * 
+     * @return Latest published snapshot
+     */
+    public StandingsSnapshot getPublishedSnapshot() {
+        return published;
+    }
+    
+    /**
+     * Publish after a change the tournament made itself. Skipped inside a
+     * what-if scenario, where the snapshot would only be thrown away, and
+     * while a replay rebuilds the tournament, which publishes once at the end.
+     */
+    private void autoPublish() {
+        if (speculating == 0 && !rebuilding && frozenHalfPoints == null) {
+            publishSnapshot();
+        }
+    }
+    
+    /**
+     * Freeze the pairing keys, score and Buchholz, of the active
+     * participants at their current values, and hold back publishing until
+     * {@link #thawSortKeys()}. Sections of a {@link SectionedTournament}
+     * whose players have met across sections freeze together before a
+     * round, so each can be paired and scored in parallel without reading
+     * scores another section is changing. Freezing only reads, so sections
+     * may freeze in parallel too.
+     */
+    void freezeSortKeys() {
+        IntIntMap halfPoints = new IntIntMap(active.size());
+        IntIntMap buchholz = new IntIntMap(active.size());
+        for (Participant p : active) {
+            halfPoints.put(p.getId(), (int) Math.round(p.getScore() * 2));
+            buchholz.put(p.getId(), (int) Math.round(p.getOpponentsSumScore() * 2));
+        }
+        frozenHalfPoints = halfPoints;
+        frozenBuchholz = buchholz;
+    }
+    
+    /**
+     * Go back to live pairing keys and publish the held-back state. Called
+     * once no section is changing any more.
+     */
+    void thawSortKeys() {
+        if (frozenHalfPoints == null) {
+            return;
+        }
+        frozenHalfPoints = null;
+        frozenBuchholz = null;
+        // Opponents in other sections may have changed score meanwhile
+        stateChanged();
+        autoPublish();
+    }
+    
+    /**
+     * Switch rebuild mode on or off. While a replay rebuilds the tournament
+     * from a record, changes are neither journaled nor published, so each
+     * replayed round allocates only its own matches; the rebuilt tournament
+     * starts with an empty journal.
+     */
+    void setRebuilding(boolean rebuilding) {
+        this.rebuilding = rebuilding;
+    }
+    
+    /**
+     * Take a snapshot of the current state. This is O(1): the snapshot is
+     * a handle on the change journal, whose entries are immutable and
+     * shared by all snapshots taken before them.
+     * 
+     * @return Snapshot that can be passed to {@link #rollback(Snapshot)}
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(this, history, version);
+    }
+    
+    /**
+     * Roll the tournament back to an earlier snapshot.
+     * Results, rounds and roster changes made since the snapshot are undone
+     * in reverse order, so the cost is proportional to the number of changes
+     * undone, not to the size of the tournament.
+     * 
+     * @param snapshot Snapshot taken from this tournament
+     * @throws IllegalArgumentException if snapshot is null, belongs to another
+     *         tournament, or is no longer part of the history (already rolled
+     *         back past, or taken before a {@link #checkpoint()})
+     */
+    public void rollback(Snapshot snapshot) {
+        beginChange();
+        try {
+            if (snapshot == null || snapshot.tournament != this) {
+                throw new IllegalArgumentException("Snapshot does not belong to this tournament");
+            }
+            // A checkpoint ends the history: snapshots from before it, even one
+            // taken before any change, are found to be stale before undoing anything
+            Change change = history;
+            while (change != snapshot.change) {
+                if (change == null || change instanceof Checkpoint) {
+                    throw new IllegalArgumentException("Snapshot is not part of the current history");
+                }
+                change = change.previous;
+            }
+        
+            while (history != snapshot.change) {
+                history.undo();
+                history = history.previous;
+            }
+            stateChanged();
+            autoPublish();
+        } finally {
+            endChange();
+        }
+    }
+    
+    /**
+     * Undo the most recent change: a result, a round, the start, or a roster change.
+     * 
+     * @return true if a change was undone, false if there was nothing to undo
+     */
+    public boolean undo() {
+        beginChange();
+        try {
+            if (history == null || history instanceof Checkpoint) {
+                return false;
+            }
+            history.undo();
+            history = history.previous;
+            stateChanged();
+            autoPublish();
+            return true;
+        } finally {
+            endChange();
+        }
+    }
+    
+    /**
+     * Run a what-if scenario and roll every change it makes back afterwards.
+     * For example, {@code t.speculate(x -> { x.setMatchResult(m, DRAW); return x.getStandings(); })}
+     * returns the standings as if m had been drawn, leaving t unchanged.
+     * <p>
+     * This is not a fork: the scenario changes this tournament in place and
+     * the journal takes the changes back, so the cost is proportional to
+     * the changes made. Only the thread that owns the tournament may call
+     * it, and nothing else may use the tournament until it returns. The
+     * published snapshot is left alone throughout, so concurrent readers
+     * keep seeing the state from before the scenario. To explore on
+     * another thread, speculate on a copy, e.g. one restored by
+     * {@link TournamentReplay}.
+     * 
+     * @param scenario Code applying hypothetical changes to this tournament
+     * @return Whatever the scenario returns
+     */
+    public <T> T speculate(Function<Tournament, T> scenario) {
+        beginChange();
+        try {
+            Snapshot snapshot = snapshot();
+            speculating++;
+            try {
+                return scenario.apply(this);
+            } finally {
+                try {
+                    rollback(snapshot);
+                } finally {
+                    speculating--;
+                }
+            }
+        } finally {
+            endChange();
+        }
+    }
+    
+    /**
+     * Drop the change journal recorded so far, so that it does not grow
+     * without bound over a long event. Changes made before the checkpoint
+     * can no longer be undone, and snapshots taken before it can no longer
+     * be rolled back to; the memory their entries hold is freed once no
+     * such snapshot is left.
+     * 
+     * @throws IllegalStateException if called inside a what-if scenario
+     */
+    public void checkpoint() {
+        if (speculating > 0) {
+            throw new IllegalStateException("Cannot checkpoint inside a what-if scenario");
+        }
+        history = new Checkpoint();
+    }
+    
+    /**
+     * Check that every change since a snapshot is a result of one of the
+     * given matches, so that the state differs from the snapshot only in
+     * those results.
+     */
+    boolean onlyResultsSince(Snapshot snapshot, Set<Match> allowed) {
+        for (Change change = history; change != snapshot.change; change = change.previous) {
+            if (change == null) {
+                return false;
+            }
+            if (change instanceof ResultChange) {
+                if (!allowed.contains(((ResultChange) change).match)) {
+                    return false;
+                }
+            } else if (change instanceof BatchChange) {
+                for (Match match : ((BatchChange) change).applied) {
+                    if (!allowed.contains(match)) {
+                        return false;
+                    }
+                }
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+    
     /**
      * Add a participant to the tournament.
-     * Can only add participants before the tournament starts.
+     * Once rounds have been played the participant joins as a late entry
+     * without byes; see {@link #addLateEntry(Participant, boolean)}.
      * 
      * @param participant Participant to add
      * @throws IllegalArgumentException if participant is null or ID already exists
-     * @throws IllegalStateException if tournament has already started
+     * @throws IllegalStateException if a late entry is not possible
      */
     public void addParticipant(Participant participant) {
         if (participant == null) {
@@ -70,68 +692,416 @@ public class Tournament {
         }
         
         if (currentRound > 0) {
-            throw new IllegalStateException("Cannot add participants after tournament has started");
+            addLateEntry(participant, false);
+            return;
         }
         
-        // Check for duplicate ID
-        for (Participant p : participants) {
-            if (p.getId() == participant.getId()) {
+        admit(participant);
+    }
+    
+    /**
+     * Add a participant after rounds have been played. The entrant is paired
+     * from the next round on and may take a half-point bye for every round
+     * already paired. Nobody else's score or tiebreak changes, so the cached
+     * standings are updated by a single binary-search insertion.
+     * 
+     * @param participant Participant to add
+     * @param halfPointByes true to award 0.5 points per missed round
+     * @throws IllegalArgumentException if participant is null or ID already exists
+     * @throws IllegalStateException if the tournament is a round robin or has no rounds left
+     */
+    public void addLateEntry(Participant participant, boolean halfPointByes) {
+        beginChange();
+        try {
+            if (participant == null) {
+                throw new IllegalArgumentException("Participant cannot be null");
+            }
+            if (currentRound == 0) {
+                admit(participant);
+                return;
+            }
+            if (format != TournamentFormat.SWISS) {
+                throw new IllegalStateException("Late entries are only possible in Swiss tournaments");
+            }
+            if (currentRound >= totalRounds) {
+                throw new IllegalStateException("No rounds left for a late entry");
+            }
+            if (participantIds.containsKey(participant.getId())) {
                 throw new IllegalArgumentException("Participant with ID " + participant.getId() + " already exists");
             }
+        
+            long before = version;
+            double byePoints = halfPointByes ? 0.5 * currentRound : 0;
+            participant.addPoint(byePoints);
+            participants.add(participant);
+            participantIds.put(participant.getId(), 1);
+            rosterIndex.added(participant);
+            participant.joined(this);
+            active.add(participant);
+            lateEntries.put(participant.getId(), 2 * currentRound + (halfPointByes ? 1 : 0));
+            if (ratingPool != null) {
+                ratingPool.register(participant);
+            }
+            record(new RosterChange(history, participant, -1, -1, byePoints));
+        
+            if (cachedStandings != null && cachedStandingsVersion == before) {
+                int at = Collections.binarySearch(cachedStandings, participant, STANDINGS_ORDER);
+                cachedStandings.add(at < 0 ? -at - 1 : at, participant);
+                cachedStandingsVersion = version;
+            }
+        } finally {
+            endChange();
         }
+    }
+    
+    /**
+     * Add a participant without the not-started check. Used directly to
+     * move a participant in from another section between rounds; its
+     * score and opponents come along with it.
+     */
+    void admit(Participant participant) {
+        beginChange();
+        try {
+            // Check for duplicate ID
+            if (participantIds.containsKey(participant.getId())) {
+                throw new IllegalArgumentException("Participant with ID " + participant.getId() + " already exists");
+            }
         
-        participants.add(participant);
+            participants.add(participant);
+            participantIds.put(participant.getId(), 1);
+            rosterIndex.added(participant);
+            participant.joined(this);
+            active.add(participant);
+            if (ratingPool != null) {
+                ratingPool.register(participant);
+            }
+            refreshSchedule();
+            record(new RosterChange(history, participant, -1, -1, 0));
+        } finally {
+            endChange();
+        }
     }
     
     /**
      * Remove a participant from the tournament.
-     * Can only remove before tournament starts.
+     * Once rounds have been played the participant is withdrawn instead;
+     * see {@link #withdrawParticipant(int)}.
      * 
      * @param participantId ID of participant to remove
      * @throws IllegalArgumentException if participantId is invalid or not found
-     * @throws IllegalStateException if tournament has already started
+     * @throws IllegalStateException if the participant has already withdrawn, or
+     *         a started round robin would be left with fewer than 2 participants
      */
     public void removeParticipant(int participantId) {
         if (currentRound > 0) {
-            throw new IllegalStateException("Cannot remove participants after tournament has started");
+            withdrawParticipant(participantId);
+            return;
         }
         if (participantId <= 0) {
             throw new IllegalArgumentException("participantId must be positive");
         }
 
-        boolean removed = participants.removeIf(p -> p.getId() == participantId);
-        if (!removed) {
+        if (release(participantId) == null) {
             throw new IllegalArgumentException("Participant with ID " + participantId + " not found");
         }
     }
     
+    /**
+     * Remove a participant without the not-started check. Used directly to
+     * move a participant out to another section between rounds; matches
+     * already played stay in this tournament.
+     * 
+     * @return The removed participant, or null if not found
+     */
+    Participant release(int participantId) {
+        beginChange();
+        try {
+            if (!participantIds.containsKey(participantId)) {
+                return null;
+            }
+            if (schedule != null && participants.size() <= 2) {
+                throw new IllegalStateException("A round robin needs at least 2 participants");
+            }
+            for (int i = 0; i < participants.size(); i++) {
+                if (participants.get(i).getId() == participantId) {
+                    Participant removed = participants.remove(i);
+                    participantIds.remove(participantId);
+                    rosterIndex.removed(removed);
+                    removed.left(this);
+                    int activeAt = active.indexOf(removed);
+                    if (activeAt >= 0) {
+                        active.remove(activeAt);
+                    }
+                    refreshSchedule();
+                    record(new RosterChange(history, removed, i, activeAt, 0));
+                    return removed;
+                }
+            }
+            return null;
+        } finally {
+            endChange();
+        }
+    }
+    
+    /**
+     * Withdraw a participant after rounds have been played. The participant
+     * is no longer paired but stays in the standings, and its results keep
+     * counting towards its opponents' Buchholz. Unplayed matches of the
+     * current round are left for the arbiter. No score changes, so the
+     * cached standings order stays valid.
+     * 
+     * @param participantId ID of participant to withdraw
+     * @throws IllegalArgumentException if the participant is not found
+     * @throws IllegalStateException if the participant has already withdrawn
+     */
+    public void withdrawParticipant(int participantId) {
+        beginChange();
+        try {
+            if (currentRound == 0) {
+                removeParticipant(participantId);
+                return;
+            }
+            if (!participantIds.containsKey(participantId)) {
+                throw new IllegalArgumentException("Participant with ID " + participantId + " not found");
+            }
+            if (withdrawn.containsKey(participantId)) {
+                throw new IllegalStateException("Participant with ID " + participantId + " has already withdrawn");
+            }
+        
+            long before = version;
+            for (int i = 0; i < active.size(); i++) {
+                if (active.get(i).getId() == participantId) {
+                    Participant p = active.remove(i);
+                    withdrawn.put(participantId, currentRound);
+                    record(new WithdrawalChange(history, p, i));
+                    break;
+                }
+            }
+            if (cachedStandingsVersion == before) {
+                cachedStandingsVersion = version;
+            }
+        } finally {
+            endChange();
+        }
+    }
+    
+    public boolean isWithdrawn(int participantId) {
+        return withdrawn.containsKey(participantId);
+    }
+    
+    /**
+     * @return Round after which the participant withdrew, or 0
+     */
+    int withdrawalRound(int participantId) {
+        return withdrawn.get(participantId, 0);
+    }
+    
+    /**
+     * @return Round after which the participant entered late, or 0
+     */
+    int entryRound(int participantId) {
+        return lateEntries.get(participantId, 0) / 2;
+    }
+    
+    boolean tookHalfPointByes(int participantId) {
+        return (lateEntries.get(participantId, 0) & 1) != 0;
+    }
+    
+    /**
+     * @return Participants still being paired, in registration order
+     */
+    public List<Participant> getActiveParticipants() {
+        return new ArrayList<>(active);
+    }
+    
+    /**
+     * Find participants by name, ignoring case. Withdrawn participants are
+     * included. Costs O(log n) plus the number of matches.
+     * 
+     * @param name Full name to look up
+     * @return Participants with that name, in ID order; empty if there are none
+     * @throws IllegalArgumentException if name is null
+     */
+    public List<Participant> findParticipantsByName(String name) {
+        if (name == null) {
+            throw new IllegalArgumentException("Name cannot be null");
+        }
+        return rosterIndex.find(name);
+    }
+    
+    /**
+     * Find participants whose name starts with a prefix, ignoring case, as
+     * for autocomplete. Costs O(log n) plus the number returned.
+     * 
+     * @param prefix Start of the name
+     * @param limit Maximum number of participants to return
+     * @return Matching participants in name order
+     * @throws IllegalArgumentException if prefix is null or limit is negative
+     */
+    public List<Participant> searchParticipants(String prefix, int limit) {
+        if (prefix == null) {
+            throw new IllegalArgumentException("Prefix cannot be null");
+        }
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative");
+        }
+        return rosterIndex.search(prefix, limit);
+    }
+    
+    /**
+     * @return Number of participants whose name starts with the prefix, ignoring case
+     */
+    public int countParticipants(String prefix) {
+        if (prefix == null) {
+            throw new IllegalArgumentException("Prefix cannot be null");
+        }
+        return rosterIndex.count(prefix);
+    }
+    
     /**
      * Start the tournament by calculating the number of rounds.
-     * Uses ceil(log2(n)) formula for Swiss tournament rounds.
+     * Uses ceil(log2(n)) formula for Swiss tournament rounds; round robins
+     * get n-1 rounds per cycle (n for an odd number of participants).
      * 
      * @throws IllegalStateException if less than 2 participants or already started
      */
     public void startTournament() {
-        if (participants.size() < 2) {
-            throw new IllegalStateException("Tournament needs at least 2 participants");
-        }
+        startTournament(0);
+    }
+    
+    /**
+     * Start with a given number of rounds, as used by sections of a larger
+     * event that all play the same number of Swiss rounds, and by replays
+     * of events that were finished early. A round robin plays at most its
+     * schedule.
+     * 
+     * @param rounds Number of rounds, or 0 to derive it from the field size
+     * @throws IllegalArgumentException if rounds is negative or longer than the round-robin schedule
+     */
+    void startTournament(int rounds) {
+        beginChange();
+        try {
+            if (participants.size() < 2) {
+                throw new IllegalStateException("Tournament needs at least 2 participants");
+            }
         
-        if (currentRound > 0) {
-            throw new IllegalStateException("Tournament has already started");
-        }
+            if (currentRound > 0) {
+                throw new IllegalStateException("Tournament has already started");
+            }
         
-        // Calculate number of rounds: ceil(log2(n))
-        totalRounds = (int) Math.ceil(Math.log(participants.size()) / Math.log(2));
-        System.out.println("Tournament started with " + participants.size() + " participants and " + totalRounds + " rounds");
+            if (rounds < 0) {
+                throw new IllegalArgumentException("Number of rounds cannot be negative");
+            }
+        
+            if (format == TournamentFormat.SWISS) {
+                // Calculate number of rounds: ceil(log2(n))
+                totalRounds = rounds > 0 ? rounds
+                        : (int) Math.ceil(Math.log(participants.size()) / Math.log(2));
+            } else {
+                RoundRobinSchedule planned = new RoundRobinSchedule(participants.size(),
+                                                                    format == TournamentFormat.DOUBLE_ROUND_ROBIN);
+                if (rounds > planned.getRounds()) {
+                    throw new IllegalArgumentException("Round robin has only " + planned.getRounds() + " rounds");
+                }
+                schedule = planned;
+                scheduleOrder = new ArrayList<>(participants);
+                totalRounds = rounds > 0 ? rounds : schedule.getRounds();
+            }
+            record(new StartChange(history));
+            if (logging) {
+                System.out.println("Tournament started with " + participants.size() + " participants and " + totalRounds + " rounds");
+            }
+        } finally {
+            endChange();
+        }
+    }
+    
+    /**
+     * Rebuild the round-robin schedule after a roster change between the
+     * start and the first round, so that it covers exactly the current
+     * roster. Once round 1 is paired only withdrawals remain possible,
+     * which keep their place in the schedule.
+     */
+    private void refreshSchedule() {
+        if (schedule == null || currentRound > 0) {
+            return;
+        }
+        schedule = new RoundRobinSchedule(participants.size(), format == TournamentFormat.DOUBLE_ROUND_ROBIN);
+        scheduleOrder = new ArrayList<>(participants);
+        totalRounds = schedule.getRounds();
     }
     
     /**
-     * Generate pairings for the next round using Swiss system.
+     * Generate pairings for the next round using Swiss system, or the next
+     * round of the schedule in a round robin.
      * Automatically creates matches and adds them to the tournament.
      * 
      * @throws IllegalStateException if tournament not started or all rounds complete
      */
     public void generateNextRound() {
+        beginChange();
+        try {
+            checkNextRound();
+        
+            currentRound++;
+            if (logging) {
+                System.out.println("\n=== Generating Round " + currentRound + " ===");
+            }
+        
+            List<Match> roundMatches = format == TournamentFormat.SWISS
+                    ? generateSwissPairings(currentRound)
+                    : generateRoundRobinPairings(currentRound);
+            installRound(roundMatches);
+        } finally {
+            endChange();
+        }
+    }
+    
+    /**
+     * Add the next round with given pairings instead of running the
+     * pairing algorithm, with the same effects as {@link #generateNextRound()}
+     * producing them, BYE points included. Used to restore recorded rounds
+     * and to commit speculative pairings.
+     * 
+     * @param player1Ids First player per match
+     * @param player2Ids Second player per match, 0 for a BYE
+     */
+    void restoreRound(int[] player1Ids, int[] player2Ids) {
+        beginChange();
+        try {
+            checkNextRound();
+            Map<Integer, Participant> byId = new HashMap<>(participants.size() * 2);
+            for (Participant p : participants) {
+                byId.put(p.getId(), p);
+            }
+        
+            currentRound++;
+            if (logging) {
+                System.out.println("\n=== Generating Round " + currentRound + " ===");
+            }
+        
+            List<Match> roundMatches = new ArrayList<>(player1Ids.length);
+            for (int i = 0; i < player1Ids.length; i++) {
+                Participant p1 = byId.get(player1Ids[i]);
+                if (player2Ids[i] != 0) {
+                    roundMatches.add(new Match(p1, byId.get(player2Ids[i]), currentRound));
+                } else {
+                    roundMatches.add(new Match(p1, currentRound));
+                    if (!p1.getWasParticipantByed()) {
+                        p1.byeParticipant();
+                    } else {
+                        p1.addPoint(1.0);
+                        p1.addWin();
+                    }
+                }
+            }
+            installRound(roundMatches);
+        } finally {
+            endChange();
+        }
+    }
+    
+    private void checkNextRound() {
         if (totalRounds == 0) {
             throw new IllegalStateException("Tournament has not been started. Call startTournament() first.");
         }
@@ -140,12 +1110,22 @@ public class Tournament {
             throw new IllegalStateException("All rounds have been completed");
         }
         
-        currentRound++;
-        System.out.println("\n=== Generating Round " + currentRound + " ===");
-        
-        List<Match> roundMatches = generateSwissPairings(currentRound);
+        if (active.size() < 2) {
+            throw new IllegalStateException("Fewer than 2 participants left to pair");
+        }
+    }
+    
+    private void installRound(List<Match> roundMatches) {
+        for (Match match : roundMatches) {
+            match.setTournament(this);
+        }
         matches.addAll(roundMatches);
+        record(rebuilding ? null : new RoundChange(history, currentRound, roundMatches.size()));
+        autoPublish();
         
+        if (!logging) {
+            return;
+        }
         System.out.println("Round " + currentRound + " pairings generated:");
         for (Match match : roundMatches) {
             if (match.isBye()) {
@@ -169,90 +1149,139 @@ public class Tournament {
         List<Match> roundMatches = new ArrayList<>();
         
         // Sort participants by current score (descending), then by Buchholz
-        List<Participant> sortedParticipants = new ArrayList<>(participants);
-        sortedParticipants.sort((p1, p2) -> {
-            int scoreCompare = Double.compare(p2.getScore(), p1.getScore());
-            if (scoreCompare != 0) return scoreCompare;
-            return Double.compare(p2.getOpponentsSumScore(), p1.getOpponentsSumScore());
-        });
+        List<Participant> sortedParticipants = new ArrayList<>(active);
+        IntIntMap halfPoints = frozenHalfPoints;
+        IntIntMap buchholz = frozenBuchholz;
+        if (halfPoints != null) {
+            // The same order, from the keys frozen at the start of the round
+            sortedParticipants.sort((p1, p2) -> {
+                int scoreCompare = Integer.compare(halfPoints.get(p2.getId(), 0), halfPoints.get(p1.getId(), 0));
+                if (scoreCompare != 0) return scoreCompare;
+                return Integer.compare(buchholz.get(p2.getId(), 0), buchholz.get(p1.getId(), 0));
+            });
+        } else {
+            sortedParticipants.sort((p1, p2) -> {
+                int scoreCompare = Double.compare(p2.getScore(), p1.getScore());
+                if (scoreCompare != 0) return scoreCompare;
+                return Double.compare(p2.getOpponentsSumScore(), p1.getOpponentsSumScore());
+            });
+        }
         
-        // Track which participants have been paired
-        Set<Participant> paired = new HashSet<>();
+        // Track which participants have been paired, by position in the sorted
+        // list, so the result never depends on hashing or iteration order
+        boolean[] paired = new boolean[sortedParticipants.size()];
+        PairingMasks masks = PairingMasks.compile(this, sortedParticipants, pairingConstraints);
         
         // Handle odd number of participants with BYE
         if (sortedParticipants.size() % 2 == 1) {
             // Find the lowest-ranked participant who hasn't had a BYE yet
-            Participant byeParticipant = null;
+            int byeIndex = -1;
             for (int i = sortedParticipants.size() - 1; i >= 0; i--) {
                 Participant p = sortedParticipants.get(i);
                 if (!p.getWasParticipantByed()) {
-                    byeParticipant = p;
+                    byeIndex = i;
                     break;
                 }
             }
             
-            if (byeParticipant != null) {
+            if (byeIndex >= 0) {
+                Participant byeParticipant = sortedParticipants.get(byeIndex);
                 Match byeMatch = new Match(byeParticipant, round);
                 byeParticipant.byeParticipant(); // Applies the BYE
                 roundMatches.add(byeMatch);
-                paired.add(byeParticipant);
+                paired[byeIndex] = true;
             } else {
                 // All participants have had a BYE, give it to the lowest-ranked anyway
-                Participant p = sortedParticipants.get(sortedParticipants.size() - 1);
+                int last = sortedParticipants.size() - 1;
+                Participant p = sortedParticipants.get(last);
                 Match byeMatch = new Match(p, round);
                 p.addPoint(1.0);
                 p.addWin();
                 roundMatches.add(byeMatch);
-                paired.add(p);
+                paired[last] = true;
             }
         }
         
         // Pair remaining participants
         for (int i = 0; i < sortedParticipants.size(); i++) {
-            Participant p1 = sortedParticipants.get(i);
-            
-            if (paired.contains(p1)) {
+            if (paired[i]) {
                 continue;
             }
+            Participant p1 = sortedParticipants.get(i);
             
             // Try to find a suitable opponent
-            Participant p2 = null;
+            int opponent = -1;
             for (int j = i + 1; j < sortedParticipants.size(); j++) {
-                Participant candidate = sortedParticipants.get(j);
-                
-                if (paired.contains(candidate)) {
+                if (paired[j]) {
                     continue;
                 }
                 
-                // Check if they haven't played each other before
-                if (!p1.hasPlayedWith(candidate)) {
-                    p2 = candidate;
+                // Check constraints and that they haven't played each other before
+                if ((masks == null || masks.compatible(i, j)) && !p1.hasPlayedWith(sortedParticipants.get(j))) {
+                    opponent = j;
                     break;
                 }
             }
             
+            // Relax the constraints before allowing a repeat pairing
+            if (opponent < 0 && masks != null) {
+                for (int j = i + 1; j < sortedParticipants.size(); j++) {
+                    if (!paired[j] && !p1.hasPlayedWith(sortedParticipants.get(j))) {
+                        opponent = j;
+                        break;
+                    }
+                }
+            }
+            
             // If no unpaired opponent found who hasn't played before, pair with anyone available
-            if (p2 == null) {
+            if (opponent < 0) {
                 for (int j = i + 1; j < sortedParticipants.size(); j++) {
-                    Participant candidate = sortedParticipants.get(j);
-                    if (!paired.contains(candidate)) {
-                        p2 = candidate;
+                    if (!paired[j]) {
+                        opponent = j;
                         break;
                     }
                 }
             }
             
-            if (p2 != null) {
-                Match match = new Match(p1, p2, round);
+            if (opponent >= 0) {
+                Match match = colourBalance == null || colourBalance.firstColour(i, opponent)
+                        ? new Match(p1, sortedParticipants.get(opponent), round)
+                        : new Match(sortedParticipants.get(opponent), p1, round);
                 roundMatches.add(match);
-                paired.add(p1);
-                paired.add(p2);
+                paired[i] = true;
+                paired[opponent] = true;
             }
         }
         
         return roundMatches;
     }
     
+    /**
+     * Pairings of one round-robin round, computed from the circle-method
+     * schedule. The player sitting out an odd-sized round gets no match
+     * and no point.
+     * 
+     * @param round Current round number
+     * @return List of matches for this round
+     */
+    private List<Match> generateRoundRobinPairings(int round) {
+        List<Match> roundMatches = new ArrayList<>(schedule.getBoards());
+        for (int board = 0; board < schedule.getBoards(); board++) {
+            int p1 = schedule.player1(round, board);
+            int p2 = schedule.player2(round, board);
+            if (p1 == RoundRobinSchedule.REST || p2 == RoundRobinSchedule.REST) {
+                continue;
+            }
+            Participant player1 = scheduleOrder.get(p1);
+            Participant player2 = scheduleOrder.get(p2);
+            // Opponents of a withdrawn player rest instead
+            if (!withdrawn.containsKey(player1.getId()) && !withdrawn.containsKey(player2.getId())) {
+                roundMatches.add(new Match(player1, player2, round));
+            }
+        }
+        return roundMatches;
+    }
+    
     /**
      * Get all matches from a specific round.
      * 
@@ -261,13 +1290,7 @@ public class Tournament {
      * @throws IllegalArgumentException if round is invalid
      */
     public List<Match> getRoundMatches(int round) {
-        if (round <= 0) {
-            throw new IllegalArgumentException("Round number must be positive");
-        }
-
-        if (round > currentRound) {
-            throw new IllegalArgumentException("Requested round has not been generated yet");
-        }
+        checkRound(round);
 
         List<Match> roundMatches = new ArrayList<>();
         for (Match match : matches) {
@@ -279,29 +1302,239 @@ public class Tournament {
         return roundMatches;
     }
     
+    private void checkRound(int round) {
+        if (round <= 0) {
+            throw new IllegalArgumentException("Round number must be positive");
+        }
+
+        if (round > currentRound) {
+            throw new IllegalArgumentException("Requested round has not been generated yet");
+        }
+    }
+    
+    /**
+     * Build a compact ledger of all matches, indexed by participant
+     * position in {@link #getParticipants()}. The ledger is a copy: later
+     * changes to the tournament do not reach it, nor do results set
+     * through it reach the tournament.
+     * 
+     * @return New ledger holding the current match history
+     */
+    public MatchLedger toLedger() {
+        return MatchLedger.of(getParticipants(), matches);
+    }
+    
     /**
      * Automatically generate results for all matches in the current round.
-     * Uses status-based probability calculations.
+     * Uses status-based probability calculations, or rating-based ones
+     * when a rating pool is attached. In deterministic mode each match
+     * draws from its stream of the master seed.
      * 
      * @throws IllegalStateException if no rounds generated or no matches in current round
      */
     public void autoGenerateRoundResults() {
-        if (currentRound == 0) {
-            throw new IllegalStateException("No rounds have been generated yet");
-        }
+        beginChange();
+        try {
+            if (currentRound == 0) {
+                throw new IllegalStateException("No rounds have been generated yet");
+            }
+
+            List<Match> roundMatches = getRoundMatches(currentRound);
 
-        List<Match> roundMatches = getRoundMatches(currentRound);
+            if (roundMatches.isEmpty()) {
+                throw new IllegalStateException("No matches in current round to generate results for.");
+            }
 
-        if (roundMatches.isEmpty()) {
-            throw new IllegalStateException("No matches in current round to generate results for.");
+            if (logging) {
+                System.out.println("\n=== Generating Random Results for Round " + currentRound + " ===");
+            }
+            for (int i = 0; i < roundMatches.size(); i++) {
+                Match match = roundMatches.get(i);
+                if (!match.isBye() && !match.isPlayed()) {
+                    if (seeded) {
+                        match.setResult(seededResult(match, seed, currentRound, i, ratingPool));
+                    } else {
+                        match.generateRandomResult();
+                    }
+                    if (logging) {
+                        System.out.println(match.toString());
+                    }
+                }
+            }
+            autoPublish();
+        } finally {
+            endChange();
         }
+    }
+    
+    /**
+     * Generate and apply results for all unplayed matches of the current
+     * round in one batch, without console output.
+     * Each match draws from its own random stream derived from the seed,
+     * the round and the match position, so the outcome is the same for a
+     * given seed whatever the number of threads. Large rounds are generated
+     * and applied in parallel; this is race-free because a participant
+     * appears in at most one match per round.
+     * 
+     * @param seed Seed for the round's random streams
+     * @return Number of results generated
+     * @throws IllegalStateException if no rounds generated or no matches in current round
+     */
+    public int generateRoundResultsBatch(long seed) {
+        beginChange();
+        try {
+            if (currentRound == 0) {
+                throw new IllegalStateException("No rounds have been generated yet");
+            }
 
-        System.out.println("\n=== Generating Random Results for Round " + currentRound + " ===");
-        for (Match match : roundMatches) {
-            if (!match.isBye() && !match.isPlayed()) {
-                match.generateRandomResult();
-                System.out.println(match.toString());
+            List<Match> roundMatches = getRoundMatches(currentRound);
+
+            if (roundMatches.isEmpty()) {
+                throw new IllegalStateException("No matches in current round to generate results for.");
+            }
+
+            int round = currentRound;
+            RatingPool pool = ratingPool;
+            IntStream indices = IntStream.range(0, roundMatches.size());
+            if (roundMatches.size() >= PARALLEL_BATCH_THRESHOLD) {
+                indices = indices.parallel();
+            }
+            Match[] applied = indices.filter(i -> {
+                Match match = roundMatches.get(i);
+                if (match.isBye() || match.isPlayed()) {
+                    return false;
+                }
+                match.applyResult(seededResult(match, seed, round, i, pool));
+                return true;
+            }).mapToObj(roundMatches::get).toArray(Match[]::new);
+
+            if (applied.length > 0) {
+                record(new BatchChange(history, applied));
+                autoPublish();
+            }
+            return applied.length;
+        } finally {
+            endChange();
+        }
+    }
+    
+    /**
+     * Draw a result from the stream of a (seed, round, match position).
+     */
+    private static Match.MatchResult seededResult(Match match, long seed, int round, int index, RatingPool pool) {
+        if (pool != null) {
+            return pool.randomResult(match.getPlayer1().getId(), match.getPlayer2().getId(),
+                                     Seeds.nextDouble(seed, round, index));
+        }
+        int roll = Seeds.nextInt(seed, round, index, 100);
+        return Match.randomResult(match.getPlayer1().getStatus(), match.getPlayer2().getStatus(), roll);
+    }
+    
+    /**
+     * Apply recorded result codes to the current round's matches in order,
+     * as one journal entry. Used by replay; BYE entries are skipped.
+     */
+    void applyRoundResults(byte[] codes) {
+        beginChange();
+        try {
+            List<Match> roundMatches = currentRoundMatches();
+            if (codes.length != roundMatches.size()) {
+                throw new IllegalArgumentException("Expected " + roundMatches.size() + " results but got " + codes.length);
+            }
+            List<Match> applied = rebuilding ? null : new ArrayList<>(roundMatches.size());
+            int count = 0;
+            for (int i = 0; i < codes.length; i++) {
+                Match match = roundMatches.get(i);
+                if (!match.isBye() && codes[i] != MatchLedger.NOT_PLAYED) {
+                    match.applyResult(MatchLedger.result(codes[i]));
+                    if (applied != null) {
+                        applied.add(match);
+                    }
+                    count++;
+                }
+            }
+            if (count > 0) {
+                record(applied == null ? null : new BatchChange(history, applied.toArray(new Match[0])));
+            }
+        } finally {
+            endChange();
+        }
+    }
+    
+    /**
+     * @return Live view of the matches of the current round, which are the
+     *         last ones in the match list; no copy is made
+     */
+    List<Match> currentRoundMatches() {
+        int from = matches.size();
+        while (from > 0 && matches.get(from - 1).getRoundNumber() == currentRound) {
+            from--;
+        }
+        return matches.subList(from, matches.size());
+    }
+    
+    /**
+     * Import the current round's results from a file or stream, either as
+     * tournament file lines ({@code A vs B => 1-0}) or as CSV keyed by
+     * match number (see {@link ReportWriter} for the exported columns).
+     * Every row is validated against the round's pairings before anything
+     * is applied; the results are then applied together as one journal
+     * entry, so a single {@link #undo()} takes the whole import back.
+     * Matches not mentioned are left as they are.
+     * 
+     * @param in Result rows; not closed
+     * @return Number of results applied
+     * @throws ResultImportException listing every invalid row, with nothing applied
+     * @throws IllegalStateException if no rounds have been generated
+     * @throws IOException if the input cannot be read
+     */
+    public int importRoundResults(Reader in) throws IOException {
+        beginChange();
+        try {
+            if (in == null) {
+                throw new IllegalArgumentException("Reader cannot be null");
             }
+            if (currentRound == 0) {
+                throw new IllegalStateException("No rounds have been generated yet");
+            }
+        
+            List<Match> roundMatches = getRoundMatches(currentRound);
+            BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+            byte[] codes = ResultImport.parse(currentRound, roundMatches, reader);
+        
+            List<Match> applied = new ArrayList<>(roundMatches.size());
+            for (int i = 0; i < codes.length; i++) {
+                if (codes[i] != MatchLedger.NOT_PLAYED) {
+                    Match match = roundMatches.get(i);
+                    match.applyResult(MatchLedger.result(codes[i]));
+                    applied.add(match);
+                }
+            }
+            if (!applied.isEmpty()) {
+                record(new BatchChange(history, applied.toArray(new Match[0])));
+                autoPublish();
+            }
+            return applied.size();
+        } finally {
+            endChange();
+        }
+    }
+    
+    /**
+     * Import the current round's results from a file.
+     * 
+     * @param filename File to read
+     * @return Number of results applied
+     * @throws ResultImportException listing every invalid row, with nothing applied
+     * @throws IOException if the file cannot be read
+     * @see #importRoundResults(Reader)
+     */
+    public int importRoundResults(String filename) throws IOException {
+        if (filename == null || filename.trim().isEmpty()) {
+            throw new IllegalArgumentException("Filename cannot be null or empty");
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
+            return importRoundResults(reader);
         }
     }
     
@@ -330,28 +1563,52 @@ public class Tournament {
      * 2. Buchholz score (descending)
      * 3. Number of wins (descending)
      * 4. ID (ascending, for consistency)
+     * The sorted order is cached until the next state change.
      * 
      * @return Sorted list of participants
      */
     public List<Participant> getStandings() {
+        if (cachedStandings == null || cachedStandingsVersion != version) {
+            cachedStandings = computeStandings();
+            cachedStandingsVersion = version;
+        }
+        return new ArrayList<>(cachedStandings);
+    }
+    
+    /**
+     * Get the top of the standings without sorting the whole field when
+     * the sorted order is not cached: the best {@code limit} participants
+     * are selected with a bounded heap, O(n log limit), then sorted.
+     * 
+     * @param limit Maximum number of entries
+     * @return Best participants in standings order
+     */
+    List<Participant> getTopStandings(int limit) {
+        if (limit >= participants.size() || (cachedStandings != null && cachedStandingsVersion == version)) {
+            List<Participant> standings = getStandings();
+            return new ArrayList<>(standings.subList(0, Math.min(Math.max(limit, 0), standings.size())));
+        }
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        // Worst of the best so far on top
+        PriorityQueue<Participant> best = new PriorityQueue<>(limit, STANDINGS_ORDER.reversed());
+        for (Participant p : participants) {
+            if (best.size() < limit) {
+                best.add(p);
+            } else if (STANDINGS_ORDER.compare(p, best.peek()) < 0) {
+                best.poll();
+                best.add(p);
+            }
+        }
+        List<Participant> top = new ArrayList<>(best);
+        top.sort(STANDINGS_ORDER);
+        return top;
+    }
+    
+    private List<Participant> computeStandings() {
         List<Participant> standings = new ArrayList<>(participants);
-        standings.sort((p1, p2) -> {
-            // Primary: Score (descending)
-            int scoreCompare = Double.compare(p2.getScore(), p1.getScore());
-            if (scoreCompare != 0) return scoreCompare;
-            
-            // Tiebreaker 1: Buchholz (sum of opponents' scores)
-            int buchholzCompare = Double.compare(p2.getOpponentsSumScore(), p1.getOpponentsSumScore());
-            if (buchholzCompare != 0) return buchholzCompare;
-            
-            // Tiebreaker 2: Number of wins
-            int winsCompare = Integer.compare(p2.getWinCount(), p1.getWinCount());
-            if (winsCompare != 0) return winsCompare;
-            
-            // Tiebreaker 3: ID (for consistency)
-            return Integer.compare(p1.getId(), p2.getId());
-        });
-        
+        standings.sort(STANDINGS_ORDER);
         return standings;
     }
     
@@ -360,18 +1617,8 @@ public class Tournament {
      */
     public void displayStandings() {
         System.out.println("\n=== CURRENT STANDINGS ===");
-        System.out.println(String.format("%-5s %-4s %-20s %-8s %-8s %-12s %-10s", 
-                                        "Rank", "ID", "Name", "Score", "Status", "W-D-L", "Buchholz"));
-        System.out.println("=".repeat(80));
-        
-        List<Participant> standings = getStandings();
-        int rank = 1;
-        for (Participant p : standings) {
-            String wdl = String.format("%d-%d-%d", p.getWinCount(), p.getDrawCount(), p.getLossCount());
-            System.out.println(String.format("%-5d %-4d %-20s %-8.1f %-8s %-12s %-10.1f", 
-                                            rank++, p.getId(), p.getName(), p.getScore(), 
-                                            p.getStatus(), wdl, p.getOpponentsSumScore()));
-        }
+        System.out.print(renderStandings(ReportFormat.TEXT));
+        System.out.flush();
     }
     
     /**
@@ -379,13 +1626,123 @@ public class Tournament {
      */
     public void displayAllMatches() {
         System.out.println("\n=== ALL MATCHES ===");
-        for (int round = 1; round <= currentRound; round++) {
-            System.out.println("\nRound " + round + ":");
-            List<Match> roundMatches = getRoundMatches(round);
-            for (Match match : roundMatches) {
-                System.out.println("  " + match.toString());
+        System.out.print(renderAllMatches(ReportFormat.TEXT));
+        System.out.flush();
+    }
+    
+    /**
+     * Render current standings, served from the report cache when nothing
+     * has changed since the last call.
+     * 
+     * @param format Output format
+     * @return Rendered standings table
+     * @throws IllegalArgumentException if format is null
+     */
+    public String renderStandings(ReportFormat format) {
+        if (format == null) {
+            throw new IllegalArgumentException("Format cannot be null");
+        }
+        return reportCache.get(ReportCache.ReportType.STANDINGS, 0, format, version, () -> {
+            StringWriter out = new StringWriter();
+            try {
+                writeStandings(out, format);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return out.toString();
+        });
+    }
+    
+    /**
+     * Render the matches of one round, served from the report cache when
+     * nothing has changed since the last call.
+     * 
+     * @param round Round number
+     * @param format Output format
+     * @return Rendered match listing
+     * @throws IllegalArgumentException if round is invalid or format is null
+     */
+    public String renderRound(int round, ReportFormat format) {
+        if (format == null) {
+            throw new IllegalArgumentException("Format cannot be null");
+        }
+        checkRound(round);
+        // Collecting the round scans the whole history, so only on a cache miss
+        return reportCache.get(ReportCache.ReportType.ROUND, round, format, version, () -> {
+            StringWriter out = new StringWriter();
+            try {
+                ReportWriter report = new ReportWriter(out, format);
+                report.writeMatches(ReportWriter.MatchStyle.LISTING, getRoundMatches(round));
+                report.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
+            return out.toString();
+        });
+    }
+    
+    /**
+     * Render the matches of all rounds, served from the report cache when
+     * nothing has changed since the last call. Text output groups matches
+     * under a heading per round.
+     * 
+     * @param format Output format
+     * @return Rendered match listing
+     * @throws IllegalArgumentException if format is null
+     */
+    public String renderAllMatches(ReportFormat format) {
+        if (format == null) {
+            throw new IllegalArgumentException("Format cannot be null");
         }
+        return reportCache.get(ReportCache.ReportType.ALL_MATCHES, 0, format, version, () -> {
+            StringWriter out = new StringWriter();
+            try {
+                ReportWriter report = new ReportWriter(out, format);
+                if (format == ReportFormat.TEXT) {
+                    for (int round = 1; round <= currentRound; round++) {
+                        report.newLine();
+                        report.line("Round " + round + ":");
+                        report.writeMatches(ReportWriter.MatchStyle.LISTING, getRoundMatches(round));
+                    }
+                } else {
+                    report.writeMatches(ReportWriter.MatchStyle.FILE, matches);
+                }
+                report.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return out.toString();
+        });
+    }
+    
+    /**
+     * Write current standings in the given format.
+     * The output stream is flushed but not closed.
+     * 
+     * @param out Destination stream
+     * @param format Output format
+     * @throws IOException if the stream cannot be written
+     * @throws IllegalArgumentException if out or format is null
+     */
+    public void writeStandings(Writer out, ReportFormat format) throws IOException {
+        ReportWriter report = new ReportWriter(out, format);
+        report.writeTable(ReportWriter.CONSOLE_STANDINGS, getStandings());
+        report.flush();
+    }
+    
+    /**
+     * Write all matches of all rounds in the given format.
+     * The output stream is flushed but not closed.
+     * 
+     * @param out Destination stream
+     * @param format Output format
+     * @throws IOException if the stream cannot be written
+     * @throws IllegalArgumentException if out or format is null
+     */
+    public void writeMatches(Writer out, ReportFormat format) throws IOException {
+        ReportWriter report = new ReportWriter(out, format);
+        report.writeMatches(ReportWriter.MatchStyle.FILE, matches);
+        report.flush();
     }
     
     /**
@@ -397,6 +1754,89 @@ public class Tournament {
         return currentRound >= totalRounds && totalRounds > 0;
     }
     
+    /**
+     * Work out which places are mathematically clinched or out of reach,
+     * given the unplayed matches of the current round and the rounds
+     * still to be generated. Costs O(n log n).
+     * 
+     * @return Analysis of the current state
+     * @throws IllegalStateException if the tournament has not been started
+     */
+    public ClinchAnalysis analyzeClinches() {
+        if (totalRounds == 0) {
+            throw new IllegalStateException("Tournament has not been started");
+        }
+        IntIntMap pending = new IntIntMap(16);
+        for (int i = matches.size() - 1; i >= 0 && matches.get(i).getRoundNumber() == currentRound; i--) {
+            Match match = matches.get(i);
+            if (!match.isBye() && !match.isPlayed()) {
+                pending.put(match.getPlayer1().getId(), 1);
+                pending.put(match.getPlayer2().getId(), 1);
+            }
+        }
+        
+        int remainingRounds = totalRounds - currentRound;
+        List<Participant> standings = getStandings();
+        int[] remainingGames = new int[standings.size()];
+        for (int i = 0; i < standings.size(); i++) {
+            int id = standings.get(i).getId();
+            remainingGames[i] = (withdrawn.containsKey(id) ? 0 : remainingRounds) + pending.get(id, 0);
+        }
+        return new ClinchAnalysis(currentRound, remainingRounds, standings, remainingGames);
+    }
+    
+    /**
+     * End the tournament after the current round if the given number of
+     * top places can no longer change. The round count is reduced to the
+     * rounds played; {@link #undo()} restores it.
+     * <p>
+     * Places are decided by {@link ClinchAnalysis}, whose bounds let every
+     * other participant win all its remaining games. In a Swiss event of
+     * the standard ceil(log2 n) rounds a runner-up is rarely far enough
+     * behind for that, so this seldom ends one early; round robins and
+     * Swiss events with extra rounds are where rounds are actually saved.
+     * 
+     * @param places Number of top places that must be decided, e.g. 1 for the winner
+     * @return true if the tournament was ended early
+     * @throws IllegalArgumentException if places is not positive
+     * @throws IllegalStateException if the tournament has not been started
+     */
+    public boolean finishEarly(int places) {
+        beginChange();
+        try {
+            if (places <= 0) {
+                throw new IllegalArgumentException("Number of places must be positive");
+            }
+            if (totalRounds == 0) {
+                throw new IllegalStateException("Tournament has not been started");
+            }
+            if (currentRound == 0 || currentRound >= totalRounds) {
+                return false;
+            }
+            // Only between rounds: results still to come are counted by the analysis,
+            // but ending would leave them unplayed
+            for (int i = matches.size() - 1; i >= 0 && matches.get(i).getRoundNumber() == currentRound; i--) {
+                if (!matches.get(i).isPlayed()) {
+                    return false;
+                }
+            }
+            if (analyzeClinches().getLockedPlaces() < Math.min(places, participants.size())) {
+                return false;
+            }
+            int plannedRounds = totalRounds;
+            totalRounds = currentRound;
+            record(new EarlyFinishChange(history, plannedRounds));
+            autoPublish();
+            if (logging) {
+                System.out.println("Top " + places + (places == 1 ? " place is" : " places are")
+                                   + " decided; tournament ends after round " + currentRound);
+            }
+            return true;
+        } finally {
+            endChange();
+        }
+    }
+    
     /**
      * Save tournament to a text file.
      * Includes all tournament data, participants, matches, and standings.
@@ -410,63 +1850,40 @@ public class Tournament {
             throw new IllegalArgumentException("Filename cannot be null or empty");
         }
 
-        try (PrintWriter writer = new PrintWriter(new FileWriter(filename))) {
+        try (ReportWriter writer = new ReportWriter(new FileWriter(filename), ReportFormat.TEXT)) {
             // Header
             LocalDateTime now = LocalDateTime.now();
             DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
             
-            writer.println("TOURNAMENT: " + name);
-            writer.println("PARTICIPANTS: " + participants.size());
-            writer.println("ROUNDS: " + totalRounds);
-            writer.println("CURRENT_ROUND: " + currentRound);
-            writer.println("DATE: " + now.format(formatter));
-            writer.println();
+            writer.line("TOURNAMENT: " + name);
+            writer.line("PARTICIPANTS: " + participants.size());
+            writer.line("ROUNDS: " + totalRounds);
+            writer.line("CURRENT_ROUND: " + currentRound);
+            writer.line("DATE: " + now.format(formatter));
+            writer.newLine();
             
             // Participants
-            writer.println("=== PARTICIPANTS ===");
-            writer.println(String.format("%-4s | %-20s | %-8s | %-8s | %-12s", 
-                                        "ID", "Name", "Score", "Status", "W-D-L"));
-            writer.println("-".repeat(70));
-            for (Participant p : participants) {
-                String wdl = String.format("%d-%d-%d", p.getWinCount(), p.getDrawCount(), p.getLossCount());
-                writer.println(String.format("%-4d | %-20s | %-8.1f | %-8s | %-12s", 
-                                            p.getId(), p.getName(), p.getScore(), p.getStatus(), wdl));
-            }
-            writer.println();
+            writer.line("=== PARTICIPANTS ===");
+            writer.writeTable(ReportWriter.FILE_PARTICIPANTS, participants);
+            writer.newLine();
             
             // Matches by round
             for (int round = 1; round <= currentRound; round++) {
-                writer.println("=== ROUND " + round + " ===");
-                List<Match> roundMatches = getRoundMatches(round);
-                int matchNum = 1;
-                for (Match match : roundMatches) {
-                    writer.println("Match " + matchNum + ": " + match.toFileString());
-                    matchNum++;
-                }
-                writer.println();
+                writer.line("=== ROUND " + round + " ===");
+                writer.writeMatches(ReportWriter.MatchStyle.FILE, getRoundMatches(round));
+                writer.newLine();
             }
             
             // Final standings
             if (isComplete()) {
-                writer.println("=== FINAL STANDINGS ===");
+                writer.line("=== FINAL STANDINGS ===");
             } else {
-                writer.println("=== CURRENT STANDINGS ===");
-            }
-            writer.println(String.format("%-5s | %-4s | %-20s | %-8s | %-12s | %-10s", 
-                                        "Rank", "ID", "Name", "Score", "W-D-L", "Buchholz"));
-            writer.println("-".repeat(75));
-            
-            List<Participant> standings = getStandings();
-            int rank = 1;
-            for (Participant p : standings) {
-                String wdl = String.format("%d-%d-%d", p.getWinCount(), p.getDrawCount(), p.getLossCount());
-                writer.println(String.format("%-5d | %-4d | %-20s | %-8.1f | %-12s | %-10.1f", 
-                                            rank++, p.getId(), p.getName(), p.getScore(), 
-                                            wdl, p.getOpponentsSumScore()));
+                writer.line("=== CURRENT STANDINGS ===");
             }
-            
-            System.out.println("Tournament saved to " + filename);
+            writer.writeTable(ReportWriter.FILE_STANDINGS, getStandings());
         }
+        
+        System.out.println("Tournament saved to " + filename);
     }
     
     /**
@@ -548,5 +1965,214 @@ public class Tournament {
             return tournament;
         }
     }
+    
+    /**
+     * Handle on a point in the tournament's change journal.
+     */
+    public static final class Snapshot {
+        private final Tournament tournament;
+        private final Change change;
+        private final long version;
+        
+        private Snapshot(Tournament tournament, Change change, long version) {
+            this.tournament = tournament;
+            this.change = change;
+            this.version = version;
+        }
+        
+        /**
+         * @return Tournament version at the time the snapshot was taken
+         */
+        public long getVersion() {
+            return version;
+        }
+    }
+    
+    /**
+     * Entry of the change journal. Entries are immutable and linked to the
+     * previous one, so snapshots share the whole journal behind them.
+     */
+    private abstract static class Change {
+        final Change previous;
+        
+        Change(Change previous) {
+            this.previous = previous;
+        }
+        
+        abstract void undo();
+    }
+    
+    /**
+     * Start of the journal after {@link #checkpoint()}. It has no previous
+     * entry, so snapshots from before it are no longer found.
+     */
+    private static final class Checkpoint extends Change {
+        Checkpoint() {
+            super(null);
+        }
+        
+        @Override
+        void undo() {
+            throw new IllegalStateException("Changes before a checkpoint cannot be undone");
+        }
+    }
+    
+    private static final class ResultChange extends Change {
+        private final Match match;
+        private final Match.MatchResult previousResult;
+        
+        ResultChange(Change previous, Match match, Match.MatchResult previousResult) {
+            super(previous);
+            this.match = match;
+            this.previousResult = previousResult;
+        }
+        
+        @Override
+        void undo() {
+            match.applyResult(previousResult);
+        }
+    }
+    
+    private static final class BatchChange extends Change {
+        private final Match[] applied;
+        
+        BatchChange(Change previous, Match[] applied) {
+            super(previous);
+            this.applied = applied;
+        }
+        
+        @Override
+        void undo() {
+            for (Match match : applied) {
+                match.applyResult(Match.MatchResult.NOT_PLAYED);
+            }
+        }
+    }
+    
+    private final class RoundChange extends Change {
+        private final int round;
+        private final int matchCount;
+        
+        RoundChange(Change previous, int round, int matchCount) {
+            super(previous);
+            this.round = round;
+            this.matchCount = matchCount;
+        }
+        
+        @Override
+        void undo() {
+            // Results of this round were undone first, so only the pairings
+            // and the BYE point remain to be taken back
+            List<Match> roundMatches = matches.subList(matches.size() - matchCount, matches.size());
+            for (Match match : roundMatches) {
+                if (match.isBye()) {
+                    Participant p = match.getPlayer1();
+                    p.revertResult(1.0, 1, 0, 0);
+                    if (!hasEarlierBye(p, match)) {
+                        p.clearBye();
+                    }
+                }
+            }
+            roundMatches.clear();
+            currentRound = round - 1;
+        }
+        
+        private boolean hasEarlierBye(Participant p, Match bye) {
+            for (Match match : matches) {
+                if (match != bye && match.isBye() && match.getPlayer1() == p) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+    
+    private final class StartChange extends Change {
+        StartChange(Change previous) {
+            super(previous);
+        }
+        
+        @Override
+        void undo() {
+            totalRounds = 0;
+            schedule = null;
+            scheduleOrder = null;
+        }
+    }
+    
+    private final class EarlyFinishChange extends Change {
+        private final int plannedRounds;
+        
+        EarlyFinishChange(Change previous, int plannedRounds) {
+            super(previous);
+            this.plannedRounds = plannedRounds;
+        }
+        
+        @Override
+        void undo() {
+            totalRounds = plannedRounds;
+        }
+    }
+    
+    private final class RosterChange extends Change {
+        private final Participant participant;
+        private final int removedAt;
+        private final int activeAt;
+        private final double byePoints;
+        
+        /**
+         * @param removedAt Index the participant was removed from, or -1 if it was added
+         * @param activeAt Index in the active list it was removed from, or -1
+         * @param byePoints Half-point byes awarded to a late entry
+         */
+        RosterChange(Change previous, Participant participant, int removedAt, int activeAt, double byePoints) {
+            super(previous);
+            this.participant = participant;
+            this.removedAt = removedAt;
+            this.activeAt = activeAt;
+            this.byePoints = byePoints;
+        }
+        
+        @Override
+        void undo() {
+            if (removedAt < 0) {
+                participants.remove(participants.size() - 1);
+                active.remove(active.size() - 1);
+                participantIds.remove(participant.getId());
+                rosterIndex.removed(participant);
+                participant.left(Tournament.this);
+                lateEntries.remove(participant.getId());
+                if (byePoints > 0) {
+                    participant.revertResult(byePoints, 0, 0, 0);
+                }
+                refreshSchedule();
+            } else {
+                participants.add(removedAt, participant);
+                if (activeAt >= 0) {
+                    active.add(activeAt, participant);
+                }
+                participantIds.put(participant.getId(), 1);
+                rosterIndex.added(participant);
+                participant.joined(Tournament.this);
+                refreshSchedule();
+            }
+        }
+    }
+    
+    private final class WithdrawalChange extends Change {
+        private final Participant participant;
+        private final int activeAt;
+        
+        WithdrawalChange(Change previous, Participant participant, int activeAt) {
+            super(previous);
+            this.participant = participant;
+            this.activeAt = activeAt;
+        }
+        
+        @Override
+        void undo() {
+            active.add(activeAt, participant);
+            withdrawn.remove(participant.getId());
+        }
+    }
 }
-
@@ -0,0 +1,1017 @@
+package com.molights.tournament;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only store of finished tournaments.
+ * <p>
+ * Tournaments are packed one after another into segment files in a
+ * directory. Each entry holds the final standings as fixed-size rows and
+ * the matches of every round behind a table of round offsets, so a
+ * reader works straight off the memory-mapped segment: fetching one
+ * tournament's standings or one round's matches touches only those bytes
+ * and deserializes nothing else. The offset index is one long per
+ * archived tournament, addressed by archive ID.
+ * <p>
+ * Appends go to an active segment, which is sealed with an index file
+ * once it reaches the segment size or the archive is closed. Archives
+ * opened and closed often leave many small segments; these are merged
+ * by compaction on a background thread, without blocking appends or
+ * reads. Every entry carries a checksum, and a torn entry at the end of
+ * a segment (after a crash) is dropped when the archive is opened.
+ * <p>
+ * Thread-safe. Entry views stay readable after the segment they came
+ * from has been compacted away.
+ */
+public final class TournamentArchive implements Closeable, Flushable {
+
+    public static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+    private static final long MAX_SEGMENT_BYTES = 1L << 30;
+
+    private static final int ENTRY_MAGIC = 0x4D4C5441;
+    private static final int INDEX_MAGIC = 0x4D4C5449;
+    private static final byte ENTRY_VERSION = 1;
+    // magic, body length, archive ID, body checksum
+    private static final int HEADER = 16;
+    // version, format, flags, spare, seed, total rounds, rounds, participants, name length
+    private static final int FIXED = 28;
+    // id, half points, wins, draws, losses, Buchholz half points, name offset, name length, status, BYE
+    private static final int ROW = 34;
+    private static final int MATCH = 9;
+    private static final int INDEX_HEADER = 16;
+    private static final int INDEX_ENTRY = 12;
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    // Segments smaller than this fraction of the segment size are merged
+    private static final int SMALL_FRACTION = 4;
+    private static final int AUTO_COMPACT_SEGMENTS = 4;
+
+    // Location: segment number in the high bits, byte offset in the low bits
+    private static final int OFFSET_BITS = 40;
+    private static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+    private static final int MAX_SEGMENT_NUMBER = (1 << (63 - OFFSET_BITS)) - 1;
+    private static final long NONE = -1;
+
+    private static final TournamentFormat[] FORMATS = TournamentFormat.values();
+    private static final ParticipantStatus[] STATUSES = ParticipantStatus.values();
+
+    private final Path directory;
+    private final long segmentBytes;
+
+    // Guards segments, locations and the entry count; appends, compaction and reads
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+    private long[] locations = new long[1024];
+    private int size;
+
+    // Serializes appends, and compactions among themselves
+    private final Object appendLock = new Object();
+    private final Object compactionLock = new Object();
+    private final AtomicInteger nextSegment = new AtomicInteger(1);
+    private Segment active;
+    private ExecutorService compactor;
+    private volatile boolean closed;
+
+    private TournamentArchive(Path directory, long segmentBytes) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * Open or create an archive with the default segment size.
+     *
+     * @param directory Directory holding the segment files
+     * @return Open archive
+     * @throws IOException if the directory or its segments cannot be read
+     */
+    public static TournamentArchive open(Path directory) throws IOException {
+        return open(directory, DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * Open or create an archive.
+     *
+     * @param directory Directory holding the segment files
+     * @param segmentBytes Size at which the active segment is sealed, up to 1 GiB
+     * @return Open archive
+     * @throws IllegalArgumentException if directory is null or the segment size is out of range
+     * @throws IOException if the directory or its segments cannot be read
+     */
+    public static TournamentArchive open(Path directory, long segmentBytes) throws IOException {
+        if (directory == null) {
+            throw new IllegalArgumentException("Directory cannot be null");
+        }
+        if (segmentBytes <= 0 || segmentBytes > MAX_SEGMENT_BYTES) {
+            throw new IllegalArgumentException("Segment size must be between 1 byte and 1 GiB");
+        }
+        Files.createDirectories(directory);
+        TournamentArchive archive = new TournamentArchive(directory, segmentBytes);
+        archive.load();
+        if (archive.smallSegmentCount() >= AUTO_COMPACT_SEGMENTS) {
+            archive.compactAsync();
+        }
+        return archive;
+    }
+
+    /**
+     * @return Number of archived tournaments; archive IDs run from 0 to size - 1
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getSegmentCount() {
+        lock.readLock().lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Append a finished tournament: its final standings and every round's
+     * matches.
+     *
+     * @param tournament Completed tournament
+     * @return Archive ID of the new entry
+     * @throws IllegalArgumentException if tournament is null
+     * @throws IllegalStateException if the tournament is not complete or the archive is closed
+     * @throws IOException if the segment cannot be written
+     */
+    public int append(Tournament tournament) throws IOException {
+        if (tournament == null) {
+            throw new IllegalArgumentException("Tournament cannot be null");
+        }
+        if (!tournament.isComplete()) {
+            throw new IllegalStateException("Only completed tournaments can be archived");
+        }
+        for (Match match : tournament.getRoundMatches(tournament.getCurrentRound())) {
+            if (!match.isPlayed()) {
+                throw new IllegalStateException("Only completed tournaments can be archived");
+            }
+        }
+        ByteBuffer entry = encode(tournament);
+
+        boolean sealed = false;
+        int id;
+        synchronized (appendLock) {
+            ensureOpen();
+            if (active != null && active.length > 0 && active.length + entry.capacity() > segmentBytes) {
+                active.seal(directory);
+                active = null;
+                sealed = true;
+            }
+            if (active == null) {
+                Segment segment = Segment.create(directory, allocateSegmentNumber());
+                lock.writeLock().lock();
+                try {
+                    segments.put(segment.number, segment);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                active = segment;
+            }
+            id = size;
+            entry.putInt(8, id);
+            long offset = active.write(id, entry);
+
+            lock.writeLock().lock();
+            try {
+                if (id == locations.length) {
+                    locations = Arrays.copyOf(locations, id * 2);
+                }
+                locations[id] = location(active.number, offset);
+                active.live++;
+                size = id + 1;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        if (sealed && smallSegmentCount() >= AUTO_COMPACT_SEGMENTS) {
+            compactAsync();
+        }
+        return id;
+    }
+
+    /**
+     * @return true if an entry with this archive ID exists
+     */
+    public boolean contains(int archiveId) {
+        lock.readLock().lock();
+        try {
+            return archiveId >= 0 && archiveId < size && locations[archiveId] != NONE;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get a view of an archived tournament. The view reads from the
+     * mapped segment on demand; nothing is decoded up front.
+     *
+     * @param archiveId Archive ID returned by {@link #append(Tournament)}
+     * @return Entry view
+     * @throws IllegalArgumentException if there is no such entry
+     * @throws IOException if the segment cannot be mapped
+     */
+    public Entry get(int archiveId) throws IOException {
+        ByteBuffer body;
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            if (archiveId < 0 || archiveId >= size || locations[archiveId] == NONE) {
+                throw new IllegalArgumentException("No archived tournament with ID " + archiveId);
+            }
+            long location = locations[archiveId];
+            body = segments.get(segmentOf(location)).body(location & OFFSET_MASK);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new Entry(archiveId, body);
+    }
+
+    /**
+     * Force appended entries to disk.
+     */
+    @Override
+    public void flush() throws IOException {
+        synchronized (appendLock) {
+            if (active != null) {
+                active.force();
+            }
+        }
+    }
+
+    /**
+     * Merge small sealed segments on the background thread.
+     *
+     * @return Future number of segments merged away
+     * @throws IllegalStateException if the archive is closed
+     */
+    public CompletableFuture<Integer> compactAsync() {
+        synchronized (appendLock) {
+            ensureOpen();
+            if (compactor == null) {
+                compactor = Executors.newSingleThreadExecutor(r -> {
+                    Thread thread = new Thread(r, "archive-compactor");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return compact();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, compactor);
+        }
+    }
+
+    /**
+     * Merge small sealed segments now. Segments under a quarter of the
+     * segment size are copied, live entries only, into as few new
+     * segments as fit, which then replace them in the index.
+     *
+     * @return Number of segments merged away
+     * @throws IOException if a segment cannot be read or written
+     */
+    public int compact() throws IOException {
+        synchronized (compactionLock) {
+            List<Segment> small = new ArrayList<>();
+            lock.readLock().lock();
+            try {
+                if (closed) {
+                    return 0;
+                }
+                for (Segment segment : segments.values()) {
+                    if (segment.sealed && segment.length < segmentBytes / SMALL_FRACTION) {
+                        small.add(segment);
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            int merged = 0;
+            int start = 0;
+            while (start < small.size()) {
+                int end = start;
+                long bytes = 0;
+                while (end < small.size() && (end == start || bytes + small.get(end).length <= segmentBytes)) {
+                    bytes += small.get(end).length;
+                    end++;
+                }
+                if (end - start >= 2) {
+                    merge(small.subList(start, end));
+                    merged += end - start - 1;
+                }
+                start = end;
+            }
+            return merged;
+        }
+    }
+
+    /**
+     * Seal the active segment and stop background compaction.
+     */
+    @Override
+    public void close() throws IOException {
+        ExecutorService executor;
+        synchronized (appendLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            executor = compactor;
+            if (active != null) {
+                if (active.length == 0) {
+                    lock.writeLock().lock();
+                    try {
+                        segments.remove(active.number);
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                    active.delete(directory);
+                } else {
+                    active.seal(directory);
+                }
+                active = null;
+            }
+        }
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Archive is closed");
+        }
+    }
+
+    private int allocateSegmentNumber() {
+        int number = nextSegment.getAndIncrement();
+        if (number > MAX_SEGMENT_NUMBER) {
+            throw new IllegalStateException("Too many segments");
+        }
+        return number;
+    }
+
+    private int smallSegmentCount() {
+        lock.readLock().lock();
+        try {
+            int count = 0;
+            for (Segment segment : segments.values()) {
+                if (segment.sealed && segment.length < segmentBytes / SMALL_FRACTION) {
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static long location(int segment, long offset) {
+        return ((long) segment << OFFSET_BITS) | offset;
+    }
+
+    private static int segmentOf(long location) {
+        return (int) (location >>> OFFSET_BITS);
+    }
+
+    // --- opening ---
+
+    private void load() throws IOException {
+        TreeMap<Integer, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                String file = path.getFileName().toString();
+                if (file.endsWith(TEMP_SUFFIX)) {
+                    Files.delete(path); // unfinished compaction or index
+                } else if (file.endsWith(SEGMENT_SUFFIX)) {
+                    files.put(segmentNumber(file), path);
+                } else if (file.endsWith(INDEX_SUFFIX)
+                        && !Files.exists(directory.resolve(segmentFile(segmentNumber(file))))) {
+                    Files.delete(path);
+                }
+            }
+        }
+
+        for (int number : files.keySet()) {
+            Segment segment = Segment.open(directory, number);
+            segments.put(number, segment);
+            nextSegment.set(number + 1);
+            segment.forEachEntry(directory, (id, offset) -> {
+                if (id >= locations.length) {
+                    locations = Arrays.copyOf(locations, Math.max(id + 1, locations.length * 2));
+                }
+                // A later segment holds the compacted copy of an entry
+                while (size <= id) {
+                    locations[size++] = NONE;
+                }
+                if (locations[id] != NONE) {
+                    segments.get(segmentOf(locations[id])).live--;
+                }
+                locations[id] = location(number, offset);
+                segment.live++;
+            });
+        }
+
+        // Segments whose entries were all compacted elsewhere
+        List<Segment> dead = new ArrayList<>();
+        for (Segment segment : segments.values()) {
+            if (segment.live == 0) {
+                dead.add(segment);
+            }
+        }
+        for (Segment segment : dead) {
+            segments.remove(segment.number);
+            segment.delete(directory);
+        }
+    }
+
+    private static int segmentNumber(String file) throws IOException {
+        try {
+            return Integer.parseInt(file.substring(0, file.indexOf('.')));
+        } catch (NumberFormatException e) {
+            throw new IOException("Unexpected file in archive: " + file, e);
+        }
+    }
+
+    private static String segmentFile(int number) {
+        return String.format("%08d%s", number, SEGMENT_SUFFIX);
+    }
+
+    private static String indexFile(int number) {
+        return String.format("%08d%s", number, INDEX_SUFFIX);
+    }
+
+    // --- compaction ---
+
+    private void merge(List<Segment> group) throws IOException {
+        int number = allocateSegmentNumber();
+        Path temp = directory.resolve(segmentFile(number) + TEMP_SUFFIX);
+        int[] ids = new int[16];
+        long[] from = new long[16];
+        long[] to = new long[16];
+        int moved = 0;
+        long length = 0;
+
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            for (Segment segment : group) {
+                ByteBuffer data = segment.data();
+                long end = scan(data, segment.length, false, null);
+                int position = 0;
+                while (position < end) {
+                    int total = HEADER + data.getInt(position + 4);
+                    int id = data.getInt(position + 8);
+                    long old = location(segment.number, position);
+                    if (isCurrent(id, old)) {
+                        ByteBuffer copy = data.duplicate();
+                        copy.limit(position + total).position(position);
+                        writeFully(out, copy, length);
+                        if (moved == ids.length) {
+                            ids = Arrays.copyOf(ids, moved * 2);
+                            from = Arrays.copyOf(from, moved * 2);
+                            to = Arrays.copyOf(to, moved * 2);
+                        }
+                        ids[moved] = id;
+                        from[moved] = old;
+                        to[moved] = length;
+                        moved++;
+                        length += total;
+                    }
+                    position += total;
+                }
+            }
+            out.force(true);
+        }
+        writeIndex(directory, number, length, ids, to, moved);
+        Path target = directory.resolve(segmentFile(number));
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        Segment merged = Segment.open(directory, number);
+
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < moved; i++) {
+                // Entries are immutable, so only compaction ever moves them
+                if (locations[ids[i]] == from[i]) {
+                    locations[ids[i]] = location(number, to[i]);
+                    merged.live++;
+                }
+            }
+            for (Segment segment : group) {
+                segments.remove(segment.number);
+            }
+            segments.put(number, merged);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        for (Segment segment : group) {
+            try {
+                segment.delete(directory);
+            } catch (IOException e) {
+                // Still mapped somewhere; the next open drops it as dead
+            }
+        }
+    }
+
+    private boolean isCurrent(int id, long location) {
+        lock.readLock().lock();
+        try {
+            return id < size && locations[id] == location;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- encoding ---
+
+    private static ByteBuffer encode(Tournament tournament) {
+        List<Participant> standings = tournament.getStandings();
+        List<Match> matches = tournament.getMatches();
+        int rounds = tournament.getCurrentRound();
+        int n = standings.size();
+
+        byte[] title = tournament.getName().getBytes(StandardCharsets.UTF_8);
+        byte[][] names = new byte[n][];
+        long namesLength = 0;
+        for (int i = 0; i < n; i++) {
+            names[i] = standings.get(i).getName().getBytes(StandardCharsets.UTF_8);
+            namesLength += names[i].length;
+        }
+        int[] roundSizes = new int[rounds];
+        for (Match match : matches) {
+            roundSizes[match.getRoundNumber() - 1]++;
+        }
+
+        long standingsStart = FIXED + title.length + 4L * rounds;
+        long roundsStart = standingsStart + (long) ROW * n + namesLength;
+        long bodyLength = roundsStart + 4L * rounds + (long) MATCH * matches.size();
+        if (HEADER + bodyLength > Integer.MAX_VALUE / 2) {
+            throw new IllegalArgumentException("Tournament too large to archive");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER + (int) bodyLength);
+        buffer.putInt(ENTRY_MAGIC).putInt((int) bodyLength).putInt(0).putInt(0);
+        int flags = (tournament.isSeeded() ? 1 : 0) | (tournament.isColourBalancing() ? 2 : 0);
+        buffer.put(ENTRY_VERSION).put((byte) tournament.getFormat().ordinal()).put((byte) flags).put((byte) 0);
+        buffer.putLong(tournament.getSeed()).putInt(tournament.getTotalRounds()).putInt(rounds).putInt(n);
+        buffer.putInt(title.length).put(title);
+
+        long roundOffset = roundsStart;
+        for (int r = 0; r < rounds; r++) {
+            buffer.putInt((int) roundOffset);
+            roundOffset += 4 + (long) MATCH * roundSizes[r];
+        }
+
+        int nameOffset = 0;
+        for (int i = 0; i < n; i++) {
+            Participant p = standings.get(i);
+            buffer.putInt(p.getId())
+                  .putInt((int) Math.round(p.getScore() * 2))
+                  .putInt(p.getWinCount())
+                  .putInt(p.getDrawCount())
+                  .putInt(p.getLossCount())
+                  .putInt((int) Math.round(p.getOpponentsSumScore() * 2))
+                  .putInt(nameOffset)
+                  .putInt(names[i].length)
+                  .put((byte) p.getStatus().ordinal())
+                  .put((byte) (p.getWasParticipantByed() ? 1 : 0));
+            nameOffset += names[i].length;
+        }
+        for (byte[] name : names) {
+            buffer.put(name);
+        }
+
+        // Matches are kept in round order
+        int next = 0;
+        for (int r = 0; r < rounds; r++) {
+            buffer.putInt(roundSizes[r]);
+            for (int i = 0; i < roundSizes[r]; i++) {
+                Match m = matches.get(next++);
+                buffer.putInt(m.getPlayer1().getId())
+                      .putInt(m.isBye() ? 0 : m.getPlayer2().getId())
+                      .put(m.isBye() ? MatchLedger.BYE : MatchLedger.code(m.getResult()));
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER, (int) bodyLength);
+        buffer.putInt(12, (int) crc.getValue());
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Walk the entries of a segment's data.
+     *
+     * @param verify Whether to check entry checksums
+     * @param visitor Called per valid entry, or null
+     * @return Length of the valid prefix
+     */
+    private static long scan(ByteBuffer data, long length, boolean verify, EntryVisitor visitor) {
+        int position = 0;
+        CRC32 crc = verify ? new CRC32() : null;
+        while (position + HEADER <= length) {
+            if (data.getInt(position) != ENTRY_MAGIC) {
+                break;
+            }
+            int body = data.getInt(position + 4);
+            if (body < FIXED || position + (long) HEADER + body > length) {
+                break;
+            }
+            if (verify) {
+                ByteBuffer bytes = data.duplicate();
+                bytes.limit(position + HEADER + body).position(position + HEADER);
+                crc.reset();
+                crc.update(bytes);
+                if ((int) crc.getValue() != data.getInt(position + 12)) {
+                    break;
+                }
+            }
+            if (visitor != null) {
+                visitor.visit(data.getInt(position + 8), position);
+            }
+            position += HEADER + body;
+        }
+        return position;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static void writeIndex(Path directory, int number, long length, int[] ids, long[] offsets, int count)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(INDEX_HEADER + INDEX_ENTRY * count);
+        buffer.putInt(INDEX_MAGIC).putLong(length).putInt(count);
+        for (int i = 0; i < count; i++) {
+            buffer.putInt(ids[i]).putLong(offsets[i]);
+        }
+        buffer.flip();
+        Path temp = directory.resolve(indexFile(number) + TEMP_SUFFIX);
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(out, buffer, 0);
+            out.force(true);
+        }
+        Files.move(temp, directory.resolve(indexFile(number)), StandardCopyOption.ATOMIC_MOVE,
+                   StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private interface EntryVisitor {
+        void visit(int id, long offset);
+    }
+
+    /**
+     * One segment file. The active segment is appended through its channel
+     * and remapped as readers reach past the mapped length; a sealed
+     * segment is mapped once and its channel closed.
+     */
+    private static final class Segment {
+        final int number;
+        final Path path;
+        FileChannel channel;
+        MappedByteBuffer map;
+        long length;
+        boolean sealed;
+        // Entries in this segment the index points at
+        int live;
+        // Entries appended while active, for the index file
+        int[] ids;
+        long[] offsets;
+        int entries;
+
+        private Segment(int number, Path path) {
+            this.number = number;
+            this.path = path;
+        }
+
+        static Segment create(Path directory, int number) throws IOException {
+            Segment segment = new Segment(number, directory.resolve(segmentFile(number)));
+            segment.channel = FileChannel.open(segment.path, StandardOpenOption.CREATE_NEW,
+                                               StandardOpenOption.READ, StandardOpenOption.WRITE);
+            segment.ids = new int[64];
+            segment.offsets = new long[64];
+            return segment;
+        }
+
+        static Segment open(Path directory, int number) throws IOException {
+            Segment segment = new Segment(number, directory.resolve(segmentFile(number)));
+            segment.length = Files.size(segment.path);
+            segment.sealed = true;
+            try (FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.READ)) {
+                segment.map = channel.map(FileChannel.MapMode.READ_ONLY, 0, segment.length);
+            }
+            return segment;
+        }
+
+        /**
+         * Visit the entries, from the index file if it matches the segment
+         * and by scanning otherwise; a torn tail found by the scan is cut off.
+         */
+        void forEachEntry(Path directory, EntryVisitor visitor) throws IOException {
+            Path index = directory.resolve(indexFile(number));
+            if (Files.exists(index)) {
+                ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(index));
+                if (buffer.capacity() >= INDEX_HEADER && buffer.getInt(0) == INDEX_MAGIC
+                        && buffer.getLong(4) == length
+                        && buffer.capacity() == INDEX_HEADER + INDEX_ENTRY * buffer.getInt(12)) {
+                    for (int i = 0; i < buffer.getInt(12); i++) {
+                        int at = INDEX_HEADER + INDEX_ENTRY * i;
+                        visitor.visit(buffer.getInt(at), buffer.getLong(at + 4));
+                    }
+                    return;
+                }
+            }
+            ids = new int[64];
+            offsets = new long[64];
+            entries = 0;
+            long valid = scan(map, length, true, (id, offset) -> {
+                visitor.visit(id, offset);
+                if (entries == ids.length) {
+                    ids = Arrays.copyOf(ids, entries * 2);
+                    offsets = Arrays.copyOf(offsets, entries * 2);
+                }
+                ids[entries] = id;
+                offsets[entries++] = offset;
+            });
+            if (valid < length) {
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    channel.truncate(valid);
+                    channel.force(true);
+                }
+                length = valid;
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    map = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+                }
+            }
+            writeIndex(directory, number, length, ids, offsets, entries);
+            ids = null;
+            offsets = null;
+        }
+
+        synchronized long write(int id, ByteBuffer entry) throws IOException {
+            long offset = length;
+            writeFully(channel, entry, offset);
+            length += entry.capacity();
+            if (entries == ids.length) {
+                ids = Arrays.copyOf(ids, entries * 2);
+                offsets = Arrays.copyOf(offsets, entries * 2);
+            }
+            ids[entries] = id;
+            offsets[entries++] = offset;
+            return offset;
+        }
+
+        synchronized void force() throws IOException {
+            if (channel != null) {
+                channel.force(false);
+            }
+        }
+
+        synchronized void seal(Path directory) throws IOException {
+            channel.force(true);
+            writeIndex(directory, number, length, ids, offsets, entries);
+            map = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            channel.close();
+            channel = null;
+            ids = null;
+            offsets = null;
+            sealed = true;
+        }
+
+        void delete(Path directory) throws IOException {
+            if (channel != null) {
+                channel.close();
+            }
+            Files.deleteIfExists(directory.resolve(indexFile(number)));
+            Files.deleteIfExists(path);
+        }
+
+        /**
+         * @return The whole segment as a read-only buffer
+         */
+        synchronized ByteBuffer data() throws IOException {
+            ensureMapped(length);
+            return map.duplicate();
+        }
+
+        /**
+         * @return The body of the entry at an offset
+         */
+        synchronized ByteBuffer body(long offset) throws IOException {
+            ensureMapped(offset + HEADER);
+            int bodyLength = map.getInt((int) offset + 4);
+            ensureMapped(offset + HEADER + bodyLength);
+            ByteBuffer body = map.duplicate();
+            body.limit((int) offset + HEADER + bodyLength).position((int) offset + HEADER);
+            return body.slice();
+        }
+
+        private void ensureMapped(long end) throws IOException {
+            if (map == null || map.capacity() < end) {
+                map = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            }
+        }
+    }
+
+    /**
+     * Read-only view of one archived tournament, decoded from the mapped
+     * segment on access. Ranks and rounds start at 1.
+     */
+    public static final class Entry {
+        private final int archiveId;
+        private final ByteBuffer body;
+        private final int rounds;
+        private final int participants;
+        private final int roundTable;
+        private final int standingsStart;
+        private final int namesStart;
+
+        private Entry(int archiveId, ByteBuffer body) {
+            this.archiveId = archiveId;
+            this.body = body;
+            this.rounds = body.getInt(16);
+            this.participants = body.getInt(20);
+            this.roundTable = FIXED + body.getInt(24);
+            this.standingsStart = roundTable + 4 * rounds;
+            this.namesStart = standingsStart + ROW * participants;
+        }
+
+        public int getArchiveId() {
+            return archiveId;
+        }
+
+        public String getTournamentName() {
+            return string(FIXED, body.getInt(24));
+        }
+
+        public TournamentFormat getFormat() {
+            return FORMATS[body.get(1)];
+        }
+
+        public boolean isSeeded() {
+            return (body.get(2) & 1) != 0;
+        }
+
+        public boolean isColourBalancing() {
+            return (body.get(2) & 2) != 0;
+        }
+
+        public long getSeed() {
+            return body.getLong(4);
+        }
+
+        public int getTotalRounds() {
+            return body.getInt(12);
+        }
+
+        public int getRoundCount() {
+            return rounds;
+        }
+
+        public int getParticipantCount() {
+            return participants;
+        }
+
+        // Final standings, by rank
+
+        public int getId(int rank) {
+            return body.getInt(row(rank));
+        }
+
+        public String getName(int rank) {
+            int row = row(rank);
+            return string(namesStart + body.getInt(row + 24), body.getInt(row + 28));
+        }
+
+        public ParticipantStatus getStatus(int rank) {
+            return STATUSES[body.get(row(rank) + 32)];
+        }
+
+        public double getScore(int rank) {
+            return body.getInt(row(rank) + 4) * 0.5;
+        }
+
+        public int getWinCount(int rank) {
+            return body.getInt(row(rank) + 8);
+        }
+
+        public int getDrawCount(int rank) {
+            return body.getInt(row(rank) + 12);
+        }
+
+        public int getLossCount(int rank) {
+            return body.getInt(row(rank) + 16);
+        }
+
+        public double getBuchholz(int rank) {
+            return body.getInt(row(rank) + 20) * 0.5;
+        }
+
+        public boolean hadBye(int rank) {
+            return body.get(row(rank) + 33) != 0;
+        }
+
+        // Matches, by round and position within the round
+
+        public int getMatchCount(int round) {
+            return body.getInt(roundStart(round));
+        }
+
+        public int getPlayer1Id(int round, int index) {
+            return body.getInt(match(round, index));
+        }
+
+        /**
+         * @return ID of the second player, or 0 for a BYE
+         */
+        public int getPlayer2Id(int round, int index) {
+            return body.getInt(match(round, index) + 4);
+        }
+
+        /**
+         * @return Result code as defined in {@link MatchLedger}
+         */
+        public byte getResultCode(int round, int index) {
+            return body.get(match(round, index) + 8);
+        }
+
+        private int row(int rank) {
+            if (rank <= 0 || rank > participants) {
+                throw new IndexOutOfBoundsException("Rank " + rank + " out of range");
+            }
+            return standingsStart + ROW * (rank - 1);
+        }
+
+        private int roundStart(int round) {
+            if (round <= 0 || round > rounds) {
+                throw new IndexOutOfBoundsException("Round " + round + " out of range");
+            }
+            return body.getInt(roundTable + 4 * (round - 1));
+        }
+
+        private int match(int round, int index) {
+            int start = roundStart(round);
+            if (index < 0 || index >= body.getInt(start)) {
+                throw new IndexOutOfBoundsException("Match " + index + " out of range");
+            }
+            return start + 4 + MATCH * index;
+        }
+
+        private String string(int offset, int length) {
+            byte[] bytes = new byte[length];
+            ByteBuffer source = body.duplicate();
+            source.position(offset);
+            source.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
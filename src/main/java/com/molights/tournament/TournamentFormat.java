@@ -0,0 +1,13 @@
+package com.molights.tournament;
+
+/**
+ * Pairing format of a tournament.
+ */
+public enum TournamentFormat {
+    /** Swiss system, ceil(log2(n)) rounds. */
+    SWISS,
+    /** Everyone plays everyone once, scheduled with the circle method. */
+    ROUND_ROBIN,
+    /** Everyone plays everyone twice, with colours reversed in the second half. */
+    DOUBLE_ROUND_ROBIN
+}
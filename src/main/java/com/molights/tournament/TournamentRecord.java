@@ -0,0 +1,166 @@
+package com.molights.tournament;
+
+import java.util.List;
+
+/**
+ * Minimal immutable description of a tournament from which it can be
+ * rebuilt: roster with late entries and withdrawals, master seed, number
+ * of rounds, and per round the pairings and submitted results in pairing
+ * order.
+ * Pairings are stored only to verify that a replay has not diverged.
+ */
+public final class TournamentRecord {
+
+    private static final ParticipantStatus[] STATUSES = ParticipantStatus.values();
+
+    private final String name;
+    private final boolean seeded;
+    private final long seed;
+    private final int totalRounds;
+    private final TournamentFormat format;
+    private final boolean colourBalancing;
+
+    // Roster in registration order
+    private final int[] ids;
+    private final String[] names;
+    private final byte[] statuses;
+    // Rounds after which each participant entered late or withdrew, 0 if not
+    private final int[] entryRounds;
+    private final boolean[] halfPointByes;
+    private final int[] withdrawalRounds;
+
+    // Per round: player IDs (0 as second player of a BYE) and result codes
+    private final int[][] player1Ids;
+    private final int[][] player2Ids;
+    private final byte[][] results;
+
+    private TournamentRecord(String name, TournamentFormat format, boolean colourBalancing, boolean seeded, long seed,
+                             int totalRounds, int rosterSize, int rounds) {
+        this.name = name;
+        this.format = format;
+        this.colourBalancing = colourBalancing;
+        this.seeded = seeded;
+        this.seed = seed;
+        this.totalRounds = totalRounds;
+        this.ids = new int[rosterSize];
+        this.names = new String[rosterSize];
+        this.statuses = new byte[rosterSize];
+        this.entryRounds = new int[rosterSize];
+        this.halfPointByes = new boolean[rosterSize];
+        this.withdrawalRounds = new int[rosterSize];
+        this.player1Ids = new int[rounds][];
+        this.player2Ids = new int[rounds][];
+        this.results = new byte[rounds][];
+    }
+
+    /**
+     * Record a tournament. The participants' current statuses are taken as
+     * the roster statuses, so record before changing statuses mid-event.
+     *
+     * @param tournament Tournament to record
+     * @return New record
+     * @throws IllegalArgumentException if tournament is null
+     */
+    public static TournamentRecord of(Tournament tournament) {
+        if (tournament == null) {
+            throw new IllegalArgumentException("Tournament cannot be null");
+        }
+        List<Participant> roster = tournament.getParticipants();
+        int rounds = tournament.getCurrentRound();
+        TournamentRecord record = new TournamentRecord(tournament.getName(), tournament.getFormat(),
+                tournament.isColourBalancing(), tournament.isSeeded(), tournament.getSeed(), tournament.getTotalRounds(),
+                roster.size(), rounds);
+        for (int i = 0; i < roster.size(); i++) {
+            Participant p = roster.get(i);
+            record.ids[i] = p.getId();
+            record.names[i] = p.getName();
+            record.statuses[i] = (byte) p.getStatus().ordinal();
+            record.entryRounds[i] = tournament.entryRound(p.getId());
+            record.halfPointByes[i] = tournament.tookHalfPointByes(p.getId());
+            record.withdrawalRounds[i] = tournament.withdrawalRound(p.getId());
+        }
+        for (int round = 1; round <= rounds; round++) {
+            List<Match> roundMatches = tournament.getRoundMatches(round);
+            int[] p1 = new int[roundMatches.size()];
+            int[] p2 = new int[roundMatches.size()];
+            byte[] codes = new byte[roundMatches.size()];
+            for (int i = 0; i < roundMatches.size(); i++) {
+                Match m = roundMatches.get(i);
+                p1[i] = m.getPlayer1().getId();
+                p2[i] = m.isBye() ? 0 : m.getPlayer2().getId();
+                codes[i] = m.isBye() ? MatchLedger.BYE : MatchLedger.code(m.getResult());
+            }
+            record.player1Ids[round - 1] = p1;
+            record.player2Ids[round - 1] = p2;
+            record.results[round - 1] = codes;
+        }
+        return record;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public TournamentFormat getFormat() {
+        return format;
+    }
+
+    public boolean isColourBalancing() {
+        return colourBalancing;
+    }
+
+    public boolean isSeeded() {
+        return seeded;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getTotalRounds() {
+        return totalRounds;
+    }
+
+    public int getRosterSize() {
+        return ids.length;
+    }
+
+    public int getRoundCount() {
+        return results.length;
+    }
+
+    /**
+     * Create fresh participants for the roster.
+     */
+    Participant newParticipant(int i) {
+        return new Participant(ids[i], names[i], STATUSES[statuses[i]]);
+    }
+
+    int getEntryRound(int i) {
+        return entryRounds[i];
+    }
+
+    boolean tookHalfPointByes(int i) {
+        return halfPointByes[i];
+    }
+
+    int getWithdrawalRound(int i) {
+        return withdrawalRounds[i];
+    }
+
+    int getId(int i) {
+        return ids[i];
+    }
+
+    int[] player1Ids(int round) {
+        return player1Ids[round - 1];
+    }
+
+    int[] player2Ids(int round) {
+        return player2Ids[round - 1];
+    }
+
+    byte[] results(int round) {
+        return results[round - 1];
+    }
+}
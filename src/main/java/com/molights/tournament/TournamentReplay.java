@@ -0,0 +1,157 @@
+package com.molights.tournament;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Rebuilds tournaments from {@link TournamentRecord}s.
+ * Pairings are regenerated by the normal pairing algorithm, which is fully
+ * deterministic for a given roster and result history, and the recorded
+ * results are applied without simulating or logging anything. Each
+ * regenerated round is checked against the recorded pairings.
+ * <p>
+ * Rebuilding neither journals nor publishes the replayed changes: the
+ * rebuilt tournament publishes one snapshot at the end and starts with an
+ * empty journal, so the replayed rounds cannot be undone. It plays the
+ * recorded number of rounds, so events started with a custom round count
+ * or finished early come back as they were.
+ */
+public final class TournamentReplay {
+
+    private TournamentReplay() {
+    }
+
+    /**
+     * Replay every recorded round.
+     *
+     * @param record Tournament record
+     * @return Rebuilt tournament
+     * @throws IllegalStateException if the replay diverges from the record
+     */
+    public static Tournament replay(TournamentRecord record) {
+        return rebuild(record, -1, true);
+    }
+
+    /**
+     * Replay a record up to and including a given round.
+     *
+     * @param record Tournament record
+     * @param rounds Number of rounds to replay (0 stops right after the start)
+     * @return Rebuilt tournament, with logging disabled
+     * @throws IllegalArgumentException if record is null or rounds is out of range
+     * @throws IllegalStateException if the replay diverges from the record
+     */
+    public static Tournament replay(TournamentRecord record, int rounds) {
+        return rebuild(record, rounds, true);
+    }
+
+    /**
+     * Rebuild a tournament from a record without running the pairing
+     * algorithm: every round takes the recorded pairings and results as
+     * they are. Much cheaper than a replay, but nothing is verified, so
+     * use it for records this program wrote itself.
+     *
+     * @param record Tournament record
+     * @return Rebuilt tournament, with logging disabled
+     * @throws IllegalArgumentException if record is null
+     */
+    public static Tournament restore(TournamentRecord record) {
+        return rebuild(record, -1, false);
+    }
+
+    /**
+     * @param rounds Number of rounds to rebuild, or -1 for every recorded round
+     */
+    private static Tournament rebuild(TournamentRecord record, int rounds, boolean pair) {
+        if (record == null) {
+            throw new IllegalArgumentException("Record cannot be null");
+        }
+        if (rounds == -1) {
+            rounds = record.getRoundCount();
+        }
+        if (rounds < 0 || rounds > record.getRoundCount()) {
+            throw new IllegalArgumentException("Record has " + record.getRoundCount() + " rounds");
+        }
+
+        Tournament tournament = new Tournament(record.getName());
+        tournament.setLogging(false);
+        tournament.setRebuilding(true);
+        tournament.setFormat(record.getFormat());
+        tournament.setColourBalancing(record.isColourBalancing());
+        if (record.isSeeded()) {
+            tournament.setSeed(record.getSeed());
+        }
+        for (int i = 0; i < record.getRosterSize(); i++) {
+            if (record.getEntryRound(i) == 0) {
+                tournament.addParticipant(record.newParticipant(i));
+            }
+        }
+        if (record.getTotalRounds() == 0) {
+            tournament.setRebuilding(false);
+            tournament.publishSnapshot();
+            return tournament;
+        }
+        tournament.startTournament(record.getTotalRounds());
+
+        for (int round = 1; round <= rounds; round++) {
+            applyRosterChanges(tournament, record, round - 1);
+            if (pair) {
+                tournament.generateNextRound();
+                verifyPairings(tournament, record, round);
+            } else {
+                tournament.restoreRound(record.player1Ids(round), record.player2Ids(round));
+            }
+            tournament.applyRoundResults(record.results(round));
+        }
+        applyRosterChanges(tournament, record, rounds);
+        tournament.setRebuilding(false);
+        tournament.publishSnapshot();
+        return tournament;
+    }
+
+    /**
+     * Apply the late entries and withdrawals made after a round was paired.
+     */
+    private static void applyRosterChanges(Tournament tournament, TournamentRecord record, int round) {
+        if (round == 0) {
+            return;
+        }
+        for (int i = 0; i < record.getRosterSize(); i++) {
+            if (record.getEntryRound(i) == round) {
+                tournament.addLateEntry(record.newParticipant(i), record.tookHalfPointByes(i));
+            }
+        }
+        for (int i = 0; i < record.getRosterSize(); i++) {
+            if (record.getWithdrawalRound(i) == round) {
+                tournament.withdrawParticipant(record.getId(i));
+            }
+        }
+    }
+
+    /**
+     * Replay many records in parallel.
+     *
+     * @param records Records to replay
+     * @return Rebuilt tournaments in the same order as the records
+     */
+    public static List<Tournament> replayAll(List<TournamentRecord> records) {
+        return records.parallelStream().map(TournamentReplay::replay).collect(Collectors.toList());
+    }
+
+    private static void verifyPairings(Tournament tournament, TournamentRecord record, int round) {
+        List<Match> roundMatches = tournament.currentRoundMatches();
+        int[] p1 = record.player1Ids(round);
+        int[] p2 = record.player2Ids(round);
+        if (roundMatches.size() != p1.length) {
+            throw new IllegalStateException("Replay diverged in round " + round + ": expected "
+                    + p1.length + " pairings but generated " + roundMatches.size());
+        }
+        for (int i = 0; i < p1.length; i++) {
+            Match m = roundMatches.get(i);
+            int id2 = m.isBye() ? 0 : m.getPlayer2().getId();
+            if (m.getPlayer1().getId() != p1[i] || id2 != p2[i]) {
+                throw new IllegalStateException("Replay diverged in round " + round + " at match " + (i + 1));
+            }
+        }
+    }
+}
@@ -0,0 +1,407 @@
+package com.molights.tournament.demo;
+
+import com.molights.tournament.*;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.IntStream;
+
+/**
+ * Non-interactive modes of the demo CLI.
+ * <p>
+ * A batch script holds one command per line; blank lines and lines
+ * starting with '#' are ignored. Nothing is prompted for, and the first
+ * failing command stops the run with its line number.
+ * <pre>
+ * create &lt;name&gt;              seed &lt;n&gt;             format &lt;SWISS|ROUND_ROBIN|DOUBLE_ROUND_ROBIN&gt;
+ * add [LOW|MEDIUM|HIGH] &lt;name&gt;   players &lt;count&gt;     quiet
+ * start                        round               results [auto]
+ * result &lt;match&gt; &lt;1-0|0-1|0.5-0.5&gt;                 import &lt;file&gt;      play
+ * standings                    matches             save &lt;file&gt;         load &lt;file&gt;
+ * clinch                       early &lt;places|off&gt;   find &lt;name prefix&gt;
+ * autosave &lt;file&gt; [interval ms] | autosave off
+ * </pre>
+ * {@code result} takes the 1-based match number within the current round,
+ * as shown by the interactive menu. {@code play} generates rounds and
+ * results until the tournament is complete; after {@code early N} it
+ * stops as soon as the top N places are mathematically decided.
+ * {@code clinch} shows which of the leading places are decided.
+ * {@code find} lists participants whose name starts with the prefix.
+ * {@code autosave} keeps a file up to date in the background while the
+ * script runs; it is written a last time when the script ends.
+ */
+final class BatchRunner {
+
+    private static final ParticipantStatus[] STATUSES = ParticipantStatus.values();
+    private static final int CLINCH_ROWS = 10;
+    private static final int FIND_ROWS = 20;
+
+    private final PrintStream out;
+    private Tournament tournament;
+    private boolean logging = true;
+    // Top places that end play early once decided, 0 to play every round
+    private int earlyPlaces;
+    private AutoSave autoSave;
+
+    BatchRunner(PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Run a script.
+     *
+     * @return Number of commands executed
+     * @throws IllegalArgumentException if a command fails, with its line number
+     */
+    int run(BufferedReader script) throws IOException {
+        int lineNumber = 0;
+        int executed = 0;
+        String line;
+        try {
+            while ((line = script.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    execute(line);
+                } catch (RuntimeException | IOException e) {
+                    throw new IllegalArgumentException("line " + lineNumber + ": " + e.getMessage(), e);
+                }
+                executed++;
+            }
+        } finally {
+            stopAutoSave();
+        }
+        return executed;
+    }
+
+    private void execute(String line) throws IOException {
+        int space = line.indexOf(' ');
+        String command = (space < 0 ? line : line.substring(0, space)).toLowerCase(Locale.ROOT);
+        String argument = space < 0 ? "" : line.substring(space + 1).trim();
+
+        if (command.equals("create")) {
+            requireArgument(command, argument);
+            stopAutoSave();
+            tournament = new Tournament(argument);
+            tournament.setLogging(logging);
+            out.println("Tournament '" + argument + "' created");
+            return;
+        }
+        if (command.equals("load")) {
+            requireArgument(command, argument);
+            stopAutoSave();
+            tournament = Tournament.loadFromFile(argument);
+            tournament.setLogging(logging);
+            out.println("Tournament loaded from " + argument);
+            return;
+        }
+        if (command.equals("quiet")) {
+            logging = false;
+            if (tournament != null) {
+                tournament.setLogging(false);
+            }
+            return;
+        }
+        if (tournament == null) {
+            throw new IllegalStateException("No tournament; use 'create' or 'load' first");
+        }
+
+        switch (command) {
+            case "seed":
+                tournament.setSeed(Long.parseLong(argument));
+                break;
+            case "format":
+                tournament.setFormat(TournamentFormat.valueOf(argument.toUpperCase(Locale.ROOT)));
+                break;
+            case "add":
+                add(argument);
+                break;
+            case "players":
+                addGenerated(Integer.parseInt(argument));
+                break;
+            case "start":
+                tournament.startTournament();
+                out.println("Tournament started, " + tournament.getTotalRounds() + " rounds");
+                break;
+            case "round":
+                tournament.generateNextRound();
+                break;
+            case "results":
+                if (!argument.isEmpty() && !argument.equalsIgnoreCase("auto")) {
+                    throw new IllegalArgumentException("Unknown results mode: " + argument);
+                }
+                tournament.autoGenerateRoundResults();
+                break;
+            case "result":
+                result(argument);
+                break;
+            case "import":
+                requireArgument(command, argument);
+                out.println(tournament.importRoundResults(argument) + " results imported");
+                break;
+            case "play":
+                play(tournament, earlyPlaces);
+                out.println("Tournament complete after " + tournament.getCurrentRound() + " rounds");
+                break;
+            case "standings":
+                tournament.displayStandings();
+                break;
+            case "matches":
+                tournament.displayAllMatches();
+                break;
+            case "autosave":
+                requireArgument(command, argument);
+                autoSave(argument);
+                break;
+            case "find":
+                requireArgument(command, argument);
+                find(argument);
+                break;
+            case "clinch":
+                clinch();
+                break;
+            case "early":
+                requireArgument(command, argument);
+                earlyPlaces = argument.equalsIgnoreCase("off") ? 0 : Integer.parseInt(argument);
+                if (earlyPlaces < 0) {
+                    throw new IllegalArgumentException("Number of places cannot be negative");
+                }
+                break;
+            case "save":
+                requireArgument(command, argument);
+                tournament.saveToFile(argument);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown command: " + command);
+        }
+    }
+
+    private static void requireArgument(String command, String argument) {
+        if (argument.isEmpty()) {
+            throw new IllegalArgumentException("'" + command + "' needs an argument");
+        }
+    }
+
+    /**
+     * add [LOW|MEDIUM|HIGH] name; the status defaults to LOW.
+     */
+    private void add(String argument) {
+        ParticipantStatus status = ParticipantStatus.LOW;
+        String name = argument;
+        int space = argument.indexOf(' ');
+        if (space > 0) {
+            String first = argument.substring(0, space).toUpperCase(Locale.ROOT);
+            for (ParticipantStatus candidate : STATUSES) {
+                if (candidate.name().equals(first)) {
+                    status = candidate;
+                    name = argument.substring(space + 1).trim();
+                }
+            }
+        }
+        requireArgument("add", name);
+        tournament.addParticipant(new Participant(nextId(tournament), name, status));
+    }
+
+    private void addGenerated(int count) {
+        addGenerated(tournament, count);
+        out.println("Added " + count + " participants");
+    }
+
+    private static void addGenerated(Tournament tournament, int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Player count must be positive");
+        }
+        int first = nextId(tournament);
+        for (int i = 0; i < count; i++) {
+            int id = first + i;
+            tournament.addParticipant(new Participant(id, "Player " + id, STATUSES[id % STATUSES.length]));
+        }
+    }
+
+    private static int nextId(Tournament tournament) {
+        int max = 0;
+        for (Participant participant : tournament.getParticipants()) {
+            max = Math.max(max, participant.getId());
+        }
+        return max + 1;
+    }
+
+    private void result(String argument) {
+        String[] parts = argument.split("\\s+");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Usage: result <match> <1-0|0-1|0.5-0.5>");
+        }
+        int round = tournament.getCurrentRound();
+        if (round == 0) {
+            throw new IllegalStateException("No rounds have been generated yet");
+        }
+        List<Match> roundMatches = tournament.getRoundMatches(round);
+        int index = Integer.parseInt(parts[0]);
+        if (index < 1 || index > roundMatches.size()) {
+            throw new IllegalArgumentException("Round " + round + " has no match " + index);
+        }
+        tournament.setMatchResult(roundMatches.get(index - 1), parseResult(parts[1]));
+    }
+
+    private static Match.MatchResult parseResult(String score) {
+        switch (score) {
+            case "1-0":
+            case "1":
+                return Match.MatchResult.WIN_PLAYER1;
+            case "0-1":
+            case "2":
+                return Match.MatchResult.WIN_PLAYER2;
+            case "0.5-0.5":
+            case "1/2-1/2":
+            case "D":
+            case "d":
+                return Match.MatchResult.DRAW;
+            default:
+                throw new IllegalArgumentException("Unknown result: " + score);
+        }
+    }
+
+    /**
+     * Generate rounds and results until complete. Seeded tournaments use
+     * the batch generator, so a seeded script reproduces its event.
+     */
+    private static void play(Tournament tournament, int earlyPlaces) {
+        if (tournament.getTotalRounds() == 0) {
+            tournament.startTournament();
+        }
+        while (true) {
+            int round = tournament.getCurrentRound();
+            if (round > 0 && !allPlayed(tournament.getRoundMatches(round))) {
+                if (tournament.isSeeded()) {
+                    tournament.generateRoundResultsBatch(tournament.getSeed());
+                } else {
+                    tournament.autoGenerateRoundResults();
+                }
+            } else if (tournament.isComplete()
+                    || (earlyPlaces > 0 && tournament.finishEarly(earlyPlaces))) {
+                return;
+            } else {
+                tournament.generateNextRound();
+            }
+        }
+    }
+
+    /**
+     * autosave file [interval ms], or autosave off.
+     */
+    private void autoSave(String argument) throws IOException {
+        stopAutoSave();
+        if (argument.equalsIgnoreCase("off")) {
+            return;
+        }
+        String[] parts = argument.split("\\s+");
+        if (parts.length > 2) {
+            throw new IllegalArgumentException("Usage: autosave <file> [interval ms] | autosave off");
+        }
+        long interval = parts.length == 2 ? Long.parseLong(parts[1]) : AutoSave.DEFAULT_INTERVAL_MILLIS;
+        autoSave = new AutoSave(tournament, parts[0], interval);
+        out.println("Auto-saving to " + parts[0] + " every " + interval + " ms");
+    }
+
+    /**
+     * Publish the last changes and write them before stopping.
+     */
+    private void stopAutoSave() throws IOException {
+        if (autoSave == null) {
+            return;
+        }
+        AutoSave stopping = autoSave;
+        autoSave = null;
+        tournament.publishSnapshot();
+        stopping.close();
+    }
+
+    private void find(String prefix) {
+        List<Participant> found = tournament.searchParticipants(prefix, FIND_ROWS);
+        for (Participant p : found) {
+            out.println("  " + p.getId() + "  " + p.getName() + (tournament.isWithdrawn(p.getId()) ? " (withdrawn)" : ""));
+        }
+        int total = tournament.countParticipants(prefix);
+        out.println(total + (total == 1 ? " participant" : " participants") + " found"
+                    + (total > found.size() ? ", first " + found.size() + " shown" : ""));
+    }
+
+    /**
+     * Print the leading places with the range each player can still
+     * finish in; decided places are marked.
+     */
+    private void clinch() {
+        ClinchAnalysis analysis = tournament.analyzeClinches();
+        List<Participant> standings = tournament.getStandings();
+        out.println("After round " + analysis.getRound() + ", " + analysis.getRemainingRounds()
+                    + " rounds left, leading places decided: " + analysis.getLockedPlaces());
+        for (int place = 1; place <= Math.min(CLINCH_ROWS, standings.size()); place++) {
+            Participant p = standings.get(place - 1);
+            int best = analysis.getBestPlace(p.getId());
+            int worst = analysis.getWorstPlace(p.getId());
+            out.printf(Locale.ROOT, "%4d. %-24s %5.1f  max %5.1f  %s%n", place, p.getName(), p.getScore(),
+                       analysis.getMaxScore(p.getId()),
+                       best == worst ? "clinched" : "places " + best + "-" + worst);
+        }
+    }
+
+    private static boolean allPlayed(List<Match> matches) {
+        for (Match match : matches) {
+            if (!match.isPlayed()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Play complete events headless and report timing. Event e is seeded
+     * with seed + e, so runs are reproducible and independent of the
+     * number of threads.
+     *
+     * @param events Number of events
+     * @param players Participants per event
+     * @param seed Base seed
+     * @param parallel Whether to play events concurrently
+     */
+    static void simulate(int events, int players, long seed, boolean parallel, PrintStream out) {
+        if (events <= 0) {
+            throw new IllegalArgumentException("Event count must be positive");
+        }
+        long[] nanos = new long[events];
+        long[] matches = new long[events];
+        IntStream indices = IntStream.range(0, events);
+        if (parallel) {
+            indices = indices.parallel();
+        }
+        long start = System.nanoTime();
+        indices.forEach(e -> {
+            long began = System.nanoTime();
+            Tournament tournament = new Tournament("Simulation " + (e + 1));
+            tournament.setLogging(false);
+            tournament.setSeed(seed + e);
+            addGenerated(tournament, players);
+            play(tournament, 0);
+            matches[e] = tournament.getMatches().size();
+            nanos[e] = System.nanoTime() - began;
+        });
+        long total = System.nanoTime() - start;
+
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        out.println("Simulated " + events + " events of " + players + " players"
+                    + (parallel ? " in parallel" : ""));
+        out.println("Matches:       " + Arrays.stream(matches).sum());
+        out.printf(Locale.ROOT, "Total time:    %.1f ms%n", total / 1e6);
+        out.printf(Locale.ROOT, "Events/second: %.1f%n", events / (total / 1e9));
+        out.printf(Locale.ROOT, "Per event:     min %.3f ms, median %.3f ms, p99 %.3f ms, max %.3f ms%n",
+                   sorted[0] / 1e6, sorted[events / 2] / 1e6,
+                   sorted[Math.min(events - 1, (int) (events * 0.99))] / 1e6, sorted[events - 1] / 1e6);
+    }
+}
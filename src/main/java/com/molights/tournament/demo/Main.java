@@ -3,18 +3,39 @@ package com.molights.tournament.demo;
 import com.molights.tournament.*;
 import java.util.Scanner;
 import java.util.List;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
 
 /**
  * Demo CLI application for the Mo-Lights Tournament System.
  * Provides an interactive menu for managing Swiss-style tournaments.
+ * <p>
+ * Non-interactive use:
+ * <pre>
+ * Main --batch [file]                         run a command script, or standard input
+ * Main --simulate N [--players P] [--seed S] [--parallel]
+ *                                             play N events headless and report timing
+ * </pre>
+ * See {@link BatchRunner} for the script commands.
  */
 public class Main {
     
     private static Scanner scanner = new Scanner(System.in);
     private static Tournament tournament = null;
+    // Keeps the last saved file up to date in the background
+    private static AutoSave autoSave = null;
     
     public static void main(String[] args) {
+        if (args.length > 0) {
+            System.exit(runHeadless(args));
+        }
+        
         System.out.println("=================================");
         System.out.println("  Swiss Tournament System");
         System.out.println("=================================\n");
@@ -55,11 +76,17 @@ public class Main {
                     break;
                 case 0:
                     running = false;
+                    stopAutoSave();
                     System.out.println("Exiting... Goodbye!");
                     break;
                 default:
                     System.out.println("Invalid choice. Please try again.");
             }
+            if (running && autoSave != null) {
+                // Menu actions change the tournament one step at a time; publish
+                // once per action so the auto-save sees every change
+                tournament.publishSnapshot();
+            }
             
             if (running) {
                 System.out.println("\nPress Enter to continue...");
@@ -70,6 +97,76 @@ public class Main {
         scanner.close();
     }
     
+    /**
+     * Run batch or simulation mode with buffered output.
+     * 
+     * @return Process exit code
+     */
+    private static int runHeadless(String[] args) {
+        PrintStream out = new PrintStream(
+            new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16), false);
+        System.setOut(out);
+        try {
+            if (args[0].equals("--batch")) {
+                if (args.length > 2) {
+                    throw new IllegalArgumentException("Usage: --batch [file]");
+                }
+                BufferedReader script = args.length == 2 && !args[1].equals("-")
+                    ? new BufferedReader(new FileReader(args[1]))
+                    : new BufferedReader(new InputStreamReader(System.in));
+                try {
+                    new BatchRunner(out).run(script);
+                } finally {
+                    script.close();
+                }
+            } else if (args[0].equals("--simulate")) {
+                simulate(args);
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + args[0]);
+            }
+            return 0;
+        } catch (IOException | RuntimeException e) {
+            out.flush();
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        } finally {
+            out.flush();
+        }
+    }
+    
+    private static void simulate(String[] args) {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: --simulate N [--players P] [--seed S] [--parallel]");
+        }
+        int events = Integer.parseInt(args[1]);
+        int players = 64;
+        long seed = 1;
+        boolean parallel = false;
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--players":
+                    players = Integer.parseInt(optionValue(args, ++i));
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(optionValue(args, ++i));
+                    break;
+                case "--parallel":
+                    parallel = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        BatchRunner.simulate(events, players, seed, parallel, System.out);
+    }
+    
+    private static String optionValue(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException(args[i - 1] + " needs a value");
+        }
+        return args[i];
+    }
+    
     private static void displayMenu() {
         System.out.println("\n========== MENU ==========");
         System.out.println("1. Create New Tournament");
@@ -94,6 +191,7 @@ public class Main {
             return;
         }
         
+        stopAutoSave();
         tournament = new Tournament(name);
         System.out.println("Tournament '" + name + "' created successfully!");
     }
@@ -224,6 +322,7 @@ public class Main {
         System.out.println("Choose how to enter results:");
         System.out.println("1. Auto-generate all results");
         System.out.println("2. Manually enter each result");
+        System.out.println("3. Import results from a file");
         
         int choice = getIntInput("Your choice: ");
         
@@ -236,6 +335,8 @@ public class Main {
             }
         } else if (choice == 2) {
             manuallyEnterResults(roundMatches);
+        } else if (choice == 3) {
+            importResults();
         } else {
             System.out.println("Invalid choice.");
         }
@@ -288,6 +389,28 @@ public class Main {
         System.out.println("\nAll results entered!");
     }
     
+    private static void importResults() {
+        System.out.print("Enter results file (match lines or CSV): ");
+        String filename = scanner.nextLine().trim();
+        
+        if (filename.isEmpty()) {
+            System.out.println("Filename cannot be empty.");
+            return;
+        }
+        
+        try {
+            int applied = tournament.importRoundResults(filename);
+            System.out.println(applied + " results imported.");
+        } catch (ResultImportException e) {
+            System.out.println("Import rejected, no results were applied:");
+            for (String error : e.getErrors()) {
+                System.out.println("  " + error);
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading results: " + e.getMessage());
+        }
+    }
+    
     private static void viewStandings() {
         if (tournament == null) {
             System.out.println("Please create a tournament first.");
@@ -334,12 +457,34 @@ public class Main {
             filename += ".txt";
         }
         
+        stopAutoSave();
         try {
             tournament.saveToFile(filename);
             System.out.println("Tournament saved successfully!");
         } catch (IOException e) {
             System.out.println("Error saving tournament: " + e.getMessage());
+            return;
+        }
+        
+        autoSave = new AutoSave(tournament, filename);
+        System.out.println("Changes are now auto-saved to " + filename + " every "
+                           + AutoSave.DEFAULT_INTERVAL_MILLIS / 1000 + " seconds.");
+    }
+    
+    /**
+     * Stop auto-saving the current tournament, writing its last changes.
+     */
+    private static void stopAutoSave() {
+        if (autoSave == null) {
+            return;
+        }
+        tournament.publishSnapshot();
+        try {
+            autoSave.close();
+        } catch (IOException e) {
+            System.out.println("Error auto-saving tournament: " + e.getMessage());
         }
+        autoSave = null;
     }
     
     private static void loadTournament() {
@@ -352,7 +497,9 @@ public class Main {
         }
         
         try {
-            tournament = Tournament.loadFromFile(filename);
+            Tournament loaded = Tournament.loadFromFile(filename);
+            stopAutoSave();
+            tournament = loaded;
             System.out.println("Tournament loaded successfully!");
             System.out.println("You can now view standings and continue the tournament.");
         } catch (IOException e) {
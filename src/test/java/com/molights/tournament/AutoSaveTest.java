@@ -0,0 +1,119 @@
+package com.molights.tournament;
+
+import static com.molights.tournament.Fixtures.withIds;
+import static com.molights.tournament.Fixtures.withoutDate;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AutoSaveTest {
+
+    @TempDir
+    Path directory;
+
+    private static Tournament newTournament() {
+        // IDs out of registration order, as in a hand-entered roster
+        Tournament t = withIds("Auto", 3, 7, 2, 9, 4, 1, 8);
+        t.startTournament();
+        t.generateNextRound();
+        return t;
+    }
+
+    private static void awaitSaved(AutoSave autoSave, long version) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (autoSave.getSavedVersion() != version && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(version, autoSave.getSavedVersion());
+    }
+
+    @Test
+    void individualResultIsSavedWithoutPublishing() throws Exception {
+        Tournament t = newTournament();
+        Path file = directory.resolve("event.txt");
+        Path expected = directory.resolve("expected.txt");
+        try (AutoSave autoSave = new AutoSave(t, file.toString(), 0)) {
+            awaitSaved(autoSave, t.getVersion());
+
+            Match match = t.getRoundMatches(1).get(0);
+            t.setMatchResult(match, Match.MatchResult.DRAW);
+            awaitSaved(autoSave, t.getVersion());
+
+            t.saveToFile(expected.toString());
+            assertEquals(withoutDate(expected), withoutDate(file));
+        }
+    }
+
+    @Test
+    void flushSavesEveryChangeOfABurst() throws Exception {
+        Tournament t = newTournament();
+        Path file = directory.resolve("event.txt");
+        Path expected = directory.resolve("expected.txt");
+        // A long interval: the burst is not written by the writer
+        try (AutoSave autoSave = new AutoSave(t, file.toString(), 60_000)) {
+            awaitSaved(autoSave, t.getVersion());
+            for (Match match : t.getRoundMatches(1)) {
+                t.setMatchResult(match, Match.MatchResult.WIN_PLAYER1);
+            }
+            t.withdrawParticipant(9);
+            t.getParticipants().get(0).setName("Renamed");
+            assertTrue(autoSave.isDirty());
+
+            autoSave.flush();
+            assertEquals(t.getVersion(), autoSave.getSavedVersion());
+            t.saveToFile(expected.toString());
+            assertEquals(withoutDate(expected), withoutDate(file));
+        }
+    }
+
+    @Test
+    void burstFollowedByIdleIsSavedInFull() throws Exception {
+        Tournament t = newTournament();
+        Path file = directory.resolve("event.txt");
+        Path expected = directory.resolve("expected.txt");
+        try (AutoSave autoSave = new AutoSave(t, file.toString(), 200)) {
+            awaitSaved(autoSave, t.getVersion());
+            // Several changes within one interval, then nothing more
+            for (Match match : t.getRoundMatches(1)) {
+                t.setMatchResult(match, Match.MatchResult.WIN_PLAYER2);
+            }
+            awaitSaved(autoSave, t.getVersion());
+            assertFalse(autoSave.isDirty());
+
+            t.saveToFile(expected.toString());
+            assertEquals(withoutDate(expected), withoutDate(file));
+        }
+    }
+
+    @Test
+    void speculativeChangesAreNotSaved() throws Exception {
+        Tournament t = newTournament();
+        Path file = directory.resolve("event.txt");
+        Path expected = directory.resolve("expected.txt");
+        try (AutoSave autoSave = new AutoSave(t, file.toString(), 0)) {
+            awaitSaved(autoSave, t.getVersion());
+            t.saveToFile(expected.toString());
+            List<String> before = withoutDate(expected);
+
+            t.speculate(x -> {
+                for (Match match : x.getRoundMatches(1)) {
+                    x.setMatchResult(match, Match.MatchResult.DRAW);
+                }
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            });
+            awaitSaved(autoSave, t.getVersion());
+            assertEquals(before, withoutDate(file));
+        }
+    }
+}
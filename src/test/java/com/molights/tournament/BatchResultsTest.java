@@ -0,0 +1,86 @@
+package com.molights.tournament;
+
+import static com.molights.tournament.Fixtures.newTournament;
+import static com.molights.tournament.Fixtures.started;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class BatchResultsTest {
+
+    private static List<Match.MatchResult> results(List<Match> matches) {
+        List<Match.MatchResult> results = new ArrayList<>(matches.size());
+        for (Match m : matches) {
+            results.add(m.getResult());
+        }
+        return results;
+    }
+
+    @Test
+    void parallelRoundDrawsEachMatchFromItsOwnStream() {
+        // Above the parallel threshold of 2048 matches
+        Tournament t = started(newTournament("Batch", 4101, 3));
+        t.generateNextRound();
+        List<Match> round = t.getRoundMatches(1);
+        assertTrue(round.size() > 2048);
+
+        assertEquals(round.size() - 1, t.generateRoundResultsBatch(77));
+        for (int i = 0; i < round.size(); i++) {
+            Match m = round.get(i);
+            if (m.isBye()) {
+                assertEquals(Match.MatchResult.WIN_PLAYER1, m.getResult());
+            } else {
+                int roll = Seeds.nextInt(77, 1, i, 100);
+                assertEquals(Match.randomResult(m.getPlayer1().getStatus(), m.getPlayer2().getStatus(), roll),
+                             m.getResult());
+            }
+        }
+        double total = 0;
+        for (Participant p : t.getParticipants()) {
+            total += p.getScore();
+        }
+        assertEquals(round.size(), total);
+    }
+
+    @Test
+    void batchSkipsEnteredResultsAndUndoesAsOne() {
+        Tournament t = started(newTournament("Batch", 10, 3));
+        t.generateNextRound();
+        List<Match> round = t.getRoundMatches(1);
+        t.setMatchResult(round.get(0), Match.MatchResult.DRAW);
+
+        assertEquals(round.size() - 1, t.generateRoundResultsBatch(5));
+        assertEquals(Match.MatchResult.DRAW, round.get(0).getResult());
+        assertEquals(0, t.generateRoundResultsBatch(5));
+
+        assertTrue(t.undo());
+        assertTrue(round.get(0).isPlayed());
+        for (int i = 1; i < round.size(); i++) {
+            assertFalse(round.get(i).isPlayed());
+        }
+    }
+
+    @Test
+    void seededAutoGenerationMatchesABatchWithTheSameSeed() {
+        Tournament auto = started(newTournament("Auto", 33, 11));
+        Tournament batch = started(newTournament("Batch", 33, 11));
+        for (int round = 1; round <= auto.getTotalRounds(); round++) {
+            auto.generateNextRound();
+            batch.generateNextRound();
+            auto.autoGenerateRoundResults();
+            batch.generateRoundResultsBatch(11);
+            assertEquals(results(batch.getRoundMatches(round)), results(auto.getRoundMatches(round)));
+        }
+        assertEquals(Fixtures.ids(batch.getStandings()), Fixtures.ids(auto.getStandings()));
+
+        Tournament waiting = started(newTournament("Waiting", 4, 1));
+        assertThrows(IllegalStateException.class, () -> waiting.generateRoundResultsBatch(1));
+        assertThrows(IllegalStateException.class, waiting::autoGenerateRoundResults);
+    }
+}
@@ -0,0 +1,148 @@
+package com.molights.tournament;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class BracketTest {
+
+    /**
+     * Play every match, the lower ID always winning.
+     */
+    private static void favouritesWin(Bracket bracket) {
+        Match match;
+        while ((match = bracket.nextMatch()) != null) {
+            boolean first = match.getPlayer1().getId() < match.getPlayer2().getId();
+            bracket.setResult(match, first ? Match.MatchResult.WIN_PLAYER1 : Match.MatchResult.WIN_PLAYER2);
+        }
+    }
+
+    /**
+     * @return Number of matches each participant ID lost
+     */
+    private static Map<Integer, Integer> losses(Bracket bracket) {
+        Map<Integer, Integer> losses = new HashMap<>();
+        for (Match m : bracket.getMatches()) {
+            Participant loser = m.getResult() == Match.MatchResult.WIN_PLAYER1 ? m.getPlayer2() : m.getPlayer1();
+            losses.merge(loser.getId(), 1, Integer::sum);
+        }
+        return losses;
+    }
+
+    @Test
+    void seedsOneAndTwoCanOnlyMeetInTheFinal() {
+        Bracket bracket = new Bracket("Cup", Bracket.Type.SINGLE_ELIMINATION, Fixtures.roster(8));
+        assertEquals(3, bracket.getTotalRounds());
+        assertEquals(Arrays.asList("1-8", "4-5", "2-7", "3-6"), Fixtures.pairings(bracket.getRoundMatches(1)));
+
+        favouritesWin(bracket);
+        assertTrue(bracket.isComplete());
+        assertEquals(7, bracket.getMatches().size());
+        assertEquals(Arrays.asList("1-4", "2-3"), Fixtures.pairings(bracket.getRoundMatches(2)));
+        assertEquals(Arrays.asList("1-2"), Fixtures.pairings(bracket.getRoundMatches(3)));
+        assertEquals(1, bracket.getChampion().getId());
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8), Fixtures.ids(bracket.getRanking()));
+    }
+
+    @Test
+    void topSeedsGetTheByes() {
+        Bracket bracket = new Bracket("Cup", Bracket.Type.SINGLE_ELIMINATION, Fixtures.roster(5));
+        assertEquals(Arrays.asList("4-5"), Fixtures.pairings(bracket.getRoundMatches(1)));
+        assertEquals(Arrays.asList("2-3"), Fixtures.pairings(bracket.getRoundMatches(2)));
+        favouritesWin(bracket);
+        assertEquals(4, bracket.getMatches().size());
+        // Opened as soon as both entrants are known
+        assertEquals(Arrays.asList("2-3", "1-4"), Fixtures.pairings(bracket.getRoundMatches(2)));
+        assertEquals(1, bracket.getChampion().getId());
+    }
+
+    @Test
+    void doubleEliminationKnocksOutOnTheSecondLoss() {
+        for (int players = 2; players <= 13; players++) {
+            for (long seed = 1; seed <= 5; seed++) {
+                Bracket bracket = new Bracket("Double", Bracket.Type.DOUBLE_ELIMINATION, Fixtures.roster(players));
+                bracket.playOut(seed);
+                assertTrue(bracket.isComplete());
+                Map<Integer, Integer> losses = losses(bracket);
+                int champion = bracket.getChampion().getId();
+                int reset = losses.getOrDefault(champion, 0);
+                assertTrue(reset <= 1);
+                for (int id = 1; id <= players; id++) {
+                    if (id != champion) {
+                        assertEquals(2, (int) losses.get(id), players + " players, seed " + seed);
+                    }
+                }
+                assertEquals(2 * players - 2 + reset, bracket.getMatches().size());
+                assertEquals(champion, bracket.getRanking().get(0).getId());
+            }
+        }
+    }
+
+    @Test
+    void losersBracketChampionForcesAReset() {
+        Bracket bracket = new Bracket("Double", Bracket.Type.DOUBLE_ELIMINATION, Fixtures.roster(4));
+        Match match;
+        while ((match = bracket.nextMatch()) != null) {
+            // Seed 2 loses its first match and then wins everything
+            boolean first = match.getPlayer1().getId() == 2 ? match.getRoundNumber() > 1
+                          : match.getPlayer2().getId() == 2 ? match.getRoundNumber() == 1
+                          : match.getPlayer1().getId() < match.getPlayer2().getId();
+            bracket.setResult(match, first ? Match.MatchResult.WIN_PLAYER1 : Match.MatchResult.WIN_PLAYER2);
+        }
+        assertEquals(2, bracket.getChampion().getId());
+        assertEquals(7, bracket.getMatches().size());
+        assertEquals(1, bracket.getRoundMatches(bracket.getTotalRounds()).size());
+    }
+
+    @Test
+    void resultsAreValidatedAndLeaveTheSeedsAlone() {
+        List<Participant> seeds = Fixtures.roster(4);
+        Bracket bracket = new Bracket("Cup", Bracket.Type.SINGLE_ELIMINATION, seeds);
+        Match first = bracket.nextMatch();
+        assertThrows(IllegalArgumentException.class, () -> bracket.setResult(first, Match.MatchResult.DRAW));
+        assertThrows(IllegalArgumentException.class,
+                     () -> bracket.setResult(new Match(seeds.get(0), seeds.get(1), 1), Match.MatchResult.WIN_PLAYER1));
+        bracket.setResult(first, Match.MatchResult.WIN_PLAYER1);
+        assertThrows(IllegalStateException.class, () -> bracket.setResult(first, Match.MatchResult.WIN_PLAYER2));
+        assertFalse(bracket.isComplete());
+        assertNull(bracket.getChampion());
+
+        bracket.playOut(3);
+        for (Participant p : seeds) {
+            assertEquals(0, p.getScore());
+        }
+        assertThrows(IllegalArgumentException.class,
+                     () -> new Bracket("Cup", Bracket.Type.SINGLE_ELIMINATION, seeds.subList(0, 1)));
+    }
+
+    @Test
+    void oddsAreReproducibleAndFollowTheResults() {
+        Tournament swiss = Fixtures.playedOut("Qualifier", 16, 4);
+        Bracket bracket = Bracket.fromStandings(swiss, 8, Bracket.Type.SINGLE_ELIMINATION);
+        assertEquals("Qualifier - Playoff", bracket.getName());
+        assertEquals(Fixtures.ids(swiss.getStandings().subList(0, 8)), Fixtures.ids(bracket.getSeeds()));
+        assertThrows(IllegalArgumentException.class,
+                     () -> Bracket.fromStandings(swiss, 17, Bracket.Type.SINGLE_ELIMINATION));
+
+        double[] odds = bracket.simulateOdds(20_000, 5);
+        assertArrayEquals(odds, bracket.simulateOdds(20_000, 5));
+        assertEquals(1, Arrays.stream(odds).sum(), 1e-9);
+
+        bracket.playOut(9);
+        double[] settled = bracket.simulateOdds(100, 1);
+        for (int i = 0; i < settled.length; i++) {
+            boolean champion = bracket.getSeeds().get(i) == bracket.getChampion();
+            assertEquals(champion ? 1.0 : 0.0, settled[i]);
+        }
+    }
+}
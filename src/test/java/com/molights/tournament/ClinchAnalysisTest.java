@@ -0,0 +1,217 @@
+package com.molights.tournament;
+
+import static com.molights.tournament.Fixtures.newTournament;
+import static com.molights.tournament.Fixtures.started;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class ClinchAnalysisTest {
+
+    private static final Match.MatchResult[] RESULTS = {
+        Match.MatchResult.WIN_PLAYER1, Match.MatchResult.WIN_PLAYER2, Match.MatchResult.DRAW
+    };
+
+    /**
+     * Enter results for the unplayed games of the current round. The
+     * favoured participant wins (or, if not favoured, loses) its game;
+     * every other game gets a random result.
+     */
+    private static void playRound(Tournament t, Random random, int favouredId, boolean favour) {
+        for (Match match : t.getRoundMatches(t.getCurrentRound())) {
+            if (match.isBye() || match.isPlayed()) {
+                continue;
+            }
+            Match.MatchResult result = RESULTS[random.nextInt(RESULTS.length)];
+            if (match.getPlayer1().getId() == favouredId) {
+                result = favour ? Match.MatchResult.WIN_PLAYER1 : Match.MatchResult.WIN_PLAYER2;
+            } else if (match.getPlayer2().getId() == favouredId) {
+                result = favour ? Match.MatchResult.WIN_PLAYER2 : Match.MatchResult.WIN_PLAYER1;
+            }
+            t.setMatchResult(match, result);
+        }
+    }
+
+    /**
+     * @return Final standings as participant IDs, in place order
+     */
+    private static List<Integer> playOut(Tournament t, Random random, int favouredId, boolean favour) {
+        if (t.getCurrentRound() > 0) {
+            playRound(t, random, favouredId, favour);
+        }
+        while (!t.isComplete()) {
+            t.generateNextRound();
+            playRound(t, random, favouredId, favour);
+        }
+        List<Integer> ids = new ArrayList<>();
+        for (Participant p : t.getStandings()) {
+            ids.add(p.getId());
+        }
+        return ids;
+    }
+
+    private static void assertFinishWithinBounds(ClinchAnalysis analysis, List<Integer> finalIds) {
+        for (int place = 1; place <= finalIds.size(); place++) {
+            int id = finalIds.get(place - 1);
+            String where = "participant " + id + " finished " + place;
+            assertTrue(analysis.getBestPlace(id) <= place, where + ", best " + analysis.getBestPlace(id));
+            assertTrue(analysis.getWorstPlace(id) >= place, where + ", worst " + analysis.getWorstPlace(id));
+            assertTrue(analysis.hasClinched(id, analysis.getWorstPlace(id)));
+            assertFalse(analysis.isEliminated(id, place));
+            int clinched = analysis.getClinchedPlace(id);
+            assertTrue(clinched == 0 || clinched == place, where + ", clinched " + clinched);
+        }
+        for (int place = 1; place <= analysis.getLockedPlaces(); place++) {
+            assertEquals(analysis.getId(place), (int) finalIds.get(place - 1));
+        }
+    }
+
+    @Test
+    void boundsHoldForEveryPlayedOutFinish() {
+        Random random = new Random(2024);
+        for (int trial = 0; trial < 60; trial++) {
+            int players = 4 + random.nextInt(9);
+            Tournament t = started(newTournament("Clinch", players, trial));
+            int played = random.nextInt(t.getTotalRounds());
+            for (int round = 0; round < played; round++) {
+                t.generateNextRound();
+                playRound(t, random, 0, true);
+            }
+            if (played < t.getTotalRounds() && random.nextBoolean()) {
+                // Analyse in the middle of a round, some results still to come
+                t.generateNextRound();
+                List<Match> round = t.getRoundMatches(t.getCurrentRound());
+                t.setMatchResult(round.get(round.size() - 1), Match.MatchResult.DRAW);
+            }
+            ClinchAnalysis analysis = t.analyzeClinches();
+
+            for (int id = 1; id <= players; id++) {
+                int favoured = id;
+                for (boolean favour : new boolean[] {true, false}) {
+                    long seed = random.nextLong();
+                    List<Integer> finish = t.speculate(x -> playOut(x, new Random(seed), favoured, favour));
+                    assertFinishWithinBounds(analysis, finish);
+                }
+            }
+        }
+    }
+
+    @Test
+    void pendingGamesAndWithdrawalsSetTheMaximum() {
+        Tournament t = started(newTournament("Clinch", 8, 7));
+        int rounds = t.getTotalRounds();
+        t.generateNextRound();
+        ClinchAnalysis paired = t.analyzeClinches();
+        for (Participant p : t.getParticipants()) {
+            // The unplayed game of this round plus every later round
+            assertEquals(rounds, paired.getMaxScore(p.getId()));
+        }
+
+        playRound(t, new Random(1), 0, true);
+        Participant leaver = t.getStandings().get(0);
+        t.withdrawParticipant(leaver.getId());
+        ClinchAnalysis analysis = t.analyzeClinches();
+        assertEquals(leaver.getScore(), analysis.getMaxScore(leaver.getId()));
+        assertEquals(rounds - 1, analysis.getRemainingRounds());
+        for (Participant p : t.getParticipants()) {
+            if (p != leaver) {
+                assertEquals(p.getScore() + rounds - 1, analysis.getMaxScore(p.getId()));
+            }
+        }
+    }
+
+    @Test
+    void finishedTournamentLocksEveryUntiedPlaceFromTheTop() {
+        Random random = new Random(5);
+        for (int trial = 0; trial < 20; trial++) {
+            Tournament t = started(newTournament("Clinch", 5 + trial % 6, trial));
+            playOut(t, random, 0, true);
+            ClinchAnalysis analysis = t.analyzeClinches();
+            List<Participant> standings = t.getStandings();
+
+            int locked = 0;
+            while (locked < standings.size()
+                    && (locked == 0 || standings.get(locked - 1).getScore() > standings.get(locked).getScore())
+                    && (locked + 1 == standings.size()
+                        || standings.get(locked).getScore() > standings.get(locked + 1).getScore())) {
+                locked++;
+            }
+            assertEquals(locked, analysis.getLockedPlaces());
+            for (int place = 1; place <= standings.size(); place++) {
+                int id = standings.get(place - 1).getId();
+                assertEquals(id, analysis.getId(place));
+                assertEquals(standings.get(place - 1).getScore(), analysis.getMaxScore(id));
+            }
+        }
+    }
+
+    @Test
+    void decidedWinnerEndsARoundRobinEarlyAndReplaysAsEnded() {
+        Tournament t = started(newTournament("Early", TournamentFormat.DOUBLE_ROUND_ROBIN, 6, 3));
+        int planned = t.getTotalRounds();
+        Random random = new Random(9);
+        boolean ended = false;
+        while (!ended) {
+            t.generateNextRound();
+            playRound(t, random, 1, true);
+            ended = t.finishEarly(1);
+        }
+        int played = t.getCurrentRound();
+        assertTrue(played < planned, "ended after " + played + " of " + planned);
+        assertEquals(played, t.getTotalRounds());
+        assertTrue(t.isComplete());
+        assertEquals(1, t.getStandings().get(0).getId());
+        assertTrue(t.analyzeClinches().getLockedPlaces() >= 1);
+        assertThrows(IllegalStateException.class, t::generateNextRound);
+
+        Tournament replayed = TournamentReplay.replay(TournamentRecord.of(t));
+        assertTrue(replayed.isComplete());
+        assertEquals(played, replayed.getTotalRounds());
+        for (int place = 0; place < t.getStandings().size(); place++) {
+            Participant expected = t.getStandings().get(place);
+            Participant actual = replayed.getStandings().get(place);
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getScore(), actual.getScore());
+        }
+
+        // Undo takes back the early finish first
+        assertTrue(t.undo());
+        assertEquals(planned, t.getTotalRounds());
+        assertFalse(t.isComplete());
+    }
+
+    @Test
+    void perfectScoreDoesNotShortenAStandardSwiss() {
+        // With ceil(log2 n) rounds a runner-up one point behind can still
+        // tie, and ties count against the leader
+        Tournament t = started(newTournament("Clinch", 16, 4));
+        Random random = new Random(4);
+        for (int round = 1; round < t.getTotalRounds(); round++) {
+            t.generateNextRound();
+            playRound(t, random, 1, true);
+            assertFalse(t.finishEarly(1));
+        }
+        assertEquals(t.getTotalRounds() - 1.0, t.getStandings().get(0).getScore());
+    }
+
+    @Test
+    void rejectsUnknownPlacesAndParticipants() {
+        Tournament waiting = new Tournament("Not started");
+        waiting.setLogging(false);
+        assertThrows(IllegalStateException.class, waiting::analyzeClinches);
+
+        ClinchAnalysis analysis = started(newTournament("Clinch", 4, 1)).analyzeClinches();
+        assertEquals(0, analysis.getRound());
+        assertEquals(4, analysis.getParticipantCount());
+        assertThrows(IndexOutOfBoundsException.class, () -> analysis.getId(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> analysis.getId(5));
+        assertThrows(IllegalArgumentException.class, () -> analysis.getBestPlace(99));
+    }
+}
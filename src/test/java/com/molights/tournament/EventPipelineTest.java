@@ -0,0 +1,122 @@
+package com.molights.tournament;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class EventPipelineTest {
+
+    private static List<Participant> entrants(int first, int count) {
+        List<Participant> entrants = new ArrayList<>(count);
+        for (int id = first; id < first + count; id++) {
+            entrants.add(Fixtures.participant(id));
+        }
+        return entrants;
+    }
+
+    private static EventPipeline championship() {
+        EventPipeline event = new EventPipeline("Championship");
+        event.addStage(EventPipeline.swiss("Qualifier", 12));
+        event.addStage(EventPipeline.groups("Groups", 3, 2, TournamentFormat.ROUND_ROBIN));
+        event.addStage(EventPipeline.knockout("Playoff", Bracket.Type.SINGLE_ELIMINATION, 4));
+        event.addStage(EventPipeline.roundRobin("Final", TournamentFormat.DOUBLE_ROUND_ROBIN, 4));
+        return event;
+    }
+
+    /**
+     * @return IDs of every stage ranking, one line per stage
+     */
+    private static List<String> rankings(EventPipeline.SectionResult section) {
+        List<String> rankings = new ArrayList<>();
+        for (EventPipeline.StageResult stage : section.getStages()) {
+            rankings.add(stage.getName() + " " + Fixtures.ids(stage.getRanking()));
+        }
+        return rankings;
+    }
+
+    private static List<Integer> sortedIds(List<Participant> participants) {
+        List<Integer> ids = Fixtures.ids(participants);
+        ids.sort(null);
+        return ids;
+    }
+
+    @Test
+    void eachStageSeedsTheNextWithItsRanking() {
+        EventPipeline event = championship();
+        event.addSection("Open", entrants(1, 30));
+        EventPipeline.SectionResult open = event.run(6).get(0);
+        List<EventPipeline.StageResult> stages = open.getStages();
+        assertEquals(4, stages.size());
+
+        for (int s = 1; s < stages.size(); s++) {
+            List<Participant> advancing = stages.get(s - 1).getAdvancing();
+            assertEquals(sortedIds(advancing), sortedIds(stages.get(s).getRanking()), "Stage " + s);
+        }
+        assertEquals(30, stages.get(0).getRanking().size());
+        assertEquals(12, stages.get(1).getRanking().size());
+        assertEquals(6, stages.get(2).getRanking().size());
+        assertEquals(4, stages.get(3).getRanking().size());
+
+        // Group winners lead the group stage's ranking
+        EventPipeline.StageResult groups = stages.get(1);
+        assertEquals(3, groups.getTournaments().size());
+        for (int g = 0; g < 3; g++) {
+            assertSame(groups.getTournaments().get(g).getStandings().get(0), groups.getRanking().get(g));
+        }
+        assertTrue(groups.getTournaments().get(0).getName().startsWith("Championship - Open - Groups"));
+
+        // The knockout is seeded from the group ranking and keeps its bracket
+        Bracket playoff = stages.get(2).getBracket();
+        assertEquals(Fixtures.ids(groups.getAdvancing()), Fixtures.ids(playoff.getSeeds()));
+        assertTrue(playoff.isComplete());
+        assertNull(stages.get(3).getBracket());
+
+        // Earlier stages are untouched by later ones
+        Tournament qualifier = stages.get(0).getTournaments().get(0);
+        assertTrue(qualifier.isComplete());
+        Participant leader = qualifier.getStandings().get(0);
+        assertNotSame(leader, stages.get(1).getRanking().get(0));
+        assertSame(stages.get(3).getTournaments().get(0).getStandings().get(0), open.getWinner());
+    }
+
+    @Test
+    void sectionsDependOnlyOnTheSeedAndTheirPosition() {
+        EventPipeline alone = championship();
+        alone.addSection("Juniors", entrants(1, 24));
+        EventPipeline both = championship();
+        both.addSection("Juniors", entrants(1, 24));
+        both.addSection("Seniors", entrants(101, 40));
+
+        List<EventPipeline.SectionResult> results = both.run(3);
+        assertEquals(rankings(alone.run(3).get(0)), rankings(results.get(0)));
+        assertEquals(rankings(results.get(1)), rankings(both.run(3).get(1)));
+        assertEquals("Seniors", results.get(1).getName());
+        assertTrue(results.get(1).getWinner().getId() > 100);
+    }
+
+    @Test
+    void invalidPipelinesAreRejected() {
+        EventPipeline event = new EventPipeline("Cup");
+        assertThrows(IllegalStateException.class, () -> event.run(1));
+        event.addSection("Open", entrants(1, 8));
+        assertThrows(IllegalArgumentException.class, () -> event.addSection("Open", entrants(9, 8)));
+        assertThrows(IllegalArgumentException.class, () -> event.addSection("Tiny", entrants(9, 1)));
+        assertThrows(IllegalArgumentException.class,
+                     () -> EventPipeline.roundRobin("Final", TournamentFormat.SWISS, 2));
+        assertThrows(IllegalArgumentException.class, () -> EventPipeline.swiss("Qualifier", 0));
+
+        // Too few advance for the next stage; reported unwrapped
+        event.addStage(EventPipeline.swiss("Qualifier", 1));
+        event.addStage(EventPipeline.knockout("Playoff", Bracket.Type.SINGLE_ELIMINATION, 1));
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> event.run(1));
+        assertEquals("Stage Playoff of Open has fewer than 2 entrants", e.getMessage());
+    }
+}
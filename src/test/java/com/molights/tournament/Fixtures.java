@@ -0,0 +1,132 @@
+package com.molights.tournament;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rosters, tournaments and saved files shared by the tests. Participant i
+ * is named "Player i" with status {@code ParticipantStatus.values()[i % 3]};
+ * tournaments are seeded and do not log.
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    /**
+     * @return Participants with IDs 1 to players
+     */
+    static List<Participant> roster(int players) {
+        List<Participant> roster = new ArrayList<>(players);
+        for (int id = 1; id <= players; id++) {
+            roster.add(participant(id));
+        }
+        return roster;
+    }
+
+    static Participant participant(int id) {
+        return new Participant(id, "Player " + id, ParticipantStatus.values()[id % 3]);
+    }
+
+    /**
+     * @return Unstarted Swiss tournament with participants 1 to players
+     */
+    static Tournament newTournament(String name, int players, long seed) {
+        return newTournament(name, TournamentFormat.SWISS, players, seed);
+    }
+
+    static Tournament newTournament(String name, TournamentFormat format, int players, long seed) {
+        Tournament t = new Tournament(name);
+        t.setLogging(false);
+        t.setSeed(seed);
+        t.setFormat(format);
+        for (Participant p : roster(players)) {
+            t.addParticipant(p);
+        }
+        return t;
+    }
+
+    /**
+     * @return Unstarted Swiss tournament registering the given IDs in order
+     */
+    static Tournament withIds(String name, long seed, int... ids) {
+        Tournament t = newTournament(name, 0, seed);
+        for (int id : ids) {
+            t.addParticipant(participant(id));
+        }
+        return t;
+    }
+
+    static Tournament started(Tournament t) {
+        t.startTournament();
+        return t;
+    }
+
+    /**
+     * Start a Swiss tournament and play up to the given number of rounds
+     * with seeded batch results. Fewer than 2 players are left unstarted.
+     */
+    static Tournament played(String name, int players, int rounds, long seed) {
+        Tournament t = newTournament(name, players, seed);
+        if (players < 2) {
+            return t;
+        }
+        t.startTournament();
+        for (int round = 1; round <= rounds && !t.isComplete(); round++) {
+            t.generateNextRound();
+            t.generateRoundResultsBatch(seed * 31 + round);
+        }
+        return t;
+    }
+
+    static Tournament playedOut(String name, int players, long seed) {
+        return played(name, players, Integer.MAX_VALUE, seed);
+    }
+
+    /**
+     * @return Lines of a saved file except the date, which differs between saves
+     */
+    static List<String> withoutDate(Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (!line.startsWith("DATE: ")) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Save a tournament into a directory.
+     *
+     * @return Lines of the saved file except the date
+     */
+    static List<String> saved(Tournament t, Path directory) throws IOException {
+        Path file = directory.resolve("saved.txt");
+        t.saveToFile(file.toString());
+        return withoutDate(file);
+    }
+
+    static List<Integer> ids(List<Participant> participants) {
+        List<Integer> ids = new ArrayList<>(participants.size());
+        for (Participant p : participants) {
+            ids.add(p.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * @return Pairings of a round as "player1-player2", 0 for a BYE
+     */
+    static List<String> pairings(List<Match> matches) {
+        List<String> pairs = new ArrayList<>(matches.size());
+        for (Match m : matches) {
+            pairs.add(m.getPlayer1().getId() + "-" + (m.isBye() ? 0 : m.getPlayer2().getId()));
+        }
+        return pairs;
+    }
+}
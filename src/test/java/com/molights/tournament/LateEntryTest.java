@@ -0,0 +1,142 @@
+package com.molights.tournament;
+
+import static com.molights.tournament.Fixtures.newTournament;
+import static com.molights.tournament.Fixtures.participant;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LateEntryTest {
+
+    @TempDir
+    Path directory;
+
+    private static Set<Integer> paired(Tournament t, int round) {
+        Set<Integer> ids = new HashSet<>();
+        for (Match m : t.getRoundMatches(round)) {
+            ids.add(m.getPlayer1().getId());
+            if (!m.isBye()) {
+                ids.add(m.getPlayer2().getId());
+            }
+        }
+        return ids;
+    }
+
+    private static List<Participant> sorted(Tournament t) {
+        List<Participant> all = new ArrayList<>(t.getParticipants());
+        all.sort(Tournament.STANDINGS_ORDER);
+        return all;
+    }
+
+    @Test
+    void lateEntrantTakesHalfPointByesAndIsPairedNext() {
+        Tournament t = Fixtures.played("Late", 11, 2, 5);
+        // Cache the standings so the entry updates them in place
+        t.getStandings();
+        Participant late = participant(40);
+        t.addLateEntry(late, true);
+
+        assertEquals(1.0, late.getScore());
+        assertEquals(12, t.getParticipants().size());
+        assertEquals(sorted(t), t.getStandings());
+        t.generateNextRound();
+        assertTrue(paired(t, 3).contains(40));
+        t.generateRoundResultsBatch(3);
+        // Twelve players, so no BYE
+        assertEquals(1, late.getOpponents().size());
+
+        // Joining without byes through addParticipant
+        Participant latest = participant(41);
+        t.addParticipant(latest);
+        assertEquals(0, latest.getScore());
+        assertEquals(sorted(t), t.getStandings());
+
+        assertThrows(IllegalArgumentException.class, () -> t.addLateEntry(participant(40), false));
+        assertTrue(t.undo());
+        assertFalse(t.getParticipants().contains(latest));
+        assertEquals(sorted(t), t.getStandings());
+    }
+
+    @Test
+    void withdrawnPlayersStayInTheStandingsButAreNotPaired() {
+        Tournament t = Fixtures.played("Withdraw", 10, 2, 8);
+        Participant leaver = t.getStandings().get(0);
+        List<Double> buchholz = new ArrayList<>();
+        for (Participant opponent : leaver.getOpponents()) {
+            buchholz.add(opponent.getOpponentsSumScore());
+        }
+        t.removeParticipant(leaver.getId());
+        assertTrue(t.isWithdrawn(leaver.getId()));
+        // Results against the withdrawn player keep counting
+        for (int i = 0; i < buchholz.size(); i++) {
+            assertEquals(buchholz.get(i), leaver.getOpponents().get(i).getOpponentsSumScore());
+        }
+        assertTrue(t.getStandings().contains(leaver));
+        assertEquals(sorted(t), t.getStandings());
+        assertThrows(IllegalStateException.class, () -> t.withdrawParticipant(leaver.getId()));
+        assertThrows(IllegalArgumentException.class, () -> t.withdrawParticipant(99));
+
+        t.generateNextRound();
+        assertFalse(paired(t, 3).contains(leaver.getId()));
+        assertEquals(9, paired(t, 3).size());
+
+        // Undoing the pairing and the withdrawal puts the player back in the pool
+        assertTrue(t.undo());
+        assertTrue(t.undo());
+        assertFalse(t.isWithdrawn(leaver.getId()));
+        t.generateNextRound();
+        assertTrue(paired(t, 3).contains(leaver.getId()));
+    }
+
+    @Test
+    void roundRobinOpponentsOfAWithdrawnPlayerRest() {
+        Tournament t = Fixtures.started(newTournament("Robin", TournamentFormat.ROUND_ROBIN, 6, 2));
+        t.generateNextRound();
+        t.generateRoundResultsBatch(1);
+        assertThrows(IllegalStateException.class, () -> t.addLateEntry(participant(7), false));
+        t.withdrawParticipant(3);
+
+        while (!t.isComplete()) {
+            t.generateNextRound();
+            List<Match> round = t.getRoundMatches(t.getCurrentRound());
+            assertEquals(2, round.size());
+            assertFalse(paired(t, t.getCurrentRound()).contains(3));
+            t.generateRoundResultsBatch(t.getCurrentRound());
+        }
+        assertEquals(5, t.getCurrentRound());
+    }
+
+    @Test
+    void replayRestoresEntriesAndWithdrawals() throws IOException {
+        Tournament t = Fixtures.played("Replayed", 9, 1, 4);
+        t.addLateEntry(participant(20), true);
+        t.withdrawParticipant(2);
+        t.generateNextRound();
+        t.generateRoundResultsBatch(2);
+        t.addParticipant(participant(21));
+        t.generateNextRound();
+        t.generateRoundResultsBatch(3);
+
+        List<String> expected = Fixtures.saved(t, directory);
+        Tournament copy = TournamentReplay.restore(TournamentRecord.of(t));
+        assertEquals(expected, Fixtures.saved(copy, directory));
+        assertTrue(copy.isWithdrawn(2));
+        assertEquals(t.getStandings().size(), copy.getStandings().size());
+
+        while (!t.isComplete()) {
+            t.generateNextRound();
+        }
+        assertThrows(IllegalStateException.class, () -> t.addLateEntry(participant(22), false));
+    }
+}
@@ -0,0 +1,134 @@
+package com.molights.tournament;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class MatchClockTest {
+
+    @Test
+    void wheelExpiresEachTimeoutOnItsTickAcrossWraps() {
+        // 6 buckets round up to 8 of 10 ms, so deadlines up to 1 s wrap the wheel many times
+        TimerWheel<Integer> wheel = new TimerWheel<>(10, 6, 0);
+        Random random = new Random(3);
+        long[] deadlines = new long[300];
+        int[] handles = new int[deadlines.length];
+        Set<Integer> cancelled = new HashSet<>();
+        for (int i = 0; i < deadlines.length; i++) {
+            deadlines[i] = random.nextInt(1000);
+            handles[i] = wheel.schedule(deadlines[i], i);
+        }
+        for (int i = 0; i < deadlines.length; i += 7) {
+            assertTrue(wheel.cancel(handles[i]));
+            assertFalse(wheel.cancel(handles[i]));
+            cancelled.add(i);
+        }
+        assertEquals(deadlines.length - cancelled.size(), wheel.size());
+
+        Set<Integer> fired = new HashSet<>();
+        long now = 0;
+        while (now < 1100) {
+            now += 1 + random.nextInt(45);
+            long time = now;
+            wheel.advance(time, i -> {
+                assertTrue(fired.add(i));
+                // Due once the tick holding the deadline has passed, never before
+                assertTrue(deadlines[i] <= time, "Timeout " + i + " fired early");
+                assertTrue(Math.max((deadlines[i] + 9) / 10, 1) * 10 <= time);
+            });
+            for (int i = 0; i < deadlines.length; i++) {
+                long due = Math.max((deadlines[i] + 9) / 10, 1) * 10;
+                assertEquals(!cancelled.contains(i) && due <= time, fired.contains(i), "Timeout " + i);
+            }
+        }
+        assertEquals(0, wheel.size());
+        assertEquals(0, wheel.advance(5000, i -> { }));
+
+        // A deadline already past waits for the next tick
+        wheel.schedule(0, -1);
+        assertEquals(0, wheel.advance(5009, i -> { }));
+        assertEquals(1, wheel.advance(5010, i -> { }));
+    }
+
+    @Test
+    void expiredMatchesAreForfeitedThroughTheTournament() {
+        AtomicLong time = new AtomicLong(100_000);
+        MatchClock clock = new MatchClock(1000, 64, time::get);
+        Tournament t = Fixtures.started(Fixtures.newTournament("Clock", 9, 3));
+        t.generateNextRound();
+        List<Match> games = new ArrayList<>();
+        for (Match m : t.getRoundMatches(1)) {
+            if (!m.isBye()) {
+                games.add(m);
+            }
+        }
+        assertEquals(4, clock.startRound(t, 30_000));
+        assertEquals(0, clock.startRound(t, 30_000));
+        assertEquals(130_000, games.get(0).getDeadline());
+
+        clock.report(games.get(0), Match.MatchResult.WIN_PLAYER2);
+        clock.claim(games.get(1), games.get(1).getPlayer2());
+        // Entered without the clock; dropped when its deadline passes
+        t.setMatchResult(games.get(2), Match.MatchResult.WIN_PLAYER1);
+        assertEquals(3, clock.getPendingCount());
+
+        time.set(129_999);
+        assertTrue(clock.advance().isEmpty());
+        time.set(131_000);
+        List<Match> forfeited = clock.advance();
+        assertEquals(new HashSet<>(Arrays.asList(games.get(1), games.get(3))), new HashSet<>(forfeited));
+        assertEquals(0, clock.getPendingCount());
+
+        assertEquals(Match.MatchResult.WIN_PLAYER2, games.get(1).getResult());
+        assertEquals(Match.MatchResult.DRAW, games.get(3).getResult());
+        assertTrue(games.get(3).isForfeit());
+        assertFalse(games.get(0).isForfeit());
+        assertFalse(games.get(2).isForfeit());
+        assertEquals(0.5, games.get(3).getPlayer1().getScore());
+        // Forfeits are journaled like reported results
+        assertTrue(t.undo());
+        assertEquals(1, t.getRoundMatches(1).stream().filter(m -> !m.isBye() && !m.isPlayed()).count());
+    }
+
+    @Test
+    void clocksRejectInvalidUse() {
+        AtomicLong time = new AtomicLong();
+        MatchClock clock = new MatchClock(100, 8, time::get);
+        List<Participant> roster = Fixtures.roster(3);
+        Match match = new Match(roster.get(0), roster.get(1), 1);
+
+        assertThrows(IllegalArgumentException.class, () -> clock.start(new Match(roster.get(2), 1), 500));
+        assertThrows(IllegalArgumentException.class, () -> clock.start(match, -1));
+        assertThrows(IllegalStateException.class, () -> clock.claim(match, roster.get(0)));
+        clock.start(match, 500);
+        assertTrue(clock.isRunning(match));
+        assertThrows(IllegalStateException.class, () -> clock.start(match, 500));
+        assertThrows(IllegalArgumentException.class, () -> clock.claim(match, roster.get(2)));
+        assertThrows(IllegalArgumentException.class,
+                     () -> clock.setDefaultForfeit(Match.MatchResult.NOT_PLAYED));
+
+        assertTrue(clock.stop(match));
+        assertFalse(clock.stop(match));
+        time.set(1000);
+        assertTrue(clock.advance().isEmpty());
+        assertFalse(match.isPlayed());
+
+        clock.setDefaultForfeit(Match.MatchResult.WIN_PLAYER1);
+        clock.start(match, 0);
+        time.set(1100);
+        assertEquals(Arrays.asList(match), clock.advance());
+        assertEquals(Match.MatchResult.WIN_PLAYER1, match.getResult());
+        assertThrows(IllegalStateException.class, () -> clock.start(match, 500));
+    }
+}
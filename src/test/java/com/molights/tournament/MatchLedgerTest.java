@@ -0,0 +1,90 @@
+package com.molights.tournament;
+
+import static com.molights.tournament.Fixtures.roster;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class MatchLedgerTest {
+
+    @Test
+    void copyOfATournamentScansLikeItsMatches() {
+        Tournament t = Fixtures.played("Ledger", 9, 3, 4);
+        MatchLedger ledger = t.toLedger();
+        List<Participant> participants = t.getParticipants();
+
+        assertEquals(t.getMatches().size(), ledger.getTotalMatches());
+        List<String> scanned = new ArrayList<>();
+        ledger.scan((round, index, player1, player2, result) -> scanned.add(
+                round + " " + participants.get(player1).getId() + " "
+                + (player2 == MatchLedger.NO_PLAYER ? 0 : participants.get(player2).getId()) + " " + result));
+        List<String> expected = new ArrayList<>();
+        for (Match m : t.getMatches()) {
+            expected.add(m.getRoundNumber() + " " + m.getPlayer1().getId() + " "
+                         + (m.isBye() ? 0 : m.getPlayer2().getId()) + " "
+                         + (m.isBye() ? MatchLedger.BYE : MatchLedger.code(m.getResult())));
+        }
+        assertEquals(expected, scanned);
+
+        int[] half = ledger.computeHalfPoints();
+        for (int i = 0; i < participants.size(); i++) {
+            assertEquals(participants.get(i).getScore() * 2, half[i], 1e-9);
+        }
+    }
+
+    @Test
+    void viewsApplyResultsToTheRosterOnce() {
+        List<Participant> roster = roster(3);
+        MatchLedger ledger = new MatchLedger(roster);
+        int round = ledger.addRound();
+        int game = ledger.addPairing(round, 0, 1);
+        int bye = ledger.addBye(round, 2);
+
+        Match match = ledger.getMatch(round, game);
+        match.setResult(Match.MatchResult.WIN_PLAYER1);
+        assertEquals(1.0, roster.get(0).getScore());
+        match.setResult(Match.MatchResult.DRAW);
+        assertEquals(0.5, roster.get(0).getScore());
+        assertEquals(0.5, roster.get(1).getScore());
+        assertEquals(Match.MatchResult.DRAW, ledger.getResult(round, game));
+        assertEquals(Arrays.asList(1, 1), Arrays.asList(roster.get(0).getOpponents().size(),
+                                                        roster.get(1).getOpponents().size()));
+
+        // Regenerating a played entry replaces its result instead of adding another
+        for (int i = 0; i < 50; i++) {
+            match.generateRandomResult();
+            assertEquals(1.0, roster.get(0).getScore() + roster.get(1).getScore());
+            assertEquals(1, roster.get(0).getWinCount() + roster.get(0).getDrawCount() + roster.get(0).getLossCount());
+            assertEquals(ledger.getResult(round, game), match.getResult());
+        }
+
+        assertTrue(ledger.getMatch(round, bye).isBye());
+        assertThrows(IllegalStateException.class, () -> ledger.getMatch(round, bye).generateRandomResult());
+        assertThrows(IllegalStateException.class, () -> ledger.record(round, bye, Match.MatchResult.DRAW));
+    }
+
+    @Test
+    void roundsGrowAndRejectBadEntries() {
+        MatchLedger ledger = new MatchLedger(roster(40));
+        int round = ledger.addRound();
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i, ledger.addPairing(round, 2 * i, 2 * i + 1));
+        }
+        assertEquals(20, ledger.getMatchCount(round));
+        assertEquals(20, ledger.getRoundMatches(round).size());
+        assertEquals(39, ledger.getPlayer2(round, 19));
+        assertEquals(MatchLedger.NOT_PLAYED, ledger.getResultCode(round, 19));
+
+        assertThrows(IllegalArgumentException.class, () -> ledger.addPairing(round, 3, 3));
+        assertThrows(IllegalArgumentException.class, () -> ledger.addPairing(round, 0, 40));
+        assertThrows(IllegalArgumentException.class, () -> ledger.addPairing(2, 0, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> ledger.getMatch(round, 20));
+        assertThrows(IllegalArgumentException.class, () -> ledger.record(round, 0, null));
+    }
+}
@@ -0,0 +1,143 @@
+package com.molights.tournament;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class PairingConstraintTest {
+
+    private static PairingConstraint fixed(int[] values) {
+        return (tournament, players, codes) -> System.arraycopy(values, 0, codes, 0, codes.length);
+    }
+
+    private static boolean naiveCompatible(List<int[]> constraints, int a, int b) {
+        for (int[] codes : constraints) {
+            if (codes[a] != 0 && codes[a] == codes[b]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void assertMasksMatch(List<int[]> values, int players, Random random, int samples) {
+        List<PairingConstraint> constraints = new ArrayList<>();
+        for (int[] codes : values) {
+            constraints.add(fixed(codes));
+        }
+        List<Participant> field = Collections.nCopies(players, null);
+        PairingMasks masks = PairingMasks.compile(null, field, constraints);
+        for (int i = 0; i < samples; i++) {
+            int a = random.nextInt(players);
+            int b = random.nextInt(players);
+            assertEquals(naiveCompatible(values, a, b), masks.compatible(a, b), a + " and " + b);
+        }
+    }
+
+    @Test
+    void masksAgreeWithComparingCodes() {
+        Random random = new Random(17);
+        int players = 300;
+        List<int[]> values = new ArrayList<>();
+        // Five constraints need two words of four 16-bit lanes
+        for (int c = 0; c < 5; c++) {
+            int[] codes = new int[players];
+            for (int i = 0; i < players; i++) {
+                int roll = random.nextInt(6);
+                codes[i] = roll == 0 ? 0 : c == 4 ? Integer.MIN_VALUE + roll * 1_000_003 : roll;
+            }
+            values.add(codes);
+        }
+        assertMasksMatch(values, players, random, 20_000);
+
+        PairingMasks unconstrained = PairingMasks.compile(null, Collections.nCopies(players, null),
+                                                          Collections.singletonList(fixed(new int[players])));
+        for (int a = 0; a < players; a++) {
+            assertTrue(unconstrained.compatible(a, 0));
+        }
+        assertNull(PairingMasks.compile(null, Collections.nCopies(players, null), Collections.emptyList()));
+    }
+
+    @Test
+    void manyGroupsUseWideLanes() {
+        Random random = new Random(4);
+        int players = 70_000;
+        int[] unique = new int[players];
+        int[] pairs = new int[players];
+        int[] sparse = new int[players];
+        for (int i = 0; i < players; i++) {
+            // More than 65535 groups after remapping
+            unique[i] = 3 * i + 1;
+            pairs[i] = i / 2 + 1;
+            sparse[i] = i % 5 == 0 ? 0 : random.nextInt(3) + 1;
+        }
+        List<int[]> values = new ArrayList<>();
+        values.add(unique);
+        values.add(pairs);
+        values.add(sparse);
+        assertMasksMatch(values, players, random, 50_000);
+        // Neighbours share a group in the second constraint
+        List<PairingConstraint> constraints = new ArrayList<>();
+        for (int[] codes : values) {
+            constraints.add(fixed(codes));
+        }
+        PairingMasks masks = PairingMasks.compile(null, Collections.nCopies(players, null), constraints);
+        assertFalse(masks.compatible(10, 11));
+        assertEquals(naiveCompatible(values, 10, 12), masks.compatible(10, 12));
+    }
+
+    @Test
+    void clubmatesAreKeptApartWhilePossible() {
+        Tournament t = Fixtures.started(Fixtures.newTournament("Clubs", 16, 6));
+        t.addPairingConstraint(PairingConstraint.sameGroup(p -> (p.getId() + 1) / 2));
+        for (int round = 1; round <= 2; round++) {
+            t.generateNextRound();
+            for (Match m : t.getRoundMatches(round)) {
+                assertNotEquals((m.getPlayer1().getId() + 1) / 2, (m.getPlayer2().getId() + 1) / 2);
+            }
+            t.generateRoundResultsBatch(round);
+        }
+
+        // Nobody could be paired under this one, so it is ignored
+        PairingConstraint everyone = PairingConstraint.sameGroup(p -> 1);
+        t.addPairingConstraint(everyone);
+        t.generateNextRound();
+        assertEquals(8, t.getRoundMatches(3).size());
+        assertTrue(t.removePairingConstraint(everyone));
+    }
+
+    @Test
+    void colourBalancingEvensOutColours() {
+        Tournament t = Fixtures.started(Fixtures.newTournament("Colours", 32, 9));
+        t.setColourBalancing(true);
+        assertTrue(t.isColourBalancing());
+        Map<Integer, Integer> difference = new HashMap<>();
+        while (!t.isComplete()) {
+            t.generateNextRound();
+            for (Match m : t.getRoundMatches(t.getCurrentRound())) {
+                if (!m.isBye()) {
+                    difference.merge(m.getPlayer1().getId(), 1, Integer::sum);
+                    difference.merge(m.getPlayer2().getId(), -1, Integer::sum);
+                }
+            }
+            t.generateRoundResultsBatch(t.getCurrentRound());
+        }
+        assertEquals(32, difference.size());
+        for (int colours : difference.values()) {
+            // Five games each, so one colour more is the best possible
+            assertEquals(1, Math.abs(colours));
+        }
+        t.setColourBalancing(false);
+        assertFalse(t.isColourBalancing());
+    }
+}
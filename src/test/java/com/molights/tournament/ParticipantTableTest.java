@@ -0,0 +1,96 @@
+package com.molights.tournament;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class ParticipantTableTest {
+
+    private static ParticipantTable filled(ParticipantTable table, int players) {
+        for (int id = 1; id <= players; id++) {
+            table.add(id, "Player " + id, ParticipantStatus.values()[id % 3]);
+        }
+        return table;
+    }
+
+    @Test
+    void eachRowHasOneViewThatSurvivesGrowth() {
+        ParticipantTable table = filled(new ParticipantTable(0), 10);
+        Participant first = table.view(0);
+        assertSame(first, table.view(0));
+        assertSame(first, table.views().get(0));
+
+        // Past the initial capacity of 16 rows
+        for (int id = 11; id <= 100; id++) {
+            table.add(id, "Player " + id, ParticipantStatus.LOW);
+        }
+        assertSame(first, table.view(0));
+        assertEquals(1, first.getId());
+        assertEquals(100, table.view(99).getId());
+        assertThrows(IndexOutOfBoundsException.class, () -> table.view(100));
+    }
+
+    @Test
+    void viewsReadAndWriteTheColumns() {
+        for (ParticipantTable table : new ParticipantTable[] {new ParticipantTable(4), ParticipantTable.offHeap(4)}) {
+            filled(table, 3);
+            Participant a = table.view(0);
+            Participant b = table.view(1);
+
+            Match match = new Match(a, b, 1);
+            match.setResult(Match.MatchResult.WIN_PLAYER1);
+            assertEquals(2, table.getHalfPoints(0));
+            assertEquals(1, table.getLossCount(1));
+            assertTrue(a.hasPlayedWith(b));
+            assertEquals(Collections.singletonList(b), a.getOpponents());
+
+            match.setResult(Match.MatchResult.DRAW);
+            assertEquals(0.5, a.getScore());
+            assertEquals(0.5, b.getScore());
+            assertEquals(1, a.getDrawCount());
+            assertEquals(0, a.getWinCount());
+            assertEquals(1.0, a.getOpponentsSumScore() + b.getOpponentsSumScore());
+
+            table.view(2).byeParticipant();
+            assertTrue(table.wasByed(2));
+            assertThrows(IllegalStateException.class, () -> table.view(2).byeParticipant());
+            assertThrows(IllegalArgumentException.class, () -> a.addPoint(0.3));
+        }
+    }
+
+    @Test
+    void tournamentPlaysOnTableViews() {
+        ParticipantTable table = filled(new ParticipantTable(16), 12);
+        Tournament t = Fixtures.newTournament("Table", 0, 6);
+        for (Participant p : table.views()) {
+            t.addParticipant(p);
+        }
+        t.startTournament();
+        for (int round = 1; round <= t.getTotalRounds(); round++) {
+            t.generateNextRound();
+            t.generateRoundResultsBatch(round);
+        }
+        for (int row = 0; row < table.size(); row++) {
+            Participant p = table.view(row);
+            assertEquals(table.getHalfPoints(row), (int) Math.round(p.getScore() * 2));
+            assertEquals(t.getTotalRounds(), p.getWinCount() + p.getDrawCount() + p.getLossCount());
+        }
+
+        // Edits through a view reach the tournament like any participant's
+        long version = t.getVersion();
+        Participant renamed = table.view(4);
+        renamed.setName("Zelda");
+        assertEquals("Zelda", table.getName(4));
+        assertTrue(t.getVersion() > version);
+        List<Participant> found = t.findParticipantsByName("zelda");
+        assertEquals(Collections.singletonList(renamed), found);
+        assertFalse(t.findParticipantsByName("Player 5").contains(renamed));
+    }
+}
@@ -0,0 +1,130 @@
+package com.molights.tournament;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class RatingPoolTest {
+
+    @Test
+    void eloFollowsTheLogisticCurveAndRetractsExactly() {
+        RatingPool pool = new RatingPool(RatingPool.RatingSystem.ELO, 2);
+        pool.register(1, 1600, RatingPool.DEFAULT_DEVIATION, RatingPool.DEFAULT_VOLATILITY);
+        pool.register(2, 1400, RatingPool.DEFAULT_DEVIATION, RatingPool.DEFAULT_VOLATILITY);
+        double expected = pool.expectedScore(1, 2);
+        // The classic base-10 curve over 400 points
+        assertEquals(1 / (1 + Math.pow(10, -200 / 400.0)), expected, 1e-6);
+        assertEquals(1, pool.expectedScore(1, 2) + pool.expectedScore(2, 1), 1e-12);
+
+        pool.recordGame(1, 2, 0.5);
+        pool.retractGame(1, 2, 0.5);
+        pool.recordGame(1, 2, 1.0);
+        assertEquals(1, pool.getPeriodGames(1));
+        assertEquals(1600 + 20 * (1 - expected), pool.getLiveRating(1), 1e-9);
+        assertEquals(1600, pool.getRating(1));
+
+        pool.closePeriod();
+        assertEquals(1600 + 20 * (1 - expected), pool.getRating(1), 1e-9);
+        assertEquals(1400 - 20 * (1 - expected), pool.getRating(2), 1e-9);
+        assertEquals(0, pool.getPeriodGames(1));
+        assertEquals(ParticipantStatus.MEDIUM, pool.bandOf(1));
+        // Dropped below the MEDIUM band's floor of 1400
+        assertEquals(ParticipantStatus.LOW, pool.bandOf(2));
+    }
+
+    @Test
+    void glickoMatchesTheWorkedExample() {
+        // Example from Glickman's description of the Glicko-2 system
+        RatingPool pool = new RatingPool(RatingPool.RatingSystem.GLICKO2, 4);
+        pool.register(1, 1500, 200, 0.06);
+        pool.register(2, 1400, 30, 0.06);
+        pool.register(3, 1550, 100, 0.06);
+        pool.register(4, 1700, 300, 0.06);
+        pool.recordGame(1, 2, 1.0);
+        pool.recordGame(1, 3, 0.0);
+        pool.recordGame(4, 1, 1.0);
+        pool.closePeriod();
+
+        assertEquals(1464.06, pool.getRating(1), 0.01);
+        assertEquals(151.52, pool.getDeviation(1), 0.01);
+        assertEquals(0.05999, pool.getVolatility(1), 0.00001);
+    }
+
+    @Test
+    void glickoPlayersWithoutGamesOnlyGainDeviation() {
+        RatingPool pool = new RatingPool(RatingPool.RatingSystem.GLICKO2, 0);
+        pool.register(1, 1500, 50, 0.06);
+        pool.register(2, 1500, 349.95, 0.06);
+        pool.closePeriod();
+        assertEquals(1500, pool.getRating(1));
+        double phi = 50 / 173.7178;
+        assertEquals(Math.sqrt(phi * phi + 0.06 * 0.06) * 173.7178, pool.getDeviation(1), 1e-9);
+        // Capped at the deviation of a new player
+        assertEquals(RatingPool.DEFAULT_DEVIATION, pool.getDeviation(2));
+    }
+
+    @Test
+    void probabilitiesSplitTheRollIntoThreeResults() {
+        RatingPool pool = new RatingPool(RatingPool.RatingSystem.ELO, 3);
+        pool.register(1, 1500, RatingPool.DEFAULT_DEVIATION, RatingPool.DEFAULT_VOLATILITY);
+        pool.register(2, 1500, RatingPool.DEFAULT_DEVIATION, RatingPool.DEFAULT_VOLATILITY);
+        pool.register(3, 2300, RatingPool.DEFAULT_DEVIATION, RatingPool.DEFAULT_VOLATILITY);
+
+        assertEquals(0.2, pool.drawProbability(1, 2), 1e-12);
+        assertEquals(0.4, pool.winProbability(1, 2), 1e-12);
+        assertEquals(Match.MatchResult.WIN_PLAYER1, pool.randomResult(1, 2, 0.399));
+        assertEquals(Match.MatchResult.DRAW, pool.randomResult(1, 2, 0.4));
+        assertEquals(Match.MatchResult.DRAW, pool.randomResult(1, 2, 0.599));
+        assertEquals(Match.MatchResult.WIN_PLAYER2, pool.randomResult(1, 2, 0.601));
+
+        // The favourite's draws shrink with the rating gap
+        double e = pool.expectedScore(3, 1);
+        assertTrue(e > 0.99);
+        assertEquals(0.2 * (1 - Math.abs(2 * e - 1)), pool.drawProbability(3, 1), 1e-12);
+        assertEquals(e, pool.winProbability(3, 1) + pool.drawProbability(3, 1) / 2, 1e-12);
+
+        pool.setDrawRate(0);
+        assertEquals(0, pool.drawProbability(1, 2));
+        assertThrows(IllegalArgumentException.class, () -> pool.setDrawRate(1.5));
+        assertThrows(IllegalArgumentException.class, () -> pool.expectedScore(1, 9));
+    }
+
+    @Test
+    void attachedPoolFollowsResultsCorrectionsAndUndo() {
+        Tournament t = Fixtures.newTournament("Rated", 6, 2);
+        RatingPool pool = new RatingPool(RatingPool.RatingSystem.ELO, 8);
+        t.setRatingPool(pool);
+        assertEquals(6, pool.size());
+        assertEquals(ParticipantStatus.HIGH.getSeedRating(), pool.getRating(2));
+        assertFalse(pool.register(t.getParticipants().get(0)));
+
+        t.startTournament();
+        t.generateNextRound();
+        Match match = t.getRoundMatches(1).get(0);
+        int id1 = match.getPlayer1().getId();
+        double before = pool.getLiveRating(id1);
+        t.setMatchResult(match, Match.MatchResult.WIN_PLAYER2);
+        t.setMatchResult(match, Match.MatchResult.WIN_PLAYER1);
+        assertEquals(1, pool.getPeriodGames(id1));
+        assertTrue(pool.getLiveRating(id1) > before);
+        t.undo();
+        t.undo();
+        assertEquals(0, pool.getPeriodGames(id1));
+        assertEquals(before, pool.getLiveRating(id1), 1e-9);
+
+        t.generateRoundResultsBatch(4);
+        pool.closePeriod();
+        pool.applyBands(t.getParticipants());
+        for (Participant p : t.getParticipants()) {
+            assertEquals(ParticipantStatus.forRating(pool.getRating(p.getId())), p.getStatus());
+        }
+        assertEquals(Arrays.asList(ParticipantStatus.LOW, ParticipantStatus.MEDIUM, ParticipantStatus.HIGH),
+                     Arrays.asList(ParticipantStatus.forRating(1399), ParticipantStatus.forRating(1400),
+                                   ParticipantStatus.forRating(1800)));
+    }
+}
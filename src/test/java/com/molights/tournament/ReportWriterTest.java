@@ -0,0 +1,138 @@
+package com.molights.tournament;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+
+class ReportWriterTest {
+
+    private static final String NL = System.lineSeparator();
+
+    private static String table(ReportFormat format, ReportWriter.Layout layout, List<Participant> rows)
+            throws IOException {
+        StringWriter out = new StringWriter();
+        try (ReportWriter report = new ReportWriter(out, format)) {
+            report.writeTable(layout, rows);
+        }
+        return out.toString();
+    }
+
+    private static String matches(ReportFormat format, ReportWriter.MatchStyle style, List<Match> matches)
+            throws IOException {
+        StringWriter out = new StringWriter();
+        try (ReportWriter report = new ReportWriter(out, format)) {
+            report.writeMatches(style, matches);
+        }
+        return out.toString();
+    }
+
+    @Test
+    void textMatchesAreRenderedLikeTheirStrings() throws IOException {
+        Tournament t = Fixtures.played("Report", 9, 3, 2);
+        StringBuilder listing = new StringBuilder();
+        StringBuilder file = new StringBuilder();
+        int round = 0;
+        int number = 0;
+        for (Match m : t.getMatches()) {
+            if (m.getRoundNumber() != round) {
+                round = m.getRoundNumber();
+                number = 0;
+            }
+            listing.append("  ").append(m).append(NL);
+            file.append("Match ").append(++number).append(": ").append(m.toFileString()).append(NL);
+        }
+        assertEquals(listing.toString(),
+                     matches(ReportFormat.TEXT, ReportWriter.MatchStyle.LISTING, t.getMatches()));
+        assertEquals(file.toString(), matches(ReportFormat.TEXT, ReportWriter.MatchStyle.FILE, t.getMatches()));
+    }
+
+    @Test
+    void textTablesPadEachColumnPastTheBuffer() throws IOException {
+        // Enough rows to spill the internal buffer several times
+        Tournament t = Fixtures.played("Report", 400, 2, 5);
+        List<Participant> standings = t.getStandings();
+        StringBuilder expected = new StringBuilder();
+        String header = "%-5s %-4s %-20s %-8s %-8s %-12s %-10s";
+        String row = "%-5d %-4d %-20s %-8.1f %-8s %-12s %-10.1f";
+        expected.append(String.format(Locale.ROOT, header, "Rank", "ID", "Name", "Score", "Status", "W-D-L",
+                                      "Buchholz")).append(NL);
+        for (int i = 0; i < 80; i++) {
+            expected.append('=');
+        }
+        expected.append(NL);
+        for (int i = 0; i < standings.size(); i++) {
+            Participant p = standings.get(i);
+            expected.append(String.format(Locale.ROOT, row, i + 1, p.getId(), p.getName(), p.getScore(),
+                                          p.getStatus().name(),
+                                          p.getWinCount() + "-" + p.getDrawCount() + "-" + p.getLossCount(),
+                                          p.getOpponentsSumScore())).append(NL);
+        }
+        assertEquals(expected.toString(), table(ReportFormat.TEXT, ReportWriter.CONSOLE_STANDINGS, standings));
+    }
+
+    @Test
+    void csvAndJsonEscapeNames() throws IOException {
+        Participant a = new Participant(1, "Smith, \"Ace\"", ParticipantStatus.HIGH);
+        Participant b = new Participant(2, "Back\\slash", ParticipantStatus.LOW);
+        Participant c = new Participant(3, "Plain", ParticipantStatus.MEDIUM);
+        Match played = new Match(a, b, 1);
+        played.setResult(Match.MatchResult.WIN_PLAYER1);
+        Match bye = new Match(c, 1);
+        List<Participant> rows = Arrays.asList(a, b);
+
+        assertEquals("id,name,score,status,wins,draws,losses" + NL
+                     + "1,\"Smith, \"\"Ace\"\"\",1.0,HIGH,1,0,0" + NL
+                     + "2,Back\\slash,0.0,LOW,0,0,1" + NL,
+                     table(ReportFormat.CSV, ReportWriter.FILE_PARTICIPANTS, rows));
+        assertEquals("[" + NL
+                     + "  {\"id\":1,\"name\":\"Smith, \\\"Ace\\\"\",\"score\":1.0,\"status\":\"HIGH\","
+                     + "\"wins\":1,\"draws\":0,\"losses\":0}," + NL
+                     + "  {\"id\":2,\"name\":\"Back\\\\slash\",\"score\":0.0,\"status\":\"LOW\","
+                     + "\"wins\":0,\"draws\":0,\"losses\":1}" + NL
+                     + "]" + NL,
+                     table(ReportFormat.JSON, ReportWriter.FILE_PARTICIPANTS, rows));
+
+        List<Match> listed = Arrays.asList(played, bye);
+        assertEquals("round,match,player1_id,player1,player2_id,player2,result" + NL
+                     + "1,1,1,\"Smith, \"\"Ace\"\"\",2,Back\\slash,1-0" + NL
+                     + "1,2,3,Plain,,,BYE" + NL,
+                     matches(ReportFormat.CSV, ReportWriter.MatchStyle.FILE, listed));
+        assertEquals("[" + NL
+                     + "  {\"round\":1,\"match\":1,\"player1\":1,\"player2\":2,\"result\":\"1-0\"}," + NL
+                     + "  {\"round\":1,\"match\":2,\"player1\":3,\"player2\":null,\"result\":\"BYE\"}" + NL
+                     + "]" + NL,
+                     matches(ReportFormat.JSON, ReportWriter.MatchStyle.FILE, listed));
+    }
+
+    @Test
+    void renderedReportsAreCachedUntilTheTournamentChanges() {
+        Tournament t = Fixtures.played("Report", 8, 2, 3);
+        String standings = t.renderStandings(ReportFormat.CSV);
+        String round = t.renderRound(2, ReportFormat.JSON);
+        assertSame(standings, t.renderStandings(ReportFormat.CSV));
+        assertSame(round, t.renderRound(2, ReportFormat.JSON));
+        assertNotEquals(standings, t.renderStandings(ReportFormat.TEXT));
+
+        List<Match> open = new ArrayList<>();
+        t.generateNextRound();
+        for (Match m : t.getRoundMatches(3)) {
+            if (!m.isBye()) {
+                open.add(m);
+            }
+        }
+        t.setMatchResult(open.get(0), Match.MatchResult.WIN_PLAYER1);
+        assertNotEquals(standings, t.renderStandings(ReportFormat.CSV));
+        assertThrows(IllegalArgumentException.class, () -> t.renderRound(4, ReportFormat.TEXT));
+        assertThrows(IllegalArgumentException.class, () -> t.renderStandings(null));
+    }
+}
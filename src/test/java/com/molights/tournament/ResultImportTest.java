@@ -0,0 +1,158 @@
+package com.molights.tournament;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ResultImportTest {
+
+    private Tournament tournament;
+    private List<Match> round;
+    private List<Match> games;
+
+    @BeforeEach
+    void pairFirstRound() {
+        tournament = Fixtures.started(Fixtures.newTournament("Import", 9, 1));
+        tournament.generateNextRound();
+        round = tournament.getRoundMatches(1);
+        // 9 players: four games and a BYE
+        assertEquals(5, round.size());
+        games = new ArrayList<>();
+        for (Match match : round) {
+            if (!match.isBye()) {
+                games.add(match);
+            }
+        }
+    }
+
+    /**
+     * @return Match number of a game within the round, starting at 1
+     */
+    private int number(Match match) {
+        return round.indexOf(match) + 1;
+    }
+
+    private int importText(String text) throws IOException {
+        return tournament.importRoundResults(new StringReader(text));
+    }
+
+    private static String pairing(Match match) {
+        return match.getPlayer1().getName() + " vs " + match.getPlayer2().getName();
+    }
+
+    private void assertNothingPlayed() {
+        for (Match match : round) {
+            if (!match.isBye()) {
+                assertFalse(match.isPlayed(), match.toString());
+            }
+        }
+    }
+
+    @Test
+    void importsFileLinesAsOneUndoableBatch() throws IOException {
+        StringBuilder text = new StringBuilder("=== ROUND 1 ===\n");
+        for (Match match : round) {
+            text.append(match.isBye() ? match.toFileString() : pairing(match) + " => 0.5-0.5").append('\n');
+        }
+
+        assertEquals(4, importText(text.toString()));
+        for (Match match : round) {
+            assertTrue(match.isPlayed());
+        }
+
+        assertTrue(tournament.undo());
+        assertNothingPlayed();
+    }
+
+    @Test
+    void importsCsvWithHeader() throws IOException {
+        StringBuilder text = new StringBuilder("round,match,player1_id,player2_id,result\n");
+        for (int i = 0; i < round.size(); i++) {
+            Match match = round.get(i);
+            if (!match.isBye()) {
+                text.append("1,").append(i + 1).append(',').append(match.getPlayer1().getId())
+                    .append(',').append(match.getPlayer2().getId()).append(",1-0\n");
+            }
+        }
+
+        assertEquals(4, importText(text.toString()));
+        for (Match match : round) {
+            if (!match.isBye()) {
+                assertEquals(Match.MatchResult.WIN_PLAYER1, match.getResult());
+            }
+        }
+    }
+
+    @Test
+    void rejectsWholeBatchAndListsEveryError() {
+        Match first = games.get(0);
+        Match second = games.get(1);
+        String text = pairing(first) + " => 1-0\n"
+                + second.getPlayer2().getName() + " vs " + second.getPlayer1().getName() + " => 1-0\n"
+                + pairing(first) + " => 1-0\n"
+                + "Nobody vs Someone => 0-1\n"
+                + pairing(games.get(2)) + " => 2-0\n";
+
+        ResultImportException e = assertThrows(ResultImportException.class, () -> importText(text));
+
+        List<String> errors = e.getErrors();
+        assertEquals(4, errors.size(), errors.toString());
+        assertTrue(errors.get(0).startsWith("line 2: players are reversed"), errors.get(0));
+        assertTrue(errors.get(1).startsWith("line 3: match " + number(first) + " already given on line 1"),
+                errors.get(1));
+        assertTrue(errors.get(2).startsWith("line 4: no pairing"), errors.get(2));
+        assertTrue(errors.get(3).startsWith("line 5: unknown result"), errors.get(3));
+        // The valid first row was not applied either
+        assertNothingPlayed();
+    }
+
+    @Test
+    void reportsUnterminatedQuoteInHeader() {
+        ResultImportException e = assertThrows(ResultImportException.class,
+                () -> importText("\"match,result\n1,1-0\n"));
+
+        assertEquals(1, e.getErrors().size());
+        assertEquals("line 1: unterminated quoted field", e.getErrors().get(0));
+        assertNothingPlayed();
+    }
+
+    @Test
+    void reportsUnterminatedQuoteInRow() {
+        ResultImportException e = assertThrows(ResultImportException.class,
+                () -> importText("match,result\n" + number(games.get(0)) + ",1-0\n"
+                                 + number(games.get(1)) + ",\"0-1\n"));
+
+        assertEquals(Collections.singletonList("line 3: unterminated quoted field"), e.getErrors());
+        assertNothingPlayed();
+    }
+
+    @Test
+    void rejectsResultsForAnotherRound() {
+        ResultImportException e = assertThrows(ResultImportException.class,
+                () -> importText("=== ROUND 2 ===\n" + pairing(games.get(0)) + " => 1-0\n"));
+
+        assertEquals(1, e.getErrors().size());
+        assertTrue(e.getErrors().get(0).contains("current round is 1"), e.getErrors().get(0));
+    }
+
+    @Test
+    void repeatedRecordedResultIsSkipped() throws IOException {
+        Match first = games.get(0);
+        tournament.setMatchResult(first, Match.MatchResult.DRAW);
+
+        assertEquals(0, importText(pairing(first) + " => 0.5-0.5\n"));
+        ResultImportException e = assertThrows(ResultImportException.class,
+                () -> importText(pairing(first) + " => 1-0\n"));
+        assertTrue(e.getErrors().get(0).contains("already has result 0.5-0.5"), e.getErrors().get(0));
+    }
+}
@@ -0,0 +1,134 @@
+package com.molights.tournament;
+
+import static com.molights.tournament.Fixtures.ids;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class RosterIndexTest {
+
+    private static final String[] NAMES = {"Ann", "anna", "Anne", "Bo", "bob", "Bob", "Carl", "carla", "Dee"};
+
+    private static Tournament newTournament() {
+        return Fixtures.newTournament("Roster", 0, 1);
+    }
+
+    private static String fold(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return Roster in the index order: name ignoring case, then ID
+     */
+    private static List<Participant> byName(Tournament t) {
+        List<Participant> all = new ArrayList<>(t.getParticipants());
+        all.sort(Comparator.comparing((Participant p) -> fold(p.getName())).thenComparingInt(Participant::getId));
+        return all;
+    }
+
+    private static void assertLookupsMatchRoster(Tournament t, String query) {
+        List<Participant> all = byName(t);
+        List<Participant> exact = new ArrayList<>();
+        List<Participant> prefixed = new ArrayList<>();
+        for (Participant p : all) {
+            if (fold(p.getName()).equals(fold(query))) {
+                exact.add(p);
+            }
+            if (fold(p.getName()).startsWith(fold(query))) {
+                prefixed.add(p);
+            }
+        }
+        assertEquals(ids(exact), ids(t.findParticipantsByName(query)), query);
+        assertEquals(ids(prefixed), ids(t.searchParticipants(query, Integer.MAX_VALUE)), query);
+        assertEquals(ids(prefixed.subList(0, Math.min(2, prefixed.size()))), ids(t.searchParticipants(query, 2)));
+        assertEquals(prefixed.size(), t.countParticipants(query), query);
+    }
+
+    @Test
+    void lookupsFollowAddsRemovesRenamesAndUndo() {
+        Random random = new Random(17);
+        for (int trial = 0; trial < 20; trial++) {
+            Tournament t = newTournament();
+            List<Participant> removed = new ArrayList<>();
+            int nextId = 1;
+            for (int step = 0; step < 300; step++) {
+                List<Participant> roster = t.getParticipants();
+                int op = random.nextInt(10);
+                if (op < 3 || roster.isEmpty()) {
+                    t.addParticipant(new Participant(nextId++, NAMES[random.nextInt(NAMES.length)],
+                                                     ParticipantStatus.MEDIUM));
+                } else if (op < 5) {
+                    Participant p = roster.get(random.nextInt(roster.size()));
+                    t.removeParticipant(p.getId());
+                    removed.add(p);
+                } else if (op < 7) {
+                    Participant p = roster.get(random.nextInt(roster.size()));
+                    p.setName(NAMES[random.nextInt(NAMES.length)] + (random.nextBoolean() ? "" : " " + step));
+                } else if (op < 8) {
+                    roster.get(random.nextInt(roster.size())).setStatus(ParticipantStatus.HIGH);
+                } else if (op < 9 && !removed.isEmpty()) {
+                    // Renamed while out of the roster, then brought back by undo
+                    Participant last = removed.get(removed.size() - 1);
+                    last.setName(NAMES[random.nextInt(NAMES.length)]);
+                    t.undo();
+                    removed.clear();
+                } else {
+                    assertLookupsMatchRoster(t, NAMES[random.nextInt(NAMES.length)].substring(0, 1 + random.nextInt(2)));
+                }
+            }
+            for (String name : NAMES) {
+                assertLookupsMatchRoster(t, name);
+            }
+            assertLookupsMatchRoster(t, "");
+        }
+    }
+
+    @Test
+    void renameBetweenLookupsReKeysOnlyThatParticipant() {
+        Tournament t = newTournament();
+        Participant ann = new Participant(1, "Ann", ParticipantStatus.LOW);
+        t.addParticipant(ann);
+        t.addParticipant(new Participant(2, "Bob", ParticipantStatus.LOW));
+        assertEquals(1, t.findParticipantsByName("ann").size());
+
+        ann.setName("Zed");
+        assertTrue(t.findParticipantsByName("ann").isEmpty());
+        assertEquals(Collections.singletonList(ann), t.findParticipantsByName("ZED"));
+
+        // Added and renamed before any lookup
+        Participant late = new Participant(3, "Carl", ParticipantStatus.LOW);
+        t.addParticipant(late);
+        late.setName("Abe");
+        assertEquals(Collections.singletonList(late), t.searchParticipants("a", 10));
+        assertEquals(3, t.countParticipants(""));
+    }
+
+    @Test
+    void renameReachesEveryTournamentHoldingTheParticipant() {
+        Tournament first = newTournament();
+        Tournament second = newTournament();
+        Participant shared = new Participant(1, "Ann", ParticipantStatus.LOW);
+        first.addParticipant(shared);
+        second.addParticipant(shared);
+        first.findParticipantsByName("ann");
+        second.findParticipantsByName("ann");
+
+        shared.setName("Bea");
+        assertEquals(Collections.singletonList(shared), first.findParticipantsByName("bea"));
+        assertEquals(Collections.singletonList(shared), second.findParticipantsByName("bea"));
+
+        // Once removed, renames are no longer reported to that tournament
+        first.removeParticipant(1);
+        shared.setName("Cy");
+        assertTrue(first.findParticipantsByName("cy").isEmpty());
+        assertEquals(Collections.singletonList(shared), second.findParticipantsByName("cy"));
+    }
+}
@@ -0,0 +1,127 @@
+package com.molights.tournament;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class RoundRobinScheduleTest {
+
+    @Test
+    void circleMethodPairsEveryoneOnceAndBalancesColours() {
+        for (int players = 2; players <= 15; players++) {
+            RoundRobinSchedule schedule = new RoundRobinSchedule(players, false);
+            assertEquals(players % 2 == 0 ? players - 1 : players, schedule.getRounds());
+            int[][] met = new int[players][players];
+            int[] rests = new int[players];
+            int[] firsts = new int[players];
+            int[] seconds = new int[players];
+            for (int round = 1; round <= schedule.getRounds(); round++) {
+                boolean[] seated = new boolean[players];
+                for (int board = 0; board < schedule.getBoards(); board++) {
+                    int a = schedule.player1(round, board);
+                    int b = schedule.player2(round, board);
+                    if (a == RoundRobinSchedule.REST || b == RoundRobinSchedule.REST) {
+                        int resting = a == RoundRobinSchedule.REST ? b : a;
+                        assertFalse(seated[resting]);
+                        seated[resting] = true;
+                        rests[resting]++;
+                        continue;
+                    }
+                    assertFalse(seated[a] || seated[b]);
+                    seated[a] = true;
+                    seated[b] = true;
+                    met[a][b]++;
+                    met[b][a]++;
+                    firsts[a]++;
+                    seconds[b]++;
+                }
+            }
+            for (int a = 0; a < players; a++) {
+                assertEquals(players % 2, rests[a]);
+                assertTrue(Math.abs(firsts[a] - seconds[a]) <= 1, "Colours of " + a + " of " + players);
+                for (int b = 0; b < players; b++) {
+                    assertEquals(a == b ? 0 : 1, met[a][b]);
+                }
+            }
+        }
+    }
+
+    @Test
+    void secondCycleRepeatsTheFirstWithColoursReversed() {
+        RoundRobinSchedule schedule = new RoundRobinSchedule(9, true);
+        int half = schedule.getRounds() / 2;
+        assertEquals(18, schedule.getRounds());
+        for (int round = 1; round <= half; round++) {
+            for (int board = 0; board < schedule.getBoards(); board++) {
+                assertEquals(schedule.player1(round, board), schedule.player2(round + half, board));
+                assertEquals(schedule.player2(round, board), schedule.player1(round + half, board));
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> schedule.player1(0, 0));
+        assertThrows(IllegalArgumentException.class, () -> schedule.player1(19, 0));
+        assertThrows(IllegalArgumentException.class, () -> schedule.player2(1, 5));
+        assertThrows(IllegalArgumentException.class, () -> new RoundRobinSchedule(1, false));
+    }
+
+    @Test
+    void roundRobinTournamentPlaysTheWholeSchedule() {
+        Tournament t = Fixtures.started(Fixtures.newTournament("Robin", TournamentFormat.ROUND_ROBIN, 7, 4));
+        assertEquals(7, t.getTotalRounds());
+        Set<String> pairs = new HashSet<>();
+        while (!t.isComplete()) {
+            t.generateNextRound();
+            List<Match> round = t.getRoundMatches(t.getCurrentRound());
+            // The player sitting out gets no match
+            assertEquals(3, round.size());
+            for (Match m : round) {
+                int low = Math.min(m.getPlayer1().getId(), m.getPlayer2().getId());
+                int high = Math.max(m.getPlayer1().getId(), m.getPlayer2().getId());
+                assertTrue(pairs.add(low + "-" + high));
+            }
+            t.generateRoundResultsBatch(t.getCurrentRound());
+        }
+        assertEquals(21, pairs.size());
+        assertEquals(7, t.getCurrentRound());
+    }
+
+    @Test
+    void groupsAreSnakeSeededAndQualifyByPlace() {
+        List<Participant> field = Fixtures.roster(8);
+        GroupStage stage = new GroupStage("Stage", field, 3, TournamentFormat.ROUND_ROBIN);
+        assertEquals("Stage - Group C", stage.getGroup(2).getName());
+        assertEquals(Arrays.asList(1, 6, 7), Fixtures.ids(stage.getGroup(0).getParticipants()));
+        assertEquals(Arrays.asList(2, 5, 8), Fixtures.ids(stage.getGroup(1).getParticipants()));
+        assertEquals(Arrays.asList(3, 4), Fixtures.ids(stage.getGroup(2).getParticipants()));
+
+        stage.simulate(21);
+        assertTrue(stage.isComplete());
+        List<Participant> qualifiers = stage.getQualifiers(2);
+        List<Participant> expected = new ArrayList<>();
+        for (int place = 0; place < 2; place++) {
+            for (Tournament group : stage.getGroups()) {
+                expected.add(group.getStandings().get(place));
+            }
+        }
+        assertEquals(expected, qualifiers);
+
+        // Same seed, same results
+        GroupStage again = new GroupStage("Stage", Fixtures.roster(8), 3, TournamentFormat.ROUND_ROBIN);
+        again.simulate(21);
+        assertEquals(Fixtures.ids(qualifiers), Fixtures.ids(again.getQualifiers(2)));
+
+        assertThrows(IllegalArgumentException.class,
+                     () -> new GroupStage("Stage", field, 5, TournamentFormat.ROUND_ROBIN));
+        assertThrows(IllegalArgumentException.class,
+                     () -> new GroupStage("Stage", field, 2, TournamentFormat.SWISS));
+        assertThrows(IllegalArgumentException.class, () -> stage.getQualifiers(-1));
+    }
+}
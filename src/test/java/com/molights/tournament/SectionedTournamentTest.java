@@ -0,0 +1,117 @@
+package com.molights.tournament;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class SectionedTournamentTest {
+
+    private static SectionedTournament newEvent(int players, int promotion) {
+        SectionedTournament event = new SectionedTournament("Open");
+        for (Participant p : Fixtures.roster(players)) {
+            event.addParticipant(p);
+        }
+        event.setPromotion(promotion);
+        event.startTournament();
+        return event;
+    }
+
+    /**
+     * Play every round, returning the pairings and the final leaderboard.
+     */
+    private static List<String> playOut(SectionedTournament event, long seed) {
+        List<String> log = new ArrayList<>();
+        while (!event.isComplete()) {
+            event.generateNextRound();
+            for (Tournament section : event.getSections()) {
+                for (Match m : section.getRoundMatches(event.getCurrentRound())) {
+                    log.add(m.getPlayer1().getId() + "-" + (m.isBye() ? 0 : m.getPlayer2().getId()));
+                }
+            }
+            event.generateRoundResultsBatch(seed + event.getCurrentRound());
+        }
+        for (Participant p : event.getLeaderboard()) {
+            log.add(p.getId() + ":" + p.getScore());
+        }
+        return log;
+    }
+
+    @Test
+    void promotedEventsArePairedReproducibly() {
+        List<String> first = playOut(newEvent(301, 5), 9);
+        for (int run = 0; run < 5; run++) {
+            assertEquals(first, playOut(newEvent(301, 5), 9));
+        }
+        assertNotEquals(first, playOut(newEvent(301, 5), 10));
+    }
+
+    @Test
+    void promotionSwapsPlayersAndKeepsEveryoneInOneSection() {
+        SectionedTournament event = newEvent(90, 3);
+        List<Set<Integer>> before = new ArrayList<>();
+        event.generateNextRound();
+        event.generateRoundResultsBatch(1);
+        for (Tournament section : event.getSections()) {
+            Set<Integer> ids = new HashSet<>();
+            for (Participant p : section.getParticipants()) {
+                ids.add(p.getId());
+            }
+            before.add(ids);
+        }
+        event.generateNextRound();
+
+        Set<Integer> seen = new HashSet<>();
+        for (int s = 0; s < event.getSections().size(); s++) {
+            Tournament section = event.getSections().get(s);
+            int moved = 0;
+            for (Participant p : section.getParticipants()) {
+                assertTrue(seen.add(p.getId()));
+                if (!before.get(s).contains(p.getId())) {
+                    moved++;
+                }
+            }
+            // Top and bottom sections border one other section, the middle one two
+            assertEquals(s == 1 ? 6 : 3, moved);
+            assertEquals(before.get(s).size(), section.getParticipants().size());
+            // Published once every section was paired
+            assertEquals(section.getVersion(), section.getPublishedSnapshot().getVersion());
+        }
+        assertEquals(90, seen.size());
+    }
+
+    @Test
+    void leaderboardTopMatchesAFullSortOfTheField() {
+        SectionedTournament event = newEvent(200, 4);
+        playOut(event, 3);
+        List<Participant> all = new ArrayList<>();
+        for (Tournament section : event.getSections()) {
+            all.addAll(section.getParticipants());
+        }
+        all.sort(Tournament.STANDINGS_ORDER);
+        assertEquals(all, event.getLeaderboard());
+        for (int limit : new int[] {0, 1, 20, 150, 500}) {
+            assertEquals(all.subList(0, Math.min(limit, all.size())), event.getLeaderboard(limit));
+        }
+    }
+
+    @Test
+    void topStandingsSelectWithoutTheCachedOrder() {
+        SectionedTournament event = newEvent(120, 0);
+        playOut(event, 5);
+        for (Tournament section : event.getSections()) {
+            List<Participant> standings = section.getStandings();
+            // A change invalidates the cached order
+            section.stateChanged();
+            for (int limit : new int[] {0, 1, 7, standings.size()}) {
+                assertEquals(standings.subList(0, limit), section.getTopStandings(limit));
+            }
+        }
+    }
+}
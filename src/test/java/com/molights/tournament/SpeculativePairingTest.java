@@ -0,0 +1,152 @@
+package com.molights.tournament;
+
+import static com.molights.tournament.Fixtures.pairings;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class SpeculativePairingTest {
+
+    /**
+     * @return An 8-player event playing 5 rounds, more than the 3 derived
+     *         from the field size, with its 4th round paired and all but
+     *         two of its results in
+     */
+    private static Tournament almostPlayedRound() {
+        Tournament t = Fixtures.newTournament("Speculative", 8, 12);
+        t.startTournament(5);
+        for (int round = 1; round <= 3; round++) {
+            t.generateNextRound();
+            t.generateRoundResultsBatch(round);
+        }
+        t.generateNextRound();
+        List<Match> open = outstanding(t);
+        for (int i = 2; i < open.size(); i++) {
+            t.setMatchResult(open.get(i), Match.MatchResult.DRAW);
+        }
+        return t;
+    }
+
+    private static List<Match> outstanding(Tournament t) {
+        List<Match> open = new ArrayList<>();
+        for (Match match : t.getRoundMatches(t.getCurrentRound())) {
+            if (!match.isBye() && !match.isPlayed()) {
+                open.add(match);
+            }
+        }
+        return open;
+    }
+
+    private static void awaitPrepared(SpeculativePairing speculative, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (speculative.getPreparedCount() < count && speculative.getFailures() == 0
+                && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertNull(speculative.getLastFailure());
+        assertEquals(count, speculative.getPreparedCount());
+    }
+
+    /**
+     * @return Pairing the pairing algorithm produces for the next round
+     */
+    private static List<String> expectedNextRound(Tournament t) {
+        Tournament copy = TournamentReplay.restore(TournamentRecord.of(t));
+        copy.generateNextRound();
+        return pairings(copy.getRoundMatches(copy.getCurrentRound()));
+    }
+
+    @Test
+    void preparedPairingIsCommittedForTheActualResults() throws Exception {
+        Tournament t = almostPlayedRound();
+        try (SpeculativePairing speculative = new SpeculativePairing(t)) {
+            assertTrue(speculative.refresh());
+            // Every combination of the two outstanding results
+            awaitPrepared(speculative, 9);
+
+            List<Match> open = outstanding(t);
+            speculative.reportResult(open.get(0), Match.MatchResult.WIN_PLAYER2);
+            speculative.reportResult(open.get(1), Match.MatchResult.DRAW);
+            List<String> expected = expectedNextRound(t);
+
+            assertTrue(speculative.generateNextRound());
+            assertEquals(expected, pairings(t.getRoundMatches(t.getCurrentRound())));
+            assertEquals(1, speculative.getHits());
+            assertEquals(0, speculative.getMisses());
+            assertEquals(0, speculative.getFailures());
+        }
+    }
+
+    @Test
+    void tooManyOutstandingResultsFallBack() {
+        Tournament t = almostPlayedRound();
+        t.undo();
+        t.undo();
+        try (SpeculativePairing speculative = new SpeculativePairing(t, 2, 9)) {
+            assertFalse(speculative.refresh());
+            // Entered past the speculation, which would start at two outstanding
+            for (Match match : outstanding(t)) {
+                t.setMatchResult(match, Match.MatchResult.WIN_PLAYER1);
+            }
+            List<String> expected = expectedNextRound(t);
+
+            assertFalse(speculative.generateNextRound());
+            assertEquals(expected, pairings(t.getRoundMatches(t.getCurrentRound())));
+            assertEquals(0, speculative.getHits());
+            assertEquals(1, speculative.getMisses());
+        }
+    }
+
+    @Test
+    void otherChangesInvalidateTheSpeculation() throws Exception {
+        Tournament t = almostPlayedRound();
+        try (SpeculativePairing speculative = new SpeculativePairing(t)) {
+            assertTrue(speculative.refresh());
+            awaitPrepared(speculative, 9);
+
+            for (Match match : outstanding(t)) {
+                t.setMatchResult(match, Match.MatchResult.DRAW);
+            }
+            // A withdrawal is not one of the outstanding results
+            t.withdrawParticipant(t.getStandings().get(0).getId());
+            List<String> expected = expectedNextRound(t);
+
+            assertFalse(speculative.generateNextRound());
+            assertEquals(expected, pairings(t.getRoundMatches(t.getCurrentRound())));
+            assertEquals(1, speculative.getMisses());
+        }
+    }
+
+    @Test
+    void failingWorkersAreCountedAndFallBack() throws Exception {
+        Tournament t = almostPlayedRound();
+        t.addPairingConstraint((tournament, players, codes) -> {
+            if (Thread.currentThread().getName().equals("speculative-pairing")) {
+                throw new IllegalStateException("Not on this thread");
+            }
+        });
+        try (SpeculativePairing speculative = new SpeculativePairing(t)) {
+            assertTrue(speculative.refresh());
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while (speculative.getFailures() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertTrue(speculative.getFailures() > 0);
+            assertNotNull(speculative.getLastFailure());
+            assertEquals("Not on this thread", speculative.getLastFailure().getMessage());
+
+            for (Match match : outstanding(t)) {
+                speculative.reportResult(match, Match.MatchResult.WIN_PLAYER1);
+            }
+            assertFalse(speculative.generateNextRound());
+            assertEquals(1, speculative.getMisses());
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.molights.tournament;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class StandingsIndexTest {
+
+    private static StandingsSnapshot playedSnapshot(int players, int rounds, long seed) {
+        return Fixtures.played("Index", players, rounds, seed).publishSnapshot();
+    }
+
+    /**
+     * @return Ranks matching a filter, found by walking the whole snapshot
+     */
+    private static int[] bruteForce(StandingsSnapshot snapshot, ParticipantStatus status, Double score,
+                                    Boolean hadBye) {
+        List<Integer> ranks = new ArrayList<>();
+        for (int rank = 1; rank <= snapshot.getParticipantCount(); rank++) {
+            if ((status == null || snapshot.getStatus(rank) == status)
+                    && (score == null || snapshot.getScore(rank) == score)
+                    && (hadBye == null || snapshot.hadBye(rank) == hadBye)) {
+                ranks.add(rank);
+            }
+        }
+        int[] result = new int[ranks.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ranks.get(i);
+        }
+        return result;
+    }
+
+    private static void assertMatchesBruteForce(StandingsSnapshot snapshot) {
+        StandingsIndex index = snapshot.getIndex();
+        List<Double> scores = new ArrayList<>();
+        scores.add(null);
+        for (double score : index.getScoreGroups()) {
+            scores.add(score);
+        }
+        // A score nobody has and one that is not a half point
+        scores.add(-1.0);
+        scores.add(0.25);
+
+        List<ParticipantStatus> statuses = new ArrayList<>(Arrays.asList(ParticipantStatus.values()));
+        statuses.add(null);
+        for (ParticipantStatus status : statuses) {
+            for (Double score : scores) {
+                for (Boolean hadBye : new Boolean[] {null, true, false}) {
+                    int[] expected = bruteForce(snapshot, status, score, hadBye);
+                    String filter = status + " " + score + " " + hadBye;
+                    assertEquals(expected.length, index.count(status, score, hadBye), filter);
+                    assertArrayEquals(expected, index.find(status, score, hadBye, 0, Integer.MAX_VALUE), filter);
+                    for (int limit : new int[] {1, 3, 10}) {
+                        for (int offset = 0; offset <= expected.length + 1; offset += limit) {
+                            int to = Math.min(expected.length, offset + limit);
+                            int[] page = offset < to ? Arrays.copyOfRange(expected, offset, to) : new int[0];
+                            assertArrayEquals(page, index.find(status, score, hadBye, offset, limit),
+                                              filter + " offset " + offset + " limit " + limit);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void filtersAndPagesMatchAWalkOverTheStandings() {
+        for (int players = 1; players <= 40; players += 3) {
+            for (int rounds = 0; rounds <= 4; rounds++) {
+                assertMatchesBruteForce(playedSnapshot(players, rounds, players * 10L + rounds));
+            }
+        }
+        assertMatchesBruteForce(playedSnapshot(1001, 7, 3));
+    }
+
+    @Test
+    void scoreGroupsAreDistinctScoresHighestFirst() {
+        StandingsSnapshot snapshot = playedSnapshot(57, 5, 11);
+        List<Double> expected = new ArrayList<>();
+        for (int rank = 1; rank <= snapshot.getParticipantCount(); rank++) {
+            if (expected.isEmpty() || expected.get(expected.size() - 1) != snapshot.getScore(rank)) {
+                expected.add(snapshot.getScore(rank));
+            }
+        }
+        double[] groups = snapshot.getIndex().getScoreGroups();
+        assertEquals(expected.size(), groups.length);
+        for (int i = 0; i < groups.length; i++) {
+            assertEquals(expected.get(i), groups[i]);
+        }
+    }
+
+    @Test
+    void indexIsBuiltOncePerSnapshot() {
+        StandingsSnapshot snapshot = playedSnapshot(10, 2, 1);
+        assertSame(snapshot.getIndex(), snapshot.getIndex());
+    }
+
+    @Test
+    void emptyPagesAndBadArguments() {
+        StandingsIndex index = playedSnapshot(12, 2, 5).getIndex();
+        assertEquals(0, index.find(null, null, null, 0, 0).length);
+        assertEquals(0, index.find(null, null, null, 12, 5).length);
+        assertEquals(0, playedSnapshot(0, 0, 1).getIndex().count(null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> index.find(null, null, null, -1, 5));
+        assertThrows(IllegalArgumentException.class, () -> index.find(null, null, null, 0, -1));
+    }
+}
@@ -0,0 +1,119 @@
+package com.molights.tournament;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+class StandingsSnapshotTest {
+
+    /**
+     * @return Why the snapshot is inconsistent, or null if it is not
+     */
+    private static String inconsistency(StandingsSnapshot s) {
+        int played = 0;
+        for (int i = 0; i < s.getMatchCount(); i++) {
+            if (s.getResultCode(i) != MatchLedger.NOT_PLAYED) {
+                played++;
+            }
+        }
+        double total = 0;
+        for (int rank = 1; rank <= s.getParticipantCount(); rank++) {
+            total += s.getScore(rank);
+            if (rank > 1 && s.getScore(rank) > s.getScore(rank - 1)) {
+                return "Rank " + rank + " outscores rank " + (rank - 1) + " at version " + s.getVersion();
+            }
+            if (s.rankOf(s.getId(rank)) != rank) {
+                return "Rank of " + s.getId(rank) + " is not " + rank;
+            }
+        }
+        if (total != played) {
+            return total + " points for " + played + " results at version " + s.getVersion();
+        }
+        return null;
+    }
+
+    @Test
+    void snapshotCopiesTheStandingsAtItsVersion() {
+        Tournament t = Fixtures.played("Snapshot", 15, 2, 6);
+        StandingsSnapshot s = t.publishSnapshot();
+        assertSame(s, t.getPublishedSnapshot());
+        assertEquals(t.getVersion(), s.getVersion());
+        assertEquals(2, s.getRound());
+        assertEquals(t.getTotalRounds(), s.getTotalRounds());
+        assertEquals(t.getMatches().size(), s.getMatchCount());
+
+        List<Participant> standings = t.getStandings();
+        for (int rank = 1; rank <= standings.size(); rank++) {
+            Participant p = standings.get(rank - 1);
+            assertEquals(p.getId(), s.getId(rank));
+            assertEquals(p.getName(), s.getName(rank));
+            assertEquals(p.getScore(), s.getScore(rank));
+            assertEquals(p.getOpponentsSumScore(), s.getBuchholz(rank));
+            assertEquals(p.getWinCount(), s.getWinCount(rank));
+            assertEquals(p.getWasParticipantByed(), s.hadBye(rank));
+        }
+        assertNull(inconsistency(s));
+        assertEquals(-1, s.rankOf(99));
+        assertThrows(IndexOutOfBoundsException.class, () -> s.getId(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> s.getId(16));
+
+        // Later changes leave the snapshot as it was
+        String leader = s.getName(1);
+        double score = s.getScore(1);
+        t.generateNextRound();
+        t.generateRoundResultsBatch(1);
+        standings.get(0).setName("Renamed");
+        assertEquals(leader, s.getName(1));
+        assertEquals(score, s.getScore(1));
+        assertTrue(t.getPublishedSnapshot().getVersion() > s.getVersion());
+    }
+
+    @Test
+    void readersNeverSeeAHalfAppliedRound() throws Exception {
+        Tournament t = Fixtures.started(Fixtures.newTournament("Snapshot", 301, 9));
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread[] readers = new Thread[3];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = new Thread(() -> {
+                long last = -1;
+                while (!done.get() && failure.get() == null) {
+                    StandingsSnapshot s = t.getPublishedSnapshot();
+                    String problem = s.getVersion() < last ? "Version went back to " + s.getVersion()
+                                                           : inconsistency(s);
+                    if (problem != null) {
+                        failure.set(problem);
+                    }
+                    last = s.getVersion();
+                }
+            });
+            readers[r].start();
+        }
+        try {
+            while (!t.isComplete()) {
+                t.generateNextRound();
+                t.generateRoundResultsBatch(t.getCurrentRound());
+                // Rolled back and entered again, each time published whole
+                for (int i = 0; i < 5; i++) {
+                    t.undo();
+                    t.generateRoundResultsBatch(t.getCurrentRound() + i);
+                }
+            }
+        } finally {
+            done.set(true);
+            for (Thread reader : readers) {
+                reader.join();
+            }
+        }
+        assertNull(failure.get());
+        assertEquals(t.getVersion(), t.getPublishedSnapshot().getVersion());
+    }
+}
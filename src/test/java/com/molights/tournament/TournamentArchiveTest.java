@@ -0,0 +1,313 @@
+package com.molights.tournament;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TournamentArchiveTest {
+
+    private static final long SEGMENT_BYTES = 1L << 20;
+
+    @TempDir
+    Path directory;
+
+    private static Tournament played(int number, int players) {
+        return Fixtures.playedOut("Event " + number, players, number);
+    }
+
+    private static void assertArchived(Tournament expected, TournamentArchive.Entry entry) {
+        assertEquals(expected.getName(), entry.getTournamentName());
+        assertEquals(expected.getSeed(), entry.getSeed());
+        List<Participant> standings = expected.getStandings();
+        assertEquals(standings.size(), entry.getParticipantCount());
+        for (int rank = 1; rank <= standings.size(); rank++) {
+            Participant p = standings.get(rank - 1);
+            assertEquals(p.getId(), entry.getId(rank));
+            assertEquals(p.getName(), entry.getName(rank));
+            assertEquals(p.getScore(), entry.getScore(rank));
+            assertEquals(p.getOpponentsSumScore(), entry.getBuchholz(rank));
+        }
+        assertEquals(expected.getCurrentRound(), entry.getRoundCount());
+        for (int round = 1; round <= entry.getRoundCount(); round++) {
+            List<Match> matches = expected.getRoundMatches(round);
+            assertEquals(matches.size(), entry.getMatchCount(round));
+            for (int i = 0; i < matches.size(); i++) {
+                Match m = matches.get(i);
+                assertEquals(m.getPlayer1().getId(), entry.getPlayer1Id(round, i));
+                assertEquals(m.isBye() ? 0 : m.getPlayer2().getId(), entry.getPlayer2Id(round, i));
+                assertEquals(m.isBye() ? MatchLedger.BYE : MatchLedger.code(m.getResult()),
+                             entry.getResultCode(round, i));
+            }
+        }
+    }
+
+    private List<Path> files(String suffix) throws IOException {
+        List<Path> found = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + suffix)) {
+            for (Path path : stream) {
+                found.add(path);
+            }
+        }
+        found.sort(null);
+        return found;
+    }
+
+    private static void truncate(Path file, long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+        }
+    }
+
+    @Test
+    void entriesSurviveCloseAndReopen() throws IOException {
+        List<Tournament> tournaments = new ArrayList<>();
+        try (TournamentArchive archive = TournamentArchive.open(directory, SEGMENT_BYTES)) {
+            for (int i = 0; i < 5; i++) {
+                tournaments.add(played(i + 1, 9 + i));
+                assertEquals(i, archive.append(tournaments.get(i)));
+            }
+            assertArchived(tournaments.get(2), archive.get(2));
+        }
+        assertEquals(1, files(".idx").size());
+
+        try (TournamentArchive archive = TournamentArchive.open(directory, SEGMENT_BYTES)) {
+            assertEquals(5, archive.size());
+            for (int i = 0; i < 5; i++) {
+                assertArchived(tournaments.get(i), archive.get(i));
+            }
+            assertFalse(archive.contains(5));
+            assertThrows(IllegalArgumentException.class, () -> archive.get(5));
+        }
+    }
+
+    @Test
+    void tornTailIsCutOffOnOpen() throws IOException {
+        List<Tournament> tournaments = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            tournaments.add(played(i + 1, 8));
+        }
+        // The same entries written to a second archive give the length of
+        // the valid prefix the recovery has to cut back to
+        Path prefixDirectory = directory.resolve("prefix");
+        try (TournamentArchive archive = TournamentArchive.open(prefixDirectory, SEGMENT_BYTES)) {
+            archive.append(tournaments.get(0));
+            archive.append(tournaments.get(1));
+        }
+        long twoEntries = Files.size(prefixDirectory.resolve("00000001.seg"));
+
+        Path archiveDirectory = directory.resolve("archive");
+        try (TournamentArchive archive = TournamentArchive.open(archiveDirectory, SEGMENT_BYTES)) {
+            for (Tournament tournament : tournaments) {
+                archive.append(tournament);
+            }
+        }
+        // A crash halfway through the last append: no index, half an entry
+        Path segment = archiveDirectory.resolve("00000001.seg");
+        truncate(segment, Files.size(segment) - 7);
+        Files.delete(archiveDirectory.resolve("00000001.idx"));
+
+        try (TournamentArchive archive = TournamentArchive.open(archiveDirectory, SEGMENT_BYTES)) {
+            assertEquals(2, archive.size());
+            assertEquals(twoEntries, Files.size(segment));
+            assertTrue(Files.exists(archiveDirectory.resolve("00000001.idx")));
+            assertArchived(tournaments.get(0), archive.get(0));
+            assertArchived(tournaments.get(1), archive.get(1));
+
+            // Appending after the recovery reuses the lost ID
+            Tournament again = played(9, 10);
+            assertEquals(2, archive.append(again));
+            assertArchived(again, archive.get(2));
+        }
+    }
+
+    @Test
+    void corruptEntryEndsTheValidPrefix() throws IOException {
+        List<Tournament> tournaments = new ArrayList<>();
+        try (TournamentArchive archive = TournamentArchive.open(directory, SEGMENT_BYTES)) {
+            for (int i = 0; i < 3; i++) {
+                tournaments.add(played(i + 1, 8));
+                archive.append(tournaments.get(i));
+            }
+        }
+        Path segment = files(".seg").get(0);
+        long size = Files.size(segment);
+        // Flip a byte near the end, inside the body of the last entry
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer one = ByteBuffer.allocate(1);
+            channel.read(one, size - 3);
+            one.put(0, (byte) (one.get(0) ^ 0x5A));
+            one.rewind();
+            channel.write(one, size - 3);
+        }
+        Files.delete(files(".idx").get(0));
+
+        try (TournamentArchive archive = TournamentArchive.open(directory, SEGMENT_BYTES)) {
+            assertEquals(2, archive.size());
+            assertArchived(tournaments.get(1), archive.get(1));
+        }
+    }
+
+    @Test
+    void staleIndexIsRebuiltFromTheSegment() throws IOException {
+        Tournament first = played(1, 8);
+        try (TournamentArchive archive = TournamentArchive.open(directory, SEGMENT_BYTES)) {
+            archive.append(first);
+        }
+        // Bytes appended after the index was written: the index no longer
+        // matches the segment length, so the segment is scanned
+        Path segment = files(".seg").get(0);
+        long sealed = Files.size(segment);
+        Files.write(segment, new byte[] {1, 2, 3, 4, 5}, StandardOpenOption.APPEND);
+
+        try (TournamentArchive archive = TournamentArchive.open(directory, SEGMENT_BYTES)) {
+            assertEquals(1, archive.size());
+            assertEquals(sealed, Files.size(segment));
+            assertArchived(first, archive.get(0));
+        }
+    }
+
+    @Test
+    void leftoverTempFilesAndOrphanIndexesAreRemoved() throws IOException {
+        Tournament first = played(1, 8);
+        try (TournamentArchive archive = TournamentArchive.open(directory, SEGMENT_BYTES)) {
+            archive.append(first);
+        }
+        Files.write(directory.resolve("00000099.seg.tmp"), new byte[] {1});
+        Files.copy(files(".idx").get(0), directory.resolve("00000098.idx"));
+
+        try (TournamentArchive archive = TournamentArchive.open(directory, SEGMENT_BYTES)) {
+            assertEquals(1, archive.size());
+        }
+        assertTrue(files(".tmp").isEmpty());
+        assertFalse(Files.exists(directory.resolve("00000098.idx")));
+    }
+
+    /**
+     * Every open and close seals one small segment.
+     */
+    private void appendInSessions(List<Tournament> tournaments, int sessions) throws IOException {
+        int perSession = tournaments.size() / sessions;
+        for (int session = 0; session < sessions; session++) {
+            try (TournamentArchive archive = TournamentArchive.open(directory, SEGMENT_BYTES)) {
+                for (int i = session * perSession; i < (session + 1) * perSession; i++) {
+                    archive.append(tournaments.get(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    void compactionMergesSmallSegmentsAndKeepsViewsReadable() throws IOException {
+        List<Tournament> tournaments = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            tournaments.add(played(i + 1, 8 + i));
+        }
+        // Three segments stay under the automatic compaction threshold
+        appendInSessions(tournaments, 3);
+        assertEquals(3, files(".seg").size());
+
+        List<TournamentArchive.Entry> views = new ArrayList<>();
+        try (TournamentArchive archive = TournamentArchive.open(directory, SEGMENT_BYTES)) {
+            assertEquals(3, archive.getSegmentCount());
+            for (int i = 0; i < tournaments.size(); i++) {
+                views.add(archive.get(i));
+            }
+            assertEquals(2, archive.compact());
+            assertEquals(1, archive.getSegmentCount());
+            assertEquals(0, archive.compact());
+            // Views taken before the merge still read the old mapping
+            for (int i = 0; i < tournaments.size(); i++) {
+                assertArchived(tournaments.get(i), views.get(i));
+                assertArchived(tournaments.get(i), archive.get(i));
+            }
+        }
+        assertEquals(1, files(".seg").size());
+        assertEquals(1, files(".idx").size());
+
+        try (TournamentArchive archive = TournamentArchive.open(directory, SEGMENT_BYTES)) {
+            assertEquals(tournaments.size(), archive.size());
+            for (int i = 0; i < tournaments.size(); i++) {
+                assertArchived(tournaments.get(i), archive.get(i));
+            }
+        }
+    }
+
+    @Test
+    void compactionRacesAppendsAndReads() throws Exception {
+        List<Tournament> tournaments = new ArrayList<>();
+        for (int i = 0; i < 36; i++) {
+            tournaments.add(played(i + 1, 6 + i % 5));
+        }
+        appendInSessions(tournaments.subList(0, 16), 8);
+
+        // Eight small segments: opening starts a compaction on its own
+        try (TournamentArchive archive = TournamentArchive.open(directory, SEGMENT_BYTES)) {
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            Thread reader = new Thread(() -> {
+                try {
+                    for (int pass = 0; pass < 50; pass++) {
+                        for (int i = 0; i < 16; i++) {
+                            assertArchived(tournaments.get(i), archive.get(i));
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            reader.start();
+            CompletableFuture<Integer> compaction = archive.compactAsync();
+            for (int i = 16; i < tournaments.size(); i++) {
+                assertEquals(i, archive.append(tournaments.get(i)));
+            }
+            compaction.join();
+            reader.join();
+            assertNull(failure.get());
+            // Merged segment plus the active one
+            assertEquals(2, archive.getSegmentCount());
+            for (int i = 0; i < tournaments.size(); i++) {
+                assertArchived(tournaments.get(i), archive.get(i));
+            }
+        }
+
+        try (TournamentArchive archive = TournamentArchive.open(directory, SEGMENT_BYTES)) {
+            assertEquals(tournaments.size(), archive.size());
+            for (int i = 0; i < tournaments.size(); i++) {
+                assertArchived(tournaments.get(i), archive.get(i));
+            }
+        }
+    }
+
+    @Test
+    void rejectsUnfinishedTournamentsAndClosedArchive() throws IOException {
+        Tournament running = new Tournament("Running");
+        running.setLogging(false);
+        for (int id = 1; id <= 4; id++) {
+            running.addParticipant(new Participant(id, "P" + id, ParticipantStatus.LOW));
+        }
+        running.startTournament();
+        running.generateNextRound();
+
+        TournamentArchive archive = TournamentArchive.open(directory, SEGMENT_BYTES);
+        assertThrows(IllegalStateException.class, () -> archive.append(running));
+        archive.close();
+        assertThrows(IllegalStateException.class, () -> archive.append(played(1, 4)));
+        assertTrue(files(".seg").isEmpty());
+    }
+}
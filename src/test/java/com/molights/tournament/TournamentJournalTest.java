@@ -0,0 +1,187 @@
+package com.molights.tournament;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class TournamentJournalTest {
+
+    private static Tournament newTournament(int players) {
+        return Fixtures.newTournament("Journal", players, 42);
+    }
+
+    /**
+     * Everything a result touches: score, counters, BYE flag and opponents.
+     */
+    private static String state(Tournament t) {
+        StringBuilder sb = new StringBuilder();
+        for (Participant p : t.getParticipants()) {
+            List<Integer> opponents = new ArrayList<>();
+            for (Participant o : p.getOpponents()) {
+                opponents.add(o.getId());
+            }
+            Collections.sort(opponents);
+            sb.append(p.getId()).append(' ').append(p.getScore())
+              .append(' ').append(p.getWinCount()).append('/').append(p.getDrawCount()).append('/').append(p.getLossCount())
+              .append(' ').append(p.getWasParticipantByed()).append(' ').append(opponents).append('\n');
+        }
+        return sb.append(t.getCurrentRound()).append(' ').append(t.getMatches().size()).toString();
+    }
+
+    @Test
+    void undoTakesBackASingleResult() {
+        Tournament t = newTournament(4);
+        t.startTournament();
+        t.generateNextRound();
+        String before = state(t);
+        Match match = t.getRoundMatches(1).get(0);
+
+        t.setMatchResult(match, Match.MatchResult.DRAW);
+        assertTrue(match.getPlayer1().hasPlayedWith(match.getPlayer2()));
+        assertTrue(t.undo());
+
+        assertEquals(Match.MatchResult.NOT_PLAYED, match.getResult());
+        assertFalse(match.getPlayer1().hasPlayedWith(match.getPlayer2()));
+        assertEquals(before, state(t));
+    }
+
+    @Test
+    void rollbackRestoresEveryRoundAndResult() {
+        Tournament t = newTournament(11);
+        t.startTournament();
+        Tournament.Snapshot start = t.snapshot();
+        String before = state(t);
+
+        while (!t.isComplete()) {
+            t.generateNextRound();
+            t.generateRoundResultsBatch(t.getCurrentRound());
+        }
+        assertNotEquals(before, state(t));
+
+        t.rollback(start);
+        assertEquals(before, state(t));
+        assertEquals(0, t.getCurrentRound());
+
+        // The same rounds can be played again after the rollback
+        t.generateNextRound();
+        assertEquals(1, t.getCurrentRound());
+    }
+
+    @Test
+    void rollbackOfBatchClearsWholeRound() {
+        Tournament t = newTournament(64);
+        t.startTournament();
+        t.generateNextRound();
+        Tournament.Snapshot paired = t.snapshot();
+        String before = state(t);
+
+        assertEquals(32, t.generateRoundResultsBatch(7));
+        t.rollback(paired);
+
+        for (Match match : t.getRoundMatches(1)) {
+            assertFalse(match.isPlayed());
+        }
+        assertEquals(before, state(t));
+    }
+
+    @Test
+    void rematchKeepsOpponentsUntilTheLastGameIsTakenBack() {
+        Tournament t = newTournament(2);
+        t.setFormat(TournamentFormat.DOUBLE_ROUND_ROBIN);
+        t.startTournament();
+        t.generateNextRound();
+        Match first = t.getRoundMatches(1).get(0);
+        t.setMatchResult(first, Match.MatchResult.WIN_PLAYER1);
+        t.generateNextRound();
+        Match second = t.getRoundMatches(2).get(0);
+        t.setMatchResult(second, Match.MatchResult.DRAW);
+        Participant a = first.getPlayer1();
+        Participant b = first.getPlayer2();
+
+        t.setMatchResult(second, Match.MatchResult.NOT_PLAYED);
+        assertTrue(a.hasPlayedWith(b));
+        assertTrue(b.hasPlayedWith(a));
+        assertEquals(1, a.getOpponents().size());
+
+        t.setMatchResult(first, Match.MatchResult.NOT_PLAYED);
+        assertFalse(a.hasPlayedWith(b));
+        assertFalse(b.hasPlayedWith(a));
+    }
+
+    @Test
+    void speculateLeavesStateAndPublishedSnapshotAlone() {
+        Tournament t = newTournament(8);
+        t.startTournament();
+        t.generateNextRound();
+        String before = state(t);
+        StandingsSnapshot published = t.getPublishedSnapshot();
+
+        double leader = t.speculate(x -> {
+            x.generateRoundResultsBatch(1);
+            x.generateNextRound();
+            StandingsSnapshot inside = x.publishSnapshot();
+            assertEquals(2, inside.getRound());
+            assertSame(published, x.getPublishedSnapshot());
+            return x.getStandings().get(0).getScore();
+        });
+
+        assertEquals(1.0, leader);
+        assertEquals(before, state(t));
+        assertSame(published, t.getPublishedSnapshot());
+    }
+
+    @Test
+    void checkpointEndsTheJournal() {
+        Tournament t = newTournament(4);
+        Tournament.Snapshot early = t.snapshot();
+        t.startTournament();
+        t.generateNextRound();
+
+        t.checkpoint();
+        assertFalse(t.undo());
+        assertThrows(IllegalArgumentException.class, () -> t.rollback(early));
+
+        Tournament.Snapshot later = t.snapshot();
+        String before = state(t);
+        t.generateRoundResultsBatch(3);
+        t.rollback(later);
+        assertEquals(before, state(t));
+    }
+
+    @Test
+    void snapshotFromBeforeAnyChangeIsStaleAfterACheckpoint() {
+        Tournament t = newTournament(0);
+        Tournament.Snapshot empty = t.snapshot();
+        for (Participant p : Fixtures.roster(4)) {
+            t.addParticipant(p);
+        }
+        t.checkpoint();
+        t.startTournament();
+        t.generateNextRound();
+        String before = state(t);
+
+        // Rejected before anything is undone
+        assertThrows(IllegalArgumentException.class, () -> t.rollback(empty));
+        assertEquals(before, state(t));
+        assertTrue(t.undo());
+    }
+
+    @Test
+    void checkpointInsideScenarioIsRejected() {
+        Tournament t = newTournament(4);
+        assertThrows(IllegalStateException.class, () -> t.speculate(x -> {
+            x.checkpoint();
+            return null;
+        }));
+        assertEquals(4, t.getParticipants().size());
+    }
+}
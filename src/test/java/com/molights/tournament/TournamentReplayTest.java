@@ -0,0 +1,115 @@
+package com.molights.tournament;
+
+import static com.molights.tournament.Fixtures.saved;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TournamentReplayTest {
+
+    @TempDir
+    Path directory;
+
+    private static Tournament newTournament(int players, TournamentFormat format) {
+        return Fixtures.newTournament("Replay", format, players, 8);
+    }
+
+    private void assertRoundTrips(Tournament original) throws IOException {
+        TournamentRecord record = TournamentRecord.of(original);
+        List<String> expected = saved(original, directory);
+        for (Tournament rebuilt : new Tournament[] {TournamentReplay.replay(record), TournamentReplay.restore(record)}) {
+            assertEquals(original.getTotalRounds(), rebuilt.getTotalRounds());
+            assertEquals(original.getCurrentRound(), rebuilt.getCurrentRound());
+            assertEquals(original.isComplete(), rebuilt.isComplete());
+            assertEquals(expected, saved(rebuilt, directory));
+            assertEquals(rebuilt.getVersion(), rebuilt.getPublishedSnapshot().getVersion());
+        }
+    }
+
+    @Test
+    void replayAndRestoreRebuildAPartlyPlayedEvent() throws IOException {
+        Tournament t = newTournament(11, TournamentFormat.SWISS);
+        t.startTournament();
+        t.generateNextRound();
+        t.generateRoundResultsBatch(1);
+        t.withdrawParticipant(3);
+        t.addLateEntry(new Participant(20, "Late", ParticipantStatus.LOW), true);
+        t.generateNextRound();
+        for (Match match : t.getRoundMatches(2)) {
+            if (!match.isBye()) {
+                t.setMatchResult(match, Match.MatchResult.DRAW);
+                break;
+            }
+        }
+        assertRoundTrips(t);
+
+        Tournament firstRound = TournamentReplay.replay(TournamentRecord.of(t), 1);
+        assertEquals(1, firstRound.getCurrentRound());
+        assertTrue(firstRound.isWithdrawn(3));
+        assertEquals(12, firstRound.getParticipants().size());
+    }
+
+    @Test
+    void customRoundCountIsReplayedInFull() throws IOException {
+        Tournament t = newTournament(8, TournamentFormat.SWISS);
+        t.startTournament(5);
+        while (!t.isComplete()) {
+            t.generateNextRound();
+            t.generateRoundResultsBatch(t.getCurrentRound());
+        }
+        assertEquals(5, t.getCurrentRound());
+        assertRoundTrips(t);
+    }
+
+    @Test
+    void eventFinishedEarlyReplaysAsComplete() throws IOException {
+        Tournament t = newTournament(4, TournamentFormat.DOUBLE_ROUND_ROBIN);
+        t.startTournament();
+        int planned = t.getTotalRounds();
+        boolean ended = false;
+        while (!ended && !t.isComplete()) {
+            t.generateNextRound();
+            for (Match match : t.getRoundMatches(t.getCurrentRound())) {
+                if (match.getPlayer1().getId() == 1) {
+                    t.setMatchResult(match, Match.MatchResult.WIN_PLAYER1);
+                } else if (match.getPlayer2().getId() == 1) {
+                    t.setMatchResult(match, Match.MatchResult.WIN_PLAYER2);
+                } else {
+                    t.setMatchResult(match, Match.MatchResult.DRAW);
+                }
+            }
+            ended = t.finishEarly(1);
+        }
+        assertTrue(ended);
+        assertTrue(t.getTotalRounds() < planned);
+        assertTrue(t.isComplete());
+        assertRoundTrips(t);
+    }
+
+    @Test
+    void unstartedRecordIsPublished() throws IOException {
+        Tournament t = newTournament(5, TournamentFormat.SWISS);
+        assertRoundTrips(t);
+        Tournament replayed = TournamentReplay.replay(TournamentRecord.of(t));
+        assertEquals(5, replayed.getPublishedSnapshot().getParticipantCount());
+        assertFalse(replayed.isComplete());
+    }
+
+    @Test
+    void roundCountBeyondTheScheduleIsRejected() {
+        Tournament t = newTournament(4, TournamentFormat.ROUND_ROBIN);
+        assertThrows(IllegalArgumentException.class, () -> t.startTournament(4));
+        assertThrows(IllegalArgumentException.class, () -> t.startTournament(-1));
+        t.startTournament(2);
+        assertEquals(2, t.getTotalRounds());
+        assertThrows(IllegalArgumentException.class, () -> TournamentReplay.restore(null));
+    }
+}
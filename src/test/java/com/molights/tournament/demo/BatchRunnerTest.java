@@ -0,0 +1,141 @@
+package com.molights.tournament.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.molights.tournament.Match;
+import com.molights.tournament.Participant;
+import com.molights.tournament.ParticipantStatus;
+import com.molights.tournament.Tournament;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BatchRunnerTest {
+
+    @TempDir
+    Path directory;
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private final PrintStream out = new PrintStream(output, true);
+
+    private static BufferedReader script(String... lines) {
+        return new BufferedReader(new StringReader(String.join("\n", lines)));
+    }
+
+    private String output() {
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private String seededScript(Path file) {
+        return String.join("\n",
+                           "# Seeded event",
+                           "create Open",
+                           "quiet",
+                           "",
+                           "seed 7",
+                           "players 11",
+                           "add HIGH Alice",
+                           "start",
+                           "round",
+                           "result 1 1-0",
+                           "results auto",
+                           "play",
+                           "find Ali",
+                           "save " + file);
+    }
+
+    @Test
+    void seededScriptPlaysTheEventAndSkipsComments() throws IOException {
+        Path file = directory.resolve("open.txt");
+        assertEquals(12, new BatchRunner(out).run(new BufferedReader(new StringReader(seededScript(file)))));
+        assertTrue(output().contains("Tournament 'Open' created"));
+        assertTrue(output().contains("Added 11 participants"));
+        assertTrue(output().contains("  12  Alice"));
+        assertTrue(output().contains("1 participant found"));
+
+        List<String> lines = withoutDate(file);
+        assertTrue(lines.contains("ROUNDS: 4"));
+        assertTrue(lines.contains("CURRENT_ROUND: 4"));
+        assertTrue(output().contains("Tournament complete after 4 rounds"));
+        int round1 = lines.indexOf("=== ROUND 1 ===");
+        assertTrue(lines.get(round1 + 1).endsWith("=> 1-0"));
+        assertTrue(lines.stream().noneMatch(line -> line.endsWith("=> NOT_PLAYED")));
+
+        // The roster is all a loaded file restores
+        Tournament loaded = Tournament.loadFromFile(file.toString());
+        assertEquals(12, loaded.getParticipants().size());
+        Participant alice = loaded.searchParticipants("Alice", 1).get(0);
+        assertEquals(12, alice.getId());
+        assertEquals(ParticipantStatus.HIGH, alice.getStatus());
+
+        // The same seed reproduces the event
+        Path again = directory.resolve("again.txt");
+        new BatchRunner(out).run(new BufferedReader(new StringReader(seededScript(again))));
+        assertEquals(withoutDate(file), withoutDate(again));
+    }
+
+    @Test
+    void firstFailingCommandStopsTheRunWithItsLine() throws IOException {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                                                  () -> new BatchRunner(out).run(script("players 4")));
+        assertEquals("line 1: No tournament; use 'create' or 'load' first", e.getMessage());
+
+        e = assertThrows(IllegalArgumentException.class,
+                         () -> new BatchRunner(out).run(script("create Cup", "quiet", "# note", "players 4",
+                                                              "start", "round", "result 3 1-0")));
+        assertEquals("line 7: Round 1 has no match 3", e.getMessage());
+
+        e = assertThrows(IllegalArgumentException.class,
+                         () -> new BatchRunner(out).run(script("create Cup", "shuffle")));
+        assertEquals("line 2: Unknown command: shuffle", e.getMessage());
+        e = assertThrows(IllegalArgumentException.class,
+                         () -> new BatchRunner(out).run(script("create Cup", "early -1")));
+        assertEquals("line 2: Number of places cannot be negative", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> new BatchRunner(out).run(script("create")));
+
+        assertEquals(0, new BatchRunner(out).run(script("", "   ", "# only comments")));
+    }
+
+    @Test
+    void simulationCountsTheSameMatchesInParallel() {
+        BatchRunner.simulate(6, 15, 11, false, out);
+        String sequential = matchesLine(output());
+        output.reset();
+        BatchRunner.simulate(6, 15, 11, true, out);
+        assertTrue(output().startsWith("Simulated 6 events of 15 players in parallel"));
+        assertEquals(sequential, matchesLine(output()));
+
+        assertThrows(IllegalArgumentException.class, () -> BatchRunner.simulate(0, 15, 11, false, out));
+    }
+
+    private static List<String> withoutDate(Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (!line.startsWith("DATE: ")) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    private static String matchesLine(String text) {
+        for (String line : text.split("\\R")) {
+            if (line.startsWith("Matches:")) {
+                return line;
+            }
+        }
+        throw new AssertionError("No match count in " + text);
+    }
+}